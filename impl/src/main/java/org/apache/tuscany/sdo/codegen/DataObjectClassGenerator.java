@@ -0,0 +1,460 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.codegen;
+
+import org.apache.tuscany.sdo.impl.SlotLayout;
+import org.eclipse.emf.ecore.EClass;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates, at runtime, a DataObject class for a dynamic class, that extends
+ * {@link org.apache.tuscany.sdo.impl.CompiledDataObjectImpl} with a field for each slot of the class's {@link SlotLayout}:
+ * a field of the primitive type for each primitive slot, a long for each word of isSet bits, and an Object for each reference slot.
+ * The slot access methods and the typed eGet/eSet methods are implemented with a switch on the slot or feature ID,
+ * which falls back to the inherited implementation for anything else.
+ *
+ * @version $Rev$ $Date$
+ */
+public class DataObjectClassGenerator implements Opcodes {
+    private static final String PACKAGE = "org/apache/tuscany/sdo/impl/compiled/";
+    private static final String SUPER = "org/apache/tuscany/sdo/impl/CompiledDataObjectImpl";
+    private static final String LAYOUT = "LAYOUT";
+    private static final String LAYOUT_DESC = "Lorg/apache/tuscany/sdo/impl/SlotLayout;";
+    private static final String OBJECT_DESC = "Ljava/lang/Object;";
+
+    /**
+     * The type name, descriptor, load and return opcodes of each SlotLayout kind.
+     */
+    private static final String[] KIND_NAMES = { null, "Boolean", "Byte", "Char", "Short", "Int", "Long", "Float", "Double" };
+    private static final String[] KIND_DESCS = { null, "Z", "B", "C", "S", "I", "J", "F", "D" };
+    private static final int[] KIND_LOADS = { 0, ILOAD, ILOAD, ILOAD, ILOAD, ILOAD, LLOAD, FLOAD, DLOAD };
+    private static final int[] KIND_RETURNS = { 0, IRETURN, IRETURN, IRETURN, IRETURN, IRETURN, LRETURN, FRETURN, DRETURN };
+
+    private static int classCount = 0;
+
+    private final String name;
+    private final SlotLayout slotLayout;
+    private final ClassWriter cw;
+
+    protected DataObjectClassGenerator(String name, SlotLayout slotLayout) {
+        this.name = name;
+        this.slotLayout = slotLayout;
+        cw = new ClassWriter(true);
+    }
+
+    /**
+     * Generates and loads the DataObject class for the dynamic class with the specified layout.
+     */
+    public static Class generate(EClass eClass, SlotLayout slotLayout) throws Exception {
+        String name = PACKAGE + getJavaName(eClass.getName()) + '$' + nextClassNumber();
+        byte[] bytes = new DataObjectClassGenerator(name, slotLayout).generate();
+        Class generatedClass = new GeneratedClassLoader(DataObjectClassGenerator.class.getClassLoader()).define(name.replace('/', '.'), bytes);
+        generatedClass.getField(LAYOUT).set(null, slotLayout);
+        return generatedClass;
+    }
+
+    private static synchronized int nextClassNumber() {
+        return ++classCount;
+    }
+
+    private static String getJavaName(String name) {
+        if (name == null || name.length() == 0) {
+            return "DataObject";
+        }
+        StringBuffer javaName = new StringBuffer(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            javaName.append(i == 0 ? (Character.isJavaIdentifierStart(c) ? c : '_') : (Character.isJavaIdentifierPart(c) ? c : '_'));
+        }
+        return javaName.toString();
+    }
+
+    public byte[] generate() {
+        cw.visit(V1_4, ACC_PUBLIC + ACC_SUPER, name, null, SUPER, null);
+        cw.visitField(ACC_PUBLIC + ACC_STATIC, LAYOUT, LAYOUT_DESC, null, null).visitEnd();
+
+        int primitiveCount = slotLayout.getPrimitiveCount();
+        for (int slot = 0; slot < primitiveCount; slot++) {
+            cw.visitField(ACC_PROTECTED, primitiveField(slot), KIND_DESCS[slotLayout.getKind(slot)], null, null).visitEnd();
+        }
+        for (int word = primitiveCount; word < slotLayout.getLongCount(); word++) {
+            cw.visitField(ACC_PROTECTED, primitiveField(word), "J", null, null).visitEnd();
+        }
+        for (int slot = 0; slot < slotLayout.getReferenceCount(); slot++) {
+            cw.visitField(ACC_PROTECTED, referenceField(slot), OBJECT_DESC, null, null).visitEnd();
+        }
+
+        generateConstructor();
+        generateNewInstance();
+        generateCompiledLayout();
+        if (slotLayout.getReferenceCount() > 0) {
+            generateDynamicGet();
+            generateDynamicSet();
+            generateDynamicUnset();
+        }
+        if (slotLayout.getLongCount() > 0) {
+            generateGetPrimitiveBits();
+            generateSetPrimitiveBits();
+        }
+        for (int kind = SlotLayout.KIND_BOOLEAN; kind <= SlotLayout.KIND_DOUBLE; kind++) {
+            if (hasKind(kind)) {
+                generateTypedGet(kind);
+                generateTypedSet(kind);
+            }
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static String primitiveField(int index) {
+        return "p" + index;
+    }
+
+    private static String referenceField(int slot) {
+        return "r" + slot;
+    }
+
+    private String primitiveFieldDesc(int index) {
+        return index < slotLayout.getPrimitiveCount() ? KIND_DESCS[slotLayout.getKind(index)] : "J";
+    }
+
+    private boolean hasKind(int kind) {
+        for (int slot = 0; slot < slotLayout.getPrimitiveCount(); slot++) {
+            if (slotLayout.getKind(slot) == kind) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Emits a tableswitch on the int local variable, with a case label for each non-null element of the cases array,
+     * indexed by case value, and returns the default label, which the caller must visit.
+     */
+    private static Label tableSwitch(MethodVisitor mv, int var, Label[] cases) {
+        Label dflt = new Label();
+        Label[] labels = new Label[cases.length];
+        for (int i = 0; i < cases.length; i++) {
+            labels[i] = cases[i] != null ? cases[i] : dflt;
+        }
+        mv.visitVarInsn(ILOAD, var);
+        mv.visitTableSwitchInsn(0, cases.length - 1, dflt, labels);
+        return dflt;
+    }
+
+    private void generateConstructor() {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(Lorg/eclipse/emf/ecore/EClass;)V", null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "<init>", "(Lorg/eclipse/emf/ecore/EClass;)V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateNewInstance() {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "eNewInstance", "(Lorg/eclipse/emf/ecore/EClass;)L" + SUPER + ';', null, null);
+        mv.visitCode();
+        mv.visitTypeInsn(NEW, name);
+        mv.visitInsn(DUP);
+        mv.visitVarInsn(ALOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "(Lorg/eclipse/emf/ecore/EClass;)V");
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateCompiledLayout() {
+        MethodVisitor mv = cw.visitMethod(ACC_PROTECTED, "eCompiledLayout", "()" + LAYOUT_DESC, null, null);
+        mv.visitCode();
+        mv.visitFieldInsn(GETSTATIC, name, LAYOUT, LAYOUT_DESC);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Returns a label per feature ID, for the features stored in a reference slot.
+     */
+    private Label[] referenceCases() {
+        Label[] cases = new Label[slotLayout.getFeatureCount()];
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (slotLayout.getReferenceSlot(featureID) >= 0) {
+                cases[featureID] = new Label();
+            }
+        }
+        return cases;
+    }
+
+    private void generateDynamicGet() {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "dynamicGet", "(I)" + OBJECT_DESC, null, null);
+        mv.visitCode();
+        Label[] cases = referenceCases();
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (cases[featureID] != null) {
+                mv.visitLabel(cases[featureID]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, name, referenceField(slotLayout.getReferenceSlot(featureID)), OBJECT_DESC);
+                mv.visitInsn(ARETURN);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "dynamicGet", "(I)" + OBJECT_DESC);
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateDynamicSet() {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "dynamicSet", "(I" + OBJECT_DESC + ")V", null, null);
+        mv.visitCode();
+        Label[] cases = referenceCases();
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (cases[featureID] != null) {
+                mv.visitLabel(cases[featureID]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(ALOAD, 2);
+                mv.visitFieldInsn(PUTFIELD, name, referenceField(slotLayout.getReferenceSlot(featureID)), OBJECT_DESC);
+                mv.visitInsn(RETURN);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitVarInsn(ALOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "dynamicSet", "(I" + OBJECT_DESC + ")V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateDynamicUnset() {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "dynamicUnset", "(I)V", null, null);
+        mv.visitCode();
+        Label[] cases = referenceCases();
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (cases[featureID] != null) {
+                mv.visitLabel(cases[featureID]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitInsn(ACONST_NULL);
+                mv.visitFieldInsn(PUTFIELD, name, referenceField(slotLayout.getReferenceSlot(featureID)), OBJECT_DESC);
+                mv.visitInsn(RETURN);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "dynamicUnset", "(I)V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateGetPrimitiveBits() {
+        MethodVisitor mv = cw.visitMethod(ACC_PROTECTED, "eGetPrimitiveBits", "(I)J", null, null);
+        mv.visitCode();
+        Label[] cases = new Label[slotLayout.getLongCount()];
+        for (int index = 0; index < cases.length; index++) {
+            cases[index] = new Label();
+        }
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int index = 0; index < cases.length; index++) {
+            mv.visitLabel(cases[index]);
+            mv.visitVarInsn(ALOAD, 0);
+            String desc = primitiveFieldDesc(index);
+            mv.visitFieldInsn(GETFIELD, name, primitiveField(index), desc);
+            switch (desc.charAt(0)) {
+                case 'J':
+                    break;
+                case 'F':
+                    mv.visitInsn(F2D);
+                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "doubleToRawLongBits", "(D)J");
+                    break;
+                case 'D':
+                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "doubleToRawLongBits", "(D)J");
+                    break;
+                default:
+                    mv.visitInsn(I2L);
+            }
+            mv.visitInsn(LRETURN);
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "eGetPrimitiveBits", "(I)J");
+        mv.visitInsn(LRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private void generateSetPrimitiveBits() {
+        MethodVisitor mv = cw.visitMethod(ACC_PROTECTED, "eSetPrimitiveBits", "(IJ)V", null, null);
+        mv.visitCode();
+        Label[] cases = new Label[slotLayout.getLongCount()];
+        for (int index = 0; index < cases.length; index++) {
+            cases[index] = new Label();
+        }
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int index = 0; index < cases.length; index++) {
+            mv.visitLabel(cases[index]);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(LLOAD, 2);
+            String desc = primitiveFieldDesc(index);
+            switch (desc.charAt(0)) {
+                case 'J':
+                    break;
+                case 'F':
+                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+                    mv.visitInsn(D2F);
+                    break;
+                case 'D':
+                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "longBitsToDouble", "(J)D");
+                    break;
+                case 'B':
+                    mv.visitInsn(L2I);
+                    mv.visitInsn(I2B);
+                    break;
+                case 'C':
+                    mv.visitInsn(L2I);
+                    mv.visitInsn(I2C);
+                    break;
+                case 'S':
+                    mv.visitInsn(L2I);
+                    mv.visitInsn(I2S);
+                    break;
+                default:
+                    mv.visitInsn(L2I);
+            }
+            mv.visitFieldInsn(PUTFIELD, name, primitiveField(index), desc);
+            mv.visitInsn(RETURN);
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitVarInsn(LLOAD, 2);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, "eSetPrimitiveBits", "(IJ)V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Returns a label per feature ID, for the features stored in a primitive slot of the kind.
+     */
+    private Label[] primitiveCases(int kind) {
+        Label[] cases = new Label[slotLayout.getFeatureCount()];
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            int slot = slotLayout.getPrimitiveSlot(featureID);
+            if (slot >= 0 && slotLayout.getKind(slot) == kind) {
+                cases[featureID] = new Label();
+            }
+        }
+        return cases;
+    }
+
+    private void generateTypedGet(int kind) {
+        String methodName = "eGet" + KIND_NAMES[kind];
+        String desc = KIND_DESCS[kind];
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, methodName, "(I)" + desc, null, null);
+        mv.visitCode();
+        Label[] cases = primitiveCases(kind);
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (cases[featureID] != null) {
+                mv.visitLabel(cases[featureID]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, name, primitiveField(slotLayout.getPrimitiveSlot(featureID)), desc);
+                mv.visitInsn(KIND_RETURNS[kind]);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, methodName, "(I)" + desc);
+        mv.visitInsn(KIND_RETURNS[kind]);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Generates a typed set that stores straight into the field, and its isSet bit, unless a notification is required,
+     * in which case the inherited implementation does the work.
+     */
+    private void generateTypedSet(int kind) {
+        String methodName = "eSet" + KIND_NAMES[kind];
+        String desc = KIND_DESCS[kind];
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, methodName, "(I" + desc + ")V", null, null);
+        mv.visitCode();
+        Label[] cases = primitiveCases(kind);
+        Label inherited = new Label();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKEVIRTUAL, SUPER, "eNotificationRequired", "()Z");
+        mv.visitJumpInsn(IFNE, inherited);
+        Label dflt = tableSwitch(mv, 1, cases);
+        for (int featureID = 0; featureID < cases.length; featureID++) {
+            if (cases[featureID] != null) {
+                int slot = slotLayout.getPrimitiveSlot(featureID);
+                mv.visitLabel(cases[featureID]);
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitVarInsn(KIND_LOADS[kind], 2);
+                mv.visitFieldInsn(PUTFIELD, name, primitiveField(slot), desc);
+                int word = slotLayout.getSetWord(slot);
+                if (word >= 0) {
+                    mv.visitVarInsn(ALOAD, 0);
+                    mv.visitInsn(DUP);
+                    mv.visitFieldInsn(GETFIELD, name, primitiveField(word), "J");
+                    mv.visitLdcInsn(new Long(slotLayout.getSetMask(slot)));
+                    mv.visitInsn(LOR);
+                    mv.visitFieldInsn(PUTFIELD, name, primitiveField(word), "J");
+                }
+                mv.visitInsn(RETURN);
+            }
+        }
+        mv.visitLabel(dflt);
+        mv.visitLabel(inherited);
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitVarInsn(ILOAD, 1);
+        mv.visitVarInsn(KIND_LOADS[kind], 2);
+        mv.visitMethodInsn(INVOKESPECIAL, SUPER, methodName, "(I" + desc + ")V");
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    private static class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -19,6 +19,9 @@
  */
 package org.apache.tuscany.sdo.helper;
 
+import java.util.Iterator;
+
+import org.apache.tuscany.sdo.impl.ClassImpl;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
@@ -34,6 +37,11 @@ import org.eclipse.emf.ecore.xml.type.XMLTypePackage;
 
 /**
  * A BasicExtendedMetaData that uses a supplied (SDO) ecore factory to create properties and types.
+ * The demand() methods are synchronized on the metadata, so that documents loaded concurrently in the
+ * same scope create each demand package, type and feature only once. The lookups of packages, types,
+ * document roots and global elements and attributes take no lock when they find what they look for;
+ * a miss is looked up again under the lock, so that metadata another thread is demand creating is
+ * seen fully created. Once sealed, nothing more is demand created and lookups never lock.
  */
 public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
 {
@@ -52,11 +60,134 @@ public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
     super(registry);
   }
 
-  public EPackage demandPackage(String namespace)
+  /**
+   * Set when the HelperContext of this metadata is sealed, after which nothing is demand created.
+   */
+  protected volatile boolean sealed;
+
+  /**
+   * Rejects any further demand creation, so that lookups can be made without locking.
+   */
+  public synchronized void seal()
+  {
+    sealed = true;
+  }
+
+  public boolean isSealed()
+  {
+    return sealed;
+  }
+
+  public EPackage getPackage(String namespace)
+  {
+    EPackage result = super.getPackage(namespace);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getPackage(namespace);
+    }
+  }
+
+  public EClass getDocumentRoot(EPackage ePackage)
+  {
+    EClass result = super.getDocumentRoot(ePackage);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getDocumentRoot(ePackage);
+    }
+  }
+
+  public EClassifier getType(String namespace, String name)
+  {
+    EClassifier result = super.getType(namespace, name);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getType(namespace, name);
+    }
+  }
+
+  public EClassifier getType(EPackage ePackage, String name)
+  {
+    EClassifier result = super.getType(ePackage, name);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getType(ePackage, name);
+    }
+  }
+
+  public EStructuralFeature getElement(String namespace, String name)
+  {
+    EStructuralFeature result = super.getElement(namespace, name);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getElement(namespace, name);
+    }
+  }
+
+  public EStructuralFeature getAttribute(String namespace, String name)
+  {
+    EStructuralFeature result = super.getAttribute(namespace, name);
+    if (result != null || sealed)
+    {
+      return result;
+    }
+    synchronized (this)
+    {
+      return super.getAttribute(namespace, name);
+    }
+  }
+
+  /**
+   * Throws an UnsupportedOperationException if this metadata or the classes of the package are sealed.
+   */
+  protected void checkNotSealed(EPackage ePackage)
+  {
+    if (sealed)
+    {
+      throw new UnsupportedOperationException("HelperContext is sealed and cannot define types");
+    }
+    for (Iterator i = ePackage.getEClassifiers().iterator(); i.hasNext(); )
+    {
+      Object eClassifier = i.next();
+      if (eClassifier instanceof ClassImpl)
+      {
+        if (((ClassImpl)eClassifier).isSealed())
+        {
+          throw new UnsupportedOperationException("HelperContext is sealed and cannot define types");
+        }
+        return;
+      }
+    }
+  }
+
+  public synchronized EPackage demandPackage(String namespace)
   {
     EPackage ePackage = demandRegistry.getEPackage(namespace);
     if (ePackage == null)
     {
+      if (sealed)
+      {
+        throw new UnsupportedOperationException("HelperContext is sealed and cannot define types");
+      }
       ePackage = ecoreFactory.createEPackage();
       ePackage.setNsURI(namespace);
       setQualified(ePackage, namespace != null);
@@ -82,7 +213,7 @@ public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
     return ePackage;
   }
   
-  public EClassifier demandType(String namespace, String name)
+  public synchronized EClassifier demandType(String namespace, String name)
   {
     EPackage ePackage = demandPackage(namespace);
     EClassifier eClassifier = getType(ePackage, name);
@@ -92,6 +223,7 @@ public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
     }
     else
     {
+      checkNotSealed(ePackage);
       EClass eClass = ecoreFactory.createEClass();
       eClass.setName(name);
       eClass.getESuperTypes().add(demandMetaData.getAnyType());
@@ -101,7 +233,7 @@ public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
     }
   }
 
-  public EStructuralFeature demandFeature(String namespace, String name, boolean isElement, boolean isReference)
+  public synchronized EStructuralFeature demandFeature(String namespace, String name, boolean isElement, boolean isReference)
   {
     EPackage ePackage = demandPackage(namespace);
     EClass documentRootEClass = getDocumentRoot(ePackage);
@@ -115,6 +247,7 @@ public class BaseSDOExtendedMetaDataImpl extends BasicExtendedMetaData
     }
     else
     {
+      checkNotSealed(ePackage);
       if (isReference)
       {
         EReference eReference = ecoreFactory.createEReference();
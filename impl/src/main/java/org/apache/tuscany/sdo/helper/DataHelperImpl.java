@@ -26,9 +26,11 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 
 import org.apache.tuscany.sdo.util.DataObjectUtil;
@@ -39,21 +41,85 @@ import commonj.sdo.helper.DataHelper;
 
 /**
  * Data helper methods.
+ * <p>
+ * The methods don't lock. Only the UTC xs:dateTime form of the years 1583 to 9999 is parsed and formatted by
+ * {@link UTCDateTimeFormat} without SimpleDateFormat. The other dateTime forms and the date, time, gYear, gYearMonth,
+ * gMonthDay, gDay and duration forms aren't hand-parsed yet: they still cost a SimpleDateFormat parse or format,
+ * through SDOSimpleDateFormats cached per thread rather than created per call.
  */
 public class DataHelperImpl implements DataHelper
 {
+  protected static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+  /**
+   * For each thread, a map from pattern to CachedFormat, for the default time zone, and one for UTC.
+   * Parsing derives patterns from the strings parsed, so each map holds at most {@link #MAX_CACHED_FORMATS} of them.
+   */
+  protected static final ThreadLocal formatCache = new ThreadLocal()
+  {
+    protected Object initialValue()
+    {
+      return new Map [] { new HashMap(), new HashMap() };
+    }
+  };
+
+  protected static final int MAX_CACHED_FORMATS = 32;
+
+  protected static final class CachedFormat
+  {
+    final SDOSimpleDateFormat format;
+    final TimeZone timeZone;
+    final String defaultTimeZoneID;
+
+    CachedFormat(SDOSimpleDateFormat format, String defaultTimeZoneID)
+    {
+      this.format = format;
+      this.timeZone = format.getTimeZone();
+      this.defaultTimeZoneID = defaultTimeZoneID;
+    }
+  }
+
+  /**
+   * Returns this thread's SDOSimpleDateFormat for the pattern, in UTC or in the current default time zone.
+   * Parsing a time zone name can change the time zone of a format, so it's restored before the format is reused.
+   */
+  protected static SDOSimpleDateFormat getFormat(String pattern, boolean utc)
+  {
+    Map formats = ((Map[])formatCache.get())[utc ? 1 : 0];
+    String defaultTimeZoneID = utc ? null : TimeZone.getDefault().getID();
+    CachedFormat cachedFormat = (CachedFormat)formats.get(pattern);
+    if (cachedFormat == null || !utc && !defaultTimeZoneID.equals(cachedFormat.defaultTimeZoneID))
+    {
+      SDOSimpleDateFormat format = new SDOSimpleDateFormat(pattern);
+      if (utc)
+      {
+        format.setTimeZone(UTC);
+      }
+      if (cachedFormat == null && formats.size() >= MAX_CACHED_FORMATS)
+      {
+        return format;
+      }
+      cachedFormat = new CachedFormat(format, defaultTimeZoneID);
+      formats.put(pattern, cachedFormat);
+    }
+    else if (cachedFormat.format.getTimeZone() != cachedFormat.timeZone)
+    {
+      cachedFormat.format.setTimeZone(cachedFormat.timeZone);
+    }
+    return cachedFormat.format;
+  }
+
   /**
    * @param dateString - Must comply to the pattern of yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'
    * @return null if dataString couldn't be parsed
    */
-  public synchronized Date toDate(String dateString)
+  public Date toDate(String dateString)
   {
     if (dateString == null)
     {
       return null;
     }
       
-    SDOSimpleDateFormat format;
     Date result = null;
     boolean negative = false;
     String formatString;
@@ -71,15 +137,20 @@ public class DataHelperImpl implements DataHelper
     
     if (dateString.endsWith("Z"))
     {
-      if (dateString.indexOf('.') != -1)
-        formatString = new String("yyyy-MM-dd'T'HH:mm:ss'.'S'Z'");
+      long time = UTCDateTimeFormat.parse(dateString);
+      if (time != UTCDateTimeFormat.UNPARSED)
+      {
+        result = new Date(time);
+      }
       else
-        formatString = new String ("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        
-      format = new SDOSimpleDateFormat(formatString);
-      format.setTimeZone(TimeZone.getTimeZone("UTC"));
-      
-      result = checkFormat(dateString, format);
+      {
+        if (dateString.indexOf('.') != -1)
+          formatString = "yyyy-MM-dd'T'HH:mm:ss'.'S'Z'";
+        else
+          formatString = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+        result = checkFormat(dateString, formatString, true);
+      }
       
       // If no match, continue to try further possibilities
       
@@ -104,8 +175,7 @@ public class DataHelperImpl implements DataHelper
       // Build the formatString based on the contents of dateString
         
       formatString = obtainDurationFormats(durationString);
-      format = new SDOSimpleDateFormat(formatString);
-      result = checkFormat(durationString, format);
+      result = checkFormat(durationString, formatString, false);
       if (result != null)
       {     
         if (negative)
@@ -119,8 +189,7 @@ public class DataHelperImpl implements DataHelper
 
     if (formatString != null)
     {
-      format = new SDOSimpleDateFormat(formatString);
-      result = checkFormat(dateString, format); 
+      result = checkFormat(dateString, formatString, false); 
 
       if (result != null)
       {
@@ -134,9 +203,8 @@ public class DataHelperImpl implements DataHelper
     return null;
   }
   
-  private synchronized Date checkFormat(String dateString, SDOSimpleDateFormat format)
+  private Date checkFormat(String dateString, String formatPattern, boolean utc)
   {
-    String formatPattern = format.toPattern();
     StringBuffer addedFields = new StringBuffer();
     String fieldsString, parseString;
     SDOSimpleDateFormat compositeFormat;
@@ -170,15 +238,14 @@ public class DataHelperImpl implements DataHelper
     if (fieldsString.length() == 0)
     {
       parseString = dateString;
-      compositeFormat = format;
+      compositeFormat = getFormat(formatPattern, utc);
     }
     
     else
     {
-      compositeFormat = new SDOSimpleDateFormat(fieldsString);
       dateValue = new Date(System.currentTimeMillis());
-      parseString = compositeFormat.format(dateValue) + dateString;    
-      compositeFormat.applyPattern(fieldsString + formatPattern);
+      parseString = getFormat(fieldsString, utc).format(dateValue) + dateString;    
+      compositeFormat = getFormat(fieldsString + formatPattern, utc);
     }
 
     try
@@ -193,7 +260,7 @@ public class DataHelperImpl implements DataHelper
     return null;
   }
   
-  public synchronized String obtainSpecificFormat(String dateString)
+  public String obtainSpecificFormat(String dateString)
   {
     StringBuffer formatBuffer = new StringBuffer();
     int colonIndex = dateString.indexOf(':');
@@ -264,7 +331,7 @@ public class DataHelperImpl implements DataHelper
     return formatBuffer.toString();
   }
   
-  public synchronized String obtainDurationFormats(String dateString)
+  public String obtainDurationFormats(String dateString)
   {
     String firstPart, secondPart;
     StringBuffer formatBuffer = new StringBuffer("'P'");
@@ -307,14 +374,14 @@ public class DataHelperImpl implements DataHelper
   }
 
   // Return a negative Duration if a negative sign existed in dateString
-  public synchronized Date handleNegative(Date output)
+  public Date handleNegative(Date output)
   {
     return new Date(0 - output.getTime());
   }
   
   // Return the date in BCE if a negative sign existed in dateString
   
-  public synchronized Date handleBCE(Date output)
+  public Date handleBCE(Date output)
   {
     GregorianCalendar temp = new GregorianCalendar();
     temp.setTime(output);
@@ -323,12 +390,12 @@ public class DataHelperImpl implements DataHelper
     return temp.getTime();
   }
   
-  public synchronized Calendar toCalendar(String dateString)
+  public Calendar toCalendar(String dateString)
   {
     return toCalendar(dateString, null);
   }
   
-  public synchronized Calendar toCalendar(String dateString, Locale locale)
+  public Calendar toCalendar(String dateString, Locale locale)
   {
     if (dateString == null)
     {
@@ -346,116 +413,103 @@ public class DataHelperImpl implements DataHelper
     return calendar;
   }
 
-  public synchronized String toDateTime(Date date)
+  public String toDateTime(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'");
-    f.setTimeZone(TimeZone.getTimeZone("UTC"));
+    String result = UTCDateTimeFormat.format(date.getTime());
+    if (result != null)
+    {
+      return result;
+    }
     
-    return f.format(date);
+    return getFormat("yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'", true).format(date);
   }
   
-  public synchronized String toDuration(Date date)
+  public String toDuration(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("'P'yyyy'Y' MM'M' dd'D' 'T' HH'H' mm'M' ss'S.'SSS");
-    
-    return f.format(date);
+    return getFormat("'P'yyyy'Y' MM'M' dd'D' 'T' HH'H' mm'M' ss'S.'SSS", false).format(date);
   }
 
-  public synchronized String toTime(Date date)
+  public String toTime(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("HH:mm:ss'.'SSS zz");
-    
-    return f.format(date);
+    return getFormat("HH:mm:ss'.'SSS zz", false).format(date);
   }
   
-  public synchronized String toDay(Date date)
+  public String toDay(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("---dd zz");
-    
-    return f.format(date);
+    return getFormat("---dd zz", false).format(date);
   }
   
-  public synchronized String toMonth(Date date)
+  public String toMonth(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("--MM zz");
-    
-    return f.format(date);
+    return getFormat("--MM zz", false).format(date);
   }
 
-  public synchronized String toMonthDay(Date date)
+  public String toMonthDay(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("--MM-dd zz");
-    
-    return f.format(date);
+    return getFormat("--MM-dd zz", false).format(date);
   }
 
-  public synchronized String toYear(Date date)
+  public String toYear(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("yyyy zz");
-    
-    return f.format(date); 
+    return getFormat("yyyy zz", false).format(date); 
   }
 
-  public synchronized String toYearMonth(Date date)
+  public String toYearMonth(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("yyyy-MM zz");
-    
-    return f.format(date);
+    return getFormat("yyyy-MM zz", false).format(date);
   }
 
-  public synchronized String toYearMonthDay(Date date)
+  public String toYearMonthDay(Date date)
   {
     if (date == null)
     {
       return null;
     }
     
-    SDOSimpleDateFormat f = new SDOSimpleDateFormat("yyyy-MM-dd zz");
-    
-    return f.format(date);
+    return getFormat("yyyy-MM-dd zz", false).format(date);
   }
 
-  public synchronized String toDateTime(Calendar calendar)
+  public String toDateTime(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -465,7 +519,7 @@ public class DataHelperImpl implements DataHelper
     return toDateTime(calendar.getTime());
   }
 
-  public synchronized String toDuration(Calendar calendar)
+  public String toDuration(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -475,7 +529,7 @@ public class DataHelperImpl implements DataHelper
     return toDuration(calendar.getTime());
   }
 
-  public synchronized String toTime(Calendar calendar)
+  public String toTime(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -485,7 +539,7 @@ public class DataHelperImpl implements DataHelper
     return toTime(calendar.getTime());
   }
 
-  public synchronized String toDay(Calendar calendar)
+  public String toDay(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -495,7 +549,7 @@ public class DataHelperImpl implements DataHelper
     return toDay(calendar.getTime());
   }
 
-  public synchronized String toMonth(Calendar calendar)
+  public String toMonth(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -505,7 +559,7 @@ public class DataHelperImpl implements DataHelper
     return toMonth(calendar.getTime());
   }
 
-  public synchronized String toMonthDay(Calendar calendar)
+  public String toMonthDay(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -515,7 +569,7 @@ public class DataHelperImpl implements DataHelper
     return toMonthDay(calendar.getTime());
   }
 
-  public synchronized String toYear(Calendar calendar)
+  public String toYear(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -525,7 +579,7 @@ public class DataHelperImpl implements DataHelper
     return toYear(calendar.getTime());
   }
 
-  public synchronized String toYearMonth(Calendar calendar)
+  public String toYearMonth(Calendar calendar)
   {
     if (calendar == null)
     {
@@ -535,7 +589,7 @@ public class DataHelperImpl implements DataHelper
     return toYearMonth(calendar.getTime());
   }
 
-  public synchronized String toYearMonthDay(Calendar calendar)
+  public String toYearMonthDay(Calendar calendar)
   {
     if (calendar == null)
     {
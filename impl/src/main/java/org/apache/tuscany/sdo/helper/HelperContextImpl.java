@@ -20,10 +20,13 @@
 
 package org.apache.tuscany.sdo.helper;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.change.ChangePackage;
@@ -42,6 +45,8 @@ import commonj.sdo.helper.XMLHelper;
 import commonj.sdo.helper.XSDHelper;
 
 import org.apache.tuscany.sdo.SDOPackage;
+import org.apache.tuscany.sdo.api.SDOHelper;
+import org.apache.tuscany.sdo.impl.ClassImpl;
 import org.apache.tuscany.sdo.api.XMLStreamHelper;
 
 public class HelperContextImpl implements HelperContext {
@@ -58,6 +63,9 @@ public class HelperContextImpl implements HelperContext {
     protected XSDHelper xsdHelper;
     protected XMLStreamHelper xmlStreamHelper;
     protected Map defaultOptions = null;
+    protected volatile boolean sealed = false;
+    protected volatile XMLResourcePool xmlResourcePool;
+    protected boolean xmlResourcePoolCreated = false;
     
     public HelperContextImpl(ExtendedMetaData extendedMetaData, boolean extensibleNamespaces) {
         this.defaultOptions = null;
@@ -190,4 +198,76 @@ public class HelperContextImpl implements HelperContext {
     public ExtendedMetaData getExtendedMetaData() {
         return extendedMetaData;
     }
+
+    /**
+     * Returns the XML processing state shared by the documents this context loads and saves, or null if the
+     * {@link SDOHelper.XMLOptions#XML_POOL} default option turned pooling off when it was first needed.
+     */
+    public XMLResourcePool getXMLResourcePool() {
+        XMLResourcePool pool = xmlResourcePool;
+        if (pool == null) {
+            synchronized (this) {
+                if (!xmlResourcePoolCreated) {
+                    if (defaultOptions == null || !Boolean.FALSE.equals(defaultOptions.get(SDOHelper.XMLOptions.XML_POOL))) {
+                        xmlResourcePool = new XMLResourcePool(new SchemaCache(this));
+                    }
+                    xmlResourcePoolCreated = true;
+                }
+                pool = xmlResourcePool;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Seals this context: computes, up front, every cache derived from the definitions of its types, including their
+     * extended metadata, and rejects any further type definition, including demand created metadata. Once sealed, the types can be read from any number
+     * of threads without locking and without recomputing anything.
+     */
+    public synchronized void seal() {
+        if (sealed) {
+            return;
+        }
+        EPackage.Registry registry = extendedMetaData instanceof SDOExtendedMetaDataImpl
+            ? ((SDOExtendedMetaDataImpl)extendedMetaData).getRegistry() : EPackage.Registry.INSTANCE;
+        for (Iterator i = new ArrayList(registry.values()).iterator(); i.hasNext();) {
+            Object value = i.next();
+            if (value instanceof EPackage) {
+                for (Iterator j = ((EPackage)value).getEClassifiers().iterator(); j.hasNext();) {
+                    sealClassifier((EClassifier)j.next());
+                }
+            }
+        }
+        if (extendedMetaData instanceof BaseSDOExtendedMetaDataImpl) {
+            ((BaseSDOExtendedMetaDataImpl)extendedMetaData).seal();
+        }
+        sealed = true;
+    }
+
+    protected void sealClassifier(EClassifier eClassifier) {
+        if (eClassifier instanceof ClassImpl) {
+            ((ClassImpl)eClassifier).seal(extendedMetaData);
+        } else if (eClassifier instanceof EDataType) {
+            EDataType eDataType = (EDataType)eClassifier;
+            extendedMetaData.getName(eDataType);
+            extendedMetaData.getNamespace(eDataType);
+            extendedMetaData.getBaseType(eDataType);
+            extendedMetaData.getItemType(eDataType);
+            extendedMetaData.getMemberTypes(eDataType);
+            ((commonj.sdo.Type)eDataType).getAliasNames();
+        }
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * @throws UnsupportedOperationException if this context is sealed.
+     */
+    public void checkNotSealed() {
+        if (sealed) {
+            throw new UnsupportedOperationException("HelperContext is sealed and cannot define types");
+        }
+    }
 }
@@ -37,7 +37,7 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.EPackage.Registry;
 
 /**
- * TODO make demand() methods synchronous?
+ * The SDO ExtendedMetaData, which demand creates SDO types and properties.
  */
 public class SDOExtendedMetaDataImpl 
   extends BaseSDOExtendedMetaDataImpl 
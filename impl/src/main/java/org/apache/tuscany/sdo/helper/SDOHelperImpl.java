@@ -19,9 +19,14 @@
  */
 package org.apache.tuscany.sdo.helper;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,6 +39,8 @@ import java.util.Set;
 import org.apache.tuscany.sdo.SDOExtendedMetaData;
 import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SimpleAnyTypeDataObject;
+import org.apache.tuscany.sdo.api.PathExpression;
+import org.apache.tuscany.sdo.api.PropertyHandle;
 import org.apache.tuscany.sdo.api.SDOHelper;
 import org.apache.tuscany.sdo.api.XMLStreamHelper;
 import org.apache.tuscany.sdo.api.EventListener;
@@ -44,6 +51,11 @@ import org.apache.tuscany.sdo.model.ModelFactory;
 import org.apache.tuscany.sdo.model.impl.ModelFactoryImpl;
 import org.apache.tuscany.sdo.spi.SDOHelperBase;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
+import org.apache.tuscany.sdo.util.KeyIndex;
+import org.apache.tuscany.sdo.util.PropertyHandleImpl;
+import org.apache.tuscany.sdo.util.resource.ByteBufferInputStream;
+import org.apache.tuscany.sdo.util.resource.DataObjectBinaryDeserializer;
+import org.apache.tuscany.sdo.util.resource.DataObjectBinarySerializer;
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.notify.Notifier;
 import org.eclipse.emf.common.util.URI;
@@ -77,6 +89,8 @@ import commonj.sdo.Type;
 import commonj.sdo.helper.CopyHelper;
 import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.TypeHelper;
+import commonj.sdo.helper.XMLDocument;
+import commonj.sdo.helper.XMLHelper;
 import commonj.sdo.impl.HelperProvider;
 
 public class SDOHelperImpl extends SDOHelperBase implements SDOHelper, SDOHelper.MetaDataBuilder {
@@ -220,6 +234,23 @@ public class SDOHelperImpl extends SDOHelperBase implements SDOHelper, SDOHelper
         ((DataGraphImpl)dataGraph).getDataGraphResource().save(outputStream, options);
     }
 
+    public DataGraph loadDataGraph(ByteBuffer buffer, Map options, HelperContext scope) throws IOException {
+        return loadDataGraph(new ByteBufferInputStream(buffer), options, scope);
+    }
+
+    public DataGraph loadDataGraph(FileChannel channel, Map options, HelperContext scope) throws IOException {
+        return loadDataGraph(new ByteBufferInputStream(channel), options, scope);
+    }
+
+    public void saveDataGraph(final DataGraph dataGraph, WritableByteChannel channel, final Map options) throws IOException {
+        HelperContext scope = HelperProvider.getDefaultContext();
+        XMLHelperImpl.save(channel, new XMLHelperImpl.Task() {
+            public void run(OutputStream outputStream) throws IOException {
+                saveDataGraph(dataGraph, outputStream, options);
+            }
+        }, scope instanceof HelperContextImpl ? ((HelperContextImpl)scope).getXMLResourcePool() : null);
+    }
+
     public void registerDataGraphTypes(DataGraph dataGraph, List/* Type */types) {
         // if (types == null)
         // types = SDOUtil.getDataGraphTypes(dataGraph);
@@ -286,12 +317,78 @@ public class SDOHelperImpl extends SDOHelperBase implements SDOHelper, SDOHelper
         return result;
     }
 
+    public PathExpression compilePath(Type type, String path) {
+        return DataObjectUtil.getPathExpression(type, path);
+    }
+
+    public PropertyHandle getPropertyHandle(Type type, Property property) {
+        return new PropertyHandleImpl(type, property);
+    }
+
+    protected void checkNotSealed(Type type) {
+        if (type instanceof ClassImpl && ((ClassImpl)type).isSealed()) {
+            throw new UnsupportedOperationException("Type is sealed and cannot be modified");
+        }
+    }
+
+    public boolean compileType(Type type) {
+        return type instanceof ClassImpl && ((ClassImpl)type).compile();
+    }
+
+    public void createKeyIndex(DataObject dataObject, Property property, Property keyProperty) {
+        KeyIndex.create(dataObject, property, keyProperty);
+    }
+
+    public void removeKeyIndex(DataObject dataObject, Property property, Property keyProperty) {
+        KeyIndex keyIndex = KeyIndex.get((EObject)dataObject, (EStructuralFeature)property, keyProperty.getName());
+        if (keyIndex != null) {
+            keyIndex.dispose();
+        }
+    }
+
+    public List loadDocuments(XMLHelper xmlHelper, List inputs, Object options) throws IOException {
+        return ((XMLHelperImpl)xmlHelper).load(inputs, options);
+    }
+
+    public void saveDocuments(XMLHelper xmlHelper, List documents, List outputs, Object options) throws IOException {
+        ((XMLHelperImpl)xmlHelper).save(documents, outputs, options);
+    }
+
+    public XMLDocument loadDocument(XMLHelper xmlHelper, ByteBuffer buffer, String locationURI, Object options) throws IOException {
+        return ((XMLHelperImpl)xmlHelper).load(buffer, locationURI, options);
+    }
+
+    public XMLDocument loadDocument(XMLHelper xmlHelper, FileChannel channel, String locationURI, Object options) throws IOException {
+        return ((XMLHelperImpl)xmlHelper).load(channel, locationURI, options);
+    }
+
+    public void saveDocument(XMLHelper xmlHelper, XMLDocument document, WritableByteChannel channel, Object options) throws IOException {
+        ((XMLHelperImpl)xmlHelper).save(document, channel, options);
+    }
+
+    public void writeDataObject(DataObject dataObject, DataOutput output) throws IOException {
+        new DataObjectBinarySerializer(output).writeDataObject(dataObject);
+    }
+
+    public DataObject readDataObject(DataInput input, HelperContext scope) throws IOException {
+        return new DataObjectBinaryDeserializer(input, scope).readDataObject();
+    }
+
+    public void writeDataGraph(DataGraph dataGraph, DataOutput output) throws IOException {
+        new DataObjectBinarySerializer(output).writeDataGraph(dataGraph);
+    }
+
+    public DataGraph readDataGraph(DataInput input, HelperContext scope) throws IOException {
+        return new DataObjectBinaryDeserializer(input, scope).readDataGraph();
+    }
+
     public boolean isDocumentRoot(Type type) {
         return "".equals(SDOExtendedMetaData.INSTANCE.getName((EClassifier)type));
     }
 
     
     public Type createType(HelperContext hc, String uri, String name, boolean isDataType) {
+        ((HelperContextImpl)hc).checkNotSealed();
         ExtendedMetaData extendedMetaData = ((HelperContextImpl)hc).getExtendedMetaData();
         if ("".equals(uri))
             uri = null; // FB
@@ -329,6 +426,7 @@ public class SDOHelperImpl extends SDOHelperBase implements SDOHelper, SDOHelper
     }
 
     public void addBaseType(Type type, Type baseType) {
+        checkNotSealed(type);
         ((EClass)type).getESuperTypes().add(baseType);
     }
 
@@ -405,6 +503,7 @@ public class SDOHelperImpl extends SDOHelperBase implements SDOHelper, SDOHelper
     }
 
     public Property createProperty(Type containingType, String name, Type propertyType) {
+      checkNotSealed(containingType);
       EStructuralFeature eStructuralFeature = 
             propertyType.isDataType() ? (EStructuralFeature)SDOFactory.eINSTANCE.createAttribute()
                 : (EStructuralFeature)SDOFactory.eINSTANCE.createReference();
@@ -0,0 +1,93 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.helper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * The schema locations a HelperContext has defined while loading documents with the
+ * {@link org.apache.tuscany.sdo.api.SDOHelper.XMLOptions#XML_LOAD_SCHEMA} option, so that a document referencing a schema
+ * already defined skips opening and converting it.
+ */
+public class SchemaCache {
+    protected final HelperContext helperContext;
+
+    /**
+     * The defined locations.
+     */
+    protected final Set definedLocations = new HashSet();
+
+    public SchemaCache(HelperContext helperContext) {
+        this.helperContext = helperContext;
+    }
+
+    public HelperContext getHelperContext() {
+        return helperContext;
+    }
+
+    /**
+     * Defines the types of the schema at the location, a URL or a resource of the context class loader, unless the
+     * location has been defined already. The schema is read before taking the lock of the cache, so that loads
+     * referencing other locations don't wait for the I/O.
+     */
+    public void define(String location) throws IOException {
+        synchronized (this) {
+            if (definedLocations.contains(location))
+                return;
+        }
+        byte[] content = read(location);
+        synchronized (this) {
+            if (definedLocations.contains(location))
+                return;
+            helperContext.getXSDHelper().define(new ByteArrayInputStream(content), location);
+            definedLocations.add(location);
+        }
+    }
+
+    protected static InputStream open(String location) throws IOException {
+        if (location.indexOf(":/") != -1)
+            return new URL(location).openStream();
+        InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(location);
+        if (inputStream == null)
+            throw new IOException("Schema " + location + " not found");
+        return inputStream;
+    }
+
+    protected static byte[] read(String location) throws IOException {
+        InputStream inputStream = open(location);
+        try {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int count; (count = inputStream.read(buffer)) != -1;)
+                content.write(buffer, 0, count);
+            return content.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+    }
+}
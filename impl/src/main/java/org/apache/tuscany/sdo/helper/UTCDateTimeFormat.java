@@ -0,0 +1,191 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.helper;
+
+/**
+ * A parser and formatter, free of locks and of any allocation other than the result, for the UTC xs:dateTime
+ * representation produced by {@link DataHelperImpl#toDateTime(java.util.Date)}, i.e., <code>yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'</code>.
+ * It gives the same results as the SimpleDateFormat patterns DataHelperImpl uses for it, and declines, so that the caller
+ * falls back to those patterns, anything that isn't in that exact form or that isn't a Gregorian date between 1583 and 9999.
+ * <p>
+ * This covers the dateTime form only. The date, time, gYear, gYearMonth, gMonthDay, gDay and duration forms aren't handled
+ * here yet and go through SimpleDateFormat in DataHelperImpl.
+ */
+public final class UTCDateTimeFormat
+{
+  /**
+   * The value {@link #parse(String)} returns for a string it doesn't handle.
+   */
+  public static final long UNPARSED = Long.MIN_VALUE;
+
+  private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  /**
+   * The first and last days, counted from the epoch, handled: 1583-01-01 and 9999-12-31.
+   */
+  private static final long MIN_DAY = daysFromCivil(1583, 1, 1);
+  private static final long MAX_DAY = daysFromCivil(9999, 12, 31);
+
+  private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+  private UTCDateTimeFormat()
+  {
+  }
+
+  /**
+   * Parses <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code> or <code>yyyy-MM-dd'T'HH:mm:ss'.'S'Z'</code>, where, as for SimpleDateFormat,
+   * the digits after the point are a number of milliseconds, and returns the milliseconds since the epoch,
+   * or {@link #UNPARSED} if the string isn't in one of those forms.
+   */
+  public static long parse(String dateString)
+  {
+    int length = dateString.length();
+    if (length < 20 || dateString.charAt(length - 1) != 'Z'
+        || dateString.charAt(4) != '-' || dateString.charAt(7) != '-' || dateString.charAt(10) != 'T'
+        || dateString.charAt(13) != ':' || dateString.charAt(16) != ':')
+    {
+      return UNPARSED;
+    }
+
+    int year = digits(dateString, 0, 4);
+    int month = digits(dateString, 5, 7);
+    int day = digits(dateString, 8, 10);
+    int hour = digits(dateString, 11, 13);
+    int minute = digits(dateString, 14, 16);
+    int second = digits(dateString, 17, 19);
+    if (year < 1583 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+        || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+    {
+      return UNPARSED;
+    }
+
+    int millis = 0;
+    if (length != 20)
+    {
+      // A fraction of at most 9 digits.
+      if (length < 22 || length > 30 || dateString.charAt(19) != '.' || (millis = digits(dateString, 20, length - 1)) < 0)
+      {
+        return UNPARSED;
+      }
+    }
+
+    return daysFromCivil(year, month, day) * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L + millis;
+  }
+
+  /**
+   * Formats the milliseconds since the epoch as <code>yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'</code>,
+   * or returns null if they aren't in the range this class handles.
+   */
+  public static String format(long time)
+  {
+    long days = time / MILLIS_PER_DAY;
+    int millisOfDay = (int)(time % MILLIS_PER_DAY);
+    if (millisOfDay < 0)
+    {
+      --days;
+      millisOfDay += MILLIS_PER_DAY;
+    }
+    if (days < MIN_DAY || days > MAX_DAY)
+    {
+      return null;
+    }
+
+    // See http://howardhinnant.github.io/date_algorithms.html#civil_from_days
+    long z = days + 719468;
+    long era = z / 146097;
+    int dayOfEra = (int)(z - era * 146097);
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int mp = (5 * dayOfYear + 2) / 153;
+    int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+    int month = mp < 10 ? mp + 3 : mp - 9;
+    int year = (int)(yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+    char[] chars = new char [24];
+    put(chars, 0, 4, year);
+    chars[4] = '-';
+    put(chars, 5, 7, month);
+    chars[7] = '-';
+    put(chars, 8, 10, day);
+    chars[10] = 'T';
+    put(chars, 11, 13, millisOfDay / 3600000);
+    chars[13] = ':';
+    put(chars, 14, 16, millisOfDay / 60000 % 60);
+    chars[16] = ':';
+    put(chars, 17, 19, millisOfDay / 1000 % 60);
+    chars[19] = '.';
+    put(chars, 20, 23, millisOfDay % 1000);
+    chars[23] = 'Z';
+    return new String(chars);
+  }
+
+  /**
+   * Returns the number of days from the epoch to the proleptic Gregorian date.
+   * See http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+   */
+  private static long daysFromCivil(int year, int month, int day)
+  {
+    if (month <= 2)
+    {
+      --year;
+    }
+    int era = year / 400;
+    int yearOfEra = year - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  private static int daysInMonth(int year, int month)
+  {
+    if (month == 2 && year % 4 == 0 && (year % 100 != 0 || year % 400 == 0))
+    {
+      return 29;
+    }
+    return DAYS_IN_MONTH[month - 1];
+  }
+
+  /**
+   * Returns the value of the decimal digits from begin to end, or -1 if any of the characters isn't an ASCII digit.
+   */
+  private static int digits(String string, int begin, int end)
+  {
+    int value = 0;
+    for (int i = begin; i < end; ++i)
+    {
+      char c = string.charAt(i);
+      if (c < '0' || c > '9')
+      {
+        return -1;
+      }
+      value = value * 10 + (c - '0');
+    }
+    return value;
+  }
+
+  private static void put(char[] chars, int begin, int end, int value)
+  {
+    for (int i = end - 1; i >= begin; --i)
+    {
+      chars[i] = (char)('0' + value % 10);
+      value /= 10;
+    }
+  }
+}
@@ -20,7 +20,6 @@
 package org.apache.tuscany.sdo.helper;
 
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -36,6 +35,7 @@ import org.apache.tuscany.sdo.SimpleAnyTypeDataObject;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
 import org.apache.tuscany.sdo.util.SDOUtil;
 import org.apache.tuscany.sdo.util.resource.SDOXMLResourceImpl;
+import org.apache.tuscany.sdo.util.resource.WriterOutputStream;
 import org.eclipse.emf.common.util.EMap;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAttribute;
@@ -103,13 +103,21 @@ public class XMLDocumentImpl implements XMLDocument
   protected EStructuralFeature rootElement;
 
   protected EObject documentRoot;
+
+  protected XMLResourcePool pool;
   
   protected final static String WHITESPACE_REGEX = "\\s";
   
   //TODO clean up the options thing
   protected XMLDocumentImpl(ExtendedMetaData extendedMetaData, Object options)
+  {
+    this(extendedMetaData, null, options);
+  }
+
+  protected XMLDocumentImpl(ExtendedMetaData extendedMetaData, XMLResourcePool pool, Object options)
   {
     this.extendedMetaData = extendedMetaData;
+    this.pool = pool;
     ResourceSet resourceSet = DataObjectUtil.createResourceSet();
     
     if (options instanceof Map)
@@ -131,6 +139,10 @@ public class XMLDocumentImpl implements XMLDocument
   
     resource = (XMLResource)resourceSet.createResource(URI.createURI("http:///temp.xml"));
     DataObjectUtil.configureXMLResource(resource, extendedMetaData);
+    if (pool != null)
+    {
+      pool.configure(resource);
+    }
   }
 
   protected XMLDocumentImpl(ExtendedMetaData extendedMetaData)
@@ -140,7 +152,12 @@ public class XMLDocumentImpl implements XMLDocument
 
   protected XMLDocumentImpl(ExtendedMetaData extendedMetaData, DataObject dataObject, String rootElementURI, String rootElementName)
   {
-    this(extendedMetaData);
+    this(extendedMetaData, null, dataObject, rootElementURI, rootElementName);
+  }
+
+  protected XMLDocumentImpl(ExtendedMetaData extendedMetaData, XMLResourcePool pool, DataObject dataObject, String rootElementURI, String rootElementName)
+  {
+    this(extendedMetaData, pool, null);
 
     rootObject = (EObject)dataObject;
 
@@ -162,10 +179,10 @@ public class XMLDocumentImpl implements XMLDocument
     
   protected void save(Writer outputWriter, Object options) throws IOException
   {
-    // TODO temporary brute-force implementation ... to be replaced
-    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    // The bytes, in the encoding the declaration names, are decoded to the writer as they are saved
+    WriterOutputStream outputStream = new WriterOutputStream(outputWriter, getEncoding());
     save(outputStream, options);
-    outputWriter.write(new String(outputStream.toByteArray()));
+    outputStream.finish();
   }
 
   protected void save(Node node, Object options) throws IOException
@@ -205,10 +222,19 @@ public class XMLDocumentImpl implements XMLDocument
       }
     }
 
-    if (outputStream != null)
-      resource.save(outputStream, (Map)options);
-    else // if (document != null)
-      resource.save(document, (Map)options, null);
+    Map saveOptions = pool == null ? (Map)options : pool.acquireSaveOptions((Map)options);
+    try
+    {
+      if (outputStream != null)
+        resource.save(outputStream, saveOptions);
+      else // if (document != null)
+        resource.save(document, saveOptions, null);
+    }
+    finally
+    {
+      if (pool != null)
+        pool.release(saveOptions);
+    }
 
     if (oldResource != null)
     {
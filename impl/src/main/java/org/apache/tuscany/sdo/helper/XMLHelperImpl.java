@@ -21,11 +21,19 @@ package org.apache.tuscany.sdo.helper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.transform.Result;
@@ -37,6 +45,9 @@ import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
+import org.apache.tuscany.sdo.api.SDOHelper;
+import org.apache.tuscany.sdo.util.resource.ByteBufferInputStream;
+import org.apache.tuscany.sdo.util.resource.ChannelOutputStream;
 import org.eclipse.emf.ecore.util.ExtendedMetaData;
 import org.xml.sax.InputSource;
 
@@ -48,6 +59,12 @@ import commonj.sdo.helper.XMLHelper;
 /**
  * A helper to convert XML documents into DataObects and DataObjects into XML
  * documnets.
+ * <p>
+ * Documents can be loaded and saved from any number of threads at once: each
+ * document has its own EMF resource, the XML processing state the threads
+ * share is in the XMLResourcePool of the HelperContext, and the metadata
+ * demand created for elements and attributes the types don't define is
+ * created under a lock.
  */
 public class XMLHelperImpl implements XMLHelper {
     protected HelperContext helperContext;
@@ -93,13 +110,13 @@ public class XMLHelperImpl implements XMLHelper {
 
     public XMLDocument load(InputStream inputStream, String locationURI, Object options) throws IOException {
         options = checkSetOptions(options);
-        XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, options);
+        XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, getXMLResourcePool(), options);
         document.load(inputStream, locationURI, options);
         return document;
     }
 
     public XMLDocument load(Reader inputReader, String locationURI, Object options) throws IOException {
-        XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, options);
+        XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, getXMLResourcePool(), options);
         options = checkSetOptions(options);
         document.load(inputReader, locationURI, options);
         return document;
@@ -109,11 +126,11 @@ public class XMLHelperImpl implements XMLHelper {
         options = checkSetOptions(options);
         if (source instanceof DOMSource) {
             DOMSource domSource = (DOMSource)source;
-            XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, options);
+            XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, getXMLResourcePool(), options);
             document.load(domSource.getNode(), options);
             return document;
         } else if (source instanceof SAXSource) {
-            XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, options);
+            XMLDocumentImpl document = new XMLDocumentImpl(extendedMetaData, getXMLResourcePool(), options);
             InputSource inputSource = SAXSource.sourceToInputSource(source);
             document.load(inputSource, locationURI, options);
             return document;
@@ -182,11 +199,208 @@ public class XMLHelperImpl implements XMLHelper {
     }
 
     public XMLDocument createDocument(DataObject dataObject, String rootElementURI, String rootElementName) {
-        XMLDocument xmlDocument = new XMLDocumentImpl(extendedMetaData, dataObject, rootElementURI, rootElementName);
+        XMLDocument xmlDocument = new XMLDocumentImpl(extendedMetaData, getXMLResourcePool(), dataObject, rootElementURI, rootElementName);
         xmlDocument.setEncoding("UTF-8");
         return xmlDocument;
     }
 
+    /**
+     * Loads the document from the remaining bytes of the buffer, such as a MappedByteBuffer, without changing its position.
+     */
+    public XMLDocument load(ByteBuffer buffer, String locationURI, Object options) throws IOException {
+        return load(new ByteBufferInputStream(buffer), locationURI, options);
+    }
+
+    /**
+     * Loads the document from the file of the channel, from the position of the channel on, by mapping the file into memory.
+     */
+    public XMLDocument load(FileChannel channel, String locationURI, Object options) throws IOException {
+        return load(new ByteBufferInputStream(channel), locationURI, options);
+    }
+
+    /**
+     * Saves the document to the channel through a direct buffer.
+     */
+    public void save(final XMLDocument xmlDocument, WritableByteChannel channel, final Object options) throws IOException {
+        save(channel, new Task() {
+            public void run(OutputStream outputStream) throws IOException {
+                save(xmlDocument, outputStream, options);
+            }
+        }, getXMLResourcePool());
+    }
+
+    /**
+     * Something to write to an OutputStream.
+     */
+    public interface Task {
+        void run(OutputStream outputStream) throws IOException;
+    }
+
+    /**
+     * Runs the task on a stream to the channel, through a direct buffer of the pool if there is one.
+     */
+    public static void save(WritableByteChannel channel, Task task, XMLResourcePool pool) throws IOException {
+        ByteBuffer buffer = pool == null ? ByteBuffer.allocateDirect(XMLResourcePool.BUFFER_SIZE) : pool.acquireBuffer();
+        try {
+            ChannelOutputStream outputStream = new ChannelOutputStream(channel, buffer);
+            task.run(outputStream);
+            outputStream.flush();
+        } finally {
+            if (pool != null) {
+                pool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Loads the documents, each an InputStream, a Reader or a String, in
+     * parallel and returns the XMLDocuments in the same order.
+     */
+    public List load(final List inputs, final Object options) throws IOException {
+        final XMLDocument[] documents = new XMLDocument[inputs.size()];
+        new Batch(documents.length) {
+            protected void run(int index) throws IOException {
+                Object input = inputs.get(index);
+                if (input instanceof InputStream) {
+                    documents[index] = load((InputStream)input, null, options);
+                } else if (input instanceof Reader) {
+                    documents[index] = load((Reader)input, null, options);
+                } else {
+                    documents[index] = load(new StringReader((String)input), null, options);
+                }
+            }
+        }.execute(options);
+        return Arrays.asList(documents);
+    }
+
+    /**
+     * Saves the documents in parallel, each to the OutputStream or Writer at
+     * the same position of outputs.
+     */
+    public void save(final List documents, final List outputs, final Object options) throws IOException {
+        if (outputs.size() != documents.size()) {
+            throw new IllegalArgumentException("There are " + documents.size() + " documents but " + outputs.size() + " outputs");
+        }
+        new Batch(documents.size()) {
+            protected void run(int index) throws IOException {
+                XMLDocument document = (XMLDocument)documents.get(index);
+                Object output = outputs.get(index);
+                if (output instanceof OutputStream) {
+                    save(document, (OutputStream)output, options);
+                } else {
+                    save(document, (Writer)output, options);
+                }
+            }
+        }.execute(options);
+    }
+
+    /**
+     * Runs a task for each index of a batch on the calling thread and, if
+     * the XML_EXECUTOR option is specified, on up to one less than the number
+     * of processors of its threads. Each thread claims the next index until
+     * there are none left, so the batch completes even if the executor runs
+     * its tasks late or never. Without the option, no thread is started and
+     * the calling thread runs every index in order.
+     */
+    protected abstract static class Batch {
+        protected final int size;
+
+        protected int next, completed;
+
+        protected final Throwable[] failures;
+
+        protected Batch(int size) {
+            this.size = size;
+            failures = new Throwable[size];
+        }
+
+        protected abstract void run(int index) throws Exception;
+
+        protected synchronized int claim() {
+            return next == size ? -1 : next++;
+        }
+
+        protected void work() {
+            for (int index; (index = claim()) != -1;) {
+                try {
+                    run(index);
+                } catch (Throwable e) {
+                    failures[index] = e;
+                }
+                synchronized (this) {
+                    if (++completed == size) {
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        public void execute(Object options) throws IOException {
+            Object executor = options instanceof Map ? ((Map)options).get(SDOHelper.XMLOptions.XML_EXECUTOR) : null;
+            int workers = executor == null ? 0 : Math.min(size, Runtime.getRuntime().availableProcessors()) - 1;
+            if (workers > 0) {
+                Runnable worker = new Runnable() {
+                    public void run() {
+                        work();
+                    }
+                };
+                Method execute = getExecuteMethod(executor);
+                try {
+                    for (int i = 0; i < workers; i++) {
+                        execute.invoke(executor, new Object[] {worker});
+                    }
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException(e.toString());
+                } catch (InvocationTargetException e) {
+                    // the executor rejected the task; the calling thread does the work
+                }
+            }
+            work();
+            synchronized (this) {
+                while (completed != size) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+            }
+
+            for (int index = 0; index < size; index++) {
+                Throwable failure = failures[index];
+                if (failure instanceof IOException) {
+                    throw (IOException)failure;
+                } else if (failure instanceof RuntimeException) {
+                    throw (RuntimeException)failure;
+                } else if (failure instanceof Error) {
+                    throw (Error)failure;
+                } else if (failure != null) {
+                    throw new RuntimeException(failure);
+                }
+            }
+        }
+
+        /**
+         * Returns the public execute(Runnable) method of the executor, which
+         * may be of a class that isn't public, such as the executors of
+         * java.util.concurrent.Executors.
+         */
+        protected static Method getExecuteMethod(Object executor) {
+            try {
+                Method execute = executor.getClass().getMethod("execute", new Class[] {Runnable.class});
+                execute.setAccessible(true);
+                return execute;
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("The " + SDOHelper.XMLOptions.XML_EXECUTOR + " option has no execute(Runnable) method");
+            }
+        }
+    }
+
+    protected XMLResourcePool getXMLResourcePool() {
+        return ((HelperContextImpl)helperContext).getXMLResourcePool();
+    }
+
     public HelperContext getHelperContext() {
         return helperContext;
     }
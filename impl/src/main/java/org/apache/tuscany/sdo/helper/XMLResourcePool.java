@@ -0,0 +1,215 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.helper;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+
+import org.apache.tuscany.sdo.api.SDOHelper;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.eclipse.emf.ecore.xmi.XMLParserPool;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.emf.ecore.xmi.impl.XMLParserPoolImpl;
+
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * The XML processing state a HelperContext shares across the documents it loads and saves, so that loading or saving
+ * a document neither discovers factories nor sets up parsers and EMF lookup caches from scratch: a pool of SAX parsers
+ * and their handlers, the schemas defined by loads, a StAX output factory, a pool of the feature lookup tables EMF
+ * builds while saving and a pool of the direct buffers documents are saved to channels through.
+ * <p>
+ * EMF's map from XML names to features isn't shared: it would keep the open content and demand created features
+ * resolved by every load of the context.
+ * <p>
+ * The pool can be used from any number of threads; the lookup tables and buffers, which aren't thread safe, are handed
+ * out to one save at a time.
+ */
+public class XMLResourcePool {
+    /**
+     * The load option with the pool, whose {@link SchemaCache}s define the schemas of loads.
+     */
+    public static final String OPTION_POOL = "XML_RESOURCE_POOL";
+
+    protected final XMLParserPool parserPool = new XMLParserPoolImpl();
+
+    protected XMLOutputFactory outputFactory;
+
+    /**
+     * The lookup tables not in use by a save, in a List for each set of save options, as the features EMF caches in a
+     * table depend on the options of the save that built it.
+     */
+    protected final Map lookupTables = new HashMap();
+
+    /**
+     * The number of option sets the lookup tables are pooled for; the saves with other options build their own.
+     */
+    public static final int MAX_OPTION_SETS = 16;
+
+    /**
+     * The size of the direct buffers a document is saved to a channel through.
+     */
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The direct buffers not in use by a save, at most {@link #maxBuffers} of them.
+     */
+    protected final List buffers = new ArrayList();
+
+    /**
+     * The number of direct buffers kept for reuse, one per processor; the buffers given back beyond it are left to be
+     * collected, so that a burst of concurrent saves doesn't hold on to its buffers.
+     */
+    protected final int maxBuffers = Runtime.getRuntime().availableProcessors();
+
+    protected final SchemaCache schemaCache;
+
+    /**
+     * The schema caches of the loads with extended metadata other than that of the pool's HelperContext, for up to
+     * {@link #MAX_OPTION_SETS} metadata instances.
+     */
+    protected final Map schemaCaches = new IdentityHashMap();
+
+    public XMLResourcePool() {
+        this(null);
+    }
+
+    public XMLResourcePool(SchemaCache schemaCache) {
+        this.schemaCache = schemaCache;
+    }
+
+    /**
+     * Configures the resource to load documents with the parsers and schema cache of this pool.
+     */
+    public void configure(XMLResource resource) {
+        Map loadOptions = resource.getDefaultLoadOptions();
+        loadOptions.put(XMLResource.OPTION_USE_PARSER_POOL, parserPool);
+        loadOptions.put(OPTION_POOL, this);
+    }
+
+    public SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
+    /**
+     * Returns the schema cache for loads with the specified extended metadata: the cache of the pool's HelperContext if
+     * it has that metadata, else a cache of a HelperContext created for the metadata, or null if the pool has no schema
+     * cache or already keeps caches for {@link #MAX_OPTION_SETS} other metadata instances.
+     */
+    public SchemaCache getSchemaCache(ExtendedMetaData extendedMetaData) {
+        if (schemaCache == null) {
+            return null;
+        }
+        HelperContext helperContext = schemaCache.getHelperContext();
+        if (helperContext instanceof HelperContextImpl && ((HelperContextImpl) helperContext).getExtendedMetaData() == extendedMetaData) {
+            return schemaCache;
+        }
+        synchronized (schemaCaches) {
+            SchemaCache cache = (SchemaCache) schemaCaches.get(extendedMetaData);
+            if (cache == null && schemaCaches.size() < MAX_OPTION_SETS) {
+                cache = new SchemaCache(new HelperContextImpl(extendedMetaData, false));
+                schemaCaches.put(extendedMetaData, cache);
+            }
+            return cache;
+        }
+    }
+
+    public synchronized XMLOutputFactory getXMLOutputFactory() {
+        if (outputFactory == null) {
+            outputFactory = XMLOutputFactory.newInstance();
+        }
+        return outputFactory;
+    }
+
+    /**
+     * Returns a copy of the specified options for a save, with the output factory of this pool and a lookup table built
+     * by a save with the same options added. The lookup table must be given back, once the save is done, by
+     * {@link #release(Map)}.
+     */
+    public Map acquireSaveOptions(Map options) {
+        Map saveOptions = options == null ? new HashMap() : new HashMap(options);
+        if (saveOptions.get(SDOHelper.XMLOptions.XML_OUTPUT_FACTORY) == null) {
+            saveOptions.put(SDOHelper.XMLOptions.XML_OUTPUT_FACTORY, getXMLOutputFactory());
+        }
+        List lookupTable = null;
+        synchronized (lookupTables) {
+            List tables = (List) lookupTables.get(saveOptions);
+            if (tables != null && !tables.isEmpty()) {
+                lookupTable = (List) tables.remove(tables.size() - 1);
+            }
+        }
+        saveOptions.put(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE, lookupTable == null ? new ArrayList() : lookupTable);
+        return saveOptions;
+    }
+
+    /**
+     * Gives back the lookup table of save options returned by {@link #acquireSaveOptions(Map)}.
+     */
+    public void release(Map saveOptions) {
+        Map options = new HashMap(saveOptions);
+        Object lookupTable = options.remove(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE);
+        if (lookupTable != null) {
+            synchronized (lookupTables) {
+                List tables = (List) lookupTables.get(options);
+                if (tables == null) {
+                    if (lookupTables.size() == MAX_OPTION_SETS) {
+                        return;
+                    }
+                    tables = new ArrayList();
+                    lookupTables.put(options, tables);
+                }
+                tables.add(lookupTable);
+            }
+        }
+    }
+
+    /**
+     * Returns an empty direct buffer of {@link #BUFFER_SIZE} bytes for a save to a channel. The buffer must be given back,
+     * once the save is done, by {@link #release(ByteBuffer)}.
+     */
+    public ByteBuffer acquireBuffer() {
+        ByteBuffer buffer;
+        synchronized (buffers) {
+            int size = buffers.size();
+            if (size == 0)
+                return ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer = (ByteBuffer) buffers.remove(size - 1);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives back a buffer returned by {@link #acquireBuffer()}. The pool keeps it unless it already keeps
+     * {@link #maxBuffers} buffers.
+     */
+    public void release(ByteBuffer buffer) {
+        synchronized (buffers) {
+            if (buffers.size() < maxBuffers)
+                buffers.add(buffer);
+        }
+    }
+}
@@ -19,20 +19,28 @@
  */
 package org.apache.tuscany.sdo.helper;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.apache.tuscany.sdo.impl.ClassImpl;
 import org.apache.tuscany.sdo.util.resource.DataObjectXMLStreamReader;
+import org.apache.tuscany.sdo.util.resource.DataObjectXMLStreamSerializer;
+import org.apache.tuscany.sdo.util.resource.LoadPlan;
 import org.apache.tuscany.sdo.util.resource.XMLDocumentStreamReader;
-import org.apache.tuscany.sdo.util.resource.XMLStreamSerializer;
 import org.eclipse.emf.ecore.resource.Resource;
 
 import commonj.sdo.DataObject;
 import commonj.sdo.Property;
+import commonj.sdo.Type;
 import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.XMLDocument;
 
@@ -62,14 +70,20 @@ public class XMLStreamHelperImpl implements XMLStreamHelper {
     }
 
     public void save(XMLDocument document, XMLStreamWriter writer) throws XMLStreamException {
-        XMLStreamReader reader = createXMLStreamReader(document);
-        new XMLStreamSerializer().serialize(reader, writer);
+        createSerializer().serialize(document.getRootObject(), document.getRootElementURI(), document.getRootElementName(), writer, null);
     }
 
     public void save(XMLDocument document, XMLStreamWriter writer, Map options) throws XMLStreamException {
-        XMLStreamReader reader = createXMLStreamReader(document);
         options = checkSetOptions(options);
-        new XMLStreamSerializer().serialize(reader, writer, options);
+        createSerializer().serialize(document.getRootObject(), document.getRootElementURI(), document.getRootElementName(), writer, options);
+    }
+
+    /**
+     * Returns a serializer that writes an object straight to a writer, as the XMLStreamSerializer writes the events of the reader
+     * {@link #createXMLStreamReader(DataObject)} returns.
+     */
+    protected DataObjectXMLStreamSerializer createSerializer() {
+        return new DataObjectXMLStreamSerializer(((HelperContextImpl)helperContext).getExtendedMetaData());
     }
 
     public XMLStreamReader createXMLStreamReader(XMLDocument document) throws XMLStreamException {
@@ -86,11 +100,8 @@ public class XMLStreamHelperImpl implements XMLStreamHelper {
         if (reader.getEventType() != XMLStreamConstants.START_ELEMENT)
             throw new IllegalStateException();
 
-        // StAX2SAXAdapter won't produce START_DOCUMENT if the reader is
-        // posisitioned at START_ELEMENT and the EMF loader will fail
-        // Wrap the reader so it represents a document
-        reader = new XMLDocumentStreamReader(reader);
-
+        // The loader reports an element the reader is positioned at as the root of a document,
+        // so the reader is passed as is rather than wrapped in an XMLDocumentStreamReader
         return loadDocument(reader, options).getRootObject();
     }
 
@@ -98,15 +109,204 @@ public class XMLStreamHelperImpl implements XMLStreamHelper {
         return loadObject(reader, null);
     }
 
+    public Iterator loadObjects(XMLStreamReader reader, String path, Map options) throws IllegalStateException {
+        int event = reader.getEventType();
+        if (event != XMLStreamConstants.START_DOCUMENT && event != XMLStreamConstants.START_ELEMENT)
+            throw new IllegalStateException();
+
+        List steps = new ArrayList();
+        for (int start = 0, length = path.length(); start < length;) {
+            int end = path.indexOf('/', start);
+            if (end == -1)
+                end = length;
+            if (end != start)
+                steps.add(path.substring(start, end));
+            start = end + 1;
+        }
+        if (steps.isEmpty())
+            throw new IllegalArgumentException("The path '" + path + "' doesn't name an element");
+        return new ObjectIterator(reader, (String[]) steps.toArray(new String[steps.size()]), options);
+    }
+
+    /**
+     * Walks the stream, tracking the open elements that match the leading steps of the path, and loads each element that matches all of them.
+     * Only the types of the matching ancestors are kept, so the walk itself uses constant memory.
+     */
+    protected class ObjectIterator implements Iterator {
+        protected final XMLStreamReader reader;
+
+        /**
+         * The namespace and local name of each step of the path; null matches any.
+         */
+        protected final String[] nameSpaces, names;
+
+        protected final Map options;
+
+        /**
+         * The types of the properties of the matching open elements, by depth; null where not known.
+         */
+        protected final Type[] types;
+
+        /**
+         * The number of open elements.
+         */
+        protected int depth;
+
+        /**
+         * The number of open elements matching the leading steps of the path.
+         */
+        protected int matched;
+
+        /**
+         * Whether the reader is positioned on an element to load, and whether an element has been loaded and the reader is on its END_ELEMENT.
+         */
+        protected boolean found, loaded;
+
+        protected boolean done;
+
+        protected ObjectIterator(XMLStreamReader reader, String[] steps, Map options) {
+            this.reader = reader;
+            this.options = options;
+            nameSpaces = new String[steps.length];
+            names = new String[steps.length];
+            for (int index = 0; index != steps.length; ++index) {
+                String step = steps[index];
+                if (step.charAt(0) == '{') {
+                    int end = step.indexOf('}');
+                    nameSpaces[index] = step.substring(1, end);
+                    step = step.substring(end + 1);
+                }
+                if (!step.equals("*"))
+                    names[index] = step;
+            }
+            types = new Type[steps.length];
+        }
+
+        protected boolean matches(int step) {
+            String name = names[step];
+            if (name != null && !name.equals(reader.getLocalName()))
+                return false;
+            String nameSpace = nameSpaces[step];
+            if (nameSpace == null)
+                return true;
+            String elementNameSpace = reader.getNamespaceURI();
+            return nameSpace.equals(elementNameSpace == null ? "" : elementNameSpace);
+        }
+
+        /**
+         * Returns the type of the property the current element represents, in an instance of the specified type, or as a global element.
+         */
+        protected Type type(Type containingType) {
+            String nameSpace = reader.getNamespaceURI();
+            if (nameSpace != null && nameSpace.length() == 0)
+                nameSpace = null;
+            String name = reader.getLocalName();
+            Property property;
+            if (containingType == null)
+                property = helperContext.getXSDHelper().getGlobalProperty(nameSpace, name, true);
+            else if (containingType.isDataType())
+                return null;
+            else {
+                LoadPlan.Entry entry = nameSpace == null || !(containingType instanceof ClassImpl) ? null : ((ClassImpl) containingType).getLoadPlan(
+                        ((HelperContextImpl) helperContext).extendedMetaData).getEntry(nameSpace, name);
+                property = entry == null ? containingType.getProperty(name) : entry.property;
+            }
+            return property == null ? null : property.getType();
+        }
+
+        protected boolean advance() throws XMLStreamException {
+            int event;
+            if (loaded) {
+                // the reader is on the END_ELEMENT of the loaded element
+                loaded = false;
+                --matched;
+                if (--depth == 0)
+                    return false;
+                event = reader.next();
+            } else
+                event = reader.getEventType();
+            for (;;) {
+                switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (matched == depth && matches(matched)) {
+                        types[matched] = matched == 0 || types[matched - 1] != null ? type(matched == 0 ? null : types[matched - 1]) : null;
+                        ++depth;
+                        if (++matched == types.length)
+                            return true;
+                    } else
+                        ++depth;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    if (matched == depth)
+                        --matched;
+                    if (--depth == 0)
+                        return false;
+                    break;
+                case XMLStreamConstants.END_DOCUMENT:
+                    return false;
+                }
+                event = reader.next();
+            }
+        }
+
+        public boolean hasNext() {
+            if (!found && !done)
+                try {
+                    found = advance();
+                    done = !found;
+                } catch (XMLStreamException e) {
+                    done = true;
+                    throw new RuntimeException(e);
+                }
+            return found;
+        }
+
+        public Object next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            found = false;
+            Map loadOptions = options;
+            Type type = types[types.length - 1];
+            if (type != null && !type.isDataType() && (options == null || !options.containsKey(OPTION_DEFAULT_ROOT_TYPE))) {
+                loadOptions = options == null ? new HashMap() : new HashMap(options);
+                loadOptions.put(OPTION_DEFAULT_ROOT_TYPE, type);
+            }
+            try {
+                DataObject dataObject = loadObject(reader, loadOptions);
+                loaded = true;
+                return dataObject;
+            } catch (XMLStreamException e) {
+                done = true;
+                throw new RuntimeException(e);
+            }
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     public void saveObject(DataObject sdo, XMLStreamWriter writer) throws XMLStreamException {
-        XMLStreamReader reader = createXMLStreamReader(sdo);
-        new XMLStreamSerializer().serialize(new XMLDocumentStreamReader(reader), writer);
+        serialize(sdo, writer, null);
     }
 
     public void saveObject(DataObject sdo, XMLStreamWriter writer, Map options) throws XMLStreamException {
-        XMLStreamReader reader = createXMLStreamReader(sdo);
-        options = checkSetOptions(options);
-        new XMLStreamSerializer().serialize(new XMLDocumentStreamReader(reader), writer, options);
+        serialize(sdo, writer, checkSetOptions(options));
+    }
+
+    /**
+     * Writes the object as the element {@link #createXMLStreamReader(DataObject)} reads it as.
+     */
+    protected void serialize(DataObject dataObject, XMLStreamWriter writer, Map options) throws XMLStreamException {
+        if (dataObject == null) {
+            throw new UnsupportedOperationException("DataObject cannot be null");
+        }
+        Property property = dataObject.getContainmentProperty();
+        if (property != null) {
+            createSerializer().serialize(dataObject, property.getType().getURI(), property.getName(), writer, options);
+        } else {
+            createSerializer().serialize(dataObject, dataObject.getType().getURI(), dataObject.getType().getName(), writer, options);
+        }
     }
 
     public XMLStreamReader createXMLStreamReader(DataObject dataObject) {
@@ -130,7 +330,7 @@ public class XMLStreamHelperImpl implements XMLStreamHelper {
 
     protected XMLDocument loadDocument(XMLStreamReader reader, Map options) throws XMLStreamException {
         try {
-            XMLDocumentImpl document = new XMLDocumentImpl(((HelperContextImpl)helperContext).extendedMetaData, null);
+            XMLDocumentImpl document = new XMLDocumentImpl(((HelperContextImpl)helperContext).extendedMetaData, ((HelperContextImpl)helperContext).getXMLResourcePool(), null);
             options = checkSetOptions(options);
             document.load(reader, options);
             return document;
@@ -239,6 +239,8 @@ public class XSDHelperImpl implements XSDHelper {
                 String targetNamespace = schema.getTargetNamespace();
                 EPackage ePackage = extendedMetaData.getPackage(targetNamespace);
                 if (extensibleNamespaces || ePackage == null || TypeHelperImpl.getBuiltInModels().contains(ePackage)) {
+                    // a sealed context still takes schemas whose namespaces it already defines
+                    ((HelperContextImpl)helperContext).checkNotSealed();
                     Map targetNamespaceToEPackageMap = ecoreBuilder.getTargetNamespaceToEPackageMap();
                     targetNamespaceToEPackageMap.remove(targetNamespace);
 
@@ -258,6 +260,8 @@ public class XSDHelperImpl implements XSDHelper {
             }
 
             return newTypes;
+        } catch (UnsupportedOperationException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             throw new IllegalArgumentException(e.getMessage());
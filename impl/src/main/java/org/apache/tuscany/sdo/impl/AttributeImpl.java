@@ -29,6 +29,7 @@ import org.apache.tuscany.sdo.model.internal.impl.InternalFactoryImpl;
 import org.apache.tuscany.sdo.util.BasicSequence;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
 import org.apache.tuscany.sdo.util.SDOUtil;
+import org.apache.tuscany.sdo.util.ValueConverter;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EStructuralFeature;
@@ -123,6 +124,23 @@ public class AttributeImpl extends EAttributeImpl implements Property, org.apach
     return aliasNames;
   }
   
+  protected ValueConverter valueConverter;
+
+  /**
+   * Returns the converter of values passed to the typed setters to the instance class of this property's type.
+   * The converter is resolved once and replaced only if the type of the property changes.
+   */
+  public ValueConverter getValueConverter()
+  {
+    ValueConverter converter = valueConverter;
+    EClassifier eType = getEType();
+    if (converter == null || converter.getEType() != eType)
+    {
+      valueConverter = converter = ValueConverter.create(eType);
+    }
+    return converter;
+  }
+  
   public static Type INTERNAL_BASE64_BYTES = ((InternalFactoryImpl)InternalFactory.INSTANCE).getBase64Bytes();
   public static Type INTERNAL_QNAME = ((InternalFactoryImpl)InternalFactory.INSTANCE).getQName();
 
@@ -22,7 +22,6 @@ package org.apache.tuscany.sdo.impl;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -32,6 +31,7 @@ import java.util.Set;
 import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SDOPackage;
 import org.apache.tuscany.sdo.util.BasicSequence;
+import org.apache.tuscany.sdo.util.DataObjectUtil;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.NotificationChain;
 import org.eclipse.emf.common.notify.Notifier;
@@ -95,6 +95,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
   protected List cachedCreatedObjects = null;
   protected Map cachedSDOObjectChanges = null;  
   protected boolean isStale = false;
+  protected boolean isContainmentStale = false;
 
   /**
    * <!-- begin-user-doc -->
@@ -104,7 +105,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
   protected ChangeSummaryImpl()
   {
     super();
-    cachedSDOObjectChanges = createThreadSafeMap();
+    cachedSDOObjectChanges = DataObjectUtil.createThreadSafeMap();
   }
 
   /**
@@ -202,7 +203,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
     getResourceChanges().clear();
     oldContainmentInformation = null;
 
-    beginRecording();
+    beginRecording(false);
 //    if (eNotificationRequired())
 //      eNotify(new ENotificationImpl(this, Notification.SET, SDOPackage.ECHANGE_SUMMARY__LOGGING, false, true));
   }
@@ -210,8 +211,17 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
   /**
    * 
    */
-  private void beginRecording() {
+  private void beginRecording(boolean resume) {
     changeRecorder = new SDOChangeRecorder();
+    if (resume)
+    {
+      changeRecorder.previouslyCreatedObjects = new HashSet(getObjectsToDetach());
+      changeRecorder.previouslyDeletedObjects = new HashSet();
+      for (Iterator i = EcoreUtil.getAllContents(getObjectsToAttach()); i.hasNext(); )
+      {
+        changeRecorder.previouslyDeletedObjects.add(i.next());
+      }
+    }
     if (eDataGraph != null) 
     {
       changeRecorder.beginRecording(Collections.singleton(((DataGraphImpl)eDataGraph).getRootResource()));
@@ -240,7 +250,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
 
     oldContainmentInformation = null;
     
-    beginRecording();
+    beginRecording(true);
 //    if (eNotificationRequired())
 //      eNotify(new ENotificationImpl(this, Notification.SET, SDOPackage.ECHANGE_SUMMARY__LOGGING, false, true));
   }  
@@ -412,6 +422,17 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
 
   protected class SDOChangeRecorder extends ChangeRecorder
   {
+    /**
+     * The DataObjects in the tree when recording began, and the ones added to and removed from a containment since then,
+     * which tell the created and deleted objects before the changes are consolidated.
+     */
+    protected final Set originalObjects = new HashSet(), addedObjects = new HashSet(), removedObjects = new HashSet();
+
+    /**
+     * The objects created and deleted before logging resumed.
+     */
+    protected Set previouslyCreatedObjects = Collections.EMPTY_SET, previouslyDeletedObjects = Collections.EMPTY_SET;
+
     public SDOChangeRecorder()
     {
       super();
@@ -448,6 +469,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
     {
       uncache();
       isStale = false;
+      isContainmentStale = false;
       
       // TODO remove this fixup when https://bugs.eclipse.org/bugs/show_bug.cgi?id=177235 is
       // available to us (i.e. we update to EMF 2.3) -- see Tuscany-1164
@@ -467,6 +489,8 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
     {
       if (!loadingTargets) return; // Optimize ChangeSummary to not record changes in newly created DOs
 
+      if (notifier instanceof DataObject)
+        originalObjects.add(notifier);
       if (notifier instanceof DataObjectImpl)
         ((DataObjectImpl)notifier).setChangeRecorder(this);
       else
@@ -490,16 +514,67 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
       {
         cachedSDOObjectChanges.remove(notifier);
         Object feature = notification.getFeature();
-        if (feature instanceof Property && ((Property)feature).isContainment())
+        boolean isContainment = feature instanceof Property && ((Property)feature).isContainment();
+        if (isContainment || feature instanceof EStructuralFeature && FeatureMapUtil.isFeatureMap((EStructuralFeature)feature))
         {
-          cachedCreatedObjects = null;
-          cachedDeletedObjects = null;
-          oldContainmentInformation = null;
+          int removed = removedObjects.size(), added = addedObjects.size();
+          addContained(notification.getOldValue(), isContainment, removedObjects);
+          addContained(notification.getNewValue(), isContainment, addedObjects);
+          if (removed != removedObjects.size() || added != addedObjects.size() || isContainment)
+          {
+            cachedCreatedObjects = null;
+            cachedDeletedObjects = null;
+            oldContainmentInformation = null;
+            isContainmentStale = true;
+          }
         }
         isStale = true;
       }
     }
 
+    /**
+     * Adds the objects of a containment value, or the contained objects of the entries of a feature map value, to the set.
+     */
+    protected void addContained(Object value, boolean isContainment, Set objects)
+    {
+      if (value instanceof FeatureMap.Entry)
+      {
+        FeatureMap.Entry entry = (FeatureMap.Entry)value;
+        if (isContainmentReference(entry.getEStructuralFeature()))
+          addContained(entry.getValue(), true, objects);
+      }
+      else if (value instanceof Collection)
+      {
+        for (Iterator i = ((Collection)value).iterator(); i.hasNext(); )
+          addContained(i.next(), isContainment, objects);
+      }
+      else if (isContainment && value instanceof DataObject)
+        objects.add(value);
+    }
+
+    protected boolean isCreated(EObject eObject)
+    {
+      return (!originalObjects.contains(eObject) || previouslyCreatedObjects.contains(eObject)) && isContained(eObject);
+    }
+
+    protected boolean isDeleted(EObject eObject)
+    {
+      return (originalObjects.contains(eObject) || previouslyDeletedObjects.contains(eObject)) && !isContained(eObject);
+    }
+
+    /**
+     * Adds the created, or the deleted, objects among the objects and their contents to the result.
+     */
+    protected void addChanged(Collection objects, boolean created, Collection result)
+    {
+      for (Iterator i = EcoreUtil.getAllContents(objects); i.hasNext(); )
+      {
+        EObject eObject = (EObject)i.next();
+        if (created ? isCreated(eObject) : isDeleted(eObject))
+          result.add(eObject);
+      }
+    }
+
   } 
 
   /**
@@ -528,6 +603,8 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
    */
   public boolean isCreated(DataObject dataObject)
   {
+    if (cachedCreatedObjects == null && isStale())
+      return changeRecorder.isCreated((EObject)dataObject);
     return getCachedCreatedObjects().contains(dataObject);
   }
 
@@ -538,6 +615,8 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
    */
   public boolean isDeleted(DataObject dataObject)
   {
+    if (cachedDeletedObjects == null && isStale())
+      return changeRecorder.isDeleted((EObject)dataObject);
     return getCachedDeletedObjects().contains(dataObject);
   }
 
@@ -572,8 +651,20 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
    */
   public List getChangedDataObjects()
   {
-    EList result = new UniqueEList.FastCompare(getCachedDeletedObjects());
-    result.addAll(getCachedCreatedObjects());
+    EList result;
+    if (cachedDeletedObjects == null && isStale())
+    {
+      result = new UniqueEList.FastCompare();
+      changeRecorder.addChanged(changeRecorder.removedObjects, false, result);
+      changeRecorder.addChanged(changeRecorder.previouslyDeletedObjects, false, result);
+      changeRecorder.addChanged(changeRecorder.addedObjects, true, result);
+      changeRecorder.addChanged(changeRecorder.previouslyCreatedObjects, true, result);
+    }
+    else
+    {
+      result = new UniqueEList.FastCompare(getCachedDeletedObjects());
+      result.addAll(getCachedCreatedObjects());
+    }
     for (Iterator i = getObjectChanges().iterator(); i.hasNext(); )
     {
       Map.Entry entry = (Map.Entry)i.next();
@@ -595,7 +686,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
       return sdoSettings;
     }
 
-    if (isStale()) changeRecorder.consolidateChanges();
+    // the recorder keeps the value of each changed feature from when it was first changed
     List settings = (List)getObjectChanges().get(dataObject);
     if (settings == null)
     {
@@ -736,7 +827,7 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
   {
     if (oldContainmentInformation == null)
     {
-      if (isStale()) changeRecorder.consolidateChanges();
+      if (isContainmentStale && isLogging()) changeRecorder.consolidateChanges();
       super.getOldContainmentInformation();
     }
     return oldContainmentInformation;
@@ -747,6 +838,20 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
     return isLogging() && isStale;
   }
 
+  /**
+   * Returns whether the object is in the tree of the root object, rather than detached or held by the change summary.
+   */
+  protected boolean isContained(EObject eObject)
+  {
+    Object rootObject = getRootObject();
+    for (; eObject != null; eObject = eObject.eContainer())
+    {
+      if (eObject == rootObject) return true;
+      if (eObject == this) return false;
+    }
+    return false;
+  }
+
   /**
    * <!-- begin-user-doc -->
    * <!-- end-user-doc -->
@@ -808,69 +913,4 @@ public class ChangeSummaryImpl extends ChangeDescriptionImpl implements ChangeSu
     return (DataObject)oldDataObject;
   }
   
-  private static Class concurrentHashMapClazz = null;
-  private static boolean isThreadSafeMapClazzIdentified = false;
-
-  private Map createThreadSafeMap() 
-  {
-    if (!isThreadSafeMapClazzIdentified) 
-    {
-      concurrentHashMapClazz = loadConcurrentHashMapClazz();
-      isThreadSafeMapClazzIdentified = true;
-    }
-    Map threadSafeMap = null;
-    if (concurrentHashMapClazz == null) 
-    {
-      threadSafeMap = Collections.synchronizedMap(new HashMap());
-    } 
-    else 
-    {
-      try 
-      {
-        threadSafeMap = (Map)concurrentHashMapClazz.newInstance();
-      } 
-      catch (InstantiationException e) 
-      {
-        throw new RuntimeException(e);
-      } 
-      catch (IllegalAccessException e) 
-      {
-        throw new RuntimeException(e);
-      }
-    }
-    return threadSafeMap;
-  }
-
-  private static String[] concurrentHashMapClazzNames = new String[] {
-      "java.util.concurrent.ConcurrentHashMap", 
-      "edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap"};
-
-  private static Class loadConcurrentHashMapClazz() 
-  {
-    Class mapClazz = null;
-    for (int i = 0; i < concurrentHashMapClazzNames.length; i++) 
-    {
-      String concurrentHashMapClazzName = concurrentHashMapClazzNames[i];
-      try 
-      {
-        mapClazz = Class.forName(concurrentHashMapClazzName, true, Thread.currentThread().getContextClassLoader());
-      } 
-      catch (Exception ignored) {}
-      if (mapClazz != null) 
-      {
-        break;
-      }
-      try 
-      {
-        mapClazz = Class.forName(concurrentHashMapClazzName);
-      } 
-      catch (Exception ignored) {}
-      if (mapClazz != null) 
-      {
-        break;
-      }
-    }
-    return mapClazz;
-  }
-  
 } //ChangeSummaryImpl
@@ -31,10 +31,14 @@ import java.util.Set;
 
 import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SDOPackage;
+import org.apache.tuscany.sdo.codegen.DataObjectClassGenerator;
 import org.apache.tuscany.sdo.model.ModelFactory;
 import org.apache.tuscany.sdo.model.impl.ModelFactoryImpl;
 import org.apache.tuscany.sdo.util.BasicSequence;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
+import org.apache.tuscany.sdo.util.PathExpressionImpl;
+import org.apache.tuscany.sdo.util.resource.LoadPlan;
+import org.apache.tuscany.sdo.util.resource.SavePlan;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.UniqueEList;
 import org.eclipse.emf.ecore.EAttribute;
@@ -116,6 +120,7 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
    */
   public boolean isOpen()
   {
+    if (sealed) return open;
     final List properties = getExtendedProperties();
     if (properties != Collections.EMPTY_LIST)
     {
@@ -291,6 +296,7 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
           protected void didChange()
           {
             declaredProperties = extendedProperties = null;
+            pathExpressions = null;
           }
         };
     }
@@ -308,6 +314,7 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
    */
   public List getProperties()
   {
+    if (sealed) return allProperties;
     final EList allFeatures = getEAllStructuralFeatures();
     if (allFeatures != allFeaturesCache) 
     {
@@ -324,12 +331,32 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
       }
       allProperties.addAll(getDeclaredProperties());     
       this.allProperties = allProperties;
+      unmodifiableProperties = null;
     }
     return allProperties;
   }
 
+  protected List unmodifiableProperties = null;
+
+  /**
+   * Returns an unmodifiable view of getProperties(), shared as the instance properties of closed types.
+   */
+  public List getUnmodifiableProperties()
+  {
+    if (sealed) return unmodifiableProperties;
+    List properties = getProperties();
+    List unmodifiableProperties = this.unmodifiableProperties;
+    if (unmodifiableProperties == null)
+    {
+      unmodifiableProperties = Collections.unmodifiableList(properties);
+      this.unmodifiableProperties = unmodifiableProperties;
+    }
+    return unmodifiableProperties;
+  }
+
   public List getAllExtendedProperties()
   {
+    if (sealed) return allExtendedProperties;
     final EList allFeatures = getEAllStructuralFeatures();
     if (allFeatures != allFeaturesCache) 
     {
@@ -388,35 +415,68 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
     }
   }
   
+  /**
+   * Returns whether any of the open content feature maps of the DataObject holds an entry.
+   */
+  public boolean hasOpenContent(EObject dataObject)
+  {
+    for (final Iterator iterator = getBaseTypes().iterator(); iterator.hasNext(); )
+    {
+      ClassImpl baseType = (ClassImpl)iterator.next();
+      if (baseType.hasOpenContent(dataObject)) return true;
+    }
+
+    final List properties = getExtendedProperties();
+    for (int i = 0, count = properties.size(); i < count; ++i)
+    {
+      EStructuralFeature eStructuralFeature = (EStructuralFeature)properties.get(i);
+      if (isOpenFeatureMap(eStructuralFeature) && !((List)dataObject.eGet(eStructuralFeature)).isEmpty()) return true;
+    }
+    return false;
+  }
+  
   public Property getOpenProperty(EObject dataObject, String featureName)
+  {
+    if (dataObject instanceof DataObjectImpl)
+    {
+      return ((DataObjectImpl)dataObject).getOpenProperty(featureName);
+    }
+    return findOpenProperty(dataObject, featureName);
+  }
+  
+  protected Property findOpenProperty(EObject dataObject, String featureName)
   {
     for (final Iterator iterator = getBaseTypes().iterator(); iterator.hasNext(); )
     {
       ClassImpl baseType = (ClassImpl)iterator.next();
-      Property result = baseType.getOpenProperty(dataObject, featureName);
+      Property result = baseType.findOpenProperty(dataObject, featureName);
       if (result != null) return result;
     }
     
-    Set openFeatureSet = new HashSet();
-    for (final Iterator iter = getExtendedProperties().iterator(); iter.hasNext(); )
+    final List properties = getExtendedProperties();
+    for (int i = 0, count = properties.size(); i < count; ++i)
     {
-      EStructuralFeature eStructuralFeature = (EStructuralFeature)iter.next();
+      EStructuralFeature eStructuralFeature = (EStructuralFeature)properties.get(i);
       //if (isOpenFeatureMap(eStructuralFeature)) 
       //FB The above check excludes subsitition groups - i.e., doesn't support dObj.get("element.substitution")
       if (FeatureMapUtil.isFeatureMap(eStructuralFeature))
       {
         List features = (List)dataObject.eGet(eStructuralFeature);
+        EStructuralFeature previousFeature = null;
         for (int j = 0, size = features.size(); j < size; ++j)
         {
           FeatureMap.Entry entry = (FeatureMap.Entry)features.get(j);
           EStructuralFeature entryFeature = entry.getEStructuralFeature();
-          if (openFeatureSet.add(entryFeature))
+          // The entries of a many-valued property are usually adjacent, so its names are compared once per run
+          // rather than collecting the features already seen.
+          if (entryFeature != previousFeature)
           {
+            previousFeature = entryFeature;
             Property property = BasicSequence.getFeatureProperty(entryFeature);
             if (property != null)
             {
               if (property.getName().equals(featureName)) return (Property)entryFeature;
-               List aliasNames = property.getAliasNames();
+              List aliasNames = property.getAliasNames();
               for (int aliasCount = aliasNames.size(); aliasCount > 0; )
               {
                 if (aliasNames.get(--aliasCount).equals(featureName)) return (Property)entryFeature;
@@ -430,6 +490,57 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
     return null;
   }
   
+  /**
+   * Maps the name and alias names of each open property of the DataObject to the property, in the order
+   * in which findOpenProperty searches them, so that a name already in the map is never replaced.
+   */
+  public void addOpenPropertyNames(EObject dataObject, Map nameToProperty)
+  {
+    for (final Iterator iterator = getBaseTypes().iterator(); iterator.hasNext(); )
+    {
+      ClassImpl baseType = (ClassImpl)iterator.next();
+      baseType.addOpenPropertyNames(dataObject, nameToProperty);
+    }
+    
+    final List properties = getExtendedProperties();
+    for (int i = 0, count = properties.size(); i < count; ++i)
+    {
+      EStructuralFeature eStructuralFeature = (EStructuralFeature)properties.get(i);
+      if (FeatureMapUtil.isFeatureMap(eStructuralFeature))
+      {
+        List features = (List)dataObject.eGet(eStructuralFeature);
+        EStructuralFeature previousFeature = null;
+        for (int j = 0, size = features.size(); j < size; ++j)
+        {
+          FeatureMap.Entry entry = (FeatureMap.Entry)features.get(j);
+          EStructuralFeature entryFeature = entry.getEStructuralFeature();
+          if (entryFeature != previousFeature)
+          {
+            previousFeature = entryFeature;
+            Property property = BasicSequence.getFeatureProperty(entryFeature);
+            if (property != null)
+            {
+              addOpenPropertyName(property.getName(), (Property)entryFeature, nameToProperty);
+              List aliasNames = property.getAliasNames();
+              for (int aliasCount = aliasNames.size(); aliasCount > 0; )
+              {
+                addOpenPropertyName((String)aliasNames.get(--aliasCount), (Property)entryFeature, nameToProperty);
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+  
+  protected static void addOpenPropertyName(String name, Property property, Map nameToProperty)
+  {
+    if (!nameToProperty.containsKey(name))
+    {
+      nameToProperty.put(name, property);
+    }
+  }
+  
   /*
   public Property getOpenProperty(DataObject dataObject, String featureName)
   {
@@ -499,7 +610,7 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
   {
     if (propertyNameToPropertyMap == null) initAliasNames();
     Property property = (Property)propertyNameToPropertyMap.get(propertyName);
-    if (property == null && !isOpen()) {
+    if (property == null && !sealed && !isOpen()) {
       initAliasNames();
       property = (Property)propertyNameToPropertyMap.get(propertyName);
     }
@@ -507,7 +618,144 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
   }
   
   protected Map propertyNameToPropertyMap;
+
+  protected static final int PATH_EXPRESSION_CACHE_SIZE = 64;
+
+  protected transient Map pathExpressions = null;
+
+  /**
+   * Returns the compiled form of the specified path for instances of this type.
+   * Compiled paths are kept in a bounded, thread safe, cache that doesn't lock on lookup;
+   * it is simply emptied if an application evaluates more distinct paths than it can hold.
+   */
+  public PathExpressionImpl getPathExpression(String path)
+  {
+    Map pathExpressions = this.pathExpressions;
+    if (pathExpressions == null)
+    {
+      pathExpressions = DataObjectUtil.createThreadSafeMap();
+      this.pathExpressions = pathExpressions;
+    }
+    PathExpressionImpl pathExpression = (PathExpressionImpl)pathExpressions.get(path);
+    if (pathExpression == null)
+    {
+      pathExpression = new PathExpressionImpl(this, path);
+      if (pathExpressions.size() >= PATH_EXPRESSION_CACHE_SIZE)
+      {
+        pathExpressions.clear();
+      }
+      pathExpressions.put(path, pathExpression);
+    }
+    return pathExpression;
+  }
   
+  protected transient LoadPlan loadPlan = null;
+
+  /**
+   * Returns the index of this type's properties by XML name used by the stream deserializer,
+   * built on first use and rebuilt if the properties of the type change. One plan is cached, for the
+   * metadata it was first built with; a plan for other metadata is built for each call.
+   */
+  public LoadPlan getLoadPlan(ExtendedMetaData extendedMetaData)
+  {
+    List properties = getProperties();
+    LoadPlan loadPlan = this.loadPlan;
+    if (loadPlan == null || !loadPlan.isFor(properties))
+    {
+      loadPlan = new LoadPlan(this, properties, extendedMetaData);
+      this.loadPlan = loadPlan;
+    }
+    else if (!loadPlan.isFor(properties, extendedMetaData))
+    {
+      loadPlan = new LoadPlan(this, properties, extendedMetaData);
+    }
+    return loadPlan;
+  }
+
+  protected transient SavePlan savePlan = null;
+
+  /**
+   * Returns the XML names and kinds of this type's properties used by the stream serializer,
+   * built on first use and rebuilt if the properties of the type change. One plan is cached, for the
+   * metadata it was first built with; a plan for other metadata is built for each call.
+   */
+  public SavePlan getSavePlan(ExtendedMetaData extendedMetaData)
+  {
+    List properties = getProperties();
+    SavePlan savePlan = this.savePlan;
+    if (savePlan == null || !savePlan.isFor(properties))
+    {
+      savePlan = new SavePlan(this, properties, extendedMetaData);
+      this.savePlan = savePlan;
+    }
+    else if (!savePlan.isFor(properties, extendedMetaData))
+    {
+      savePlan = new SavePlan(this, properties, extendedMetaData);
+    }
+    return savePlan;
+  }
+
+  protected volatile boolean sealed = false;
+  protected boolean open;
+
+  /**
+   * Computes every cache derived from the definition of this type, and of its properties, including their extended metadata,
+   * after which the type can no longer be modified and is read, from any number of threads, without recomputation.
+   */
+  public synchronized void seal(ExtendedMetaData extendedMetaData)
+  {
+    if (sealed) return;
+
+    freeze();
+    getEAllSuperTypes();
+    getEAllAttributes();
+    getEAllReferences();
+    getEAllContainments();
+    getEIDAttribute();
+    getFeatureCount();
+    getAliasNames();
+    getDeclaredProperties();
+    getAllExtendedProperties();
+    getUnmodifiableProperties();
+    getSequenceFeature();
+    getChangeSummaryProperty();
+    getSlotLayout();
+    initAliasNames();
+    open = isOpen();
+
+    extendedMetaData.getName(this);
+    extendedMetaData.getNamespace(this);
+    extendedMetaData.getContentKind(this);
+    extendedMetaData.getMixedFeature(this);
+    for (Iterator i = getEAllStructuralFeatures().iterator(); i.hasNext(); )
+    {
+      EStructuralFeature eStructuralFeature = (EStructuralFeature)i.next();
+      ((Property)eStructuralFeature).getAliasNames();
+      ((EStructuralFeature.Internal)eStructuralFeature).getSettingDelegate();
+      if (eStructuralFeature instanceof AttributeImpl)
+      {
+        ((AttributeImpl)eStructuralFeature).getValueConverter();
+      }
+      extendedMetaData.getName(eStructuralFeature);
+      extendedMetaData.getNamespace(eStructuralFeature);
+      extendedMetaData.getFeatureKind(eStructuralFeature);
+      extendedMetaData.getProcessingKind(eStructuralFeature);
+      extendedMetaData.getWildcards(eStructuralFeature);
+      extendedMetaData.getGroup(eStructuralFeature);
+      extendedMetaData.getAffiliation(eStructuralFeature);
+      ExtendedMetaData.INSTANCE.getFeatureKind(eStructuralFeature);
+    }
+    getLoadPlan(extendedMetaData);
+    getSavePlan(extendedMetaData);
+
+    sealed = true;
+  }
+
+  public boolean isSealed()
+  {
+    return sealed;
+  }
+
   public List getInstanceProperties() {
     return DataObjectUtil.getMetaObjectInstanceProperties(this);
   }
@@ -612,6 +860,125 @@ public class ClassImpl extends EClassImpl implements Type, org.apache.tuscany.sd
     return getURI();
   }
 
+  protected SlotLayout slotLayout = null;
+
+  /**
+   * Returns the storage layout of the features of dynamic instances of this class,
+   * or null if it has no feature that is stored in a primitive slot.
+   */
+  public SlotLayout getSlotLayout()
+  {
+    SlotLayout slotLayout = basicGetSlotLayout();
+    return slotLayout.hasPrimitives() ? slotLayout : null;
+  }
+
+  protected SlotLayout basicGetSlotLayout()
+  {
+    SlotLayout slotLayout = this.slotLayout;
+    if (slotLayout == null || !slotLayout.isCurrent(this))
+    {
+      slotLayout = new SlotLayout(this);
+      this.slotLayout = slotLayout;
+    }
+    return slotLayout;
+  }
+
+  /**
+   * The number of dynamic instances of a class after which a DataObject class is generated for it,
+   * from the system property "DataObject.compile.threshold", or -1 if classes are only generated by {@link #compile()}.
+   */
+  static protected int compileThreshold;
+  static {
+    String property = System.getProperty("DataObject.compile.threshold");
+    if (property == null)
+      compileThreshold = -1;
+    else
+      try {
+        compileThreshold = Integer.decode(property).intValue();
+      } catch (NumberFormatException eNumberFormat) {
+        compileThreshold = -1;
+      }
+  }
+
+  protected int instanceCount = 0;
+  protected boolean compilable = true;
+  protected SlotLayout compiledLayout = null;
+
+  /**
+   * An instance of the compiled DataObject class, which creates the others.
+   */
+  protected volatile CompiledDataObjectImpl compiledPrototype = null;
+
+  /**
+   * Why the class couldn't be compiled, if it couldn't.
+   */
+  protected Throwable compileFailure = null;
+
+  /**
+   * Generates, if it hasn't already been, a DataObject class with a field per feature for the dynamic instances of this class,
+   * which the DynamicDataObjectImpl factory then creates.
+   * Returns false if the class can't be compiled, because it isn't a concrete dynamic class or because its class couldn't be
+   * generated, for instance because ASM isn't available, in which case {@link #getCompileFailure()} returns the cause.
+   */
+  public synchronized boolean compile()
+  {
+    if (compiledPrototype != null && compiledLayout.isCurrent(this))
+    {
+      return true;
+    }
+    compiledPrototype = null;
+    if (!compilable || isAbstract() || isInterface() || getInstanceClassName() != null)
+    {
+      return false;
+    }
+    try
+    {
+      SlotLayout slotLayout = basicGetSlotLayout();
+      Class compiledClass = DataObjectClassGenerator.generate(this, slotLayout);
+      compiledLayout = slotLayout;
+      compiledPrototype = (CompiledDataObjectImpl)compiledClass.getConstructor(new Class[] { EClass.class }).newInstance(new Object[] { this });
+      return true;
+    }
+    catch (LinkageError e)
+    {
+      // ASM isn't available.
+      compilable = false;
+      compileFailure = e;
+    }
+    catch (Exception e)
+    {
+      compilable = false;
+      compileFailure = e;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the error or exception that kept {@link #compile()} from generating a DataObject class, or null.
+   */
+  public synchronized Throwable getCompileFailure()
+  {
+    return compileFailure;
+  }
+
+  /**
+   * Returns a new instance of the compiled DataObject class, compiling it first if this class has become hot,
+   * or null if there isn't one.
+   */
+  public EObject createCompiledInstance()
+  {
+    CompiledDataObjectImpl prototype = compiledPrototype;
+    if (prototype == null || !compiledLayout.isCurrent(this))
+    {
+      if (compileThreshold < 0 || !compilable || ++instanceCount <= compileThreshold || !compile())
+      {
+        return null;
+      }
+      prototype = compiledPrototype;
+    }
+    return prototype.eNewInstance(this);
+  }
+
   public Property getChangeSummaryProperty() {
     if (changeSummaryPropertyCache == UNINITIALIZED_PROPERTY) {
       changeSummaryPropertyCache = null;
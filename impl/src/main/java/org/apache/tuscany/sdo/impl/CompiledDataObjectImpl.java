@@ -0,0 +1,71 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.impl;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * The base class of the DataObject classes generated at runtime, by
+ * {@link org.apache.tuscany.sdo.codegen.DataObjectClassGenerator}, for a dynamic class.
+ * A generated class keeps each feature of its {@link SlotLayout} in a field of its own, instead of in the eSettings
+ * and primitive arrays, and overrides the slot access methods of DynamicDataObjectImpl, and its typed accessors,
+ * with switches on the slot or feature ID, so everything else, notifications included, works as for any dynamic DataObject.
+ */
+public abstract class CompiledDataObjectImpl extends DynamicDataObjectImpl
+{
+  protected CompiledDataObjectImpl(EClass eClass)
+  {
+    super(eClass);
+    
+    // The primitive fields must hold their defaults before the first typed get.
+    eSettings();
+  }
+
+  /**
+   * Returns a new instance of the generated class, so that instances are created without reflection.
+   */
+  public abstract CompiledDataObjectImpl eNewInstance(EClass eClass);
+
+  /**
+   * Returns the layout the class was generated for.
+   */
+  protected abstract SlotLayout eCompiledLayout();
+
+  protected SlotLayout eSlotLayout()
+  {
+    SlotLayout slotLayout = eCompiledLayout();
+    return slotLayout.hasPrimitives() ? slotLayout : null;
+  }
+
+  protected EStructuralFeature.Internal.DynamicValueHolder eSettings()
+  {
+    if (eSettings == null)
+    {
+      eSettings = ENO_SETTINGS;
+      SlotLayout slotLayout = eCompiledLayout();
+      for (int i = 0, count = slotLayout.getPrimitiveCount(); i < count; ++i)
+      {
+        eSetPrimitiveBits(i, slotLayout.getDefault(i));
+      }
+    }
+    return this;
+  }
+}
@@ -35,7 +35,10 @@ import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SDOPackage;
 import org.apache.tuscany.sdo.helper.TypeHelperImpl;
 import org.apache.tuscany.sdo.lib.SDOObjectInputStream;
+import org.apache.tuscany.sdo.lib.SDOObjectOutputStream;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
+import org.apache.tuscany.sdo.util.resource.DataObjectBinaryDeserializer;
+import org.apache.tuscany.sdo.util.resource.DataObjectBinarySerializer;
 import org.eclipse.emf.common.notify.Adapter;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.NotificationChain;
@@ -57,7 +60,9 @@ import commonj.sdo.ChangeSummary;
 import commonj.sdo.DataGraph;
 import commonj.sdo.DataObject;
 import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.TypeHelper;
+import commonj.sdo.impl.HelperProvider;
 
 
 /**
@@ -665,6 +670,13 @@ public class DataGraphImpl extends EObjectImpl implements DataGraph, Adapter, Se
 
     public void writeExternal(ObjectOutput objectOutput) throws IOException
     {
+      if (objectOutput instanceof SDOObjectOutputStream && ((SDOObjectOutputStream)objectOutput).isBinary())
+      {
+        // a negative length marks the binary format
+        objectOutput.writeInt(-1);
+        new DataObjectBinarySerializer(objectOutput).writeDataGraph(eDataGraph);
+        return;
+      }
       ByteArrayOutputStream byteArrayOutputStream =
         new ByteArrayOutputStream()
         {
@@ -682,6 +694,13 @@ public class DataGraphImpl extends EObjectImpl implements DataGraph, Adapter, Se
     public void readExternal(ObjectInput objectInput) throws IOException
     {
       int length = objectInput.readInt();
+      if (length == -1)
+      {
+        HelperContext scope = objectInput instanceof SDOObjectInputStream ?
+          ((SDOObjectInputStream)objectInput).getHelperContext() : HelperProvider.getDefaultContext();
+        eDataGraph = (DataGraphImpl)new DataObjectBinaryDeserializer(objectInput, scope).readDataGraph();
+        return;
+      }
       byte [] bytes = new byte [length];
       objectInput.readFully(bytes);
 
@@ -25,11 +25,14 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.tuscany.sdo.SDOPackage;
 import org.apache.tuscany.sdo.impl.ChangeSummaryImpl.SDOChangeRecorder;
 import org.apache.tuscany.sdo.lib.UnknownPropertyList;
+import org.apache.tuscany.sdo.util.BasicSequence;
 import org.apache.tuscany.sdo.util.DataObjectUtil;
 import org.apache.tuscany.sdo.util.VirtualSequence;
 import org.apache.tuscany.sdo.util.DataObjectUtil.Accessor;
@@ -37,6 +40,7 @@ import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.common.util.UniqueEList;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
@@ -46,6 +50,8 @@ import org.eclipse.emf.ecore.impl.BasicEObjectImpl;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.util.EContentsEList;
 import org.eclipse.emf.ecore.util.ECrossReferenceEList;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
 
 import commonj.sdo.ChangeSummary;
 import commonj.sdo.DataGraph;
@@ -1361,7 +1367,7 @@ public abstract class DataObjectImpl extends BasicEObjectImpl implements DataObj
 
   public boolean eNotificationRequired()
   {
-    return changeRecorder != null || super.eNotificationRequired();
+    return changeRecorder != null || openProperties != null || instanceProperties != null || super.eNotificationRequired();
   }
 
   public boolean eDeliver()
@@ -1372,9 +1378,120 @@ public abstract class DataObjectImpl extends BasicEObjectImpl implements DataObj
   public void eNotify(Notification notification)
   {
     if(changeRecorder != null) changeRecorder.notifyChanged(notification);
+    if(openProperties != null || instanceProperties != null) openContentChanged(notification);
     super.eNotify(notification);
   }
 
+  /**
+   * Maps the names and alias names of the open content properties of this object to the properties.
+   * It's built on the first lookup of a name that isn't a property of the type, and only if the type is open
+   * and this object holds open content, so other objects never pay for the notifications that keep it current.
+   * It's updated as open content is added, and discarded to be rebuilt if open content is removed or reordered.
+   */
+  protected transient volatile Map openProperties;
+
+  public Property getOpenProperty(String propertyName)
+  {
+    Map openProperties = this.openProperties;
+    if (openProperties == null)
+    {
+      ClassImpl type = (ClassImpl)eClass();
+      if (!type.isOpen() || !type.hasOpenContent(this))
+      {
+        return type.findOpenProperty(this, propertyName);
+      }
+      openProperties = new HashMap();
+      type.addOpenPropertyNames(this, openProperties);
+      this.openProperties = openProperties;
+    }
+    return (Property)openProperties.get(propertyName);
+  }
+
+  /**
+   * Counts the changes to the feature maps of this object while notifications are required for them.
+   */
+  protected transient int openContentModCount;
+
+  /**
+   * The instance properties of this object, if its type is open and it holds open content, and the
+   * openContentModCount they were computed for. They're returned until the count changes.
+   */
+  protected transient volatile List instanceProperties;
+
+  protected transient int instancePropertiesModCount;
+
+  public List getOpenInstanceProperties()
+  {
+    List instanceProperties = this.instanceProperties;
+    if (instanceProperties != null && instancePropertiesModCount == openContentModCount)
+    {
+      return instanceProperties;
+    }
+    
+    ClassImpl type = (ClassImpl)eClass();
+    if (!type.isOpen() || !type.hasOpenContent(this))
+    {
+      this.instanceProperties = null;
+      return type.getUnmodifiableProperties();
+    }
+    List properties = new UniqueEList(type.getProperties());
+    type.addOpenProperties(this, properties);
+    instanceProperties = Collections.unmodifiableList(properties);
+    instancePropertiesModCount = openContentModCount;
+    this.instanceProperties = instanceProperties;
+    return instanceProperties;
+  }
+
+  protected void openContentChanged(Notification notification)
+  {
+    Object feature = notification.getFeature();
+    if (!(feature instanceof EStructuralFeature) || !FeatureMapUtil.isFeatureMap((EStructuralFeature)feature)) return;
+    
+    ++openContentModCount;
+    Map openProperties = this.openProperties;
+    if (openProperties != null && !updateOpenProperties(openProperties, notification))
+    {
+      this.openProperties = null;
+    }
+  }
+
+  /**
+   * Adds the names of the property of an added entry to the map, and returns false if the map needs
+   * to be rebuilt instead.
+   */
+  protected boolean updateOpenProperties(Map openProperties, Notification notification)
+  {
+    Object newValue = notification.getNewValue();
+    if (notification.getEventType() != Notification.ADD || !(newValue instanceof FeatureMap.Entry)) return false;
+    
+    EStructuralFeature entryFeature = ((FeatureMap.Entry)newValue).getEStructuralFeature();
+    Property property = BasicSequence.getFeatureProperty(entryFeature);
+    if (property == null) return true;
+    
+    // A name that's new to this object maps to the added property, wherever it was added.
+    boolean added = addOpenPropertyName(openProperties, property.getName(), (Property)entryFeature);
+    List aliasNames = property.getAliasNames();
+    for (int aliasCount = aliasNames.size(); added && aliasCount > 0; )
+    {
+      added = addOpenPropertyName(openProperties, (String)aliasNames.get(--aliasCount), (Property)entryFeature);
+    }
+    return added;
+  }
+
+  /**
+   * Maps the name to the property unless it maps to another property already, in which case the entry
+   * order determines the result and the map needs to be rebuilt.
+   */
+  protected static boolean addOpenPropertyName(Map openProperties, String name, Property property)
+  {
+    Object existing = openProperties.get(name);
+    if (existing == null)
+    {
+      openProperties.put(name, property);
+    }
+    return existing == null || existing == property;
+  }
+
   public void setChangeRecorder(SDOChangeRecorder changeRecorder)
   {
     if (this.changeRecorder != null)
@@ -1486,6 +1603,92 @@ public abstract class DataObjectImpl extends BasicEObjectImpl implements DataObj
     return eDynamicIsSet(featureID);
   }
   
+  ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+  // Following methods access primitive values by feature ID, on behalf of PropertyHandleImpl, with the same
+  // conversions as the typed DataObject accessors. They box and unbox through eGet/eSet; subclasses that
+  // store primitive values directly override them to avoid it.
+  ////////////////////////////////////////////////////////////////////////////////////////////////////////////////
+
+  public boolean eGetBoolean(int featureID)
+  {
+    return DataObjectUtil.getBoolean(eGet(featureID, true, false));
+  }
+
+  public void eSetBoolean(int featureID, boolean value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public byte eGetByte(int featureID)
+  {
+    return DataObjectUtil.getByte(eGet(featureID, true, false));
+  }
+
+  public void eSetByte(int featureID, byte value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public char eGetChar(int featureID)
+  {
+    return DataObjectUtil.getChar(eGet(featureID, true, false));
+  }
+
+  public void eSetChar(int featureID, char value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public short eGetShort(int featureID)
+  {
+    return DataObjectUtil.getShort(eGet(featureID, true, false));
+  }
+
+  public void eSetShort(int featureID, short value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public int eGetInt(int featureID)
+  {
+    return DataObjectUtil.getInt(eGet(featureID, true, false));
+  }
+
+  public void eSetInt(int featureID, int value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public long eGetLong(int featureID)
+  {
+    return DataObjectUtil.getLong(eGet(featureID, true, false));
+  }
+
+  public void eSetLong(int featureID, long value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public float eGetFloat(int featureID)
+  {
+    return DataObjectUtil.getFloat(eGet(featureID, true, false));
+  }
+
+  public void eSetFloat(int featureID, float value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
+  public double eGetDouble(int featureID)
+  {
+    return DataObjectUtil.getDouble(eGet(featureID, true, false));
+  }
+
+  public void eSetDouble(int featureID, double value)
+  {
+    eSet(featureID, DataObjectUtil.getSetValue((Property)eClass().getEStructuralFeature(featureID), value));
+  }
+
   public Object eDynamicGet(int featureID, boolean resolve, boolean coreType)
   {
     return eOpenGet(DataObjectUtil.getOpenFeature(this, featureID), resolve);
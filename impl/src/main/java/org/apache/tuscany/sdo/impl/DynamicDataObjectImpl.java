@@ -21,10 +21,15 @@ package org.apache.tuscany.sdo.impl;
 
 import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SDOPackage;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.impl.EFactoryImpl;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 
 import commonj.sdo.DataObject;
 import commonj.sdo.Property;
@@ -44,6 +49,11 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
   protected EClass eClass;
   protected Object [] eSettings;
 
+  /**
+   * The primitive slots, if the class has a SlotLayout; see {@link SlotLayout}.
+   */
+  protected long [] ePrimitives;
+
   protected static final Object [] ENO_SETTINGS = new Object [0];
 
   /**
@@ -101,13 +111,41 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
   {
     if (eSettings == null)
     {
-      int size = eClass().getFeatureCount() - eStaticFeatureCount();
+      SlotLayout slotLayout = eSlotLayout();
+      int size = slotLayout != null ? slotLayout.getReferenceCount() : eClass().getFeatureCount() - eStaticFeatureCount();
       eSettings = size == 0 ? ENO_SETTINGS : new Object [size];
+      if (slotLayout != null)
+      {
+        ePrimitives = slotLayout.createPrimitives();
+      }
     }
 
     return this;
   }
 
+  protected SlotLayout eSlotLayout()
+  {
+    return eClass instanceof ClassImpl ? ((ClassImpl)eClass).getSlotLayout() : null;
+  }
+
+  protected long [] ePrimitives()
+  {
+    if (eSettings == null)
+    {
+      eSettings();
+    }
+    return ePrimitives;
+  }
+
+  /**
+   * Returns the index in eSettings of the dynamic feature.
+   */
+  protected int eReferenceSlot(int dynamicFeatureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    return slotLayout != null ? slotLayout.getReferenceSlot(dynamicFeatureID) : dynamicFeatureID;
+  }
+
   protected EClass eDynamicClass()
   {
     return eClass;
@@ -125,24 +163,100 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
 
   public Object dynamicGet(int dynamicFeatureID)
   {
-    return eSettings[dynamicFeatureID];
+    return eSettings[eReferenceSlot(dynamicFeatureID)];
   }
 
   public void dynamicSet(int dynamicFeatureID, Object value)
   {
-    eSettings[dynamicFeatureID] = value;
+    eSettings[eReferenceSlot(dynamicFeatureID)] = value;
   }
 
   public void dynamicUnset(int dynamicFeatureID)
   {
-    eSettings[dynamicFeatureID] = null;
+    eSettings[eReferenceSlot(dynamicFeatureID)] = null;
+  }
+
+  /**
+   * The lexical form of a data type value, loaded from XML, that a reference slot holds until the value is first accessed.
+   */
+  protected static final class LexicalValue
+  {
+    protected final EDataType eDataType;
+    protected final String literal;
+
+    protected LexicalValue(EDataType eDataType, String literal)
+    {
+      this.eDataType = eDataType;
+      this.literal = literal;
+    }
+
+    protected Object convert()
+    {
+      return EcoreUtil.createFromString(eDataType, literal);
+    }
+  }
+
+  /**
+   * Sets the single-valued data type feature to the lexical form of its value, which is converted, and cached, the first time
+   * the feature is accessed. Returns false, without setting the feature, if the value must be converted now: the feature is
+   * multi-valued, derived or stored in a primitive slot, or the DataObject notifies adapters, which expect the converted values.
+   * The caller decides which data types are worth converting lazily; their values must be immutable and the conversion must not
+   * depend on the parsing context.
+   */
+  public boolean eSetLexical(EAttribute eAttribute, String literal)
+  {
+    if (eAttribute.isMany() || eAttribute.isDerived() || eNotificationRequired())
+    {
+      return false;
+    }
+    int featureID = eClass().getFeatureID(eAttribute);
+    if (featureID < 0)
+    {
+      return false;
+    }
+    SlotLayout slotLayout = eSlotLayout();
+    if (slotLayout != null && slotLayout.getPrimitiveSlot(featureID) >= 0)
+    {
+      return false;
+    }
+    eSettings();
+    dynamicSet(featureID, new LexicalValue(eAttribute.getEAttributeType(), literal));
+    return true;
+  }
+
+  /**
+   * Replaces the lexical value, if the dynamic feature holds one, with the converted value.
+   * The conversion is checked again and made while holding the lock of this DataObject, so concurrent readers convert
+   * each value once and agree on the result. Only immutable values are loaded lexically, so a reader that sees the
+   * converted value without the lock sees it fully constructed.
+   */
+  protected void eConvertLexical(int dynamicFeatureID, EStructuralFeature eFeature)
+  {
+    if (eSettings != null && !eFeature.isMany() && dynamicGet(dynamicFeatureID) instanceof LexicalValue)
+    {
+      synchronized (this)
+      {
+        Object value = dynamicGet(dynamicFeatureID);
+        if (value instanceof LexicalValue)
+        {
+          dynamicSet(dynamicFeatureID, ((LexicalValue)value).convert());
+        }
+      }
+    }
   }
   
   public Object eDynamicGet(int featureID, boolean resolve, boolean coreType)
   {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = slotLayout != null ? slotLayout.getPrimitiveSlot(featureID) : -1;
+    if (slot >= 0)
+    {
+      return SlotLayout.fromBits(slotLayout.getKind(slot), eGetPrimitiveBits(slot));
+    }
     if (featureID < eClass().getFeatureCount())
     {
       EStructuralFeature eFeature = eClass().getEStructuralFeature(featureID);
+      eConvertLexical(featureID, eFeature);
       return eSettingDelegate(eFeature).dynamicGet(this, eSettings(), featureID, resolve, coreType);
     }
     else
@@ -153,9 +267,17 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
   
   public void eDynamicSet(int featureID, Object newValue)
   {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = slotLayout != null ? slotLayout.getPrimitiveSlot(featureID) : -1;
+    if (slot >= 0)
+    {
+      eSetPrimitive(slotLayout, slot, SlotLayout.toBits(slotLayout.getKind(slot), newValue, slotLayout.getDefault(slot)));
+      return;
+    }
     if (featureID < eClass().getFeatureCount())
     {
       EStructuralFeature eFeature = eClass().getEStructuralFeature(featureID);
+      eConvertLexical(featureID, eFeature);
       try {
         eDynamicSet(featureID, eFeature, newValue); 
       } catch (IllegalArgumentException e) {
@@ -170,9 +292,17 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
 
   public void eDynamicUnset(int featureID)
   {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = slotLayout != null ? slotLayout.getPrimitiveSlot(featureID) : -1;
+    if (slot >= 0)
+    {
+      eUnsetPrimitive(slotLayout, slot);
+      return;
+    }
     if (featureID < eClass().getFeatureCount())
     {
       EStructuralFeature eFeature = eClass().getEStructuralFeature(featureID);
+      eConvertLexical(featureID, eFeature);
       try {
         eDynamicUnset(featureID, eFeature);
       } catch (IllegalArgumentException e) {
@@ -187,9 +317,16 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
 
   public boolean eDynamicIsSet(int featureID)
   {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = slotLayout != null ? slotLayout.getPrimitiveSlot(featureID) : -1;
+    if (slot >= 0)
+    {
+      return ePrimitiveIsSet(slotLayout, slot);
+    }
     if (featureID < eClass().getFeatureCount())
     {
       EStructuralFeature eFeature = eClass().getEStructuralFeature(featureID);
+      eConvertLexical(featureID, eFeature);
       return eSettingDelegate(eFeature).dynamicIsSet(this, eSettings(), featureID);
     }
     else
@@ -198,6 +335,309 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
     }
   }
 
+  /**
+   * Returns the long at the specified index of the primitive storage, i.e., a primitive slot or a word of isSet bits.
+   */
+  protected long eGetPrimitiveBits(int index)
+  {
+    return ePrimitives()[index];
+  }
+
+  protected void eSetPrimitiveBits(int index, long bits)
+  {
+    ePrimitives()[index] = bits;
+  }
+
+  protected boolean ePrimitiveIsSet(SlotLayout slotLayout, int slot)
+  {
+    int word = slotLayout.getSetWord(slot);
+    if (word < 0)
+    {
+      return eGetPrimitiveBits(slot) != slotLayout.getDefault(slot);
+    }
+    return (eGetPrimitiveBits(word) & slotLayout.getSetMask(slot)) != 0;
+  }
+
+  protected void ePrimitiveSetSet(SlotLayout slotLayout, int slot, boolean isSet)
+  {
+    int word = slotLayout.getSetWord(slot);
+    if (word >= 0)
+    {
+      long bits = eGetPrimitiveBits(word);
+      eSetPrimitiveBits(word, isSet ? bits | slotLayout.getSetMask(slot) : bits & ~slotLayout.getSetMask(slot));
+    }
+  }
+
+  protected void eSetPrimitive(SlotLayout slotLayout, int slot, long newBits)
+  {
+    if (eNotificationRequired())
+    {
+      long oldBits = eGetPrimitiveBits(slot);
+      boolean oldIsSet = ePrimitiveIsSet(slotLayout, slot);
+      eSetPrimitiveBits(slot, newBits);
+      ePrimitiveSetSet(slotLayout, slot, true);
+      int kind = slotLayout.getKind(slot);
+      eNotify(new ENotificationImpl(this, Notification.SET, slotLayout.getFeature(slot), SlotLayout.fromBits(kind, oldBits), SlotLayout.fromBits(kind, newBits), slotLayout.isUnsettable(slot) && !oldIsSet));
+    }
+    else
+    {
+      eSetPrimitiveBits(slot, newBits);
+      ePrimitiveSetSet(slotLayout, slot, true);
+    }
+  }
+
+  protected void eUnsetPrimitive(SlotLayout slotLayout, int slot)
+  {
+    long oldBits = eGetPrimitiveBits(slot);
+    boolean oldIsSet = ePrimitiveIsSet(slotLayout, slot);
+    long newBits = slotLayout.getDefault(slot);
+    eSetPrimitiveBits(slot, newBits);
+    ePrimitiveSetSet(slotLayout, slot, false);
+    if (eNotificationRequired())
+    {
+      int kind = slotLayout.getKind(slot);
+      boolean unsettable = slotLayout.isUnsettable(slot);
+      eNotify(new ENotificationImpl(this, unsettable ? Notification.UNSET : Notification.SET, slotLayout.getFeature(slot), SlotLayout.fromBits(kind, oldBits), SlotLayout.fromBits(kind, newBits), unsettable && oldIsSet));
+    }
+  }
+
+  /**
+   * Returns the primitive slot of the feature if its values are of the specified kind, or else -1.
+   */
+  protected int ePrimitiveSlot(SlotLayout slotLayout, int featureID, int kind)
+  {
+    if (slotLayout == null) return -1;
+    int slot = slotLayout.getPrimitiveSlot(featureID);
+    return slot >= 0 && slotLayout.getKind(slot) == kind ? slot : -1;
+  }
+
+  public boolean eGetBoolean(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_BOOLEAN);
+    if (slot < 0) return super.eGetBoolean(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return bits != 0;
+  }
+
+  public void eSetBoolean(int featureID, boolean value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_BOOLEAN);
+    if (slot < 0)
+    {
+      super.eSetBoolean(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value ? 1L : 0L);
+    }
+  }
+
+  public byte eGetByte(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_BYTE);
+    if (slot < 0) return super.eGetByte(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return (byte)bits;
+  }
+
+  public void eSetByte(int featureID, byte value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_BYTE);
+    if (slot < 0)
+    {
+      super.eSetByte(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value);
+    }
+  }
+
+  public char eGetChar(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_CHAR);
+    if (slot < 0) return super.eGetChar(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return (char)bits;
+  }
+
+  public void eSetChar(int featureID, char value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_CHAR);
+    if (slot < 0)
+    {
+      super.eSetChar(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value);
+    }
+  }
+
+  public short eGetShort(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_SHORT);
+    if (slot < 0) return super.eGetShort(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return (short)bits;
+  }
+
+  public void eSetShort(int featureID, short value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_SHORT);
+    if (slot < 0)
+    {
+      super.eSetShort(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value);
+    }
+  }
+
+  public int eGetInt(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_INT);
+    if (slot < 0) return super.eGetInt(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return (int)bits;
+  }
+
+  public void eSetInt(int featureID, int value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_INT);
+    if (slot < 0)
+    {
+      super.eSetInt(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value);
+    }
+  }
+
+  public long eGetLong(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_LONG);
+    if (slot < 0) return super.eGetLong(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return bits;
+  }
+
+  public void eSetLong(int featureID, long value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_LONG);
+    if (slot < 0)
+    {
+      super.eSetLong(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, value);
+    }
+  }
+
+  public float eGetFloat(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_FLOAT);
+    if (slot < 0) return super.eGetFloat(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return (float)Double.longBitsToDouble(bits);
+  }
+
+  public void eSetFloat(int featureID, float value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_FLOAT);
+    if (slot < 0)
+    {
+      super.eSetFloat(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, Double.doubleToRawLongBits(value));
+    }
+  }
+
+  public double eGetDouble(int featureID)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_DOUBLE);
+    if (slot < 0) return super.eGetDouble(featureID);
+    long bits = eGetPrimitiveBits(slot);
+    return Double.longBitsToDouble(bits);
+  }
+
+  public void eSetDouble(int featureID, double value)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    int slot = ePrimitiveSlot(slotLayout, featureID, SlotLayout.KIND_DOUBLE);
+    if (slot < 0)
+    {
+      super.eSetDouble(featureID, value);
+    }
+    else
+    {
+      eSetPrimitive(slotLayout, slot, Double.doubleToRawLongBits(value));
+    }
+  }
+
+  public EStructuralFeature.Setting eSetting(final EStructuralFeature eFeature)
+  {
+    SlotLayout slotLayout = eSlotLayout();
+    if (slotLayout == null || slotLayout.getPrimitiveSlot(eClass().getFeatureID(eFeature)) < 0)
+    {
+      return super.eSetting(eFeature);
+    }
+    // The setting delegates can't reach a primitive slot, so go through the reflective methods.
+    return 
+      new EStructuralFeature.Setting()
+      {
+        public EObject getEObject()
+        {
+          return DynamicDataObjectImpl.this;
+        }
+
+        public EStructuralFeature getEStructuralFeature()
+        {
+          return eFeature;
+        }
+
+        public Object get(boolean resolve)
+        {
+          return eGet(eFeature, resolve);
+        }
+
+        public void set(Object newValue)
+        {
+          eSet(eFeature, newValue);
+        }
+
+        public boolean isSet()
+        {
+          return eIsSet(eFeature);
+        }
+
+        public void unset()
+        {
+          eUnset(eFeature);
+        }
+      };
+  }
+
   /**
    * An EFactoryImpl that creates DynamicEDataObjectImpl instances.
    */
@@ -209,6 +649,14 @@ public class DynamicDataObjectImpl extends DataObjectImpl implements DataObject,
 
     public EObject basicCreate(EClass eClass)
     {
+      if (eClass instanceof ClassImpl)
+      {
+        EObject result = ((ClassImpl)eClass).createCompiledInstance();
+        if (result != null)
+        {
+          return result;
+        }
+      }
       return new DynamicDataObjectImpl(eClass);
     }
   }
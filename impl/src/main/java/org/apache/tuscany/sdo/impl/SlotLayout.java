@@ -0,0 +1,279 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.impl;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * The storage layout of the dynamic features of a class, for DynamicDataObjectImpl.
+ * Each single-valued, changeable, stored attribute with a primitive Java type is given a slot in a packed
+ * <code>long[]</code>: integral and boolean values are stored as longs and floating point values as the raw
+ * bits of a double. The isSet state of the unsettable ones is kept in bit words at the end of the same array.
+ * Every other feature is given a slot in the compacted reference array that the EMF setting delegates use.
+ */
+public class SlotLayout
+{
+  public static final int KIND_BOOLEAN = 1;
+  public static final int KIND_BYTE = 2;
+  public static final int KIND_CHAR = 3;
+  public static final int KIND_SHORT = 4;
+  public static final int KIND_INT = 5;
+  public static final int KIND_LONG = 6;
+  public static final int KIND_FLOAT = 7;
+  public static final int KIND_DOUBLE = 8;
+
+  /**
+   * The all structural features list the layout was computed from.
+   */
+  protected final List allFeatures;
+
+  /**
+   * For each feature ID, the index of its reference slot if it's non-negative, or else -1 minus the index of its primitive slot.
+   */
+  protected final int[] slots;
+
+  protected final EStructuralFeature[] primitiveFeatures;
+  protected final int[] kinds;
+  protected final long[] defaults;
+
+  /**
+   * For each primitive slot, the index of its isSet bit, or -1 if the feature isn't unsettable.
+   */
+  protected final int[] setBits;
+
+  protected final int referenceCount;
+  protected final int primitiveCount;
+  protected final int longCount;
+
+  public SlotLayout(EClass eClass)
+  {
+    allFeatures = eClass.getEAllStructuralFeatures();
+    int featureCount = allFeatures.size();
+    slots = new int [featureCount];
+
+    int referenceCount = 0;
+    int primitiveCount = 0;
+    for (int i = 0; i < featureCount; ++i)
+    {
+      if (getKind((EStructuralFeature)allFeatures.get(i)) != 0)
+      {
+        slots[i] = -1 - primitiveCount++;
+      }
+      else
+      {
+        slots[i] = referenceCount++;
+      }
+    }
+
+    primitiveFeatures = new EStructuralFeature [primitiveCount];
+    kinds = new int [primitiveCount];
+    defaults = new long [primitiveCount];
+    setBits = new int [primitiveCount];
+    int setBitCount = 0;
+    for (int i = 0; i < featureCount; ++i)
+    {
+      if (slots[i] < 0)
+      {
+        int slot = -1 - slots[i];
+        EStructuralFeature feature = (EStructuralFeature)allFeatures.get(i);
+        primitiveFeatures[slot] = feature;
+        kinds[slot] = getKind(feature);
+        defaults[slot] = toBits(kinds[slot], feature.getDefaultValue(), 0L);
+        setBits[slot] = feature.isUnsettable() ? setBitCount++ : -1;
+      }
+    }
+
+    this.referenceCount = referenceCount;
+    this.primitiveCount = primitiveCount;
+    longCount = primitiveCount + (setBitCount + 63) / 64;
+  }
+
+  protected static int getKind(EStructuralFeature feature)
+  {
+    if (!(feature instanceof EAttribute) || feature.isMany() || !feature.isChangeable() || feature.isDerived() || feature.isVolatile())
+    {
+      return 0;
+    }
+    Class instanceClass = feature.getEType().getInstanceClass();
+    if (instanceClass == null || !instanceClass.isPrimitive()) return 0;
+    if (instanceClass == Boolean.TYPE) return KIND_BOOLEAN;
+    if (instanceClass == Byte.TYPE) return KIND_BYTE;
+    if (instanceClass == Character.TYPE) return KIND_CHAR;
+    if (instanceClass == Short.TYPE) return KIND_SHORT;
+    if (instanceClass == Integer.TYPE) return KIND_INT;
+    if (instanceClass == Long.TYPE) return KIND_LONG;
+    if (instanceClass == Float.TYPE) return KIND_FLOAT;
+    if (instanceClass == Double.TYPE) return KIND_DOUBLE;
+    return 0;
+  }
+
+  /**
+   * Returns whether this layout is still the one for the class, i.e., its features haven't changed.
+   */
+  public boolean isCurrent(EClass eClass)
+  {
+    return allFeatures == eClass.getEAllStructuralFeatures();
+  }
+
+  public boolean hasPrimitives()
+  {
+    return primitiveCount > 0;
+  }
+
+  /**
+   * Returns the reference slot of the feature, or a negative value if it's stored in a primitive slot.
+   */
+  public int getReferenceSlot(int featureID)
+  {
+    return slots[featureID];
+  }
+
+  /**
+   * Returns the primitive slot of the feature, or a negative value if it's stored in a reference slot.
+   */
+  public int getPrimitiveSlot(int featureID)
+  {
+    return featureID >= 0 && featureID < slots.length ? -1 - slots[featureID] : -1;
+  }
+
+  public int getKind(int primitiveSlot)
+  {
+    return kinds[primitiveSlot];
+  }
+
+  public EStructuralFeature getFeature(int primitiveSlot)
+  {
+    return primitiveFeatures[primitiveSlot];
+  }
+
+  public int getReferenceCount()
+  {
+    return referenceCount;
+  }
+
+  public int getPrimitiveCount()
+  {
+    return primitiveCount;
+  }
+
+  /**
+   * Returns the number of longs needed for the primitive slots and the isSet bit words.
+   */
+  public int getLongCount()
+  {
+    return longCount;
+  }
+
+  public int getFeatureCount()
+  {
+    return slots.length;
+  }
+
+  public long[] createPrimitives()
+  {
+    if (longCount == 0) return null;
+    long[] primitives = new long [longCount];
+    System.arraycopy(defaults, 0, primitives, 0, primitiveCount);
+    return primitives;
+  }
+
+  public long getDefault(int primitiveSlot)
+  {
+    return defaults[primitiveSlot];
+  }
+
+  public boolean isUnsettable(int primitiveSlot)
+  {
+    return setBits[primitiveSlot] >= 0;
+  }
+
+  /**
+   * Returns the index of the word holding the isSet bit of the primitive slot, or -1 if the feature isn't unsettable,
+   * in which case the slot is set when its value isn't the default.
+   */
+  public int getSetWord(int primitiveSlot)
+  {
+    int bit = setBits[primitiveSlot];
+    return bit < 0 ? -1 : primitiveCount + (bit >> 6);
+  }
+
+  public long getSetMask(int primitiveSlot)
+  {
+    return 1L << setBits[primitiveSlot];
+  }
+
+  /**
+   * Converts a value of the feature's instance class to its slot representation; null converts to the default.
+   * @throws ClassCastException if the value isn't an instance of the feature's (wrapper) type.
+   */
+  public static long toBits(int kind, Object value, long defaultBits)
+  {
+    if (value == null) return defaultBits;
+    switch (kind)
+    {
+      case KIND_BOOLEAN:
+        return ((Boolean)value).booleanValue() ? 1L : 0L;
+      case KIND_BYTE:
+        return ((Byte)value).byteValue();
+      case KIND_CHAR:
+        return ((Character)value).charValue();
+      case KIND_SHORT:
+        return ((Short)value).shortValue();
+      case KIND_INT:
+        return ((Integer)value).intValue();
+      case KIND_LONG:
+        return ((Long)value).longValue();
+      case KIND_FLOAT:
+        return Double.doubleToRawLongBits(((Float)value).floatValue());
+      default:
+        return Double.doubleToRawLongBits(((Double)value).doubleValue());
+    }
+  }
+
+  /**
+   * Converts a slot representation back to a value of the feature's instance class.
+   */
+  public static Object fromBits(int kind, long bits)
+  {
+    switch (kind)
+    {
+      case KIND_BOOLEAN:
+        return bits != 0 ? Boolean.TRUE : Boolean.FALSE;
+      case KIND_BYTE:
+        return new Byte((byte)bits);
+      case KIND_CHAR:
+        return new Character((char)bits);
+      case KIND_SHORT:
+        return new Short((short)bits);
+      case KIND_INT:
+        return new Integer((int)bits);
+      case KIND_LONG:
+        return new Long(bits);
+      case KIND_FLOAT:
+        return new Float((float)Double.longBitsToDouble(bits));
+      default:
+        return new Double(Double.longBitsToDouble(bits));
+    }
+  }
+}
@@ -26,6 +26,7 @@ import java.security.AccessController;
 import java.security.PrivilegedExceptionAction;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,8 +41,10 @@ import org.apache.tuscany.sdo.SDOFactory;
 import org.apache.tuscany.sdo.SDOPackage;
 import org.apache.tuscany.sdo.api.SDOUtil;
 import org.apache.tuscany.sdo.helper.HelperContextImpl;
+import org.apache.tuscany.sdo.impl.AttributeImpl;
 import org.apache.tuscany.sdo.impl.ClassImpl;
 import org.apache.tuscany.sdo.impl.DataGraphImpl;
+import org.apache.tuscany.sdo.impl.DataObjectImpl;
 import org.apache.tuscany.sdo.model.ModelFactory;
 import org.apache.tuscany.sdo.model.impl.ModelFactoryImpl;
 import org.apache.tuscany.sdo.util.resource.SDOURIConverterImpl;
@@ -396,12 +399,28 @@ public final class DataObjectUtil
     return !(eClassifier instanceof Type || eClassifier == XMLTypePackage.Literals.BASE64_BINARY);
   }
 
+  /**
+   * Returns the unmodifiable instance properties of the DataObject: the shared properties of its Type,
+   * unless the DataObject has open content, in which case a DataObjectImpl caches them until its open content changes.
+   */
   public static List getInstanceProperties(DataObject dataObject)
   {
-    Type type = dataObject.getType();
+    ClassImpl type = (ClassImpl)dataObject.getType();
+    if (!type.isOpen())
+    {
+      return type.getUnmodifiableProperties();
+    }
+    if (dataObject instanceof DataObjectImpl)
+    {
+      return ((DataObjectImpl)dataObject).getOpenInstanceProperties();
+    }
+    if (!type.hasOpenContent((EObject)dataObject))
+    {
+      return type.getUnmodifiableProperties();
+    }
     List result = new UniqueEList(type.getProperties());
-    ((ClassImpl)type).addOpenProperties((EObject)dataObject, result);
-    return result;
+    type.addOpenProperties((EObject)dataObject, result);
+    return Collections.unmodifiableList(result);
   }
   
   public static void delete(DataObject dataObject)
@@ -503,45 +522,21 @@ public final class DataObjectUtil
   
   public static void setString(DataObject dataObject, String path, String value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
 
   
   public static void setShort(DataObject dataObject, String path, short value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setLong(DataObject dataObject, String path, long value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setList(DataObject dataObject, String path, List value)
@@ -551,58 +546,26 @@ public final class DataObjectUtil
   
   public static void setInt(DataObject dataObject, String path, int value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setFloat(DataObject dataObject, String path, float value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setDouble(DataObject dataObject, String path, double value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }  
   
   public static void setDate(DataObject dataObject, String path, Date value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setDataObject(DataObject dataObject, String path, DataObject value)
@@ -612,86 +575,38 @@ public final class DataObjectUtil
   
   public static void setChar(DataObject dataObject, String path, char value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setBytes(DataObject dataObject, String path, byte[] value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setByte(DataObject dataObject, String path, byte value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setBoolean(DataObject dataObject, String path, boolean value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setBigInteger(DataObject dataObject, String path, BigInteger value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static void setBigDecimal(DataObject dataObject, String path, BigDecimal value)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, DataObjectUtil.getSetValue(property, value));
-    }
-    else
-    {
-      DataObjectUtil.Accessor accessor = DataObjectUtil.Accessor.create((EObject)dataObject, path);
-      accessor.setAndRecyle(DataObjectUtil.getSetValue(accessor.getProperty(), value));
-    }
+    PathExpressionImpl.Target target = getPathExpression(dataObject.getType(), path).resolve(dataObject);
+    target.set(getSetValue(target.getProperty(), value));
   }
   
   public static DataGraph getDataGraph(DataObject dataObject)
@@ -728,55 +643,40 @@ public final class DataObjectUtil
 
   public static void unset(DataObject dataObject, String path)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.unset(property);
-    }
-    else
-    {
-      DataObjectUtil.Accessor.create((EObject)dataObject, path).unsetAndRecyle();
-    }
+    getPathExpression(dataObject.getType(), path).unset(dataObject);
   }
   
   public static boolean isSet(DataObject dataObject, String path)
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      return dataObject.isSet(property);
-    }
-    else
-    {
-      return DataObjectUtil.Accessor.create(
-        (EObject)dataObject, path).isSetAndRecyle();
-    }
+    return getPathExpression(dataObject.getType(), path).isSet(dataObject);
   }  
   
   public static void set(DataObject dataObject, String path, Object value) 
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null)
-    {
-      dataObject.set(property, value);
-    } 
-    else 
-    {
-      DataObjectUtil.Accessor.create(
-        (EObject)dataObject, path, value).setAndRecyle(value);
-    }
+    getPathExpression(dataObject.getType(), path).set(dataObject, value);
   }
   
   public static Object get(DataObject dataObject, String path) 
   {
-    Property property = dataObject.getType().getProperty(path);
-    if (property != null) {
-      return dataObject.get(property);
-    } else {
-      return Accessor.create((EObject)dataObject, path).getAndRecyle();
-    }
+    return getPathExpression(dataObject.getType(), path).get(dataObject);
+  }
+
+  /**
+   * Returns the compiled form of the specified path for instances of the specified type.
+   */
+  public static PathExpressionImpl getPathExpression(Type type, String path)
+  {
+    return type instanceof ClassImpl ? ((ClassImpl)type).getPathExpression(path) : new PathExpressionImpl(type, path);
   }
   
+  /**
+   * Returns the converter of values passed to the typed setters to the instance class of the property's type.
+   */
+  public static ValueConverter getValueConverter(Property property)
+  {
+    return property instanceof AttributeImpl ? ((AttributeImpl)property).getValueConverter() : ValueConverter.create(((EStructuralFeature)property).getEType());
+  }
+
   public static BigDecimal getBigDecimal(Object value)
   {
     if (value instanceof BigDecimal)
@@ -814,61 +714,11 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, BigDecimal value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    EClassifier eType = eStructuralFeature.getEType();
     if (value == null)
     {
-      return eType.getDefaultValue();
-    }
-
-    String name = eType.getInstanceClassName();
-    if (name == "java.math.BigDecimal")
-    {
-      return value;
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return value.toBigInteger();
-    }
-
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte(value.byteValue());
+      return ((EStructuralFeature)property).getEType().getDefaultValue();
     }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value.doubleValue());
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value.floatValue());
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer(value.intValue());
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value.longValue());
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short(value.shortValue());
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return value;
+    return getValueConverter(property).convert(value);
   }
 
   public static BigInteger getBigInteger(Object value)
@@ -908,66 +758,11 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, BigInteger value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    EClassifier eType = eStructuralFeature.getEType();
     if (value == null)
     {
-      return eType.getDefaultValue();
-    }
-
-    String name = eType.getInstanceClassName();
-    if (name == "java.math.BigInteger")
-    {
-      return value;
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return new BigDecimal(value);
-    }
-
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte(value.byteValue());
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value.doubleValue());
+      return ((EStructuralFeature)property).getEType().getDefaultValue();
     }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value.floatValue());
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer(value.intValue());
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value.longValue());
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short(value.shortValue());
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    if (name == "byte[]")
-    {
-      return value.toByteArray();
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return value;
+    return getValueConverter(property).convert(value);
   }
 
   public static boolean getBoolean(Object value)
@@ -992,20 +787,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, boolean value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Boolean" || name == "boolean")
-    {
-      return value ? Boolean.TRUE : Boolean.FALSE;
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return value ? Boolean.TRUE : Boolean.FALSE;
+    return getValueConverter(property).convert(value);
   }
 
   public static byte getByte(Object value)
@@ -1030,55 +812,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, byte value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte(value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer(value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short(value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Byte(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Byte(value));
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return new Byte(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static byte[] getBytes(Object value)
@@ -1108,31 +842,11 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, byte[] value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    EClassifier eType = eStructuralFeature.getEType();
     if (value == null)
     {
-      return eType.getDefaultValue();
+      return ((EStructuralFeature)property).getEType().getDefaultValue();
     }
-
-    String name = eType.getInstanceClassName();
-    if (name == "byte[]")
-    {
-      return value;
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return new BigInteger(value);
-    }
-    
-    if (name == "java.lang.String" )
-    {
-      return XMLTypeFactory.eINSTANCE.convertHexBinary((byte[])value);
-    }
-    
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return value;
+    return getValueConverter(property).convert(value);
   }
 
   public static char getChar(Object value)
@@ -1157,20 +871,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, char value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Character" || name == "char")
-    {
-      return new Character(value);
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return new Character(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static Date getDate(Object value)
@@ -1204,66 +905,11 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, Date value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    EClassifier eType = eStructuralFeature.getEType();
     if (value == null)
     {
-      return eType.getDefaultValue();
+      return ((EStructuralFeature)property).getEType().getDefaultValue();
     }
-
-    String name = eType.getInstanceClassName();
-        
-    if (name == "java.lang.String")
-    {
-      String typeName = getDateTypeName((EDataType)eType);
-      if ("DateTime".equals(typeName)) {
-          return DataHelper.INSTANCE.toDateTime(value);
-      }
-      else if ("Day".equals(typeName)) {
-          return DataHelper.INSTANCE.toDay(value);
-      }
-      else if ("Duration".equals(typeName)) {
-          return DataHelper.INSTANCE.toDuration(value);
-      }
-      else if ("Month".equals(typeName)) {
-          return DataHelper.INSTANCE.toMonth(value);
-      }
-      else if ("MonthDay".equals(typeName)) {
-          return DataHelper.INSTANCE.toMonthDay(value);
-      }
-      else if ("Time".equals(typeName)) {
-          return DataHelper.INSTANCE.toTime(value);
-      }
-      else if ("Year".equals(typeName)) {
-          return DataHelper.INSTANCE.toYear(value);
-      }
-      else if ("YearMonth".equals(typeName)) {
-          return DataHelper.INSTANCE.toYearMonth(value);
-      }
-      else if ("YearMonthDay".equals(typeName)) {
-          return DataHelper.INSTANCE.toYearMonthDay(value);
-      }
-      else if ("String".equals(typeName))
-      {
-        return DataHelper.INSTANCE.toDateTime(value);
-      }
-      
-      // Instead of throwing an ClassCastException we will pass the value to the property
-      return value;
-    }
-
-    //if (name == "java.util.Date")
-    //{
-      //return new XMLCalendar(value, XMLCalendar.DATE);
-    //}
-    
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value.getTime());
-    }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return value;
+    return getValueConverter(property).convert(value);
   }
 
   protected static String getDateTypeName(EDataType eDataType)
@@ -1337,55 +983,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, double value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte((byte)value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer((int)value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long((long)value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short((short)value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Double(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Double(value));
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    //Instead of throwing an ClassCastException we will pass the value to the property
-    return new Double(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static float getFloat(Object value)
@@ -1410,55 +1008,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, float value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte((byte)value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer((int)value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long((long)value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short((short)value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Float(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Float(value));
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return new Float(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static int getInt(Object value)
@@ -1483,55 +1033,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, int value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte((byte)value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer(value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short((short)value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Integer(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Integer(value));
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return new Integer(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static long getLong(Object value)
@@ -1561,60 +1063,7 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, long value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte((byte)value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer((int)value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short((short)value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Long(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Long(value));
-    }
-
-    if (name == "java.lang.String")
-    {
-      return String.valueOf(value);
-    }
-
-    if (name == "java.util.Date")
-    {
-      return new Date(value);
-    }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return new Long(value);
+    return getValueConverter(property).convert(value);
   }
 
   public static short getShort(Object value)
@@ -1639,56 +1088,21 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, short value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    String name = eStructuralFeature.getEType().getInstanceClassName();
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return new Byte((byte)value);
-    }
-
-    if (name == "java.lang.Double" || name == "double")
-    {
-      return new Double(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return new Integer(value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return new Long(value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return new Short(value);
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(new Short(value));
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(new Short(value));
-    }
+    return getValueConverter(property).convert(value);
+  }
 
-    if (name == "java.lang.String")
+  /**
+   * The format of Date values converted to String, one per thread since SimpleDateFormat isn't thread safe.
+   */
+  protected static final ThreadLocal dateTimeFormat = new ThreadLocal()
+  {
+    protected Object initialValue()
     {
-      return String.valueOf(value);
+      SimpleDateFormat sdf = new SimpleDateFormat("yyyy'-'MM'-'dd'T'H':'mm':'ss.S'Z'");
+      sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
+      return sdf;
     }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return new Short(value);
-  }
+  };
 
   public static String getString(Object value)
   {
@@ -1704,9 +1118,7 @@ public final class DataObjectUtil
     
     if (value instanceof Date)
     {
-      SimpleDateFormat sdf = new SimpleDateFormat("yyyy'-'MM'-'dd'T'H':'mm':'ss.S'Z'");
-      sdf.setTimeZone(TimeZone.getTimeZone("GMT"));
-      return sdf.format((Date) value);
+      return ((SimpleDateFormat)dateTimeFormat.get()).format((Date) value);
     }
 
     if (value instanceof byte[]) {
@@ -1723,81 +1135,11 @@ public final class DataObjectUtil
 
   public static Object getSetValue(Property property, String value)
   {
-    EStructuralFeature eStructuralFeature = (EStructuralFeature)property;
-    EClassifier eType = eStructuralFeature.getEType();
     if (value == null)
     {
-      return eType.getDefaultValue();
-    }
-
-    String name = eType.getInstanceClassName();
-    if (name == "java.lang.String")
-    {
-      return value;
-    }
-
-    if (name == "java.lang.Byte" || name == "byte")
-    {
-      return Byte.valueOf(value);
-    }
-
-    if (name == "java.util.Date")
-    {
-      return DataHelper.INSTANCE.toDate(value);
-    }
-    
-    if (name == "java.lang.Double" || name == "double" || name == "java.lang.Number")
-    {
-      return Double.valueOf(value);
-    }
-
-    if (name == "java.lang.Float" || name == "float")
-    {
-      return new Float(value);
-    }
-
-    if (name == "java.lang.Integer" || name == "int")
-    {
-      return Integer.valueOf(value);
-    }
-
-    if (name == "java.lang.Long" || name == "long")
-    {
-      return Long.valueOf(value);
-    }
-
-    if (name == "java.lang.Short" || name == "short")
-    {
-      return Short.valueOf(value);
-    }
-
-    if (name == "java.lang.Character" || name == "char")
-    {
-      return new Character(value.charAt(0));
-    }
-
-    if (name == "java.math.BigDecimal")
-    {
-      return getBigDecimal(value);
-    }
-
-    if (name == "java.math.BigInteger")
-    {
-      return getBigInteger(value);
-    }
-
-    if (name == "java.lang.Boolean" || name == "boolean")
-    {
-      return Boolean.valueOf(value);
-    }
-    
-    if (name == "byte[]")
-    {
-        return XMLTypeFactory.eINSTANCE.createHexBinary(value);
+      return ((EStructuralFeature)property).getEType().getDefaultValue();
     }
-
-    // Instead of throwing an ClassCastException we will pass the value to the property
-    return value;
+    return getValueConverter(property).convert(value);
   }
   
   public static EStructuralFeature getOpenFeature(EObject eObject, int featureID)
@@ -1928,61 +1270,11 @@ public final class DataObjectUtil
       
     public static Accessor create(EObject eObject, String path, Object value)
     {
-      Accessor result = pool.get();
+      Accessor result = new Accessor();
       result.init(eObject, path, value);
       return result;
     }
 
-    /**
-     * Only the get and recycle methods should be call; they are the only synchronized methods.
-     */
-    protected static class Pool extends BasicEList
-    {
-      protected Accessor[] accessors;
-
-      public Pool()
-      {
-        super(10);
-      }
-
-      protected Object[] newData(int capacity)
-      {
-        return accessors = new Accessor [capacity];
-      }
-
-      /**
-       *  Returns a recyled instance or a new instance.
-       */
-      public synchronized Accessor get()
-      {
-        if (size > 0)
-        {
-          return accessors[--size];
-        }
-        else
-        {
-          return new Accessor();
-        }
-      }
-
-      /** Safely gives the accessor back for recycled use.
-       */
-      public synchronized void recycle(Accessor accessor)
-      {
-        int minimumCapacity = size + 1;
-        if (minimumCapacity > data.length)
-        {
-          grow(minimumCapacity);
-        }
-        accessors[size++] = accessor;
-      }
-    }
-
-    /**
-     * A static thread safe pool of Accessors.
-     */
-    static final Pool pool = new Pool();
-
     protected static final int NO_INDEX = -1;
 
     protected EObject eObject;
@@ -2049,9 +1341,7 @@ public final class DataObjectUtil
 
     public Object getAndRecyle()
     {
-      Object result = get();
-      pool.recycle(this);
-      return result;
+      return get();
     }
     
     protected final void assertSuccessfulProcess()
@@ -2078,7 +1368,6 @@ public final class DataObjectUtil
     public void setAndRecyle(Object newValue)
     {
       set(newValue);
-      pool.recycle(this);
     }
 
     public boolean isSet()
@@ -2088,9 +1377,7 @@ public final class DataObjectUtil
 
     public boolean isSetAndRecyle()
     {
-      boolean result = isSet();
-      pool.recycle(this);
-      return result;
+      return isSet();
     }
 
     public void unset()
@@ -2102,12 +1389,13 @@ public final class DataObjectUtil
     public void unsetAndRecyle()
     {
       unset();
-      pool.recycle(this);
     }
 
+    /**
+     * Accessors are no longer pooled; each one is confined to the thread that created it.
+     */
     public void recycle()
     {
-      pool.recycle(this);
     }
 
     public EObject getEObject()
@@ -2484,6 +1772,75 @@ public final class DataObjectUtil
     }
   }
   
+  private static Class concurrentHashMapClazz = null;
+  private static boolean isThreadSafeMapClazzIdentified = false;
+
+  /**
+   * Creates a Map that can be read and updated concurrently, a ConcurrentHashMap if one is available,
+   * or else a synchronized HashMap.
+   */
+  public static Map createThreadSafeMap() 
+  {
+    if (!isThreadSafeMapClazzIdentified) 
+    {
+      concurrentHashMapClazz = loadConcurrentHashMapClazz();
+      isThreadSafeMapClazzIdentified = true;
+    }
+    Map threadSafeMap = null;
+    if (concurrentHashMapClazz == null) 
+    {
+      threadSafeMap = Collections.synchronizedMap(new HashMap());
+    } 
+    else 
+    {
+      try 
+      {
+        threadSafeMap = (Map)concurrentHashMapClazz.newInstance();
+      } 
+      catch (InstantiationException e) 
+      {
+        throw new RuntimeException(e);
+      } 
+      catch (IllegalAccessException e) 
+      {
+        throw new RuntimeException(e);
+      }
+    }
+    return threadSafeMap;
+  }
+
+  private static String[] concurrentHashMapClazzNames = new String[] {
+      "java.util.concurrent.ConcurrentHashMap", 
+      "edu.emory.mathcs.backport.java.util.concurrent.ConcurrentHashMap"};
+
+  private static Class loadConcurrentHashMapClazz() 
+  {
+    Class mapClazz = null;
+    for (int i = 0; i < concurrentHashMapClazzNames.length; i++) 
+    {
+      String concurrentHashMapClazzName = concurrentHashMapClazzNames[i];
+      try 
+      {
+        mapClazz = Class.forName(concurrentHashMapClazzName, true, Thread.currentThread().getContextClassLoader());
+      } 
+      catch (Exception ignored) {}
+      if (mapClazz != null) 
+      {
+        break;
+      }
+      try 
+      {
+        mapClazz = Class.forName(concurrentHashMapClazzName);
+      } 
+      catch (Exception ignored) {}
+      if (mapClazz != null) 
+      {
+        break;
+      }
+    }
+    return mapClazz;
+  }
+
   public static Type getType(DataObject dataObject, String namespaceURI, String typeName)
   {
     DataGraph dataGraph = dataObject.getDataGraph();
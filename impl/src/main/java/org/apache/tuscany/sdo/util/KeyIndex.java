@@ -0,0 +1,435 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tuscany.sdo.impl.DataObjectImpl;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+
+/**
+ * An index of the elements of a many-valued property of one DataObject, by the string value of one of their
+ * properties, used to resolve path predicates of the form <code>property[key=value]</code> without scanning the list.
+ * <p>
+ * The index is an adapter of the owning DataObject and of each element of the list, so it is kept up to date,
+ * through the ordinary notification mechanism, as elements are added, removed or replaced and as their key values change.
+ * Like a predicate scan, a lookup answers the first element of the list that has the requested key value.
+ */
+public class KeyIndex extends AdapterImpl
+{
+  protected final EObject owner;
+  protected final EStructuralFeature feature;
+  protected final EStructuralFeature keyFeature;
+  protected final Set keyNames = new HashSet();
+
+  /**
+   * Maps each key value to its Entry.
+   */
+  protected final Map entries = new HashMap();
+
+  protected static final class Entry
+  {
+    /**
+     * The first element of the list with the key value.
+     */
+    EObject element;
+
+    /**
+     * The number of elements with the key value.
+     */
+    int count = 1;
+
+    Entry(EObject element)
+    {
+      this.element = element;
+    }
+  }
+
+  protected KeyIndex(EObject owner, EStructuralFeature feature, EStructuralFeature keyFeature)
+  {
+    this.owner = owner;
+    this.feature = feature;
+    this.keyFeature = keyFeature;
+    keyNames.add(keyFeature.getName());
+    keyNames.addAll(((Property)keyFeature).getAliasNames());
+  }
+
+  /**
+   * Creates, or returns the existing, index of the specified many-valued property of the DataObject by the specified key property.
+   */
+  public static KeyIndex create(DataObject dataObject, Property property, Property keyProperty)
+  {
+    if (!property.isMany() || property.getType().isDataType())
+    {
+      throw new IllegalArgumentException("The property '" + property.getName() + "' isn't a many-valued DataObject property");
+    }
+    if (keyProperty.isMany() || !keyProperty.getType().isDataType())
+    {
+      throw new IllegalArgumentException("The property '" + keyProperty.getName() + "' isn't a single-valued DataType property");
+    }
+
+    EObject owner = (EObject)dataObject;
+    EStructuralFeature feature = (EStructuralFeature)property;
+    EStructuralFeature keyFeature = (EStructuralFeature)keyProperty;
+    List adapters = owner.eAdapters();
+    for (int i = 0, size = adapters.size(); i < size; ++i)
+    {
+      Object adapter = adapters.get(i);
+      if (adapter instanceof KeyIndex)
+      {
+        KeyIndex keyIndex = (KeyIndex)adapter;
+        if (keyIndex.owner == owner && keyIndex.feature == feature && keyIndex.keyFeature == keyFeature)
+        {
+          return keyIndex;
+        }
+      }
+    }
+
+    KeyIndex keyIndex = new KeyIndex(owner, feature, keyFeature);
+    adapters.add(keyIndex);
+    keyIndex.rebuild();
+    return keyIndex;
+  }
+
+  /**
+   * Returns the index of the specified many-valued feature of the object, by the property with the specified name,
+   * or null if there isn't one.
+   */
+  public static KeyIndex get(EObject owner, EStructuralFeature feature, String keyName)
+  {
+    List adapters = owner instanceof DataObjectImpl ? ((DataObjectImpl)owner).eBasicAdapters() : owner.eAdapters();
+    if (adapters != null)
+    {
+      for (int i = 0, size = adapters.size(); i < size; ++i)
+      {
+        Object adapter = adapters.get(i);
+        if (adapter instanceof KeyIndex)
+        {
+          KeyIndex keyIndex = (KeyIndex)adapter;
+          if (keyIndex.owner == owner && keyIndex.feature == feature && keyIndex.keyNames.contains(keyName))
+          {
+            return keyIndex;
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the first element of the list whose key has the specified string value, or null if there is none.
+   */
+  public EObject lookup(String keyValue)
+  {
+    Entry entry = (Entry)entries.get(keyValue);
+    return entry == null ? null : entry.element;
+  }
+
+  /**
+   * Returns the position of the element in the list, which takes a scan of the list.
+   */
+  public int indexOf(EObject element)
+  {
+    return getList().indexOf(element);
+  }
+
+  /**
+   * Removes this index from the DataObject and the elements of its list.
+   */
+  public void dispose()
+  {
+    owner.eAdapters().remove(this);
+    List list = getList();
+    for (int i = 0, size = list.size(); i < size; ++i)
+    {
+      ((EObject)list.get(i)).eAdapters().remove(this);
+    }
+    entries.clear();
+  }
+
+  protected List getList()
+  {
+    return (List)owner.eGet(feature);
+  }
+
+  protected String getKey(EObject element)
+  {
+    EClass keyClass = keyFeature.getEContainingClass();
+    if (keyClass != null && !keyClass.isSuperTypeOf(element.eClass()))
+    {
+      return null;
+    }
+    return toKey(element.eGet(keyFeature));
+  }
+
+  protected String toKey(Object value)
+  {
+    return value == null ? null : EcoreUtil.convertToString((EDataType)keyFeature.getEType(), value);
+  }
+
+  protected void rebuild()
+  {
+    entries.clear();
+    List list = getList();
+    for (int i = 0, size = list.size(); i < size; ++i)
+    {
+      EObject element = (EObject)list.get(i);
+      if (!element.eAdapters().contains(this))
+      {
+        element.eAdapters().add(this);
+      }
+      String key = getKey(element);
+      if (key != null)
+      {
+        Entry entry = (Entry)entries.get(key);
+        if (entry == null)
+        {
+          entries.put(key, new Entry(element));
+        }
+        else
+        {
+          ++entry.count;
+        }
+      }
+    }
+  }
+
+  /**
+   * Indexes the element under the specified key. The position of the element is only needed when the key
+   * is a duplicate, and may be passed as -1 if it isn't known.
+   */
+  protected void addKey(String key, EObject element, int position)
+  {
+    if (key == null) return;
+    Entry entry = (Entry)entries.get(key);
+    if (entry == null)
+    {
+      entries.put(key, new Entry(element));
+    }
+    else
+    {
+      ++entry.count;
+      if (precedes(element, position, entry.element))
+      {
+        entry.element = element;
+      }
+    }
+  }
+
+  /**
+   * Returns whether the element, at the specified position or at an unknown position if it's -1, comes before the other
+   * element in the list. An element added at the end precedes nothing; otherwise the list is only scanned up to the first
+   * of the two.
+   */
+  protected boolean precedes(EObject element, int position, EObject other)
+  {
+    List list = getList();
+    int size = list.size();
+    if (position == size - 1)
+    {
+      return false;
+    }
+    for (int i = 0, end = position < 0 ? size : position; i < end; ++i)
+    {
+      Object listElement = list.get(i);
+      if (listElement == other)
+      {
+        return false;
+      }
+      if (listElement == element)
+      {
+        return true;
+      }
+    }
+    return position >= 0;
+  }
+
+  protected void removeKey(String key, EObject element)
+  {
+    if (key == null) return;
+    Entry entry = (Entry)entries.get(key);
+    if (entry == null) return;
+    if (--entry.count == 0)
+    {
+      entries.remove(key);
+    }
+    else if (entry.element == element)
+    {
+      entry.element = findFirst(key, element);
+    }
+  }
+
+  protected void updateFirst(String key)
+  {
+    if (key == null) return;
+    Entry entry = (Entry)entries.get(key);
+    if (entry != null && entry.count > 1)
+    {
+      entry.element = findFirst(key, null);
+    }
+  }
+
+  protected EObject findFirst(String key, EObject excluded)
+  {
+    List list = getList();
+    for (int i = 0, size = list.size(); i < size; ++i)
+    {
+      EObject element = (EObject)list.get(i);
+      if (element != excluded && key.equals(getKey(element)))
+      {
+        return element;
+      }
+    }
+    return null;
+  }
+
+  protected void added(Object value, int position)
+  {
+    EObject element = (EObject)value;
+    element.eAdapters().add(this);
+    addKey(getKey(element), element, position);
+  }
+
+  protected void removed(Object value)
+  {
+    EObject element = (EObject)value;
+    removeKey(getKey(element), element);
+    element.eAdapters().remove(this);
+  }
+
+  protected void detach(Object value)
+  {
+    if (value instanceof EObject)
+    {
+      ((EObject)value).eAdapters().remove(this);
+    }
+    else if (value instanceof Collection)
+    {
+      for (Iterator i = ((Collection)value).iterator(); i.hasNext(); )
+      {
+        detach(i.next());
+      }
+    }
+  }
+
+  public void notifyChanged(Notification notification)
+  {
+    Object notifier = notification.getNotifier();
+    if (notifier == owner)
+    {
+      if (notification.getFeature() == feature)
+      {
+        listChanged(notification);
+      }
+    }
+    else if (notification.getFeature() == keyFeature)
+    {
+      int eventType = notification.getEventType();
+      if (eventType == Notification.SET || eventType == Notification.UNSET)
+      {
+        EObject element = (EObject)notifier;
+        if (element.eContainer() != owner && !getList().contains(element))
+        {
+          // No longer an element of the list; detach.
+          element.eAdapters().remove(this);
+          return;
+        }
+        String oldKey = toKey(notification.getOldValue());
+        String newKey = getKey(element);
+        if (oldKey == null ? newKey != null : !oldKey.equals(newKey))
+        {
+          removeKey(oldKey, element);
+          addKey(newKey, element, -1);
+        }
+      }
+    }
+  }
+
+  protected void listChanged(Notification notification)
+  {
+    switch (notification.getEventType())
+    {
+      case Notification.ADD:
+        added(notification.getNewValue(), notification.getPosition());
+        break;
+
+      case Notification.ADD_MANY:
+      {
+        int position = notification.getPosition();
+        for (Iterator i = ((Collection)notification.getNewValue()).iterator(); i.hasNext(); )
+        {
+          added(i.next(), position < 0 ? -1 : position++);
+        }
+        break;
+      }
+
+      case Notification.REMOVE:
+        removed(notification.getOldValue());
+        break;
+
+      case Notification.REMOVE_MANY:
+        for (Iterator i = ((Collection)notification.getOldValue()).iterator(); i.hasNext(); )
+        {
+          removed(i.next());
+        }
+        break;
+
+      case Notification.SET:
+        if (notification.getOldValue() != null)
+        {
+          removed(notification.getOldValue());
+        }
+        if (notification.getNewValue() != null)
+        {
+          added(notification.getNewValue(), notification.getPosition());
+        }
+        break;
+
+      case Notification.MOVE:
+        updateFirst(getKey((EObject)notification.getNewValue()));
+        break;
+
+      case Notification.RESOLVE:
+      case Notification.REMOVING_ADAPTER:
+        break;
+
+      default:
+        // Detach from the elements the notification reports as gone before indexing the list again;
+        // any other element that left the list detaches itself when its key next changes.
+        detach(notification.getOldValue());
+        rebuild();
+    }
+  }
+}
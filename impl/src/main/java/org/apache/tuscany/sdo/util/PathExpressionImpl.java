@@ -0,0 +1,575 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tuscany.sdo.api.PathExpression;
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+
+/**
+ * A path compiled against a Type. The path is tokenized and decoded into steps once, and each named step
+ * remembers the feature it resolved to for the last class it was evaluated against, so an evaluation is a
+ * single pass over the steps with no string processing. A get, set, isSet or unset allocates nothing beyond
+ * what the underlying accessors do; {@link #resolve(DataObject)}, which the typed path setters use to convert
+ * a value to the type of the property at the end of the path, returns a new {@link Target} each time.
+ * The syntax and semantics are those of {@link DataObjectUtil.Accessor}.
+ */
+public class PathExpressionImpl implements PathExpression
+{
+  protected static final int NO_INDEX = -1;
+
+  // Step kinds
+  protected static final int ROOT = 0;
+  protected static final int CHILD = 1;
+  protected static final int PARENT = 2;
+  protected static final int FEATURE = 3;
+  protected static final int INDEX = 4;
+  protected static final int PREDICATE = 5;
+
+  // Operations applied to the end of the path
+  protected static final int GET = 0;
+  protected static final int SET = 1;
+  protected static final int IS_SET = 2;
+  protected static final int UNSET = 3;
+  protected static final int PROPERTY = 4;
+  protected static final int RESOLVE = 5;
+
+  protected final Type type;
+  protected final String path;
+
+  /**
+   * The property named by the whole path, if there is one, which takes precedence over the steps.
+   */
+  protected final EStructuralFeature pathFeature;
+  protected final Step[] steps;
+
+  public PathExpressionImpl(Type type, String path)
+  {
+    this.type = type;
+    this.path = path;
+    pathFeature = (EStructuralFeature)type.getProperty(path);
+    steps = compile(path);
+  }
+
+  public Type getType()
+  {
+    return type;
+  }
+
+  public String getPath()
+  {
+    return path;
+  }
+
+  public Object get(DataObject dataObject)
+  {
+    return evaluate((EObject)dataObject, GET, null);
+  }
+
+  public void set(DataObject dataObject, Object value)
+  {
+    evaluate((EObject)dataObject, SET, value);
+  }
+
+  public boolean isSet(DataObject dataObject)
+  {
+    return evaluate((EObject)dataObject, IS_SET, null) == Boolean.TRUE;
+  }
+
+  public void unset(DataObject dataObject)
+  {
+    evaluate((EObject)dataObject, UNSET, null);
+  }
+
+  /**
+   * Returns the property at the end of this path, relative to the specified DataObject.
+   */
+  public Property getProperty(DataObject dataObject)
+  {
+    return (Property)evaluate((EObject)dataObject, PROPERTY, null);
+  }
+
+  /**
+   * Returns the end of this path, relative to the specified DataObject, so that a value can be converted
+   * to the type of its property and set without evaluating the path again. Each call allocates a new Target.
+   */
+  public Target resolve(DataObject dataObject)
+  {
+    return (Target)evaluate((EObject)dataObject, RESOLVE, null);
+  }
+
+  protected Object evaluate(EObject eObject, int operation, Object newValue)
+  {
+    EClass eClass = eObject.eClass();
+    EStructuralFeature feature = eClass == type ? pathFeature : (EStructuralFeature)((Type)eClass).getProperty(path);
+    if (feature != null)
+    {
+      return operation == RESOLVE ? new Target(eObject, feature, NO_INDEX, null) : applyProperty((DataObject)eObject, (Property)feature, operation, newValue);
+    }
+
+    int index = NO_INDEX;
+    RuntimeException exception = null;
+    for (int i = 0, count = steps.length; i < count; ++i)
+    {
+      Step step = steps[i];
+      switch (step.kind)
+      {
+        case ROOT:
+          eObject = EcoreUtil.getRootContainer(eObject);
+          feature = null;
+          index = NO_INDEX;
+          break;
+
+        case CHILD:
+          eObject = (EObject)value(eObject, feature, index);
+          feature = null;
+          index = NO_INDEX;
+          break;
+
+        case PARENT:
+          eObject = eObject.eContainer();
+          feature = null;
+          index = NO_INDEX;
+          break;
+
+        case FEATURE:
+          index = NO_INDEX;
+          feature = step.name.resolve(eObject);
+          if (feature == null)
+          {
+            if (step.prefix == null)
+            {
+              Type eObjectType = (Type)eObject.eClass();
+              if (newValue != null && eObjectType.isOpen())
+              {
+                feature = (EStructuralFeature)DataObjectUtil.demandOpenProperty(eObjectType, step.name.name, newValue, false);
+                break;
+              }
+              exception = new IllegalArgumentException("Class '" + eObject.eClass().getName() + "' does not have a feature named '" + step.name.name + '\'');
+            }
+            else if (step.error != null)
+            {
+              exception = new NumberFormatException(step.error);
+            }
+            else
+            {
+              feature = step.prefix.resolve(eObject);
+              if (feature != null)
+              {
+                exception = checkIndex(eObject, feature, step.index);
+                if (exception == null)
+                {
+                  index = step.index;
+                  break;
+                }
+              }
+              else
+              {
+                exception = new IllegalArgumentException("Class '" + eObject.eClass().getName() + "' does not have a feature named '" + step.name.name + "' or '" + step.prefix.name + '\'');
+              }
+            }
+            eObject = null;
+            feature = null;
+          }
+          break;
+
+        case INDEX:
+          if (step.error != null)
+          {
+            exception = new NumberFormatException(step.error);
+          }
+          else
+          {
+            exception = checkIndex(eObject, feature, step.index);
+          }
+          if (exception != null)
+          {
+            eObject = null;
+            feature = null;
+          }
+          else
+          {
+            index = step.index;
+          }
+          break;
+
+        case PREDICATE:
+          KeyIndex keyIndex = index == NO_INDEX && feature != null ? KeyIndex.get(eObject, feature, step.name.name) : null;
+          int matchingIndex;
+          if (keyIndex != null)
+          {
+            EObject match = keyIndex.lookup(step.value);
+            boolean last = i + 1 == count;
+            if (match != null && (last ? operation == GET : steps[i + 1].kind == CHILD))
+            {
+              // Only the element itself is needed, as the result or by the steps that follow.
+              eObject = match;
+              feature = null;
+              break;
+            }
+            // Only a set, or a step that follows, uses the position of the element; the other operations apply to the list itself.
+            matchingIndex = match == null ? -1 : last && operation != SET && operation != RESOLVE ? 0 : keyIndex.indexOf(match);
+          }
+          else
+          {
+            matchingIndex = DataObjectUtil.Accessor.matchingIndex((List)value(eObject, feature, index), step.name.name, step.value);
+          }
+          if (matchingIndex < 0)
+          {
+            eObject = null;
+            feature = null;
+          }
+          else
+          {
+            exception = checkIndex(eObject, feature, matchingIndex);
+            if (exception != null)
+            {
+              eObject = null;
+              feature = null;
+            }
+            else
+            {
+              index = matchingIndex;
+            }
+          }
+          break;
+      }
+
+      if (eObject == null)
+      {
+        feature = null;
+        break;
+      }
+    }
+
+    return apply(eObject, feature, index, exception, operation, newValue);
+  }
+
+  protected static Object applyProperty(DataObject dataObject, Property property, int operation, Object newValue)
+  {
+    switch (operation)
+    {
+      case GET:
+        return dataObject.get(property);
+
+      case SET:
+        dataObject.set(property, newValue);
+        return null;
+
+      case IS_SET:
+        return dataObject.isSet(property) ? Boolean.TRUE : Boolean.FALSE;
+
+      case UNSET:
+        dataObject.unset(property);
+        return null;
+
+      default:
+        return property;
+    }
+  }
+
+  protected static Object apply(EObject eObject, EStructuralFeature feature, int index, RuntimeException exception, int operation, Object newValue)
+  {
+    switch (operation)
+    {
+      case GET:
+        return value(eObject, feature, index);
+
+      case SET:
+        if (exception != null) throw exception;
+        if (index >= 0)
+        {
+          ((List)eObject.eGet(feature, true)).set(index, newValue);
+        }
+        else
+        {
+          eObject.eSet(feature, newValue);
+        }
+        return null;
+
+      case IS_SET:
+        return feature != null && eObject.eIsSet(feature) ? Boolean.TRUE : Boolean.FALSE;
+
+      case UNSET:
+        if (exception != null) throw exception;
+        eObject.eUnset(feature);
+        return null;
+
+      case RESOLVE:
+        return new Target(eObject, feature, index, exception);
+
+      default:
+        if (exception != null) throw exception;
+        return feature;
+    }
+  }
+
+  protected static Object value(EObject eObject, EStructuralFeature feature, int index)
+  {
+    if (feature == null)
+    {
+      return eObject;
+    }
+    Object value = eObject.eGet(feature, true);
+    if (index >= 0)
+    {
+      value = ((List)value).get(index);
+      if (value instanceof FeatureMap.Entry)
+      {
+        value = ((FeatureMap.Entry)value).getValue();
+      }
+    }
+    else if (FeatureMapUtil.isFeatureMap(feature))
+    {
+      value = new BasicSequence((FeatureMap.Internal)value);
+    }
+    return value;
+  }
+
+  protected static RuntimeException checkIndex(EObject eObject, EStructuralFeature feature, int index)
+  {
+    if (index < 0)
+    {
+      return new IndexOutOfBoundsException("Index value is too low");
+    }
+    if (!FeatureMapUtil.isMany(eObject, feature))
+    {
+      return new IndexOutOfBoundsException("Index applies only to multi-valued features");
+    }
+    int size = ((List)eObject.eGet(feature)).size();
+    if (index >= size)
+    {
+      return new IndexOutOfBoundsException("Index value should have been less than " + size);
+    }
+    return null;
+  }
+
+  protected static Step[] compile(String path)
+  {
+    DataObjectUtil.Accessor.TokenList tokens = new DataObjectUtil.Accessor.TokenList(path.toCharArray());
+    List steps = new ArrayList();
+    int size = tokens.size();
+    int x = 0;
+
+    if ("/".equals(tokens.peek(0)))
+    {
+      steps.add(new Step(ROOT));
+      x++;
+    }
+
+    for (; x < size; x++)
+    {
+      String token = tokens.peek(x);
+      char c = token.charAt(0);
+      if ('/' == c)
+      {
+        steps.add(new Step(CHILD));
+      }
+      else if ("..".equals(token))
+      {
+        steps.add(new Step(PARENT));
+      }
+      else if ('[' == c)
+      {
+        x++; // skip [
+        token = tokens.peek(x); // name or index
+        char following = tokens.peek(x + 1).charAt(0);
+        if ('=' != following)
+        {
+          Step step = new Step(INDEX);
+          try
+          {
+            step.index = Integer.parseInt(token) - 1;
+          }
+          catch (NumberFormatException eNumberFormat)
+          {
+            step.error = eNumberFormat.getMessage();
+          }
+          steps.add(step);
+          x++; // skip ]
+        }
+        else
+        {
+          x++; // done name
+          x++; // skip =
+          String attributeValue = tokens.peek(x); // value
+          if ("\"".equals(attributeValue))
+          {
+            x++; // skip "
+            attributeValue = tokens.peek(++x);
+          }
+          x++; // skip ]
+          Step step = new Step(PREDICATE);
+          step.name = new FeatureName(token);
+          step.value = attributeValue;
+          steps.add(step);
+        }
+      }
+      else if ('@' == c)
+      {
+        // skip @
+      }
+      else
+      {
+        Step step = new Step(FEATURE);
+        step.name = new FeatureName(token);
+        int index = token.lastIndexOf('.');
+        if (index != -1)
+        {
+          step.prefix = new FeatureName(token.substring(0, index));
+          try
+          {
+            step.index = Integer.parseInt(token.substring(index + 1));
+          }
+          catch (NumberFormatException eNumberFormat)
+          {
+            step.error = eNumberFormat.getMessage();
+          }
+        }
+        steps.add(step);
+      }
+    }
+
+    return (Step[])steps.toArray(new Step[steps.size()]);
+  }
+
+  protected static final class Step
+  {
+    final int kind;
+
+    /**
+     * The feature name of a FEATURE step or the attribute name of a PREDICATE step.
+     */
+    FeatureName name;
+
+    /**
+     * The name preceding the last '.' of a FEATURE step, used if the whole name isn't a property.
+     */
+    FeatureName prefix;
+
+    int index = NO_INDEX;
+    String value;
+
+    /**
+     * The message of the NumberFormatException to report if an index didn't parse.
+     */
+    String error;
+
+    Step(int kind)
+    {
+      this.kind = kind;
+    }
+  }
+
+  /**
+   * A property name, with a one entry cache of the declared property it resolves to.
+   */
+  protected static final class FeatureName
+  {
+    final String name;
+    Resolution resolution;
+
+    FeatureName(String name)
+    {
+      this.name = name;
+    }
+
+    EStructuralFeature resolve(EObject eObject)
+    {
+      EClass eClass = eObject.eClass();
+      Resolution resolution = this.resolution;
+      if (resolution != null && resolution.eClass == eClass)
+      {
+        return resolution.feature;
+      }
+      if (eClass instanceof ClassImpl)
+      {
+        EStructuralFeature feature = (EStructuralFeature)((ClassImpl)eClass).getProperty(name);
+        if (feature != null)
+        {
+          this.resolution = new Resolution(eClass, feature);
+          return feature;
+        }
+      }
+      return (EStructuralFeature)((DataObject)eObject).getInstanceProperty(name);
+    }
+  }
+
+  /**
+   * Immutable, so it can be published to other threads without synchronization.
+   */
+  protected static final class Resolution
+  {
+    final EClass eClass;
+    final EStructuralFeature feature;
+
+    Resolution(EClass eClass, EStructuralFeature feature)
+    {
+      this.eClass = eClass;
+      this.feature = feature;
+    }
+  }
+
+  /**
+   * The end of a path, relative to a DataObject, as resolved by {@link PathExpressionImpl#resolve(DataObject)}.
+   */
+  public static final class Target
+  {
+    final EObject eObject;
+    final EStructuralFeature feature;
+    final int index;
+    final RuntimeException exception;
+
+    Target(EObject eObject, EStructuralFeature feature, int index, RuntimeException exception)
+    {
+      this.eObject = eObject;
+      this.feature = feature;
+      this.index = index;
+      this.exception = exception;
+    }
+
+    public Property getProperty()
+    {
+      return (Property)apply(eObject, feature, index, exception, PROPERTY, null);
+    }
+
+    public void set(Object value)
+    {
+      apply(eObject, feature, index, exception, SET, value);
+    }
+  }
+
+  public String toString()
+  {
+    return "PathExpression (type:" + type.getName() + ", path:" + path + ")";
+  }
+}
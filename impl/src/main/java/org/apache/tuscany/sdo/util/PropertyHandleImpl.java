@@ -0,0 +1,276 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util;
+
+import org.apache.tuscany.sdo.api.PropertyHandle;
+import org.apache.tuscany.sdo.impl.DataObjectImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+
+/**
+ * A PropertyHandle that resolves the feature ID of the property once. Instances of exactly the resolved
+ * Type are accessed by feature ID, through the primitive accessors of DataObjectImpl; any other DataObject
+ * is accessed through the ordinary Property based DataObject methods.
+ */
+public class PropertyHandleImpl implements PropertyHandle
+{
+  protected final Type type;
+  protected final Property property;
+
+  /**
+   * The ID of the property's feature in the type, or -1 if it isn't one, e.g., if it's an open content property.
+   */
+  protected final int featureID;
+
+  public PropertyHandleImpl(Type type, Property property)
+  {
+    this.type = type;
+    this.property = property;
+    featureID = type instanceof EClass ? ((EClass)type).getFeatureID((EStructuralFeature)property) : -1;
+  }
+
+  public Type getType()
+  {
+    return type;
+  }
+
+  public Property getProperty()
+  {
+    return property;
+  }
+
+  /**
+   * Returns the DataObject as a DataObjectImpl if it can be accessed by feature ID, or else null.
+   */
+  protected DataObjectImpl resolved(DataObject dataObject)
+  {
+    return featureID >= 0 && dataObject instanceof DataObjectImpl && ((EObject)dataObject).eClass() == type ? (DataObjectImpl)dataObject : null;
+  }
+
+  public Object get(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGet(featureID, true, false) : dataObject.get(property);
+  }
+
+  public void set(DataObject dataObject, Object value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSet(featureID, value);
+    }
+    else
+    {
+      dataObject.set(property, value);
+    }
+  }
+
+  public boolean isSet(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eIsSet(featureID) : dataObject.isSet(property);
+  }
+
+  public void unset(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eUnset(featureID);
+    }
+    else
+    {
+      dataObject.unset(property);
+    }
+  }
+
+  public boolean getBoolean(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetBoolean(featureID) : dataObject.getBoolean(property);
+  }
+
+  public void setBoolean(DataObject dataObject, boolean value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetBoolean(featureID, value);
+    }
+    else
+    {
+      dataObject.setBoolean(property, value);
+    }
+  }
+
+  public byte getByte(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetByte(featureID) : dataObject.getByte(property);
+  }
+
+  public void setByte(DataObject dataObject, byte value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetByte(featureID, value);
+    }
+    else
+    {
+      dataObject.setByte(property, value);
+    }
+  }
+
+  public char getChar(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetChar(featureID) : dataObject.getChar(property);
+  }
+
+  public void setChar(DataObject dataObject, char value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetChar(featureID, value);
+    }
+    else
+    {
+      dataObject.setChar(property, value);
+    }
+  }
+
+  public short getShort(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetShort(featureID) : dataObject.getShort(property);
+  }
+
+  public void setShort(DataObject dataObject, short value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetShort(featureID, value);
+    }
+    else
+    {
+      dataObject.setShort(property, value);
+    }
+  }
+
+  public int getInt(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetInt(featureID) : dataObject.getInt(property);
+  }
+
+  public void setInt(DataObject dataObject, int value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetInt(featureID, value);
+    }
+    else
+    {
+      dataObject.setInt(property, value);
+    }
+  }
+
+  public long getLong(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetLong(featureID) : dataObject.getLong(property);
+  }
+
+  public void setLong(DataObject dataObject, long value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetLong(featureID, value);
+    }
+    else
+    {
+      dataObject.setLong(property, value);
+    }
+  }
+
+  public float getFloat(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetFloat(featureID) : dataObject.getFloat(property);
+  }
+
+  public void setFloat(DataObject dataObject, float value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetFloat(featureID, value);
+    }
+    else
+    {
+      dataObject.setFloat(property, value);
+    }
+  }
+
+  public double getDouble(DataObject dataObject)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    return resolved != null ? resolved.eGetDouble(featureID) : dataObject.getDouble(property);
+  }
+
+  public void setDouble(DataObject dataObject, double value)
+  {
+    DataObjectImpl resolved = resolved(dataObject);
+    if (resolved != null)
+    {
+      resolved.eSetDouble(featureID, value);
+    }
+    else
+    {
+      dataObject.setDouble(property, value);
+    }
+  }
+
+  public String getString(DataObject dataObject)
+  {
+    return DataObjectUtil.getString(get(dataObject));
+  }
+
+  public void setString(DataObject dataObject, String value)
+  {
+    set(dataObject, DataObjectUtil.getSetValue(property, value));
+  }
+
+  public String toString()
+  {
+    return type.getName() + '.' + property.getName();
+  }
+}
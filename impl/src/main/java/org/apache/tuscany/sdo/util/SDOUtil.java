@@ -107,7 +107,7 @@ public final class SDOUtil
   public static TypeHelper createTypeHelper()
   {
     EPackage.Registry registry = new EPackageRegistryImpl(EPackage.Registry.INSTANCE);
-    ExtendedMetaData extendedMetaData = new SDOExtendedMetaDataImpl(registry); //TODO create subclass that makes demand() methods synchronous
+    ExtendedMetaData extendedMetaData = new SDOExtendedMetaDataImpl(registry);
     //return new TypeHelperImpl(extendedMetaData);
     return (new HelperContextImpl(extendedMetaData, false)).getTypeHelper();
   }
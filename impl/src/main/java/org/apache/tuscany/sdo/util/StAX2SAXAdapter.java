@@ -19,7 +19,6 @@
  */
 package org.apache.tuscany.sdo.util;
 
-import javax.xml.namespace.QName;
 import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -29,7 +28,6 @@ import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
-import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * Adapter that converts from StAX to SAX event streams. Currently the following SAX events are not generated:
@@ -69,12 +67,21 @@ import org.xml.sax.helpers.AttributesImpl;
  * <p/>
  * Proposal: we change the receiver of SAX events (SDOXMLResourceImpl) so that it uses NamespaceContext to resolve prefix (as opposed to record
  * start/endPrefixMappings and use it for resolution.)
+ * <p/>
+ * No event is copied: element names are passed as the reader returns them and the Attributes of a startElement event are a view of the reader's
+ * current START_ELEMENT event, so they are only valid for the duration of the startElement call.
+ * <p/>
+ * XMLStreamHelper loads through this adapter into the same SAX handler as XMLHelper, so a StAX load costs the SAX load of the same document plus
+ * the dispatch of this adapter. A native pull-based loader that would skip both the adapter and the SAX handler has not been written; see
+ * SDOXMLResourceImpl.SDOXMLLoadImpl.
  *
  * @version $Rev$ $Date$
  */
 public class StAX2SAXAdapter {
     private final boolean namespacePrefixes;
 
+    private final StreamAttributes attributes = new StreamAttributes();
+
     /**
      * Construct a new StAX to SAX adapter that will convert a StAX event stream into a SAX event stream.
      *
@@ -87,7 +94,8 @@ public class StAX2SAXAdapter {
     /**
      * Pull events from the StAX stream and dispatch to the SAX ContentHandler. The StAX stream would typically be located on a START_DOCUMENT or
      * START_ELEMENT event and when this method returns it will be located on the associated END_DOCUMENT or END_ELEMENT event. Behaviour with other
-     * start events is undefined.
+     * start events is undefined. When the stream is located on a START_ELEMENT event, the element is reported as the root of a document, so the
+     * reader doesn't need to be wrapped to produce a START_DOCUMENT event.
      *
      * @param reader  StAX event source to read
      * @param handler SAX ContentHandler for processing events
@@ -100,6 +108,10 @@ public class StAX2SAXAdapter {
         // remembers the nest level of elements to know when we are done
         int level = 0;
         int event = reader.getEventType();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+            level++;
+            handler.startDocument();
+        }
         while (true) {
             switch (event) {
             case XMLStreamConstants.START_DOCUMENT:
@@ -150,22 +162,17 @@ public class StAX2SAXAdapter {
         }
 
         // fire startElement
-        QName qname = reader.getName();
-        String prefix = qname.getPrefix();
-        String rawname;
-        if (prefix == null || prefix.length() == 0) {
-            rawname = qname.getLocalPart();
-        } else {
-            rawname = prefix + ':' + qname.getLocalPart();
-        }
-        Attributes attrs = getAttributes(reader);
-        handler.startElement(qname.getNamespaceURI(), qname.getLocalPart(), rawname, attrs);
+        String uri = reader.getNamespaceURI();
+        String localName = reader.getLocalName();
+        attributes.reset(reader, namespacePrefixes ? nsCount : 0);
+        handler.startElement(uri == null ? "" : uri, localName, rawName(reader.getPrefix(), localName), attributes);
     }
 
     private static void handleEndElement(XMLStreamReader reader, ContentHandler handler) throws SAXException {
         // fire endElement
-        QName qname = reader.getName();
-        handler.endElement(qname.getNamespaceURI(), qname.getLocalPart(), qname.toString());
+        String uri = reader.getNamespaceURI();
+        String localName = reader.getLocalName();
+        handler.endElement(uri == null ? "" : uri, localName, rawName(reader.getPrefix(), localName));
 
         // send endPrefixMapping events immediately after endElement event
         // we send them in the opposite order to that returned but this is not actually required by SAX
@@ -179,46 +186,98 @@ public class StAX2SAXAdapter {
         }
     }
 
+    private static String rawName(String prefix, String localName) {
+        return prefix == null || prefix.length() == 0 ? localName : prefix + ':' + localName;
+    }
+
     /**
-     * Get the attributes associated with the current START_ELEMENT event.
-     *
-     * @return the StAX attributes converted to org.xml.sax.Attributes
+     * The attributes of the current START_ELEMENT event, read from the XMLStreamReader on demand. If the adaptor is configured to pass namespace
+     * prefixes, the namespace declarations come first, as xmlns attributes.
      */
-    private Attributes getAttributes(XMLStreamReader reader) {
-        // assert reader.getEventType() == XMLStreamConstants.START_ELEMENT;
+    private static final class StreamAttributes implements Attributes {
+        private XMLStreamReader reader;
 
-        AttributesImpl attrs = new AttributesImpl();
+        private int namespaceCount;
+
+        void reset(XMLStreamReader reader, int namespaceCount) {
+            this.reader = reader;
+            this.namespaceCount = namespaceCount;
+        }
 
-        // add namespace declarations if required
-        if (namespacePrefixes) {
-            for (int i = 0; i < reader.getNamespaceCount(); i++) {
-                String prefix = reader.getNamespacePrefix(i);
-                String uri = reader.getNamespaceURI(i);
-                attrs.addAttribute(null, prefix, "xmlns:" + prefix, "CDATA", uri);
+        public int getLength() {
+            return namespaceCount + reader.getAttributeCount();
+        }
+
+        public String getURI(int index) {
+            if (index < namespaceCount || index - namespaceCount >= reader.getAttributeCount()) {
+                return null;
             }
+            String uri = reader.getAttributeNamespace(index - namespaceCount);
+            return uri == null ? "" : uri;
         }
 
-        // Regular attributes
-        for (int i = 0; i < reader.getAttributeCount(); i++) {
-            String uri = reader.getAttributeNamespace(i);
-            if (uri == null) {
-                uri = "";
+        public String getLocalName(int index) {
+            if (index < namespaceCount) {
+                return index < 0 ? null : reader.getNamespacePrefix(index);
             }
-            String localName = reader.getAttributeLocalName(i);
-            String prefix = reader.getAttributePrefix(i);
-            String qname;
-            if (prefix == null || prefix.length() == 0) {
-                qname = localName;
-            } else {
-                qname = prefix + ':' + localName;
+            return index - namespaceCount < reader.getAttributeCount() ? reader.getAttributeLocalName(index - namespaceCount) : null;
+        }
+
+        public String getQName(int index) {
+            if (index < namespaceCount) {
+                return index < 0 ? null : "xmlns:" + reader.getNamespacePrefix(index);
             }
-            String type = reader.getAttributeType(i);
-            String value = reader.getAttributeValue(i);
+            index -= namespaceCount;
+            return index < reader.getAttributeCount() ? rawName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index)) : null;
+        }
 
-            attrs.addAttribute(uri, localName, qname, type, value);
+        public String getType(int index) {
+            if (index < namespaceCount) {
+                return index < 0 ? null : "CDATA";
+            }
+            return index - namespaceCount < reader.getAttributeCount() ? reader.getAttributeType(index - namespaceCount) : null;
         }
 
-        return attrs;
+        public String getValue(int index) {
+            if (index < namespaceCount) {
+                return index < 0 ? null : reader.getNamespaceURI(index);
+            }
+            return index - namespaceCount < reader.getAttributeCount() ? reader.getAttributeValue(index - namespaceCount) : null;
+        }
+
+        public int getIndex(String uri, String localName) {
+            for (int index = 0, count = reader.getAttributeCount(); index < count; index++) {
+                if (localName.equals(reader.getAttributeLocalName(index)) && uri.equals(getURI(namespaceCount + index))) {
+                    return namespaceCount + index;
+                }
+            }
+            return -1;
+        }
+
+        public int getIndex(String qName) {
+            for (int index = 0, length = getLength(); index < length; index++) {
+                if (qName.equals(getQName(index))) {
+                    return index;
+                }
+            }
+            return -1;
+        }
+
+        public String getType(String uri, String localName) {
+            return getType(getIndex(uri, localName));
+        }
+
+        public String getType(String qName) {
+            return getType(getIndex(qName));
+        }
+
+        public String getValue(String uri, String localName) {
+            return getValue(getIndex(uri, localName));
+        }
+
+        public String getValue(String qName) {
+            return getValue(getIndex(qName));
+        }
     }
 
     /**
@@ -0,0 +1,774 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.xml.type.XMLTypeFactory;
+
+import commonj.sdo.helper.DataHelper;
+
+/**
+ * Converts the values passed to the typed setters of DataObject to the instance class of a property's type.
+ * <p>
+ * A converter is resolved once for a type, from the name of its instance class, so that each conversion is a single
+ * virtual call rather than a comparison against every supported class name. The conversions are those of
+ * {@link DataObjectUtil#getSetValue(commonj.sdo.Property, String) DataObjectUtil.getSetValue}: a value that can't
+ * be converted to the instance class is passed to the property unchanged, boxed if it's primitive.
+ * Null values are handled by the caller, so the object conversions are only passed non-null values.
+ */
+public abstract class ValueConverter
+{
+  protected final EClassifier eType;
+
+  protected ValueConverter(EClassifier eType)
+  {
+    this.eType = eType;
+  }
+
+  /**
+   * Returns the type whose instance class values are converted to.
+   */
+  public EClassifier getEType()
+  {
+    return eType;
+  }
+
+  /**
+   * Creates the converter to the instance class of the specified type.
+   */
+  public static ValueConverter create(EClassifier eType)
+  {
+    String name = eType == null ? null : eType.getInstanceClassName();
+    if (name == null || !(eType instanceof EDataType))
+    {
+      return new ValueConverter(eType) {};
+    }
+    if (name == "java.lang.String")
+    {
+      return new StringConverter(eType);
+    }
+    if (name == "java.lang.Integer" || name == "int")
+    {
+      return new IntegerConverter(eType);
+    }
+    if (name == "java.lang.Long" || name == "long")
+    {
+      return new LongConverter(eType);
+    }
+    if (name == "java.lang.Double" || name == "double")
+    {
+      return new DoubleConverter(eType);
+    }
+    if (name == "java.lang.Float" || name == "float")
+    {
+      return new FloatConverter(eType);
+    }
+    if (name == "java.lang.Short" || name == "short")
+    {
+      return new ShortConverter(eType);
+    }
+    if (name == "java.lang.Byte" || name == "byte")
+    {
+      return new ByteConverter(eType);
+    }
+    if (name == "java.lang.Boolean" || name == "boolean")
+    {
+      return new BooleanConverter(eType);
+    }
+    if (name == "java.lang.Character" || name == "char")
+    {
+      return new CharacterConverter(eType);
+    }
+    if (name == "java.math.BigDecimal")
+    {
+      return new BigDecimalConverter(eType);
+    }
+    if (name == "java.math.BigInteger")
+    {
+      return new BigIntegerConverter(eType);
+    }
+    if (name == "byte[]")
+    {
+      return new BytesConverter(eType);
+    }
+    if (name == "java.util.Date")
+    {
+      return new DateConverter(eType);
+    }
+    if (name == "java.lang.Number")
+    {
+      return new NumberConverter(eType);
+    }
+    return new ValueConverter(eType) {};
+  }
+
+  public Object convert(boolean value)
+  {
+    return value ? Boolean.TRUE : Boolean.FALSE;
+  }
+
+  public Object convert(byte value)
+  {
+    return new Byte(value);
+  }
+
+  public Object convert(char value)
+  {
+    return new Character(value);
+  }
+
+  public Object convert(double value)
+  {
+    return new Double(value);
+  }
+
+  public Object convert(float value)
+  {
+    return new Float(value);
+  }
+
+  public Object convert(int value)
+  {
+    return new Integer(value);
+  }
+
+  public Object convert(long value)
+  {
+    return new Long(value);
+  }
+
+  public Object convert(short value)
+  {
+    return new Short(value);
+  }
+
+  public Object convert(BigDecimal value)
+  {
+    return value;
+  }
+
+  public Object convert(BigInteger value)
+  {
+    return value;
+  }
+
+  public Object convert(byte[] value)
+  {
+    return value;
+  }
+
+  public Object convert(Date value)
+  {
+    return value;
+  }
+
+  public Object convert(String value)
+  {
+    return value;
+  }
+
+  protected static class StringConverter extends ValueConverter
+  {
+    protected String dateTypeName;
+
+    protected StringConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(boolean value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(byte value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(char value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(double value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(float value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(int value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(long value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(short value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return String.valueOf(value);
+    }
+
+    public Object convert(byte[] value)
+    {
+      return XMLTypeFactory.eINSTANCE.convertHexBinary(value);
+    }
+
+    public Object convert(Date value)
+    {
+      String typeName = dateTypeName;
+      if (typeName == null)
+      {
+        dateTypeName = typeName = DataObjectUtil.getDateTypeName((EDataType)eType);
+      }
+
+      if ("DateTime".equals(typeName) || "String".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toDateTime(value);
+      }
+      if ("Day".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toDay(value);
+      }
+      if ("Duration".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toDuration(value);
+      }
+      if ("Month".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toMonth(value);
+      }
+      if ("MonthDay".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toMonthDay(value);
+      }
+      if ("Time".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toTime(value);
+      }
+      if ("Year".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toYear(value);
+      }
+      if ("YearMonth".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toYearMonth(value);
+      }
+      if ("YearMonthDay".equals(typeName))
+      {
+        return DataHelper.INSTANCE.toYearMonthDay(value);
+      }
+
+      // Instead of throwing an ClassCastException we will pass the value to the property
+      return value;
+    }
+  }
+
+  protected static class IntegerConverter extends ValueConverter
+  {
+    protected IntegerConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return new Integer(value);
+    }
+
+    public Object convert(double value)
+    {
+      return new Integer((int)value);
+    }
+
+    public Object convert(float value)
+    {
+      return new Integer((int)value);
+    }
+
+    public Object convert(long value)
+    {
+      return new Integer((int)value);
+    }
+
+    public Object convert(short value)
+    {
+      return new Integer(value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Integer(value.intValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Integer(value.intValue());
+    }
+
+    public Object convert(String value)
+    {
+      return Integer.valueOf(value);
+    }
+  }
+
+  protected static class LongConverter extends ValueConverter
+  {
+    protected LongConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return new Long(value);
+    }
+
+    public Object convert(double value)
+    {
+      return new Long((long)value);
+    }
+
+    public Object convert(float value)
+    {
+      return new Long((long)value);
+    }
+
+    public Object convert(int value)
+    {
+      return new Long(value);
+    }
+
+    public Object convert(short value)
+    {
+      return new Long(value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Long(value.longValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Long(value.longValue());
+    }
+
+    public Object convert(Date value)
+    {
+      return new Long(value.getTime());
+    }
+
+    public Object convert(String value)
+    {
+      return Long.valueOf(value);
+    }
+  }
+
+  protected static class DoubleConverter extends ValueConverter
+  {
+    protected DoubleConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return new Double(value);
+    }
+
+    public Object convert(float value)
+    {
+      return new Double(value);
+    }
+
+    public Object convert(int value)
+    {
+      return new Double(value);
+    }
+
+    public Object convert(long value)
+    {
+      return new Double(value);
+    }
+
+    public Object convert(short value)
+    {
+      return new Double(value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Double(value.doubleValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Double(value.doubleValue());
+    }
+
+    public Object convert(String value)
+    {
+      return Double.valueOf(value);
+    }
+  }
+
+  protected static class FloatConverter extends ValueConverter
+  {
+    protected FloatConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return new Float(value);
+    }
+
+    public Object convert(double value)
+    {
+      return new Float(value);
+    }
+
+    public Object convert(int value)
+    {
+      return new Float(value);
+    }
+
+    public Object convert(long value)
+    {
+      return new Float(value);
+    }
+
+    public Object convert(short value)
+    {
+      return new Float(value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Float(value.floatValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Float(value.floatValue());
+    }
+
+    public Object convert(String value)
+    {
+      return new Float(value);
+    }
+  }
+
+  protected static class ShortConverter extends ValueConverter
+  {
+    protected ShortConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return new Short(value);
+    }
+
+    public Object convert(double value)
+    {
+      return new Short((short)value);
+    }
+
+    public Object convert(float value)
+    {
+      return new Short((short)value);
+    }
+
+    public Object convert(int value)
+    {
+      return new Short((short)value);
+    }
+
+    public Object convert(long value)
+    {
+      return new Short((short)value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Short(value.shortValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Short(value.shortValue());
+    }
+
+    public Object convert(String value)
+    {
+      return Short.valueOf(value);
+    }
+  }
+
+  protected static class ByteConverter extends ValueConverter
+  {
+    protected ByteConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(double value)
+    {
+      return new Byte((byte)value);
+    }
+
+    public Object convert(float value)
+    {
+      return new Byte((byte)value);
+    }
+
+    public Object convert(int value)
+    {
+      return new Byte((byte)value);
+    }
+
+    public Object convert(long value)
+    {
+      return new Byte((byte)value);
+    }
+
+    public Object convert(short value)
+    {
+      return new Byte((byte)value);
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return new Byte(value.byteValue());
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new Byte(value.byteValue());
+    }
+
+    public Object convert(String value)
+    {
+      return Byte.valueOf(value);
+    }
+  }
+
+  protected static class BooleanConverter extends ValueConverter
+  {
+    protected BooleanConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(String value)
+    {
+      return Boolean.valueOf(value);
+    }
+  }
+
+  protected static class CharacterConverter extends ValueConverter
+  {
+    protected CharacterConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(String value)
+    {
+      return new Character(value.charAt(0));
+    }
+  }
+
+  protected static class BigDecimalConverter extends ValueConverter
+  {
+    protected BigDecimalConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return DataObjectUtil.getBigDecimal(new Byte(value));
+    }
+
+    public Object convert(double value)
+    {
+      return DataObjectUtil.getBigDecimal(new Double(value));
+    }
+
+    public Object convert(float value)
+    {
+      return DataObjectUtil.getBigDecimal(new Float(value));
+    }
+
+    public Object convert(int value)
+    {
+      return DataObjectUtil.getBigDecimal(new Integer(value));
+    }
+
+    public Object convert(long value)
+    {
+      return DataObjectUtil.getBigDecimal(new Long(value));
+    }
+
+    public Object convert(short value)
+    {
+      return DataObjectUtil.getBigDecimal(new Short(value));
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return new BigDecimal(value);
+    }
+
+    public Object convert(String value)
+    {
+      return DataObjectUtil.getBigDecimal(value);
+    }
+  }
+
+  protected static class BigIntegerConverter extends ValueConverter
+  {
+    protected BigIntegerConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(byte value)
+    {
+      return DataObjectUtil.getBigInteger(new Byte(value));
+    }
+
+    public Object convert(double value)
+    {
+      return DataObjectUtil.getBigInteger(new Double(value));
+    }
+
+    public Object convert(float value)
+    {
+      return DataObjectUtil.getBigInteger(new Float(value));
+    }
+
+    public Object convert(int value)
+    {
+      return DataObjectUtil.getBigInteger(new Integer(value));
+    }
+
+    public Object convert(long value)
+    {
+      return DataObjectUtil.getBigInteger(new Long(value));
+    }
+
+    public Object convert(short value)
+    {
+      return DataObjectUtil.getBigInteger(new Short(value));
+    }
+
+    public Object convert(BigDecimal value)
+    {
+      return value.toBigInteger();
+    }
+
+    public Object convert(byte[] value)
+    {
+      return new BigInteger(value);
+    }
+
+    public Object convert(String value)
+    {
+      return DataObjectUtil.getBigInteger(value);
+    }
+  }
+
+  protected static class BytesConverter extends ValueConverter
+  {
+    protected BytesConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(BigInteger value)
+    {
+      return value.toByteArray();
+    }
+
+    public Object convert(String value)
+    {
+      return XMLTypeFactory.eINSTANCE.createHexBinary(value);
+    }
+  }
+
+  protected static class DateConverter extends ValueConverter
+  {
+    protected DateConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(long value)
+    {
+      return new Date(value);
+    }
+
+    public Object convert(String value)
+    {
+      return DataHelper.INSTANCE.toDate(value);
+    }
+  }
+
+  protected static class NumberConverter extends ValueConverter
+  {
+    protected NumberConverter(EClassifier eType)
+    {
+      super(eType);
+    }
+
+    public Object convert(String value)
+    {
+      return Double.valueOf(value);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An InputStream over the remaining bytes of a ByteBuffer, or over a file channel mapped into memory region by region, so that
+ * a parser reads a document straight from the buffer or the mapped file rather than through stream copies.
+ * <p/>
+ * Reading neither changes the position of the buffer nor that of the channel.
+ */
+public class ByteBufferInputStream extends InputStream {
+    /**
+     * The largest region of a file mapped at once.
+     */
+    protected static final long REGION_SIZE = 1L << 30;
+
+    protected static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    protected ByteBuffer buffer;
+
+    protected final FileChannel channel;
+
+    /**
+     * The file position of the next region to map, and the end of the file.
+     */
+    protected long position, end;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        channel = null;
+    }
+
+    /**
+     * Creates a stream over the file from the current position of the channel to its end.
+     */
+    public ByteBufferInputStream(FileChannel channel) throws IOException {
+        this.channel = channel;
+        position = channel.position();
+        end = channel.size();
+        buffer = EMPTY;
+    }
+
+    /**
+     * Maps the next region of the file if the buffer has been read. Returns false at the end of the input.
+     */
+    protected final boolean fill() throws IOException {
+        if (buffer.hasRemaining())
+            return true;
+        if (channel == null || position >= end)
+            return false;
+        long size = Math.min(end - position, REGION_SIZE);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        position += size;
+        return true;
+    }
+
+    public int read() throws IOException {
+        return fill() ? buffer.get() & 0xFF : -1;
+    }
+
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if (!fill())
+            return -1;
+        length = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, length);
+        return length;
+    }
+
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && fill()) {
+            int length = (int) Math.min(count - skipped, buffer.remaining());
+            buffer.position(buffer.position() + length);
+            skipped += length;
+        }
+        return skipped;
+    }
+
+    public int available() {
+        return (int) Math.min(buffer.remaining() + (end - position), Integer.MAX_VALUE);
+    }
+
+    public void close() {
+        buffer = EMPTY;
+        position = end;
+    }
+}
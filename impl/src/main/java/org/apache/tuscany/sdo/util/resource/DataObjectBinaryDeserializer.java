@@ -0,0 +1,580 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.tuscany.sdo.SDOFactory;
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.impl.ChangeSummaryImpl;
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.apache.tuscany.sdo.impl.DataGraphImpl;
+import org.apache.tuscany.sdo.lib.SDOObjectInputStream;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.change.ChangeFactory;
+import org.eclipse.emf.ecore.change.ChangeKind;
+import org.eclipse.emf.ecore.change.FeatureChange;
+import org.eclipse.emf.ecore.change.ListChange;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+import commonj.sdo.DataGraph;
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * Reads a DataObject or a DataGraph written by {@link DataObjectBinarySerializer}, creating its DataObjects with the Types of a
+ * HelperContext.
+ * <p/>
+ * A deserializer reads one payload; the payloads read from an SDOObjectInputStream with a shared dictionary share the one of the
+ * stream.
+ */
+public class DataObjectBinaryDeserializer {
+    protected final DataInput input;
+
+    protected final HelperContext helperContext;
+
+    /**
+     * The Types, open content properties and namespaces read so far, in the order of their numbers, which all the payloads read from an
+     * SDOObjectInputStream share if they were written with a shared dictionary.
+     */
+    static protected final class Dictionary {
+        final List types = new ArrayList(), globalProperties = new ArrayList(), uris = new ArrayList();
+    }
+
+    protected List types, globalProperties, uris;
+
+    /**
+     * The DataObjects read so far, in the order of their numbers.
+     */
+    protected final List objects = new ArrayList();
+
+    /**
+     * The references to DataObjects read after them, in the order of the references; null once they are resolved.
+     */
+    protected List forwardReferences = new ArrayList();
+
+    private char[] buffer = new char[64];
+
+    public DataObjectBinaryDeserializer(DataInput input, HelperContext helperContext) {
+        this.input = input;
+        this.helperContext = helperContext;
+    }
+
+    public DataObject readDataObject() throws IOException {
+        readHeader();
+        DataObject rootObject = readObject();
+        List deletedDataObjects = readDeletedObjects();
+        if (deletedDataObjects != null) {
+            ChangeSummaryImpl changeSummary = (ChangeSummaryImpl) rootObject.getChangeSummary();
+            if (changeSummary == null) {
+                Property csp = ((ClassImpl) rootObject.getType()).getChangeSummaryProperty();
+                changeSummary = (ChangeSummaryImpl) SDOFactory.eINSTANCE.createChangeSummary();
+                rootObject.set(csp, changeSummary);
+                changeSummary.setDataObject(rootObject);
+            }
+            readChangeSummary(changeSummary, deletedDataObjects);
+        }
+        return rootObject;
+    }
+
+    public DataGraph readDataGraph() throws IOException {
+        readHeader();
+        DataGraphImpl dataGraph = (DataGraphImpl) SDOFactory.eINSTANCE.createDataGraph();
+        DataObject rootObject = readObject();
+        if (rootObject != null)
+            dataGraph.setERootObject((EObject) rootObject);
+        List deletedDataObjects = readDeletedObjects();
+        if (deletedDataObjects != null)
+            readChangeSummary((ChangeSummaryImpl) dataGraph.getChangeSummary(), deletedDataObjects);
+        return dataGraph;
+    }
+
+    protected void readHeader() throws IOException {
+        int version = input.readByte();
+        if (version != DataObjectBinarySerializer.VERSION)
+            throw new StreamCorruptedException("Unsupported DataObject format " + version);
+        Dictionary dictionary;
+        if (!input.readBoolean())
+            dictionary = new Dictionary();
+        else if (input instanceof SDOObjectInputStream) {
+            SDOObjectInputStream stream = (SDOObjectInputStream) input;
+            dictionary = (Dictionary) stream.getDictionary();
+            if (dictionary == null) {
+                dictionary = new Dictionary();
+                stream.setDictionary(dictionary);
+            }
+        } else
+            throw new StreamCorruptedException("DataObject with a shared dictionary read without an SDOObjectInputStream");
+        types = dictionary.types;
+        globalProperties = dictionary.globalProperties;
+        uris = dictionary.uris;
+    }
+
+    /**
+     * Reads the deleted objects of the change summary, or returns null if there is no change summary, and then resolves the forward
+     * references.
+     */
+    protected List readDeletedObjects() throws IOException {
+        List deletedDataObjects = null;
+        if (input.readBoolean()) {
+            int size = readVarInt();
+            deletedDataObjects = new ArrayList(size);
+            while (size-- != 0)
+                deletedDataObjects.add(readObject());
+        }
+        for (Iterator iterator = forwardReferences.iterator(); iterator.hasNext();)
+            ((Reference) iterator.next()).resolve(this);
+        forwardReferences = null;
+        return deletedDataObjects;
+    }
+
+    protected final DataObject object(int number) throws IOException {
+        if (number < 0 || number >= objects.size())
+            throw new StreamCorruptedException("DataObject reference " + number + " out of range");
+        return (DataObject) objects.get(number);
+    }
+
+    protected DataObject readObject() throws IOException {
+        Type type = readType();
+        if (type == null)
+            return null;
+        DataObject dataObject = helperContext.getDataFactory().create(type);
+        objects.add(dataObject);
+        List properties = type.getProperties();
+        for (int code; (code = readVarInt()) != 0;)
+            readValue(dataObject, type, readProperty(type, properties, code), true);
+        FeatureMap sequence = DataObjectBinarySerializer.sequence(dataObject, type);
+        if (sequence != null)
+            readEntries(dataObject, type, sequence);
+        return dataObject;
+    }
+
+    protected Type readType() throws IOException {
+        int code = readVarInt();
+        if (code == 0)
+            return null;
+        if ((code & 1) == 0)
+            return (Type) types.get((code >>> 1) - 1);
+        String uri = readURI(), name = readString();
+        Type type = helperContext.getTypeHelper().getType(uri, name);
+        if (type == null)
+            throw new StreamCorruptedException("Type " + uri + '#' + name + " isn't defined in the HelperContext");
+        types.add(type);
+        return type;
+    }
+
+    protected String readURI() throws IOException {
+        int code = readVarInt();
+        if (code == 0)
+            return null;
+        if ((code & 1) == 0)
+            return (String) uris.get((code >>> 1) - 1);
+        String uri = readString();
+        uris.add(uri);
+        return uri;
+    }
+
+    protected Property readGlobalProperty() throws IOException {
+        int code = readVarInt();
+        if ((code & 1) == 0)
+            return (Property) globalProperties.get((code >>> 1) - 1);
+        String uri = readURI(), name = readString();
+        Type type = readType();
+        boolean many = input.readBoolean(), containment = input.readBoolean();
+        Property property = helperContext.getTypeHelper().getOpenContentProperty(uri, name);
+        if (property == null) {
+            property = SDOUtil.createOpenContentProperty(helperContext, uri, name, type);
+            SDOUtil.setMany(property, many);
+            SDOUtil.setContainment(property, containment);
+        }
+        globalProperties.add(property);
+        return property;
+    }
+
+    protected EStructuralFeature readProperty(Type type, List properties, int code) throws IOException {
+        int size = properties.size();
+        if (code <= size)
+            return (EStructuralFeature) properties.get(code - 1);
+        switch (code - size) {
+        case DataObjectBinarySerializer.GLOBAL_PROPERTY:
+            return (EStructuralFeature) readGlobalProperty();
+        case DataObjectBinarySerializer.FEATURE:
+            String name = readString();
+            EStructuralFeature feature = ((EClass) type).getEStructuralFeature(name);
+            if (feature != null)
+                return feature;
+            throw new StreamCorruptedException("Type " + type.getURI() + '#' + type.getName() + " has no feature " + name);
+        }
+        throw new StreamCorruptedException("Property code " + code + " out of range");
+    }
+
+    protected final EStructuralFeature readProperty(Type type) throws IOException {
+        return readProperty(type, type.getProperties(), readVarInt());
+    }
+
+    /**
+     * Reads the value of a property of a DataObject in the tree.
+     */
+    protected void readValue(DataObject dataObject, Type type, EStructuralFeature feature, boolean tree) throws IOException {
+        if (FeatureMapUtil.isFeatureMap(feature)) {
+            Object value = ((EObject) dataObject).eGet(feature);
+            readEntries(dataObject, type, value instanceof FeatureMap.Internal.Wrapper ? ((FeatureMap.Internal.Wrapper) value).featureMap()
+                    : (FeatureMap) value);
+            return;
+        }
+        Property property = (Property) feature;
+        Type propertyType = property.getType();
+        boolean reference = !propertyType.isDataType() && !property.isContainment();
+        if (!property.isMany()) {
+            if (!reference)
+                dataObject.set(property, readValue(property, propertyType, true));
+            else {
+                int code = readVarInt();
+                if (code == DataObjectBinarySerializer.FORWARD_REFERENCE)
+                    forwardReferences.add(new Reference(dataObject, property, null, 0));
+                else
+                    dataObject.set(property, reference(code));
+            }
+            return;
+        }
+        int size = readVarInt();
+        if (!reference) {
+            List values = dataObject.getList(property);
+            while (size-- != 0)
+                values.add(readValue(property, propertyType, true));
+            return;
+        }
+        Object[] values = new Object[size];
+        Reference forwardReference = null;
+        for (int index = 0; index != size; ++index) {
+            int code = readVarInt();
+            if (code == DataObjectBinarySerializer.FORWARD_REFERENCE) {
+                if (forwardReference == null) {
+                    forwardReference = new Reference(dataObject, property, values, 0);
+                    forwardReferences.add(forwardReference);
+                }
+                values[index] = forwardReference;
+            } else
+                values[index] = reference(code);
+        }
+        if (forwardReference == null)
+            addReferences(dataObject, property, values);
+    }
+
+    protected static void addReferences(DataObject dataObject, Property property, Object[] values) {
+        List list = dataObject.getList(property);
+        if (property.getOpposite() == null) {
+            list.addAll(Arrays.asList(values));
+            return;
+        }
+        // the opposite may have added some already
+        for (int index = 0; index != values.length; ++index)
+            if (!list.contains(values[index]))
+                list.add(values[index]);
+    }
+
+    protected final Object readValue(Property property, Type propertyType, boolean tree) throws IOException {
+        if (propertyType.isDataType())
+            return readData(propertyType);
+        if (tree && property.isContainment())
+            return readObject();
+        return reference(readVarInt());
+    }
+
+    protected final DataObject reference(int code) throws IOException {
+        switch (code) {
+        case DataObjectBinarySerializer.NULL_REFERENCE:
+            return null;
+        case DataObjectBinarySerializer.FORWARD_REFERENCE:
+            throw new StreamCorruptedException("Unexpected forward reference");
+        }
+        return object(code - DataObjectBinarySerializer.BACK_REFERENCE);
+    }
+
+    /**
+     * Reads sequence entries of a DataObject in the tree.
+     */
+    protected void readEntries(DataObject dataObject, Type type, FeatureMap sequence) throws IOException {
+        List properties = type.getProperties();
+        for (int index = 0, size = readVarInt(); index != size; ++index) {
+            int code = readVarInt();
+            if (code == 0) {
+                EStructuralFeature feature = DataObjectBinarySerializer.textFeature(input.readByte());
+                sequence.add(feature, readString());
+                continue;
+            }
+            EStructuralFeature feature = readProperty(type, properties, code);
+            Property property = (Property) feature;
+            Type propertyType = property.getType();
+            if (propertyType.isDataType() || property.isContainment())
+                sequence.add(feature, readValue(property, propertyType, true));
+            else if ((code = readVarInt()) == DataObjectBinarySerializer.FORWARD_REFERENCE)
+                forwardReferences.add(new Reference(sequence, feature, null, index));
+            else
+                sequence.add(feature, reference(code));
+        }
+    }
+
+    protected void readChangeSummary(ChangeSummaryImpl changeSummary, List deletedDataObjects) throws IOException {
+        boolean logging = input.readBoolean();
+        if (changeSummary.isLogging())
+            changeSummary.endLogging();
+        changeSummary.getObjectsToAttach().addAll(deletedDataObjects);
+        Collection createdDataObjects = changeSummary.getObjectsToDetach();
+        for (int size = readVarInt(); size != 0; --size)
+            createdDataObjects.add(object(readVarInt()));
+        Collection objectChanges = changeSummary.getObjectChanges();
+        for (int size = readVarInt(); size != 0; --size) {
+            DataObject dataObject = object(readVarInt());
+            Type type = dataObject.getType();
+            Map.Entry entry = ChangeFactory.eINSTANCE.createEObjectToChangesMapEntry((EObject) dataObject);
+            objectChanges.add(entry);
+            Collection featureChanges = (Collection) entry.getValue();
+            for (int count = readVarInt(); count != 0; --count) {
+                EStructuralFeature feature = readProperty(type);
+                if (!input.readBoolean())
+                    featureChanges.add(SDOFactory.eINSTANCE.createChangeSummarySetting(feature, null, false));
+                else if (feature.isMany())
+                    readOldList(featureChanges, (EObject) dataObject, type, feature);
+                else {
+                    Property property = (Property) feature;
+                    featureChanges.add(SDOFactory.eINSTANCE.createChangeSummarySetting(feature, readValue(property, property.getType(), false), true));
+                }
+            }
+        }
+        if (logging)
+            changeSummary.resumeLogging();
+    }
+
+    /**
+     * Reads the old value of a many-valued property, or of a sequence, as the changes from the current list back to it.
+     */
+    protected void readOldList(Collection featureChanges, EObject dataObject, Type type, EStructuralFeature feature) throws IOException {
+        FeatureChange featureChange = (FeatureChange) SDOFactory.eINSTANCE.createChangeSummarySetting();
+        featureChange.setFeature(feature);
+        featureChanges.add(featureChange);
+        Object value = dataObject.eGet(feature);
+        List list = value instanceof FeatureMap.Internal.Wrapper ? ((FeatureMap.Internal.Wrapper) value).featureMap() : (List) value;
+        Collection listChanges = featureChange.getListChanges();
+        boolean sequence = FeatureMapUtil.isFeatureMap(feature);
+        if (!list.isEmpty()) {
+            ListChange listChange = createListChange(ChangeKind.REMOVE_LITERAL, listChanges);
+            if (sequence) {
+                Collection removes = listChange.getFeatureMapEntryValues();
+                for (Iterator entries = list.iterator(); entries.hasNext();) {
+                    FeatureMap.Entry entry = (FeatureMap.Entry) entries.next();
+                    removes.add(ChangeFactory.eINSTANCE.createFeatureMapEntry(entry.getEStructuralFeature(), entry.getValue()));
+                }
+            } else
+                listChange.getValues().addAll(list);
+        }
+        int size = readVarInt();
+        if (size == 0)
+            return;
+        ListChange listChange = createListChange(ChangeKind.ADD_LITERAL, listChanges);
+        if (sequence) {
+            Collection adds = listChange.getFeatureMapEntryValues();
+            List properties = type.getProperties();
+            do {
+                int code = readVarInt();
+                if (code == 0) {
+                    EStructuralFeature text = DataObjectBinarySerializer.textFeature(input.readByte());
+                    adds.add(ChangeFactory.eINSTANCE.createFeatureMapEntry(text, readString()));
+                } else {
+                    Property property = (Property) readProperty(type, properties, code);
+                    adds.add(ChangeFactory.eINSTANCE.createFeatureMapEntry((EStructuralFeature) property, readValue(property, property.getType(), false)));
+                }
+            } while (--size != 0);
+        } else {
+            Collection adds = listChange.getValues();
+            Property property = (Property) feature;
+            Type propertyType = property.getType();
+            do
+                adds.add(readValue(property, propertyType, false));
+            while (--size != 0);
+        }
+    }
+
+    static private ListChange createListChange(ChangeKind changeKind, Collection listChanges) {
+        ListChange listChange = ChangeFactory.eINSTANCE.createListChange();
+        listChange.setKind(changeKind);
+        listChange.setIndex(0);
+        listChanges.add(listChange);
+        return listChange;
+    }
+
+    protected Object readData(Type type) throws IOException {
+        Class instanceClass = type.getInstanceClass();
+        int kind = DataObjectBinarySerializer.kind(instanceClass);
+        if (DataObjectBinarySerializer.isNullable(instanceClass, kind) && !input.readBoolean())
+            return null;
+        return readData(kind, type);
+    }
+
+    protected Object readData(int kind, Type type) throws IOException {
+        switch (kind) {
+        case DataObjectBinarySerializer.STRING:
+            return readString();
+        case DataObjectBinarySerializer.BOOLEAN:
+            return input.readBoolean() ? Boolean.TRUE : Boolean.FALSE;
+        case DataObjectBinarySerializer.BYTE:
+            return new Byte(input.readByte());
+        case DataObjectBinarySerializer.CHARACTER:
+            return new Character((char) readVarInt());
+        case DataObjectBinarySerializer.SHORT:
+            return new Short((short) zagZig(readVarInt()));
+        case DataObjectBinarySerializer.INT:
+            return new Integer(zagZig(readVarInt()));
+        case DataObjectBinarySerializer.LONG:
+            return new Long(zagZig(readVarLong()));
+        case DataObjectBinarySerializer.FLOAT:
+            return new Float(input.readFloat());
+        case DataObjectBinarySerializer.DOUBLE:
+            return new Double(input.readDouble());
+        case DataObjectBinarySerializer.INTEGER:
+            return new BigInteger(readBytes());
+        case DataObjectBinarySerializer.DECIMAL:
+            BigInteger unscaledValue = new BigInteger(readBytes());
+            return new BigDecimal(unscaledValue, zagZig(readVarInt()));
+        case DataObjectBinarySerializer.DATE:
+            return new Date(zagZig(readVarLong()));
+        case DataObjectBinarySerializer.BYTES:
+            return readBytes();
+        case DataObjectBinarySerializer.OBJECT:
+            kind = readVarInt();
+            return kind == 0 ? null : readData(kind, type);
+        case DataObjectBinarySerializer.LITERAL:
+            String literal = readString();
+            return literal == null ? null : EcoreUtil.createFromString((EDataType) type, literal);
+        }
+        throw new StreamCorruptedException("DataType encoding " + kind + " out of range");
+    }
+
+    static int zagZig(int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    static long zagZig(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    protected final int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = input.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    protected final long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            int b = input.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+
+    protected String readString() throws IOException {
+        int length = readVarInt();
+        if (length-- == 0)
+            return null;
+        if (buffer.length < length)
+            buffer = new char[length];
+        char[] buffer = this.buffer;
+        for (int index = 0; index != length; ++index)
+            buffer[index] = (char) readVarInt();
+        return new String(buffer, 0, length);
+    }
+
+    protected byte[] readBytes() throws IOException {
+        int length = readVarInt();
+        if (length-- == 0)
+            return null;
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return bytes;
+    }
+
+    /**
+     * A reference read before the DataObject it refers to: a single-valued property, the values of a many-valued property, or a sequence
+     * entry.
+     */
+    static protected final class Reference {
+        final Object owner;
+
+        final EStructuralFeature feature;
+
+        /**
+         * The values of a many-valued property, where the references yet to resolve are this.
+         */
+        final Object[] values;
+
+        /**
+         * The index of a sequence entry.
+         */
+        final int index;
+
+        Reference(Object owner, EStructuralFeature feature, Object[] values, int index) {
+            this.owner = owner;
+            this.feature = feature;
+            this.values = values;
+            this.index = index;
+        }
+
+        void resolve(DataObjectBinaryDeserializer deserializer) throws IOException {
+            if (owner instanceof FeatureMap)
+                ((FeatureMap) owner).add(index, feature, deserializer.forwardReference());
+            else if (values == null)
+                ((DataObject) owner).set((Property) feature, deserializer.forwardReference());
+            else {
+                for (int index = 0; index != values.length; ++index)
+                    if (values[index] == this)
+                        values[index] = deserializer.forwardReference();
+                addReferences((DataObject) owner, (Property) feature, values);
+            }
+        }
+    }
+
+    protected final DataObject forwardReference() throws IOException {
+        return object(readVarInt());
+    }
+}
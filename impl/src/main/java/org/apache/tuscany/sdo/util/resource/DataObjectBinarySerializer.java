@@ -0,0 +1,727 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tuscany.sdo.impl.ChangeSummaryImpl;
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.apache.tuscany.sdo.impl.DataGraphImpl;
+import org.apache.tuscany.sdo.lib.SDOObjectOutputStream;
+import org.apache.tuscany.sdo.util.BasicSequence;
+import org.apache.tuscany.sdo.util.DataObjectUtil;
+import org.eclipse.emf.common.util.EMap;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.change.FeatureChange;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.eclipse.emf.ecore.xml.type.XMLTypePackage;
+
+import commonj.sdo.DataGraph;
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Sequence;
+import commonj.sdo.Type;
+
+/**
+ * Writes a DataObject and its contained DataObjects, or a DataGraph, in a compact binary format driven by the Types of the objects,
+ * which {@link DataObjectBinaryDeserializer} reads back in a HelperContext that defines the same Types.
+ * <p/>
+ * Types and open content properties are written by URI and name the first time a payload uses them and by number afterwards; the
+ * properties of a Type by their index in {@link Type#getProperties()}. Integral values are written as variable-length integers, floating
+ * point values in IEEE format, Strings as variable-length characters; DataTypes without a Java representation of their own are written as
+ * their String literals. A contained DataObject is written in place; a non-containment reference as the number of the object in the order
+ * the objects are written, or, if the object comes later, as a forward reference whose number follows the whole tree. The change summary
+ * of the DataGraph, or of the root DataObject, is written with its deleted objects, the numbers of its created objects and the old values
+ * of its changed objects. A deleted object, including one moved into a container outside the tree, is written apart from the tree, and is
+ * read back detached.
+ * <p/>
+ * A contained DataObject is written as the root of its own tree: its references to the other objects of the tree containing it are
+ * written as null.
+ * <p/>
+ * A serializer writes one payload. The payloads written to an SDOObjectOutputStream whose dictionary is shared number their Types,
+ * open content properties and namespaces in sequence, and write by name only the ones that the earlier payloads haven't.
+ */
+public class DataObjectBinarySerializer {
+    /**
+     * The version of the format, written first.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Codes of a property of a DataObject following those of the properties of its Type: an open content property, or a feature of the
+     * Type which isn't one of its properties, such as its sequence, by name.
+     */
+    static final int GLOBAL_PROPERTY = 1, FEATURE = 2;
+
+    /**
+     * Codes of a non-containment reference; the number of a written object follows BACK_REFERENCE.
+     */
+    static final int NULL_REFERENCE = 0, FORWARD_REFERENCE = 1, BACK_REFERENCE = 2;
+
+    /**
+     * Kinds of a sequence entry which isn't the value of a property.
+     */
+    static final int TEXT = 0, CDATA = 1, COMMENT = 2;
+
+    /**
+     * Encodings of a DataType value, by instance class.
+     */
+    static final int STRING = 1, BOOLEAN = 2, BYTE = 3, CHARACTER = 4, SHORT = 5, INT = 6, LONG = 7, FLOAT = 8, DOUBLE = 9,
+            INTEGER = 10, DECIMAL = 11, DATE = 12, BYTES = 13, LITERAL = 14, OBJECT = 15;
+
+    static int kind(Class instanceClass) {
+        if (instanceClass == String.class)
+            return STRING;
+        if (instanceClass == int.class || instanceClass == Integer.class)
+            return INT;
+        if (instanceClass == boolean.class || instanceClass == Boolean.class)
+            return BOOLEAN;
+        if (instanceClass == long.class || instanceClass == Long.class)
+            return LONG;
+        if (instanceClass == double.class || instanceClass == Double.class)
+            return DOUBLE;
+        if (instanceClass == BigDecimal.class)
+            return DECIMAL;
+        if (instanceClass == Date.class)
+            return DATE;
+        if (instanceClass == float.class || instanceClass == Float.class)
+            return FLOAT;
+        if (instanceClass == short.class || instanceClass == Short.class)
+            return SHORT;
+        if (instanceClass == byte.class || instanceClass == Byte.class)
+            return BYTE;
+        if (instanceClass == char.class || instanceClass == Character.class)
+            return CHARACTER;
+        if (instanceClass == BigInteger.class)
+            return INTEGER;
+        if (instanceClass == byte[].class)
+            return BYTES;
+        if (instanceClass == Object.class)
+            return OBJECT;
+        return LITERAL;
+    }
+
+    /**
+     * Returns whether a value of the instance class, written with an encoding that can't express null, is preceded by whether it's null.
+     */
+    static boolean isNullable(Class instanceClass, int kind) {
+        return kind != STRING && kind != BYTES && kind != OBJECT && (instanceClass == null || !instanceClass.isPrimitive());
+    }
+
+    static EStructuralFeature textFeature(int kind) {
+        switch (kind) {
+        case CDATA:
+            return XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__CDATA;
+        case COMMENT:
+            return XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__COMMENT;
+        }
+        return XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__TEXT;
+    }
+
+    static int textKind(EStructuralFeature feature) {
+        if (feature == XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__TEXT)
+            return TEXT;
+        if (feature == XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__CDATA)
+            return CDATA;
+        if (feature == XMLTypePackage.Literals.XML_TYPE_DOCUMENT_ROOT__COMMENT)
+            return COMMENT;
+        return -1;
+    }
+
+    /**
+     * Returns the entries of the sequence which follow a DataObject of the Type, and hold the values of the properties in the sequence,
+     * or null if the properties of the DataObject hold all its values.
+     */
+    static FeatureMap sequence(DataObject dataObject, Type type) {
+        if (!type.isSequenced())
+            return null;
+        Sequence sequence = dataObject.getSequence();
+        return sequence instanceof BasicSequence ? ((BasicSequence) sequence).featureMap() : null;
+    }
+
+    /**
+     * The numbers of the Types, open content properties and namespaces written so far, which all the payloads written to an
+     * SDOObjectOutputStream share if it's selected.
+     */
+    static protected final class Dictionary {
+        /**
+         * Maps each written Type, each written open content property and each written namespace to its number.
+         */
+        final Map types = new HashMap(), globalProperties = new HashMap(), uris = new HashMap();
+
+        /**
+         * Maps each Type to the index of each of its properties, for the properties written without their index at hand.
+         */
+        final Map propertyIndexes = new HashMap();
+    }
+
+    protected final DataOutput output;
+
+    /**
+     * Whether the dictionary is the one of the SDOObjectOutputStream written to.
+     */
+    protected final boolean shared;
+
+    protected final Map types, globalProperties, uris, propertyIndexes;
+
+    /**
+     * Maps each written DataObject to its number.
+     */
+    protected final Map objects = new IdentityHashMap();
+
+    /**
+     * The DataObjects referenced before they were written, in the order of the references; null once the whole tree is written.
+     */
+    protected List forwardReferences = new ArrayList();
+
+    /**
+     * The written DataObject, if it's contained and written as a subtree to an SDOObjectOutputStream; references to the objects
+     * of the tree containing it, outside its own tree, fail the write unless the stream drops them.
+     */
+    protected DataObject containedObject;
+
+    /**
+     * Whether references outside the subtree of {@link #containedObject} are written as null.
+     */
+    protected final boolean outsideReferencesDropped;
+
+    private byte[] buffer = new byte[64];
+
+    public DataObjectBinarySerializer(DataOutput output) {
+        this.output = output;
+        outsideReferencesDropped = output instanceof SDOObjectOutputStream && ((SDOObjectOutputStream) output).isOutsideReferencesDropped();
+        Dictionary dictionary = null;
+        shared = output instanceof SDOObjectOutputStream && ((SDOObjectOutputStream) output).isDictionaryShared();
+        if (shared) {
+            SDOObjectOutputStream stream = (SDOObjectOutputStream) output;
+            dictionary = (Dictionary) stream.getDictionary();
+            if (dictionary == null) {
+                dictionary = new Dictionary();
+                stream.setDictionary(dictionary);
+            }
+        } else
+            dictionary = new Dictionary();
+        types = dictionary.types;
+        globalProperties = dictionary.globalProperties;
+        uris = dictionary.uris;
+        propertyIndexes = dictionary.propertyIndexes;
+    }
+
+    public void writeDataObject(DataObject dataObject) throws IOException {
+        ChangeSummaryImpl changeSummary = null;
+        if (dataObject != null) {
+            if (dataObject.getContainer() != null && output instanceof SDOObjectOutputStream && ((SDOObjectOutputStream) output).isSubtree())
+                containedObject = dataObject;
+            Property csp = ((ClassImpl) dataObject.getType()).getChangeSummaryProperty();
+            if (csp != null)
+                changeSummary = (ChangeSummaryImpl) dataObject.get(csp);
+        }
+        write(dataObject, changeSummary);
+    }
+
+    public void writeDataGraph(DataGraph dataGraph) throws IOException {
+        write(dataGraph.getRootObject(), (ChangeSummaryImpl) ((DataGraphImpl) dataGraph).getEChangeSummary());
+    }
+
+    protected void write(DataObject rootObject, ChangeSummaryImpl changeSummary) throws IOException {
+        output.writeByte(VERSION);
+        output.writeBoolean(shared);
+        List deletedDataObjects, createdDataObjects;
+        if (changeSummary == null)
+            deletedDataObjects = createdDataObjects = Collections.EMPTY_LIST;
+        else if (changeSummary.isLogging()) {
+            // Summarizing would consolidate the caller's change summary; its queries answer without doing so
+            deletedDataObjects = new ArrayList();
+            createdDataObjects = new ArrayList();
+            for (Iterator iterator = changeSummary.getChangedDataObjects().iterator(); iterator.hasNext();) {
+                DataObject dataObject = (DataObject) iterator.next();
+                if (changeSummary.isCreated(dataObject))
+                    createdDataObjects.add(dataObject);
+                else if (dataObject != rootObject && changeSummary.isDeleted(dataObject)) {
+                    // Written with its container if that's deleted too; apart, detached, if it has none or was moved into one outside the tree
+                    EObject container = ((EObject) dataObject).eContainer();
+                    if (container == null || !changeSummary.isDeleted((DataObject) container))
+                        deletedDataObjects.add(dataObject);
+                }
+            }
+        } else {
+            deletedDataObjects = addMovedOut(rootObject, changeSummary, changeSummary.getObjectsToAttach());
+            createdDataObjects = changeSummary.getObjectsToDetach();
+        }
+        writeObject(rootObject);
+        output.writeBoolean(changeSummary != null);
+        if (changeSummary != null) {
+            writeVarInt(deletedDataObjects.size());
+            for (Iterator iterator = deletedDataObjects.iterator(); iterator.hasNext();)
+                writeObject((DataObject) iterator.next());
+        }
+        for (Iterator iterator = forwardReferences.iterator(); iterator.hasNext();)
+            writeVarInt(number((DataObject) iterator.next()));
+        forwardReferences = null;
+        if (changeSummary != null)
+            writeChangeSummary(changeSummary, createdDataObjects);
+    }
+
+    /**
+     * Returns the deleted objects of a consolidated change summary, followed by the objects it refers to, as changed objects or as old
+     * contents of a containment, that were moved into a container outside the tree and so are neither in the tree nor deleted. Those are
+     * written apart, detached, as deleted objects are, so that the changes referring to them can be read back.
+     */
+    protected static List addMovedOut(DataObject rootObject, ChangeSummaryImpl changeSummary, List deletedDataObjects) {
+        Set referenced = new LinkedHashSet();
+        for (Iterator iterator = changeSummary.getObjectChanges().iterator(); iterator.hasNext();) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            addContained(entry.getKey(), referenced);
+            for (Iterator changes = ((List) entry.getValue()).iterator(); changes.hasNext();) {
+                FeatureChange featureChange = (FeatureChange) changes.next();
+                EStructuralFeature feature = featureChange.getFeature();
+                if (feature instanceof EReference && ((EReference) feature).isContainment() || FeatureMapUtil.isFeatureMap(feature))
+                    addContained(featureChange.getValue(), referenced);
+            }
+        }
+        Set deleted = new HashSet(deletedDataObjects);
+        List movedOut = null;
+        for (Iterator iterator = referenced.iterator(); iterator.hasNext();) {
+            EObject eObject = (EObject) iterator.next();
+            if (isWritten(eObject, rootObject, deleted, referenced))
+                continue;
+            if (movedOut == null)
+                movedOut = new ArrayList(deletedDataObjects);
+            movedOut.add(eObject);
+        }
+        return movedOut == null ? deletedDataObjects : movedOut;
+    }
+
+    /**
+     * Returns whether the object is written without being added to the deleted objects: it's in the tree, or in a deleted object, or in
+     * another of the referenced objects.
+     */
+    private static boolean isWritten(EObject eObject, DataObject rootObject, Set deleted, Set referenced) {
+        if (eObject == rootObject || deleted.contains(eObject))
+            return true;
+        for (EObject container = eObject.eContainer(); container != null; container = container.eContainer())
+            if (container == rootObject || deleted.contains(container) || referenced.contains(container))
+                return true;
+        return false;
+    }
+
+    /**
+     * Adds the DataObjects of a containment value, or of the containment entries of a feature map value, to the set.
+     */
+    private static void addContained(Object value, Set objects) {
+        if (value instanceof FeatureMap.Entry) {
+            FeatureMap.Entry entry = (FeatureMap.Entry) value;
+            EStructuralFeature feature = entry.getEStructuralFeature();
+            if (feature instanceof EReference && ((EReference) feature).isContainment())
+                addContained(entry.getValue(), objects);
+        } else if (value instanceof List) {
+            for (Iterator iterator = ((List) value).iterator(); iterator.hasNext();)
+                addContained(iterator.next(), objects);
+        } else if (value instanceof DataObject)
+            objects.add(value);
+    }
+
+    protected final int number(DataObject dataObject) throws IOException {
+        Integer number = (Integer) objects.get(dataObject);
+        if (number == null)
+            throw new NotSerializableException("DataObject of Type " + dataObject.getType().getURI() + '#' + dataObject.getType().getName()
+                    + " is referenced but isn't contained by the serialized DataObject");
+        return number.intValue();
+    }
+
+    protected void writeObject(DataObject dataObject) throws IOException {
+        if (dataObject == null) {
+            writeVarInt(0);
+            return;
+        }
+        Type type = dataObject.getType();
+        writeType(type);
+        objects.put(dataObject, new Integer(objects.size()));
+        FeatureMap sequence = sequence(dataObject, type);
+        Set sequenceProperties = null;
+        if (sequence != null) {
+            sequenceProperties = new HashSet();
+            for (int index = sequence.size(); index != 0;)
+                sequenceProperties.add(sequence.getEStructuralFeature(--index));
+        }
+        List properties = type.getProperties(), instanceProperties = DataObjectUtil.getInstanceProperties(dataObject);
+        int size = properties.size();
+        for (int index = 0, count = instanceProperties.size(); index != count; ++index) {
+            Property property = (Property) instanceProperties.get(index);
+            if (!dataObject.isSet(property) || DataObjectXMLStreamReader.isTransient(property, type)
+                    || property.getType() == ChangeSummaryStreamSerializer.ChangeSummary_TYPE)
+                continue;
+            if (sequence != null && (((EStructuralFeature) property).isDerived() || sequenceProperties.contains(property)))
+                continue;
+            if (index < size)
+                writeVarInt(index + 1);
+            else {
+                writeVarInt(size + GLOBAL_PROPERTY);
+                writeGlobalProperty(property);
+            }
+            writeValue(type, (EStructuralFeature) property, dataObject.get(property), true);
+        }
+        writeVarInt(0);
+        if (sequence != null)
+            writeEntries(type, sequence, true);
+    }
+
+    protected void writeType(Type type) throws IOException {
+        if (type == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer number = (Integer) types.get(type);
+        if (number != null) {
+            writeVarInt(number.intValue() << 1);
+            return;
+        }
+        number = new Integer(types.size() + 1);
+        types.put(type, number);
+        writeVarInt(number.intValue() << 1 | 1);
+        writeURI(type.getURI());
+        writeString(type.getName());
+    }
+
+    protected void writeURI(String uri) throws IOException {
+        if (uri == null) {
+            writeVarInt(0);
+            return;
+        }
+        Integer number = (Integer) uris.get(uri);
+        if (number != null) {
+            writeVarInt(number.intValue() << 1);
+            return;
+        }
+        number = new Integer(uris.size() + 1);
+        uris.put(uri, number);
+        writeVarInt(number.intValue() << 1 | 1);
+        writeString(uri);
+    }
+
+    protected void writeGlobalProperty(Property property) throws IOException {
+        Integer number = (Integer) globalProperties.get(property);
+        if (number != null) {
+            writeVarInt(number.intValue() << 1);
+            return;
+        }
+        number = new Integer(globalProperties.size() + 1);
+        globalProperties.put(property, number);
+        writeVarInt(number.intValue() << 1 | 1);
+        writeURI(property.getContainingType().getURI());
+        writeString(property.getName());
+        writeType(property.getType());
+        output.writeBoolean(property.isMany());
+        output.writeBoolean(property.isContainment());
+    }
+
+    /**
+     * Writes the code of a property, or of another feature, of the Type.
+     */
+    protected void writeProperty(Type type, EStructuralFeature feature) throws IOException {
+        Map indexes = (Map) propertyIndexes.get(type);
+        List properties = type.getProperties();
+        if (indexes == null) {
+            indexes = new HashMap();
+            for (int index = properties.size(); index != 0;) {
+                Object property = properties.get(--index);
+                indexes.put(property, new Integer(index));
+            }
+            propertyIndexes.put(type, indexes);
+        }
+        Integer index = (Integer) indexes.get(feature);
+        if (index != null)
+            writeVarInt(index.intValue() + 1);
+        else if (((EClass) type).getEAllStructuralFeatures().contains(feature)) {
+            writeVarInt(properties.size() + FEATURE);
+            writeString(feature.getName());
+        } else {
+            writeVarInt(properties.size() + GLOBAL_PROPERTY);
+            writeGlobalProperty((Property) feature);
+        }
+    }
+
+    /**
+     * Writes the value of a property; in the tree, a contained DataObject in place, else as a reference.
+     */
+    protected void writeValue(Type type, EStructuralFeature feature, Object value, boolean tree) throws IOException {
+        if (FeatureMapUtil.isFeatureMap(feature)) {
+            writeEntries(type, value instanceof FeatureMap.Internal.Wrapper ? ((FeatureMap.Internal.Wrapper) value).featureMap() : (List) value,
+                    tree);
+            return;
+        }
+        Property property = (Property) feature;
+        Type propertyType = property.getType();
+        if (!property.isMany()) {
+            writeValue(property, propertyType, value, tree);
+            return;
+        }
+        List values = (List) value;
+        int size = values.size();
+        writeVarInt(size);
+        for (int index = 0; index != size; ++index)
+            writeValue(property, propertyType, values.get(index), tree);
+    }
+
+    protected final void writeValue(Property property, Type propertyType, Object value, boolean tree) throws IOException {
+        if (propertyType.isDataType())
+            writeData(propertyType, value);
+        else if (tree && property.isContainment())
+            writeObject((DataObject) value);
+        else
+            writeReference((DataObject) value);
+    }
+
+    protected void writeReference(DataObject dataObject) throws IOException {
+        if (dataObject == null) {
+            writeVarInt(NULL_REFERENCE);
+            return;
+        }
+        Integer number = (Integer) objects.get(dataObject);
+        if (number != null)
+            writeVarInt(number.intValue() + BACK_REFERENCE);
+        else if (isOutside(dataObject)) {
+            if (!outsideReferencesDropped)
+                throw new NotSerializableException("DataObject of Type " + dataObject.getType().getURI() + '#' + dataObject.getType().getName()
+                        + " is referenced from the serialized subtree but is outside it");
+            writeVarInt(NULL_REFERENCE);
+        }
+        else if (forwardReferences != null) {
+            writeVarInt(FORWARD_REFERENCE);
+            forwardReferences.add(dataObject);
+        } else
+            number(dataObject);
+    }
+
+    /**
+     * Returns whether the DataObject is in the tree containing the written DataObject but not under it.
+     */
+    protected final boolean isOutside(DataObject dataObject) {
+        if (containedObject == null)
+            return false;
+        DataObject rootObject = dataObject;
+        for (DataObject container = dataObject; container != null; container = container.getContainer()) {
+            if (container == containedObject)
+                return false;
+            rootObject = container;
+        }
+        return rootObject == containedObject.getRootObject();
+    }
+
+    /**
+     * Writes sequence entries, each the code of its property and its value, or a text.
+     */
+    protected void writeEntries(Type type, List entries, boolean tree) throws IOException {
+        int size = entries.size();
+        writeVarInt(size);
+        for (int index = 0; index != size; ++index) {
+            FeatureMap.Entry entry = (FeatureMap.Entry) entries.get(index);
+            EStructuralFeature feature = entry.getEStructuralFeature();
+            int textKind = textKind(feature);
+            if (textKind == -1) {
+                writeProperty(type, feature);
+                Property property = (Property) feature;
+                writeValue(property, property.getType(), entry.getValue(), tree);
+            } else {
+                writeVarInt(0);
+                output.writeByte(textKind);
+                writeString((String) entry.getValue());
+            }
+        }
+    }
+
+    protected void writeChangeSummary(ChangeSummaryImpl changeSummary, List createdDataObjects) throws IOException {
+        output.writeBoolean(changeSummary.isLogging());
+        writeVarInt(createdDataObjects.size());
+        for (Iterator iterator = createdDataObjects.iterator(); iterator.hasNext();)
+            writeVarInt(number((DataObject) iterator.next()));
+        EMap objectChanges = changeSummary.getObjectChanges();
+        writeVarInt(objectChanges.size());
+        for (Iterator iterator = objectChanges.iterator(); iterator.hasNext();) {
+            Map.Entry entry = (Map.Entry) iterator.next();
+            DataObject dataObject = (DataObject) entry.getKey();
+            writeVarInt(number(dataObject));
+            Type type = dataObject.getType();
+            List featureChanges = new ArrayList((List) entry.getValue());
+            for (Iterator changes = featureChanges.iterator(); changes.hasNext();)
+                if (((FeatureChange) changes.next()).getFeature().getEType() == ChangeSummaryStreamSerializer.ChangeSummary_TYPE)
+                    changes.remove();
+            writeVarInt(featureChanges.size());
+            for (Iterator changes = featureChanges.iterator(); changes.hasNext();) {
+                FeatureChange featureChange = (FeatureChange) changes.next();
+                EStructuralFeature feature = featureChange.getFeature();
+                writeProperty(type, feature);
+                boolean isSet = featureChange.isSet();
+                output.writeBoolean(isSet);
+                if (isSet)
+                    writeValue(type, feature, featureChange.getValue(), false);
+            }
+        }
+    }
+
+    protected void writeData(Type type, Object value) throws IOException {
+        Class instanceClass = type.getInstanceClass();
+        int kind = kind(instanceClass);
+        if (isNullable(instanceClass, kind)) {
+            output.writeBoolean(value != null);
+            if (value == null)
+                return;
+        }
+        writeData(kind, type, value);
+    }
+
+    protected void writeData(int kind, Type type, Object value) throws IOException {
+        switch (kind) {
+        case STRING:
+            writeString((String) value);
+            break;
+        case BOOLEAN:
+            output.writeBoolean(((Boolean) value).booleanValue());
+            break;
+        case BYTE:
+            output.writeByte(((Number) value).byteValue());
+            break;
+        case CHARACTER:
+            writeVarInt(((Character) value).charValue());
+            break;
+        case SHORT:
+            writeVarInt(zigZag(((Number) value).shortValue()));
+            break;
+        case INT:
+            writeVarInt(zigZag(((Number) value).intValue()));
+            break;
+        case LONG:
+            writeVarLong(zigZag(((Number) value).longValue()));
+            break;
+        case FLOAT:
+            output.writeFloat(((Number) value).floatValue());
+            break;
+        case DOUBLE:
+            output.writeDouble(((Number) value).doubleValue());
+            break;
+        case INTEGER:
+            writeBytes(((BigInteger) value).toByteArray());
+            break;
+        case DECIMAL:
+            BigDecimal decimal = (BigDecimal) value;
+            writeBytes(decimal.unscaledValue().toByteArray());
+            writeVarInt(zigZag(decimal.scale()));
+            break;
+        case DATE:
+            writeVarLong(zigZag(((Date) value).getTime()));
+            break;
+        case BYTES:
+            writeBytes((byte[]) value);
+            break;
+        case OBJECT:
+            if (value == null)
+                writeVarInt(0);
+            else {
+                kind = kind(value.getClass());
+                if (kind == OBJECT)
+                    kind = LITERAL;
+                writeVarInt(kind);
+                writeData(kind, type, value);
+            }
+            break;
+        default:
+            writeString(EcoreUtil.convertToString((EDataType) type, value));
+        }
+    }
+
+    static int zigZag(int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    protected final void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    protected final void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    /**
+     * Writes null as 0, else the length plus 1 followed by each character as a variable-length integer.
+     */
+    protected void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        int length = value.length();
+        writeVarInt(length + 1);
+        if (buffer.length < length * 3)
+            buffer = new byte[length * 3];
+        byte[] buffer = this.buffer;
+        int size = 0;
+        for (int index = 0; index != length; ++index) {
+            int character = value.charAt(index);
+            while ((character & ~0x7F) != 0) {
+                buffer[size++] = (byte) (character & 0x7F | 0x80);
+                character >>>= 7;
+            }
+            buffer[size++] = (byte) character;
+        }
+        output.write(buffer, 0, size);
+    }
+
+    protected void writeBytes(byte[] value) throws IOException {
+        if (value == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(value.length + 1);
+        output.write(value);
+    }
+}
@@ -187,7 +187,7 @@ public class DataObjectXMLStreamReader implements XMLFragmentStreamReader {
         }
     }
 
-    static private boolean isTransient(Property property, Object type) {
+    static boolean isTransient(Property property, Object type) {
         // HACK: We need some SDOUtil extension to understand a property is derived
         EStructuralFeature feature = (EStructuralFeature) property;
         if (ExtendedMetaData.INSTANCE.getGroup(feature) != null)
@@ -0,0 +1,381 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Sequence;
+import commonj.sdo.Type;
+
+/**
+ * The DataObjectXMLStreamSerializer walks a DataObject and pushes it straight into the XMLStreamWriter. It makes the writer calls the
+ * XMLStreamSerializer makes for the events of a {@link DataObjectXMLStreamReader} over the object, so the output is the same, without
+ * building the reader's tree of element readers, names and values: the XML names of the properties come from the {@link SavePlan} of each
+ * type, and the namespace prefixes, which the root element declares, are assigned by a first walk that visits the properties in the
+ * reader's order.
+ * <p/>
+ * A serializer saves one object.
+ */
+public class DataObjectXMLStreamSerializer extends XMLStreamSerializer {
+    protected static final String XSI_URI = "http://www.w3.org/2001/XMLSchema-instance";
+
+    /**
+     * The prefixes a namespace context binds before any is assigned.
+     */
+    private static final Map BUILT_IN_PREFIXES = new HashMap();
+
+    static {
+        BUILT_IN_PREFIXES.put("http://www.w3.org/XML/1998/namespace", "xml");
+        BUILT_IN_PREFIXES.put("http://www.w3.org/2000/xmlns/", "xmlns");
+        BUILT_IN_PREFIXES.put(XSI_URI, "xsi");
+    }
+
+    protected final ExtendedMetaData extendedMetaData;
+
+    protected DataObject serializeRoot;
+
+    /**
+     * Maps each namespace to its prefix.
+     */
+    protected final Map prefixes = new HashMap();
+
+    /**
+     * Maps each prefix the root element declares to its namespace, in prefix order.
+     */
+    protected final Map declaredNamespaces = new TreeMap();
+
+    private int counter = 0;
+
+    /**
+     * The plans of the types that don't cache their own.
+     */
+    private Map plans;
+
+    public DataObjectXMLStreamSerializer(ExtendedMetaData extendedMetaData) {
+        this.extendedMetaData = extendedMetaData;
+    }
+
+    /**
+     * Writes the object as the element with the specified name.
+     *
+     * @param dataObject
+     * @param rootElementURI
+     * @param rootElementName
+     * @param writer
+     * @param options the save options, or null
+     * @throws XMLStreamException
+     */
+    public void serialize(DataObject dataObject, String rootElementURI, String rootElementName, XMLStreamWriter writer, Map options)
+        throws XMLStreamException {
+        this.options = options;
+        serializeRoot = dataObject;
+        String prefix = getPrefix(rootElementURI);
+        boolean typed = false;
+        if (dataObject != null) {
+            Property rootElement = (Property) extendedMetaData.getElement(rootElementURI, rootElementName);
+            typed = rootElement == null || rootElement.getType() != dataObject.getType();
+            assignPrefixes(dataObject, typed);
+        }
+
+        startElement(prefix, rootElementURI, rootElementName, writer);
+        for (Iterator i = declaredNamespaces.entrySet().iterator(); i.hasNext();) {
+            Map.Entry namespace = (Map.Entry) i.next();
+            String namespacePrefix = (String) namespace.getKey();
+            if (namespacePrefix.length() != 0)
+                serializeNamespace(namespacePrefix, (String) namespace.getValue(), writer);
+        }
+        if (dataObject != null)
+            serializeContent(dataObject, typed, writer);
+        endElement(writer);
+    }
+
+    /**
+     * Returns the prefix of the namespace, assigning one if it has none.
+     */
+    protected String getPrefix(String nameSpace) {
+        if (nameSpace == null)
+            return "";
+        String prefix = (String) prefixes.get(nameSpace);
+        if (prefix == null) {
+            prefix = (String) BUILT_IN_PREFIXES.get(nameSpace);
+            if (prefix == null)
+                prefix = nameSpace.length() == 0 ? "" : "p" + (counter++);
+            prefixes.put(nameSpace, prefix);
+            declaredNamespaces.put(prefix, nameSpace);
+        }
+        return prefix;
+    }
+
+    protected SavePlan getSavePlan(Type type) {
+        if (type instanceof ClassImpl)
+            return ((ClassImpl) type).getSavePlan(extendedMetaData);
+        if (plans == null)
+            plans = new HashMap();
+        SavePlan plan = (SavePlan) plans.get(type);
+        if (plan == null) {
+            plan = new SavePlan((EClass) type, type.getProperties(), extendedMetaData);
+            plans.put(type, plan);
+        }
+        return plan;
+    }
+
+    protected SavePlan.Entry getEntry(SavePlan plan, Type type, Property property, int index) {
+        SavePlan.Entry entry = plan.getEntry(property, index);
+        return entry == null ? new SavePlan.Entry((EClass) type, property, extendedMetaData) : entry;
+    }
+
+    // /////////////////////////////////////////////////////////////////////////
+    // / the first walk, which assigns the prefixes
+    // /////////////////////////////////////////////////////////////////////////
+
+    protected void assignPrefixes(DataObject dataObject, boolean typed) {
+        Type type = dataObject.getType();
+        SavePlan plan = getSavePlan(type);
+        if (typed && plan.typeName != null)
+            getPrefix(type.getURI());
+        List properties = dataObject.getInstanceProperties();
+        if (type.isSequenced()) {
+            Sequence sequence = dataObject.getSequence();
+            for (int i = 0, size = sequence.size(); i < size; i++) {
+                Property property = sequence.getProperty(i);
+                if (property != null)
+                    assignPrefixes(dataObject, getEntry(plan, type, property, -1), sequence.getValue(i));
+            }
+            for (int i = 0, size = properties.size(); i < size; i++) {
+                Property property = (Property) properties.get(i);
+                SavePlan.Entry entry = getEntry(plan, type, property, i);
+                if (entry.attribute && entry.saved && dataObject.isSet(property))
+                    assignPrefixes(dataObject, entry, dataObject.get(property));
+            }
+        } else {
+            for (int i = 0, size = properties.size(); i < size; i++) {
+                Property property = (Property) properties.get(i);
+                SavePlan.Entry entry = plan.getEntry(property, i);
+                if (entry == null)
+                    entry = new SavePlan.Entry((EClass) type, property, extendedMetaData);
+                else if (entry.dataType && !entry.many) {
+                    // a single value of a property of the type, so there's no need to get it
+                    if (entry.saved && dataObject.isSet(property))
+                        getPrefix(entry.nameSpace);
+                    continue;
+                }
+                if (entry.saved && dataObject.isSet(property))
+                    assignPrefixes(dataObject, entry, dataObject.get(property));
+            }
+        }
+    }
+
+    protected void assignPrefixes(DataObject dataObject, SavePlan.Entry entry, Object value) {
+        if (entry.sequence && value instanceof Sequence) {
+            Sequence sequence = (Sequence) value;
+            Type type = dataObject.getType();
+            for (int i = 0, size = sequence.size(); i < size; i++) {
+                Property property = sequence.getProperty(i);
+                if (property != null)
+                    assignPrefix(getEntry(getSavePlan(type), type, property, -1), sequence.getValue(i));
+            }
+        } else if (value instanceof List && isMany(dataObject, entry)) {
+            List values = (List) value;
+            for (int i = 0, size = values.size(); i < size; i++)
+                assignPrefix(entry, values.get(i));
+        } else
+            assignPrefix(entry, value);
+    }
+
+    protected void assignPrefix(SavePlan.Entry entry, Object value) {
+        getPrefix(entry.nameSpace);
+        if (isElement(entry, value)) {
+            DataObject dataObject = (DataObject) value;
+            assignPrefixes(dataObject, entry.property.getType() != dataObject.getType());
+        }
+    }
+
+    // /////////////////////////////////////////////////////////////////////////
+    // / the second walk, which writes
+    // /////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Writes the attributes and content of the object, whose start tag has been written.
+     */
+    protected void serializeContent(DataObject dataObject, boolean typed, XMLStreamWriter writer) throws XMLStreamException {
+        Type type = dataObject.getType();
+        SavePlan plan = getSavePlan(type);
+        if (typed && plan.typeName != null)
+            serializeAttribute("xsi", XSI_URI, "type", getPrefix(type.getURI()) + ':' + plan.typeName, writer);
+        List properties = dataObject.getInstanceProperties();
+        int size = properties.size();
+        for (int i = 0; i < size; i++) {
+            Property property = (Property) properties.get(i);
+            SavePlan.Entry entry = getEntry(plan, type, property, i);
+            if (entry.attribute && entry.saved && dataObject.isSet(property))
+                serializeAttributes(dataObject, entry, dataObject.get(property), writer);
+        }
+        if (type.isSequenced()) {
+            Sequence sequence = dataObject.getSequence();
+            for (int i = 0, count = sequence.size(); i < count; i++) {
+                Property property = sequence.getProperty(i);
+                if (property == null)
+                    // text in mixed content
+                    writer.writeCharacters((String) sequence.getValue(i));
+                else
+                    serializeElements(dataObject, getEntry(plan, type, property, -1), sequence.getValue(i), writer);
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                Property property = (Property) properties.get(i);
+                SavePlan.Entry entry = getEntry(plan, type, property, i);
+                if (!entry.attribute && entry.saved && dataObject.isSet(property))
+                    serializeElements(dataObject, entry, dataObject.get(property), writer);
+            }
+        }
+    }
+
+    protected void serializeAttributes(DataObject dataObject, SavePlan.Entry entry, Object value, XMLStreamWriter writer)
+        throws XMLStreamException {
+        if (entry.sequence && value instanceof Sequence) {
+            Sequence sequence = (Sequence) value;
+            Type type = dataObject.getType();
+            for (int i = 0, size = sequence.size(); i < size; i++)
+                serializeAttribute(getEntry(getSavePlan(type), type, sequence.getProperty(i), -1), sequence.getValue(i), writer);
+        } else if (value instanceof List && isMany(dataObject, entry)) {
+            List values = (List) value;
+            for (int i = 0, size = values.size(); i < size; i++)
+                serializeAttribute(entry, values.get(i), writer);
+        } else
+            serializeAttribute(entry, value, writer);
+    }
+
+    protected void serializeAttribute(SavePlan.Entry entry, Object value, XMLStreamWriter writer) throws XMLStreamException {
+        String text;
+        if (value == null)
+            text = null;
+        else if (entry.dataType) {
+            text = EcoreUtil.convertToString((EDataType) entry.property.getType(), value);
+            if (entry.uri && text != null) {
+                // write <uri>#<local part> as <prefix>:<local part>
+                int index = text.indexOf('#');
+                if (index != -1) {
+                    String prefix = getBoundPrefix(text.substring(0, index));
+                    text = prefix == null || prefix.length() == 0 ? text.substring(index + 1) : prefix + ':' + text.substring(index + 1);
+                }
+            }
+        } else
+            throw new XMLStreamException("The value of " + entry.property.getName() + " can't be written as an attribute");
+        String nameSpace = entry.nameSpace;
+        serializeAttribute(getPrefix(nameSpace), nameSpace == null ? "" : nameSpace, entry.name, text, writer);
+    }
+
+    /**
+     * Returns the prefix a namespace context binds the namespace to.
+     */
+    protected String getBoundPrefix(String nameSpace) {
+        String prefix = (String) prefixes.get(nameSpace);
+        return prefix == null ? (String) BUILT_IN_PREFIXES.get(nameSpace) : prefix;
+    }
+
+    protected void serializeElements(DataObject dataObject, SavePlan.Entry entry, Object value, XMLStreamWriter writer)
+        throws XMLStreamException {
+        if (entry.sequence && value instanceof Sequence) {
+            Sequence sequence = (Sequence) value;
+            Type type = dataObject.getType();
+            for (int i = 0, size = sequence.size(); i < size; i++) {
+                Property property = sequence.getProperty(i);
+                if (property == null)
+                    writer.writeCharacters((String) sequence.getValue(i));
+                else
+                    serializeElement(getEntry(getSavePlan(type), type, property, -1), sequence.getValue(i), writer);
+            }
+        } else if (value instanceof List && isMany(dataObject, entry)) {
+            List values = (List) value;
+            for (int i = 0, size = values.size(); i < size; i++)
+                serializeElement(entry, values.get(i), writer);
+        } else
+            serializeElement(entry, value, writer);
+    }
+
+    protected void serializeElement(SavePlan.Entry entry, Object value, XMLStreamWriter writer) throws XMLStreamException {
+        if (entry.simpleContent) {
+            if (value != null)
+                writer.writeCharacters(value instanceof String ? (String) value : EcoreUtil.convertToString((EDataType) entry.property
+                    .getType(), value));
+            return;
+        }
+        if (value != null && !entry.dataType && entry.containment && value == serializeRoot)
+            // a containment cycle, the root is only written once
+            return;
+        String nameSpace = entry.nameSpace;
+        startElement(getPrefix(nameSpace), nameSpace, entry.name, writer);
+        if (value == null) {
+            serializeNamespace("xsi", XSI_URI, writer);
+            serializeAttribute("xsi", XSI_URI, "nil", "true", writer);
+        } else if (entry.dataType)
+            writer.writeCharacters(EcoreUtil.convertToString((EDataType) entry.property.getType(), value));
+        else {
+            DataObject dataObject = (DataObject) value;
+            serializeContent(dataObject, entry.property.getType() != dataObject.getType(), writer);
+        }
+        endElement(writer);
+    }
+
+    protected void startElement(String prefix, String nameSpace, String localName, XMLStreamWriter writer) throws XMLStreamException {
+        if (nameSpace == null)
+            nameSpace = "";
+        if (options == null)
+            serializeStartElement(prefix, nameSpace, localName, writer);
+        else
+            serializeStartElementWithOptions(prefix, nameSpace, localName, writer);
+    }
+
+    protected void endElement(XMLStreamWriter writer) throws XMLStreamException {
+        if (options == null)
+            serializeEndElement(writer);
+        else
+            serializeEndElementWithOptions(writer);
+    }
+
+    /**
+     * Returns whether the value of the property is written as an element of its own.
+     */
+    protected final boolean isElement(SavePlan.Entry entry, Object value) {
+        return value != null && !entry.simpleContent && !entry.dataType && !(entry.containment && value == serializeRoot);
+    }
+
+    protected static boolean isMany(DataObject dataObject, SavePlan.Entry entry) {
+        return entry.many || FeatureMapUtil.isMany((EObject) dataObject, (EStructuralFeature) entry.property);
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+
+import commonj.sdo.Property;
+
+/**
+ * The properties of a type indexed by their XML local name and namespace, built once per type so that resolving an incoming element or
+ * attribute is a hash lookup rather than a scan of the type's properties. An entry also records the property that holds the value in
+ * instances of the type: the affiliated property for a substitution group member, or the mixed or group feature for a derived feature.
+ * <p/>
+ * A plan is immutable once built; it is replaced by {@link org.apache.tuscany.sdo.impl.ClassImpl#getLoadPlan} when the properties of the
+ * type change. The names come from the ExtendedMetaData the plan is built with, so a plan is only used with that metadata.
+ */
+public class LoadPlan {
+    public static final class Entry {
+        final String nameSpace;
+
+        /**
+         * The property with the XML name.
+         */
+        public final Property property;
+
+        /**
+         * The property that holds its values in instances of the type.
+         */
+        public final Property containing;
+
+        Entry next;
+
+        Entry(String nameSpace, Property property, Property containing) {
+            this.nameSpace = nameSpace;
+            this.property = property;
+            this.containing = containing;
+        }
+    }
+
+    protected final List properties;
+
+    protected final ExtendedMetaData extendedMetaData;
+
+    /**
+     * Maps each local name to the chain of its entries, one per namespace, in property order.
+     */
+    protected final Map entries;
+
+    public LoadPlan(EClass type, List properties, ExtendedMetaData extendedMetaData) {
+        this.properties = properties;
+        this.extendedMetaData = extendedMetaData;
+        Map entries = new HashMap(properties.size() * 4 / 3 + 1);
+        for (int index = 0, size = properties.size(); index != size; ++index) {
+            EStructuralFeature feature = (EStructuralFeature) properties.get(index);
+            String name = extendedMetaData.getName(feature);
+            if (name == null)
+                continue;
+            String nameSpace = extendedMetaData.getNamespace(feature);
+            Entry entry = (Entry) entries.get(name);
+            if (entry == null)
+                entries.put(name, new Entry(nameSpace, (Property) feature, containing(type, feature, extendedMetaData)));
+            else {
+                for (;; entry = entry.next) {
+                    if (nameSpace == null ? entry.nameSpace == null : nameSpace.equals(entry.nameSpace))
+                        break; // the first property with the name wins
+                    if (entry.next == null) {
+                        entry.next = new Entry(nameSpace, (Property) feature, containing(type, feature, extendedMetaData));
+                        break;
+                    }
+                }
+            }
+        }
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the property of the type that holds the values of the specified property in instances of the type.
+     */
+    public static Property containing(EClass type, EStructuralFeature containment, ExtendedMetaData extendedMetaData) {
+        Object containing = extendedMetaData.getAffiliation(type, containment);
+        if (containment == containing && containment.isDerived()) {
+            containing = extendedMetaData.getMixedFeature(type);
+            if (containing == null) {
+                containing = extendedMetaData.getGroup(containment);
+                if (containing == null)
+                    return (Property) containment;
+            }
+        }
+        return (Property) containing;
+    }
+
+    /**
+     * Returns whether the plan was built from the specified property list.
+     */
+    public final boolean isFor(List properties) {
+        return this.properties == properties;
+    }
+
+    /**
+     * Returns whether the plan was built from the specified property list with the specified metadata.
+     */
+    public final boolean isFor(List properties, ExtendedMetaData extendedMetaData) {
+        return this.properties == properties && this.extendedMetaData == extendedMetaData;
+    }
+
+    /**
+     * Returns the entry of the property with the specified XML name, or null if the type has none.
+     */
+    public final Entry getEntry(String nameSpace, String name) {
+        for (Entry entry = (Entry) entries.get(name); entry != null; entry = entry.next)
+            if (nameSpace.equals(entry.nameSpace))
+                return entry;
+        return null;
+    }
+}
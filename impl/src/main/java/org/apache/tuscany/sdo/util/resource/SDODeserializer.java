@@ -32,6 +32,7 @@ import org.apache.tuscany.sdo.helper.HelperContextImpl;
 import org.apache.tuscany.sdo.helper.TypeHelperImpl;
 import org.apache.tuscany.sdo.helper.XMLStreamHelper;
 import org.apache.tuscany.sdo.helper.XMLStreamHelperImpl;
+import org.apache.tuscany.sdo.impl.ClassImpl;
 import org.apache.tuscany.sdo.util.StreamDeserializer;
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.EList;
@@ -71,27 +72,24 @@ public class SDODeserializer extends StreamDeserializer {
     protected Property propertyInSequence;
 
     Property getProperty(Object type) {
-        EClass c = (EClass) type;
-        EStructuralFeature containment = (EStructuralFeature) propertyInSequence;
-        Object containing = extendedMetaData.getAffiliation(c, containment);
         // if (containing == null) report error?
-        if (containment == containing && containment.isDerived()) {
-            containing = extendedMetaData.getMixedFeature(c);
-            if (containing == null) {
-                containing = extendedMetaData.getGroup(containment);
-                if (containing == null)
-                    return propertyInSequence;
-            }
-        }
-        return (Property) containing;
+        return LoadPlan.containing((EClass) type, (EStructuralFeature) propertyInSequence, extendedMetaData);
     }
 
     protected final Property getProperty(Type type, String nameSpace, String name, boolean element) {
-        for (Iterator iterator = type.getProperties().iterator(); iterator.hasNext();) {
-            propertyInSequence = (Property) iterator.next();
-            if (name.equals(xsdHelper.getLocalName(propertyInSequence))
-                    && nameSpace.equals(xsdHelper.getNamespaceURI(propertyInSequence)))
-                return getProperty(type);
+        if (type instanceof ClassImpl) {
+            LoadPlan.Entry entry = ((ClassImpl) type).getLoadPlan(extendedMetaData).getEntry(nameSpace, name);
+            if (entry != null) {
+                propertyInSequence = entry.property;
+                return entry.containing;
+            }
+        } else {
+            for (Iterator iterator = type.getProperties().iterator(); iterator.hasNext();) {
+                propertyInSequence = (Property) iterator.next();
+                if (name.equals(xsdHelper.getLocalName(propertyInSequence))
+                        && nameSpace.equals(xsdHelper.getNamespaceURI(propertyInSequence)))
+                    return getProperty(type);
+            }
         }
         propertyInSequence = xsdHelper.getGlobalProperty(nameSpace, name, element);
         // if (propertyInSequence == null) report error?
@@ -21,8 +21,10 @@ package org.apache.tuscany.sdo.util.resource;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
-import java.net.URL;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
@@ -45,9 +47,12 @@ import javax.xml.stream.XMLStreamWriter;
 
 import org.apache.tuscany.sdo.SDOExtendedMetaData;
 import org.apache.tuscany.sdo.helper.HelperContextImpl;
+import org.apache.tuscany.sdo.helper.SchemaCache;
 import org.apache.tuscany.sdo.helper.SDOExtendedMetaDataImpl;
+import org.apache.tuscany.sdo.helper.XMLResourcePool;
 import org.apache.tuscany.sdo.helper.XMLStreamHelper;
 import org.apache.tuscany.sdo.helper.XSDHelperImpl;
+import org.apache.tuscany.sdo.impl.DynamicDataObjectImpl;
 import org.apache.tuscany.sdo.api.SDOHelper;
 import org.apache.tuscany.sdo.api.SDOUtil;
 import org.apache.tuscany.sdo.util.StAX2SAXAdapter;
@@ -55,6 +60,7 @@ import org.apache.tuscany.sdo.model.internal.InternalFactory;
 import org.apache.tuscany.sdo.model.internal.impl.InternalFactoryImpl;
 import org.eclipse.emf.common.util.EMap;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EFactory;
@@ -91,7 +97,8 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import commonj.sdo.ChangeSummary;
 import commonj.sdo.DataObject;
-import commonj.sdo.helper.XSDHelper;
+import commonj.sdo.helper.HelperContext;
+import commonj.sdo.impl.HelperProvider;
 
 public class SDOXMLResourceImpl extends XMLResourceImpl {
     private XMLStreamReader reader;
@@ -150,7 +157,7 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
 
         public SDOXMLHelperImpl(XMLStreamReader reader) {
             super();
-            if (reader instanceof XMLDocumentStreamReader) // Only use StreamNamespaceSupport when loading from a *portion* of a StAX stream
+            if (reader instanceof XMLDocumentStreamReader || reader != null && reader.getEventType() == XMLStreamConstants.START_ELEMENT) // Only use StreamNamespaceSupport when loading from a *portion* of a StAX stream
                 namespaceSupport = new StreamNamespaceSupport(reader);
         }
         
@@ -247,6 +254,36 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
             }
         }
         
+        /**
+         * Whether to keep the lexical form of simple values until they are read, see {@link SDOHelper.XMLOptions#XML_LOAD_LAZY_VALUES}.
+         */
+        protected boolean lexicalValues;
+
+        public void setLexicalValues(boolean lexicalValues) {
+            this.lexicalValues = lexicalValues;
+        }
+
+        public void setValue(EObject object, EStructuralFeature feature, Object value, int position) {
+            if (lexicalValues && value instanceof String && object instanceof DynamicDataObjectImpl && feature instanceof EAttribute
+                    && isLexical(((EAttribute) feature).getEAttributeType())
+                    && ((DynamicDataObjectImpl) object).eSetLexical((EAttribute) feature, (String) value))
+                return;
+            super.setValue(object, feature, value, position);
+        }
+
+        /**
+         * Returns whether converting the lexical form of a data type value is worth deferring and safe to defer: the values are
+         * immutable numbers, booleans or characters, which readers on other threads can see without synchronization once converted.
+         * Mutable values, such as Dates and byte arrays, are converted as they are loaded.
+         */
+        protected static boolean isLexical(EDataType eDataType) {
+            Class instanceClass = eDataType.getInstanceClass();
+            return instanceClass == BigDecimal.class || instanceClass == BigInteger.class || instanceClass == Integer.class
+                    || instanceClass == Long.class || instanceClass == Short.class || instanceClass == Byte.class
+                    || instanceClass == Double.class || instanceClass == Float.class || instanceClass == Boolean.class
+                    || instanceClass == Character.class;
+        }
+
         protected Object createFromString(EFactory eFactory, EDataType eDataType, String value) {
             Object obj = super.createFromString(eFactory, eDataType, value);
             if (eDataType == ((InternalFactoryImpl)InternalFactory.INSTANCE).getQName()) {
@@ -289,7 +326,12 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
     public EObject root;
 
     /**
-     * An EMF XMLLoad that loads a model from a StAX stream
+     * An EMF XMLLoad that loads a model from a StAX stream.
+     * <p>
+     * This is not a pull-based loader. The reader's events go through StAX2SAXAdapter into the SAXXMLHandler that
+     * XMLHelper loads use, which does the xsi:type, mixed content, wildcard, reference and change summary handling.
+     * A loader that builds DataObjects straight from the reader would have to reimplement all of that against the
+     * SDO metadata, and remains to be written.
      */
     public class SDOXMLLoadImpl extends XMLLoadImpl {
         public SDOXMLLoadImpl(XMLHelper helper) {
@@ -299,6 +341,7 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
         final class XmlHandler extends SAXXMLHandler {
             XmlHandler() {
                 super(resource, SDOXMLLoadImpl.this.helper, options);
+                ((SDOXMLHelperImpl) helper).setLexicalValues(Boolean.TRUE.equals(options.get(SDOHelper.XMLOptions.XML_LOAD_LAZY_VALUES)));
             }
 
             protected void handleTopLocations(String prefix, String name) {
@@ -555,20 +598,27 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
                     option = getDefaultLoadOptions().get(OPTION_EXTENDED_META_DATA);
                 }
                 ExtendedMetaData extendedMetaData;
-                final XSDHelper xsdHelper;
+                final SchemaCache schemaCache;
+                // The schemas are defined through a cache kept by a pool, so that a document doesn't define them again;
+                // a fresh cache is only used when pooling is off.
+                SchemaCache pooledCache;
                 if (option == null) {
                     extendedMetaData = ExtendedMetaData.INSTANCE;
-                    xsdHelper = XSDHelper.INSTANCE;
+                    HelperContext defaultContext = HelperProvider.getDefaultContext();
+                    XMLResourcePool defaultPool = defaultContext instanceof HelperContextImpl ? ((HelperContextImpl) defaultContext)
+                            .getXMLResourcePool() : null;
+                    pooledCache = defaultPool == null ? null : defaultPool.getSchemaCache();
+                    schemaCache = pooledCache != null ? pooledCache : new SchemaCache(defaultContext);
                 } else {
                     extendedMetaData = (ExtendedMetaData) option;
-                    xsdHelper = (new HelperContextImpl(extendedMetaData, false)).getXSDHelper();
+                    XMLResourcePool pool = (XMLResourcePool) options.get(XMLResourcePool.OPTION_POOL);
+                    pooledCache = pool == null ? null : pool.getSchemaCache(extendedMetaData);
+                    schemaCache = pooledCache != null ? pooledCache : new SchemaCache(new HelperContextImpl(extendedMetaData, false));
                 }
                 xmlOptions.setEcoreBuilder(new DefaultEcoreBuilder(extendedMetaData) {
                     public Collection generate(Map targetNamespaceToURI) throws IOException {
                         for (Iterator iterator = targetNamespaceToURI.values().iterator(); iterator.hasNext();) {
-                            String uri = iterator.next().toString();
-                            xsdHelper.define(uri.indexOf(":/") == -1 ? Thread.currentThread().getContextClassLoader().getResourceAsStream(uri)
-                                    : new URL(uri).openStream(), uri);
+                            schemaCache.define(iterator.next().toString());
                         }
                         return null; // XMLHandler#processSchemaLocations doesn't take the result
                     }
@@ -730,6 +780,7 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
             // changeSummaryOptions.put(ChangeSummaryStreamSerializer.OPTION_RootObject_PATH, "#");
             // changeSummaryOptions.put(ChangeSummaryStreamSerializer.OPTION_OPTIMIZE_LIST, Boolean.TRUE);
             changeSummaryOptions.put(OPTION_EXTENDED_META_DATA, extendedMetaData);
+            outputFactory = (XMLOutputFactory) options.get(SDOHelper.XMLOptions.XML_OUTPUT_FACTORY);
         }
 
         QName qName(EStructuralFeature f) {
@@ -741,6 +792,8 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
 
         XMLStreamWriter xmlStreamWriter/* = null*/;
 
+        XMLOutputFactory outputFactory;
+
         void saveChangeSummary(EObject o, EStructuralFeature f, Object changeSummary) {
             boolean notMixed;
             if (doc instanceof XmlString)
@@ -764,7 +817,9 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
             }
             try {
                 if (xmlStreamWriter == null) {
-                    xmlStreamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(new Writer() {
+                    if (outputFactory == null)
+                        outputFactory = XMLOutputFactory.newInstance();
+                    xmlStreamWriter = outputFactory.createXMLStreamWriter(new Writer() {
                         public void close() {
                         }
 
@@ -1006,4 +1061,18 @@ public class SDOXMLResourceImpl extends XMLResourceImpl {
     protected XMLSave createXMLSave() {
         return new SDOXMLSaveImpl(createXMLHelper());
     }
+
+    /**
+     * Saves with the body of the document spilled to a temporary file, past the number of characters of the
+     * {@link SDOHelper.XMLOptions#XML_SAVE_BUFFER} option, rather than held in memory until the save completes.
+     */
+    public void doSave(OutputStream outputStream, Map options) throws IOException {
+        Object buffer = options == null ? null : options.get(SDOHelper.XMLOptions.XML_SAVE_BUFFER);
+        if (buffer != null) {
+            options = new HashMap(options);
+            options.put(OPTION_USE_FILE_BUFFER, Boolean.TRUE);
+            options.put(OPTION_FLUSH_THRESHOLD, buffer);
+        }
+        super.doSave(outputStream, options);
+    }
 }
@@ -0,0 +1,157 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+
+/**
+ * The XML name and kind of each property of a type, built once per type so that the stream serializer writes an instance of the type
+ * without asking the extended metadata about every property of every instance.
+ * <p/>
+ * A plan is immutable once built; it is replaced by {@link org.apache.tuscany.sdo.impl.ClassImpl#getSavePlan} when the properties of the
+ * type change. The names come from the ExtendedMetaData the plan is built with, so a plan is only used with that metadata.
+ */
+public class SavePlan {
+    public static final class Entry {
+        public final Property property;
+
+        /**
+         * The XML namespace and local name of the property.
+         */
+        public final String nameSpace, name;
+
+        public final boolean attribute;
+
+        /**
+         * Whether the property is saved in instances of the type, that is isn't transient or the opposite of a containment.
+         */
+        public final boolean saved;
+
+        /**
+         * Whether the property holds the simple content of the type.
+         */
+        public final boolean simpleContent;
+
+        public final boolean dataType, containment, many;
+
+        /**
+         * Whether a value of the property is a sequence of open content.
+         */
+        public final boolean sequence;
+
+        /**
+         * Whether the property of the type with the XML name of the property is a URI, whose values are written as prefixed names.
+         */
+        public final boolean uri;
+
+        public Entry(EClass type, Property property, ExtendedMetaData extendedMetaData) {
+            EStructuralFeature feature = (EStructuralFeature) property;
+            this.property = property;
+            nameSpace = extendedMetaData.getNamespace(feature);
+            name = extendedMetaData.getName(feature);
+            attribute = extendedMetaData.getFeatureKind(feature) == ExtendedMetaData.ATTRIBUTE_FEATURE;
+            saved = !DataObjectXMLStreamReader.isTransient(property, type);
+            simpleContent = nameSpace == null && ":0".equals(name) && "value".equals(property.getName());
+            Type propertyType = property.getType();
+            dataType = propertyType.isDataType();
+            containment = property.isContainment();
+            many = property.isMany();
+            sequence = many && property.getContainingType().isOpen();
+            Property named = name == null ? null : ((Type) type).getProperty(name);
+            uri = named != null && "URI".equals(named.getType().getName());
+        }
+    }
+
+    protected final List properties;
+
+    protected final ExtendedMetaData extendedMetaData;
+
+    /**
+     * The entries of the properties, in property order.
+     */
+    protected final Entry[] entries;
+
+    /**
+     * Maps each property to its entry.
+     */
+    protected final Map propertyEntries;
+
+    /**
+     * The XML name of the type, or null if it's anonymous.
+     */
+    public final String typeName;
+
+    public SavePlan(EClass type, List properties, ExtendedMetaData extendedMetaData) {
+        this.properties = properties;
+        this.extendedMetaData = extendedMetaData;
+        int size = properties.size();
+        entries = new Entry[size];
+        propertyEntries = new HashMap(size * 4 / 3 + 1);
+        for (int index = 0; index != size; ++index) {
+            Entry entry = new Entry(type, (Property) properties.get(index), extendedMetaData);
+            entries[index] = entry;
+            propertyEntries.put(entry.property, entry);
+        }
+        typeName = extendedMetaData.getName(type);
+    }
+
+    /**
+     * Returns whether the plan was built from the specified property list.
+     */
+    public final boolean isFor(List properties) {
+        return this.properties == properties;
+    }
+
+    /**
+     * Returns whether the plan was built from the specified property list with the specified metadata.
+     */
+    public final boolean isFor(List properties, ExtendedMetaData extendedMetaData) {
+        return this.properties == properties && this.extendedMetaData == extendedMetaData;
+    }
+
+    /**
+     * Returns the entry of the property at the specified index of the instance properties of an instance of the type, or null if it's not
+     * a property of the type. A negative index is the one of a property whose position isn't known.
+     */
+    public final Entry getEntry(Property property, int index) {
+        if (index >= 0 && index < entries.length) {
+            Entry entry = entries[index];
+            if (entry.property == property)
+                return entry;
+        }
+        return (Entry) propertyEntries.get(property);
+    }
+
+    /**
+     * Returns the entry of the property, or null if it's not a property of the type.
+     */
+    public final Entry getEntry(Property property) {
+        return (Entry) propertyEntries.get(property);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.util.resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * An OutputStream that decodes the bytes written to it, in a given charset, and writes the characters to a Writer through
+ * fixed size buffers, so that a document saved as bytes reaches a Writer without being held in memory as a whole.
+ * <p/>
+ * {@link #finish()} must be called once everything has been written; neither it nor closing the stream closes the Writer.
+ */
+public class WriterOutputStream extends OutputStream {
+    protected static final int BUFFER_SIZE = 8192;
+
+    protected final Writer writer;
+
+    protected final CharsetDecoder decoder;
+
+    protected final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+    protected final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    public WriterOutputStream(Writer writer, String charsetName) {
+        this.writer = writer;
+        decoder = Charset.forName(charsetName).newDecoder();
+    }
+
+    public void write(int b) throws IOException {
+        bytes.put((byte) b);
+        if (!bytes.hasRemaining())
+            decode(false);
+    }
+
+    public void write(byte[] b, int offset, int length) throws IOException {
+        while (length != 0) {
+            int count = Math.min(length, bytes.remaining());
+            bytes.put(b, offset, count);
+            offset += count;
+            length -= count;
+            if (!bytes.hasRemaining())
+                decode(false);
+        }
+    }
+
+    /**
+     * Decodes the buffered bytes, but for the start of a character split across writes, and writes the characters.
+     */
+    protected void decode(boolean endOfInput) throws IOException {
+        bytes.flip();
+        for (;;) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isOverflow())
+                drain();
+            else if (result.isError())
+                result.throwException();
+            else
+                break;
+        }
+        bytes.compact();
+        if (endOfInput)
+            while (decoder.flush(chars).isOverflow())
+                drain();
+        drain();
+    }
+
+    protected final void drain() throws IOException {
+        writer.write(chars.array(), 0, chars.position());
+        chars.clear();
+    }
+
+    public void flush() throws IOException {
+        decode(false);
+        writer.flush();
+    }
+
+    /**
+     * Writes the characters of all the bytes written.
+     */
+    public void finish() throws IOException {
+        decode(true);
+        writer.flush();
+    }
+
+    public void close() throws IOException {
+        finish();
+    }
+}
@@ -123,48 +123,72 @@ public class XMLStreamSerializer implements XMLStreamConstants {
      * @throws XMLStreamException
      */
     protected void serializeElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
-        String prefix = reader.getPrefix();
-        String nameSpaceName = reader.getNamespaceURI();
+        serializeStartElement(reader.getPrefix(), reader.getNamespaceURI(), reader.getLocalName(), writer);
+
+        // add the namespaces
+        serializeNamespaces(reader, writer);
+
+        // add attributes
+        serializeAttributes(reader, writer);
+
+    }
+
+    /**
+     * Writes the start tag of an element, declaring its namespace if the writer hasn't bound it.
+     * 
+     * @param prefix
+     * @param nameSpaceName
+     * @param localName
+     * @param writer
+     * @throws XMLStreamException
+     */
+    protected void serializeStartElement(String prefix, String nameSpaceName, String localName, XMLStreamWriter writer) throws XMLStreamException {
         if (nameSpaceName != null) {
             String writer_prefix = writer.getPrefix(nameSpaceName);
             if (writer_prefix != null) {
-                writer.writeStartElement(nameSpaceName, reader.getLocalName());
+                writer.writeStartElement(nameSpaceName, localName);
             } else {
                 if (prefix != null) {
-                    writer.writeStartElement(prefix, reader.getLocalName(), nameSpaceName);
+                    writer.writeStartElement(prefix, localName, nameSpaceName);
                     writer.writeNamespace(prefix, nameSpaceName);
                     writer.setPrefix(prefix, nameSpaceName);
                 } else {
-                    writer.writeStartElement(nameSpaceName, reader.getLocalName());
+                    writer.writeStartElement(nameSpaceName, localName);
                     writer.writeDefaultNamespace(nameSpaceName);
                     writer.setDefaultNamespace(nameSpaceName);
                 }
             }
         } else {
-            writer.writeStartElement(reader.getLocalName());
+            writer.writeStartElement(localName);
         }
+    }
 
+    /**
+     * @param reader
+     * @param writer
+     * @throws XMLStreamException
+     */
+    protected void serializeElementWithOptions(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        serializeStartElementWithOptions(reader.getPrefix(), reader.getNamespaceURI(), reader.getLocalName(), writer);
+ 
         // add the namespaces
-        int count = reader.getNamespaceCount();
-        String namespacePrefix;
-        for (int i = 0; i < count; i++) {
-            namespacePrefix = reader.getNamespacePrefix(i);
-            if (namespacePrefix != null && namespacePrefix.length() == 0)
-                continue;
-
-            serializeNamespace(namespacePrefix, reader.getNamespaceURI(i), writer);
-        }
+        serializeNamespaces(reader, writer);
 
         // add attributes
-        serializeAttributes(reader, writer);
-
+        serializeAttributes(reader, writer);    	
     }
+
     /**
-     * @param reader
+     * Writes the start tag of an element, and the line break, margin and indentation before it, declaring its namespace
+     * if the writer hasn't bound it.
+     * 
+     * @param prefix
+     * @param nameSpaceName
+     * @param localName
      * @param writer
      * @throws XMLStreamException
      */
-    protected void serializeElementWithOptions(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+    protected void serializeStartElementWithOptions(String prefix, String nameSpaceName, String localName, XMLStreamWriter writer) throws XMLStreamException {
     	++nest;
     	boolean brk=false;
     	if(oldNest != nest){
@@ -172,8 +196,6 @@ public class XMLStreamSerializer implements XMLStreamConstants {
     		oldNest = nest;    		
     	}
     	startElement(writer);
-        String prefix = reader.getPrefix();
-        String nameSpaceName = reader.getNamespaceURI();
         if (nameSpaceName != null) {
             String writer_prefix = writer.getPrefix(nameSpaceName);
             
@@ -185,20 +207,20 @@ public class XMLStreamSerializer implements XMLStreamConstants {
                 	breakLine(writer, false, true);
                 }
 
-                writer.writeStartElement(nameSpaceName, reader.getLocalName());                
+                writer.writeStartElement(nameSpaceName, localName);                
             } else {
                 if (prefix != null) {
                     if(brk && nest == 1){
                     	breakLine(writer, false, true);
                     }                    
-                    writer.writeStartElement(prefix, reader.getLocalName(), nameSpaceName);
+                    writer.writeStartElement(prefix, localName, nameSpaceName);
                     writer.writeNamespace(prefix, nameSpaceName);
                     writer.setPrefix(prefix, nameSpaceName);
                 } else {
                     if(brk && nest == 1){
                     	breakLine(writer, false, true);
                     }                                    	
-                    writer.writeStartElement(nameSpaceName, reader.getLocalName());
+                    writer.writeStartElement(nameSpaceName, localName);
                     writer.writeDefaultNamespace(nameSpaceName);
                     writer.setDefaultNamespace(nameSpaceName);
                     if(brk && nest == 1){
@@ -207,10 +229,18 @@ public class XMLStreamSerializer implements XMLStreamConstants {
                 }
             }
         } else {
-            writer.writeStartElement(reader.getLocalName());
+            writer.writeStartElement(localName);
         }
- 
-        // add the namespaces
+    }
+
+    /**
+     * Declares the namespaces of the current element that the writer hasn't bound.
+     * 
+     * @param reader
+     * @param writer
+     * @throws XMLStreamException
+     */
+    protected void serializeNamespaces(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
         int count = reader.getNamespaceCount();
         String namespacePrefix;
         for (int i = 0; i < count; i++) {
@@ -220,10 +250,8 @@ public class XMLStreamSerializer implements XMLStreamConstants {
 
             serializeNamespace(namespacePrefix, reader.getNamespaceURI(i), writer);
         }
-
-        // add attributes
-        serializeAttributes(reader, writer);    	
     }
+
     /**
      * Method serializeEndElement.
      * 
@@ -293,54 +321,59 @@ public class XMLStreamSerializer implements XMLStreamConstants {
     protected void serializeAttributes(XMLStreamReader reader, XMLStreamWriter writer)
         throws XMLStreamException {
         int count = reader.getAttributeCount();
-        String prefix = null;
-        String namespaceName = null;
-        String writerPrefix = null;
         for (int i = 0; i < count; i++) {
-            prefix = reader.getAttributePrefix(i);
-            namespaceName = reader.getAttributeNamespace(i);
-            if (namespaceName != null) {
-                writerPrefix = writer.getNamespaceContext().getPrefix(namespaceName);
-            }
+            serializeAttribute(reader.getAttributePrefix(i), reader.getAttributeNamespace(i), reader.getAttributeLocalName(i), reader
+                .getAttributeValue(i), writer);
+        }
+    }
 
-            if (!"".equals(namespaceName)) {
-                // prefix has already being declared but this particular attrib
-                // has a
-                // no prefix attached. So use the prefix provided by the writer
-                if (writerPrefix != null && (prefix == null || prefix.equals(""))) {
-                    writer.writeAttribute(writerPrefix,
-                                          namespaceName,
-                                          reader.getAttributeLocalName(i),
-                                          reader.getAttributeValue(i));
-
-                    // writer prefix is available but different from the current
-                    // prefix of the attrib. We should be decalring the new
-                    // prefix
-                    // as a namespace declaration
-                } else if (prefix != null && !"".equals(prefix) && !prefix.equals(writerPrefix)) {
-                    writer.writeNamespace(prefix, namespaceName);
-                    writer.writeAttribute(prefix, namespaceName, reader.getAttributeLocalName(i), reader
-                        .getAttributeValue(i));
-
-                    // prefix is null (or empty), but the namespace name is
-                    // valid! it has not
-                    // being written previously also. So we need to generate a
-                    // prefix
-                    // here
-                } else if (prefix == null || prefix.equals("")) {
-                    prefix = generateUniquePrefix(writer.getNamespaceContext());
-                    writer.writeNamespace(prefix, namespaceName);
-                    writer.writeAttribute(prefix, namespaceName, reader.getAttributeLocalName(i), reader
-                        .getAttributeValue(i));
-                } else {
-                    writer.writeAttribute(prefix, namespaceName, reader.getAttributeLocalName(i), reader
-                        .getAttributeValue(i));
-                }
+    /**
+     * Writes an attribute, declaring its namespace if the writer hasn't bound it.
+     * 
+     * @param prefix
+     * @param namespaceName
+     * @param localName
+     * @param value
+     * @param writer
+     * @throws XMLStreamException
+     */
+    protected void serializeAttribute(String prefix, String namespaceName, String localName, String value, XMLStreamWriter writer)
+        throws XMLStreamException {
+        String writerPrefix = null;
+        if (namespaceName != null) {
+            writerPrefix = writer.getNamespaceContext().getPrefix(namespaceName);
+        }
+
+        if (!"".equals(namespaceName)) {
+            // prefix has already being declared but this particular attrib
+            // has a
+            // no prefix attached. So use the prefix provided by the writer
+            if (writerPrefix != null && (prefix == null || prefix.equals(""))) {
+                writer.writeAttribute(writerPrefix, namespaceName, localName, value);
+
+                // writer prefix is available but different from the current
+                // prefix of the attrib. We should be decalring the new
+                // prefix
+                // as a namespace declaration
+            } else if (prefix != null && !"".equals(prefix) && !prefix.equals(writerPrefix)) {
+                writer.writeNamespace(prefix, namespaceName);
+                writer.writeAttribute(prefix, namespaceName, localName, value);
+
+                // prefix is null (or empty), but the namespace name is
+                // valid! it has not
+                // being written previously also. So we need to generate a
+                // prefix
+                // here
+            } else if (prefix == null || prefix.equals("")) {
+                prefix = generateUniquePrefix(writer.getNamespaceContext());
+                writer.writeNamespace(prefix, namespaceName);
+                writer.writeAttribute(prefix, namespaceName, localName, value);
             } else {
-                // empty namespace is equal to no namespace!
-                writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                writer.writeAttribute(prefix, namespaceName, localName, value);
             }
-
+        } else {
+            // empty namespace is equal to no namespace!
+            writer.writeAttribute(localName, value);
         }
     }
 
@@ -368,7 +401,7 @@ public class XMLStreamSerializer implements XMLStreamConstants {
      * @param writer
      * @throws XMLStreamException
      */
-    private void serializeNamespace(String prefix, String URI, XMLStreamWriter writer) throws XMLStreamException {
+    protected void serializeNamespace(String prefix, String URI, XMLStreamWriter writer) throws XMLStreamException {
         String prefix1 = writer.getPrefix(URI);
         if (prefix1 == null) {
             writer.writeNamespace(prefix, URI);
@@ -398,7 +431,7 @@ public class XMLStreamSerializer implements XMLStreamConstants {
         }
     }
 
-    private Map options;
+    protected Map options;
 
     static private final String STRING_OPTION = "String option";
     
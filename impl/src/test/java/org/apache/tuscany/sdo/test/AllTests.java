@@ -48,6 +48,12 @@ public class AllTests extends TestCase {
         suite.addTestSuite(MixedTypeTestCase.class);
         suite.addTestSuite(NeverStaleChangeSummaryTestCase.class);
         suite.addTestSuite(OpenTypeTestCase.class);
+        suite.addTestSuite(PathExpressionTestCase.class);
+        suite.addTestSuite(KeyIndexTestCase.class);
+        suite.addTestSuite(PropertyHandleTestCase.class);
+        suite.addTestSuite(PrimitiveSlotTestCase.class);
+        suite.addTestSuite(CompiledDataObjectTestCase.class);
+        suite.addTestSuite(LoadPlanTestCase.class);
         suite.addTestSuite(SchemaLocationTestCase.class);
         suite.addTestSuite(SerializeTypesTestCase.class);
         suite.addTestSuite(SimpleCopyTestCase.class);
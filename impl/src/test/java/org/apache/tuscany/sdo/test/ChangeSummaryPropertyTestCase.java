@@ -22,13 +22,16 @@ package org.apache.tuscany.sdo.test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.apache.tuscany.sdo.lib.SDOObjectOutputStream;
 import org.apache.tuscany.sdo.util.SDOUtil;
+import org.eclipse.emf.ecore.change.ChangeDescription;
 
 import commonj.sdo.ChangeSummary;
 import commonj.sdo.DataObject;
@@ -85,6 +88,14 @@ public class ChangeSummaryPropertyTestCase extends TestCase {
      * ChangeSummary property test.
      */
     protected final void change(String nameSpace, String beforeUndo, String afterUndo) throws Exception {
+        DataObject quote = changedQuote(nameSpace);
+        verify(quote.getChangeSummary(), quote, nameSpace, "stockQuote", beforeUndo, afterUndo);
+    }
+
+    /**
+     * Returns a quote with changes logged by its ChangeSummary, which is still logging.
+     */
+    protected final DataObject changedQuote(String nameSpace) {
         Type quoteType = hc.getTypeHelper().getType(nameSpace, "RootQuote");
         DataObject quote = dataFactory.create(quoteType);
         
@@ -122,7 +133,7 @@ public class ChangeSummaryPropertyTestCase extends TestCase {
 
         quote.getDataObject("quotes[2]").delete();
 
-        verify(cs, quote, nameSpace, "stockQuote", beforeUndo, afterUndo);
+        return quote;
     }
     
     /**
@@ -132,6 +143,77 @@ public class ChangeSummaryPropertyTestCase extends TestCase {
         change(TEST_NAMESPACE, TEST_DATA_BEFORE_UNDO, TEST_DATA_AFTER_UNDO);
     }
     
+    /**
+     * Binary round trip of a DataObject whose ChangeSummary is logging.
+     */
+    public void testBinaryChangeSummary() throws Exception {
+        DataObject quote = changedQuote(TEST_NAMESPACE);
+        ChangeSummary cs = quote.getChangeSummary();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SDOObjectOutputStream oos = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(baos, hc);
+        oos.setBinary(true);
+        oos.writeObject(quote);
+        oos.close();
+
+        // Writing doesn't summarize the change summary
+        assertTrue(cs.isLogging());
+        assertTrue(((ChangeDescription)cs).getObjectsToAttach().isEmpty());
+
+        ObjectInputStream ois = SDOUtil.createObjectInputStream(new ByteArrayInputStream(baos.toByteArray()), hc);
+        DataObject copy = (DataObject)ois.readObject();
+        ois.close();
+        ChangeSummary copyChanges = copy.getChangeSummary();
+        assertTrue(copyChanges.isLogging());
+        assertEquals(cs.getChangedDataObjects().size(), copyChanges.getChangedDataObjects().size());
+        copyChanges.endLogging();
+        copyChanges.undoChanges();
+        baos.reset();
+        xmlHelper.save(copy, TEST_NAMESPACE, "stockQuote", baos);
+        assertTrue(TestUtil.equalXmlFiles(new ByteArrayInputStream(baos.toByteArray()), getClass().getResource(TEST_DATA_AFTER_UNDO)));
+
+        verify(cs, quote, TEST_NAMESPACE, "stockQuote", TEST_DATA_BEFORE_UNDO, TEST_DATA_AFTER_UNDO);
+    }
+
+    /**
+     * Binary round trip of a DataObject whose ChangeSummary refers to an object moved into a container outside the tree.
+     */
+    public void testBinaryChangeSummaryMovedOut() throws Exception {
+        DataObject quote = changedQuote(TEST_NAMESPACE);
+        ChangeSummary cs = quote.getChangeSummary();
+        DataObject moved = quote.getDataObject("quotes[1]");
+        moved.setBigDecimal("price", new BigDecimal("1600.0"));
+        DataObject outside = dataFactory.create(TEST_NAMESPACE, "Quote");
+        outside.getList("quotes").add(moved);
+        assertTrue(cs.isDeleted(moved));
+
+        assertBinaryUndo(quote);
+        cs.endLogging();
+        assertBinaryUndo(quote);
+    }
+
+    /**
+     * Asserts that the binary copy of the quote undoes its changes to the expected document.
+     */
+    protected final void assertBinaryUndo(DataObject quote) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        SDOObjectOutputStream oos = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(baos, hc);
+        oos.setBinary(true);
+        oos.writeObject(quote);
+        oos.close();
+
+        ObjectInputStream ois = SDOUtil.createObjectInputStream(new ByteArrayInputStream(baos.toByteArray()), hc);
+        DataObject copy = (DataObject)ois.readObject();
+        ois.close();
+        ChangeSummary copyChanges = copy.getChangeSummary();
+        if (copyChanges.isLogging())
+            copyChanges.endLogging();
+        copyChanges.undoChanges();
+        baos.reset();
+        xmlHelper.save(copy, TEST_NAMESPACE, "stockQuote", baos);
+        assertTrue(TestUtil.equalXmlFiles(new ByteArrayInputStream(baos.toByteArray()), getClass().getResource(TEST_DATA_AFTER_UNDO)));
+    }
+
     static final String SequenceTest_NameSpace = "http://www.example.com/sequenceCS";
 
     /**
@@ -190,6 +272,59 @@ public class ChangeSummaryPropertyTestCase extends TestCase {
         verify(cs, quote, SequenceTest_NameSpace, SequenceTest_ELEMENT, "/openChangeSummary.xml", "/openChangeSummaryUndone.xml");
     }
 
+    /**
+     * Queries interleaved with changes answer as the consolidated change summary does.
+     */
+    public void testInterleavedQueries() throws Exception {
+        Type quoteType = hc.getTypeHelper().getType(TEST_NAMESPACE, "RootQuote");
+        DataObject quote = dataFactory.create(quoteType);
+        quote.setString("symbol", "fbnt");
+        DataObject deleted = quote.createDataObject("quotes");
+        DataObject deletedChild = deleted.createDataObject("quotes");
+        DataObject kept = quote.createDataObject("quotes");
+
+        ChangeSummary cs = quote.getChangeSummary();
+        cs.beginLogging();
+
+        DataObject created = null;
+        for (int i = 0; i < 10; i++) {
+            created = quote.createDataObject("quotes");
+            created.setBigDecimal("price", new BigDecimal(i));
+            assertTrue(cs.isCreated(created));
+            assertFalse(cs.isModified(created));
+            assertTrue(cs.isModified(quote));
+        }
+        DataObject createdChild = created.createDataObject("quotes");
+        assertTrue(cs.isCreated(createdChild));
+
+        quote.setString("symbol", "FBNT");
+        assertEquals("fbnt", cs.getOldValue(quote, quote.getType().getProperty("symbol")).getValue());
+        kept.setBigDecimal("price", new BigDecimal("1.5"));
+        assertTrue(cs.isModified(kept));
+
+        deleted.delete();
+        assertTrue(cs.isDeleted(deleted));
+        assertTrue(cs.isDeleted(deletedChild));
+        assertFalse(cs.isDeleted(kept));
+        assertFalse(cs.isCreated(kept));
+
+        List changed = cs.getChangedDataObjects();
+        assertTrue(changed.contains(deleted));
+        assertTrue(changed.contains(deletedChild));
+        assertTrue(changed.contains(created));
+        assertTrue(changed.contains(createdChild));
+        assertTrue(changed.contains(kept));
+        assertEquals(3, ((List)cs.getOldValue(quote, quote.getType().getProperty("quotes")).getValue()).size());
+
+        cs.endLogging();
+        assertTrue(cs.isCreated(created));
+        assertTrue(cs.isDeleted(deleted));
+        assertTrue(cs.isDeleted(deletedChild));
+        assertTrue(cs.isModified(kept));
+        assertEquals("fbnt", cs.getOldValue(quote, quote.getType().getProperty("symbol")).getValue());
+        assertEquals(3, ((List)cs.getOldValue(quote, quote.getType().getProperty("quotes")).getValue()).size());
+    }
+
     private DataObject addQuote(List openStockQuotes, Type quoteType,
             Object value) {
         DataObject osq = dataFactory.create(quoteType);
@@ -0,0 +1,211 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.PropertyHandle;
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.apache.tuscany.sdo.impl.CompiledDataObjectImpl;
+
+import commonj.sdo.ChangeSummary;
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+import commonj.sdo.helper.TypeHelper;
+
+/**
+ * Tests dynamic DataObjects of compiled types, whose properties are stored in the fields of a class generated at runtime.
+ */
+public class CompiledDataObjectTestCase extends TestCase {
+
+    private static final String NAMESPACE = "http://www.example.com/compiled";
+
+    HelperContext hc;
+    Type positionType;
+    Property quantityProperty;
+    Property priceProperty;
+    Property activeProperty;
+    Property codeProperty;
+    Property ratioProperty;
+    Property nameProperty;
+    Property tagsProperty;
+    Property legsProperty;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+        TypeHelper th = hc.getTypeHelper();
+
+        positionType = SDOUtil.createType(hc, NAMESPACE, "Position", false);
+        quantityProperty = SDOUtil.createProperty(positionType, "quantity", th.getType("commonj.sdo", "Int"));
+        priceProperty = SDOUtil.createProperty(positionType, "price", th.getType("commonj.sdo", "Double"));
+        activeProperty = SDOUtil.createProperty(positionType, "active", th.getType("commonj.sdo", "Boolean"));
+        codeProperty = SDOUtil.createProperty(positionType, "code", th.getType("commonj.sdo", "Character"));
+        ratioProperty = SDOUtil.createProperty(positionType, "ratio", th.getType("commonj.sdo", "Float"));
+        nameProperty = SDOUtil.createProperty(positionType, "name", th.getType("commonj.sdo", "String"));
+        tagsProperty = SDOUtil.createProperty(positionType, "tags", th.getType("commonj.sdo", "String"));
+        SDOUtil.setMany(tagsProperty, true);
+        legsProperty = SDOUtil.createProperty(positionType, "legs", positionType);
+        SDOUtil.setMany(legsProperty, true);
+        SDOUtil.setContainment(legsProperty, true);
+        SDOUtil.createProperty(positionType, "changeSummary", th.getType("commonj.sdo", "ChangeSummaryType"));
+
+        Type portfolioType = SDOUtil.createType(hc, NAMESPACE, "Portfolio", false);
+        Property positionsProperty = SDOUtil.createProperty(portfolioType, "position", positionType);
+        SDOUtil.setMany(positionsProperty, true);
+        SDOUtil.setContainment(positionsProperty, true);
+        SDOUtil.createOpenContentProperty(hc, NAMESPACE, "portfolio", portfolioType);
+    }
+
+    protected DataObject createPosition(int quantity) {
+        DataObject position = hc.getDataFactory().create(positionType);
+        position.setInt(quantityProperty, quantity);
+        position.setDouble(priceProperty, 12.5);
+        position.setBoolean(activeProperty, true);
+        position.setChar(codeProperty, 'x');
+        position.setFloat(ratioProperty, 0.25f);
+        position.setString(nameProperty, "fbnt");
+        position.getList(tagsProperty).add("a");
+        position.getList(tagsProperty).add("b");
+        return position;
+    }
+
+    public void testCompile() {
+        DataObject dynamic = createPosition(5);
+        assertFalse(dynamic instanceof CompiledDataObjectImpl);
+
+        assertTrue(SDOUtil.compileType(positionType));
+        assertTrue(SDOUtil.compileType(positionType));
+        assertNull(((ClassImpl)positionType).getCompileFailure());
+        DataObject compiled = createPosition(5);
+        assertTrue(compiled instanceof CompiledDataObjectImpl);
+        assertNotSame(compiled, createPosition(5));
+        assertSame(positionType, compiled.getType());
+        assertTrue(hc.getEqualityHelper().equal(dynamic, compiled));
+
+        assertFalse(SDOUtil.compileType(hc.getTypeHelper().getType("commonj.sdo", "Int")));
+    }
+
+    public void testGetSet() {
+        assertTrue(SDOUtil.compileType(positionType));
+        DataObject position = hc.getDataFactory().create(positionType);
+        assertEquals(0, position.getInt(quantityProperty));
+        assertEquals(0.0, position.getDouble(priceProperty), 0);
+        assertFalse(position.getBoolean(activeProperty));
+        assertNull(position.get(nameProperty));
+        assertTrue(position.getList(tagsProperty).isEmpty());
+
+        position = createPosition(-5);
+        assertEquals(-5, position.getInt(quantityProperty));
+        assertEquals(new Integer(-5), position.get(quantityProperty));
+        assertEquals(12.5, position.getDouble(priceProperty), 0);
+        assertEquals(Boolean.TRUE, position.get(activeProperty));
+        assertEquals('x', position.getChar(codeProperty));
+        assertEquals(0.25f, position.getFloat(ratioProperty), 0);
+        assertEquals("fbnt", position.getString(nameProperty));
+        assertEquals("12.5", position.getString(priceProperty));
+        assertEquals("b", position.getList(tagsProperty).get(1));
+
+        DataObject leg = position.createDataObject(legsProperty);
+        leg.setInt(quantityProperty, 3);
+        assertSame(position, leg.getContainer());
+        assertEquals(3, position.getInt("legs.0/quantity"));
+    }
+
+    public void testPropertyHandles() {
+        assertTrue(SDOUtil.compileType(positionType));
+        DataObject position = createPosition(1);
+        PropertyHandle quantity = SDOUtil.getPropertyHandle(positionType, quantityProperty);
+        PropertyHandle price = SDOUtil.getPropertyHandle(positionType, priceProperty);
+        PropertyHandle code = SDOUtil.getPropertyHandle(positionType, codeProperty);
+
+        assertEquals(1, quantity.getInt(position));
+        quantity.setInt(position, 42);
+        price.setDouble(position, 7.5);
+        code.setChar(position, 'q');
+        assertEquals(42, position.getInt(quantityProperty));
+        assertEquals(7.5, position.getDouble(priceProperty), 0);
+        assertEquals('q', position.getChar(codeProperty));
+        assertEquals(42, quantity.getInt(position));
+    }
+
+    public void testIsSetAndUnset() {
+        assertTrue(SDOUtil.compileType(positionType));
+        DataObject position = hc.getDataFactory().create(positionType);
+        assertFalse(position.isSet(quantityProperty));
+        assertFalse(position.isSet(nameProperty));
+        position.setInt(quantityProperty, 3);
+        position.setString(nameProperty, "set");
+        assertTrue(position.isSet(quantityProperty));
+        assertTrue(position.isSet(nameProperty));
+        position.unset(quantityProperty);
+        position.unset(nameProperty);
+        assertFalse(position.isSet(quantityProperty));
+        assertFalse(position.isSet(nameProperty));
+        assertEquals(0, position.getInt(quantityProperty));
+    }
+
+    public void testChangeSummary() {
+        assertTrue(SDOUtil.compileType(positionType));
+        DataObject position = createPosition(1);
+
+        ChangeSummary changeSummary = position.getChangeSummary();
+        changeSummary.beginLogging();
+        position.setInt(quantityProperty, 10);
+        position.setString(nameProperty, "changed");
+        position.getList(tagsProperty).remove(0);
+        position.unset(activeProperty);
+
+        assertEquals(new Integer(1), changeSummary.getOldValue(position, quantityProperty).getValue());
+        assertEquals("fbnt", changeSummary.getOldValue(position, nameProperty).getValue());
+
+        changeSummary.undoChanges();
+        assertEquals(1, position.getInt(quantityProperty));
+        assertEquals("fbnt", position.getString(nameProperty));
+        assertEquals(2, position.getList(tagsProperty).size());
+        assertTrue(position.getBoolean(activeProperty));
+    }
+
+    public void testCopyAndXML() throws Exception {
+        assertTrue(SDOUtil.compileType(positionType));
+        DataObject portfolio = hc.getDataFactory().create(NAMESPACE, "Portfolio");
+        List positions = portfolio.getList("position");
+        for (int i = 0; i < 3; i++) {
+            DataObject position = createPosition(i);
+            position.createDataObject(legsProperty).setInt(quantityProperty, i * 10);
+            positions.add(position);
+        }
+
+        DataObject copy = hc.getCopyHelper().copy(portfolio);
+        assertTrue(copy.getDataObject("position.1") instanceof CompiledDataObjectImpl);
+        assertTrue(hc.getEqualityHelper().equal(portfolio, copy));
+
+        String xml = hc.getXMLHelper().save(portfolio, NAMESPACE, "portfolio");
+        DataObject loaded = hc.getXMLHelper().load(xml).getRootObject();
+        assertTrue(loaded.getDataObject("position.2") instanceof CompiledDataObjectImpl);
+        assertEquals(20, loaded.getInt("position.2/legs.0/quantity"));
+        assertTrue(hc.getEqualityHelper().equal(portfolio, loaded));
+    }
+}
@@ -19,9 +19,15 @@
  */
 package org.apache.tuscany.sdo.test;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import junit.framework.TestCase;
 
@@ -252,6 +258,43 @@ public class DataGraphTestCase extends TestCase {
         assertNull(quoteType);
     }
     
+    /**
+     * saveDataGraph to a channel and loadDataGraph from a mapped file and a buffer.
+     */
+    public void testChannelRoundTrip() throws IOException {
+        DataGraph dataGraph = SDOUtil.createDataGraph();
+        DataObject quote = dataGraph.createRootObject("http://www.example.com/simple", "Quote");
+        quote.setString("symbol", "fbnt");
+        quote.setBigDecimal("price", new BigDecimal("1000.0"));
+
+        File file = File.createTempFile("datagraph", ".xml");
+        try {
+            FileOutputStream outputStream = new FileOutputStream(file);
+            try {
+                org.apache.tuscany.sdo.api.SDOUtil.saveDataGraph(dataGraph, outputStream.getChannel(), null);
+            } finally {
+                outputStream.close();
+            }
+
+            FileInputStream inputStream = new FileInputStream(file);
+            try {
+                FileChannel channel = inputStream.getChannel();
+                DataGraph loaded = org.apache.tuscany.sdo.api.SDOUtil.loadDataGraph(channel, null, null);
+                assertEquals("fbnt", loaded.getRootObject().getString("symbol"));
+                assertEquals(0, channel.position());
+
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                loaded = org.apache.tuscany.sdo.api.SDOUtil.loadDataGraph(buffer, null, null);
+                assertEquals(new BigDecimal("1000.0"), loaded.getRootObject().getBigDecimal("price"));
+                assertEquals(0, buffer.position());
+            } finally {
+                inputStream.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
     protected void setUp() throws Exception {
         super.setUp();
 
@@ -0,0 +1,96 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import commonj.sdo.helper.DataHelper;
+
+/**
+ * Measures the throughput of date conversions, from one thread up to one thread per processor.
+ * All threads share the DataHelper, so any loss of scaling comes from state shared by the conversions.
+ */
+public class DataHelperPerformanceTestCase extends TestCase {
+
+    private static final int ITERATIONS = 50000;
+
+    DataHelper dataHelper = DataHelper.INSTANCE;
+
+    protected void convert(long base, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            Date date = new Date(base + i * 1000L);
+            String dateTime = dataHelper.toDateTime(date);
+            assertEquals(date, dataHelper.toDate(dateTime));
+            assertNotNull(dataHelper.toDate(dataHelper.toYearMonthDay(date)));
+        }
+    }
+
+    /**
+     * Runs the conversion loop on the specified number of threads and returns the overall throughput in conversions per second.
+     */
+    protected long run(int threadCount) throws Exception {
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final long base = 1000000000000L + t * 86400000L;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        convert(base, ITERATIONS);
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        if (failure[0] != null) {
+            fail("date conversion failed on " + threadCount + " threads: " + failure[0]);
+        }
+        return 4L * ITERATIONS * threadCount * 1000 / elapsed;
+    }
+
+    public void testConcurrentDateConversion() throws Exception {
+        // warm up
+        convert(0, ITERATIONS);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threadCount = 1; ; threadCount *= 2) {
+            if (threadCount > processors) {
+                threadCount = processors;
+            }
+            System.out.println("Date conversion, " + threadCount + " thread(s): " + run(threadCount) + " conversions/second");
+            if (threadCount == processors) {
+                break;
+            }
+        }
+    }
+}
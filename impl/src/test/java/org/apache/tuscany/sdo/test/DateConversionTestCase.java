@@ -20,9 +20,11 @@
 package org.apache.tuscany.sdo.test;
 
 import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
 
 import junit.framework.TestCase;
 
@@ -376,5 +378,76 @@ public class DateConversionTestCase extends TestCase
       assertEquals("2007-02-04T00:00:00.200Z", date);
   }
 
-}
+    // The UTC dateTime form is parsed and formatted without SimpleDateFormat;
+    // ensure the results are the same as those of the patterns it replaces.
+
+    public void testUTCDateTimeMatchesSimpleDateFormat() throws Exception
+    {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'.'SSS'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        SimpleDateFormat fractionParser = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'.'S'Z'");
+        fractionParser.setTimeZone(TimeZone.getTimeZone("UTC"));
+        SimpleDateFormat parser = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        parser.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        long[] times = { 0L, 1L, -1L, 1170547200200L, 951782399999L, 4102444800000L, -12212553600000L, -12219292800001L, -62135596800000L };
+        for (int i = 0; i < times.length; i++)
+        {
+            Date date = new Date(times[i]);
+            assertEquals(format.format(date), data_helper.toDateTime(date));
+        }
+
+        String[] fractionStrings = { "2006-03-31T03:30:45.123Z", "2006-03-31T03:30:45.1Z", "2008-02-29T23:59:59.07Z",
+            "2006-03-31T03:30:45.123456Z", "2006-13-31T03:30:45.1Z", "1492-10-12T00:00:00.0Z" };
+        for (int i = 0; i < fractionStrings.length; i++)
+        {
+            assertEquals(fractionStrings[i], fractionParser.parse(fractionStrings[i]), data_helper.toDate(fractionStrings[i]));
+        }
+
+        String[] strings = { "2006-03-31T03:30:45Z", "2007-02-29T00:00:00Z", "1999-12-31T24:00:00Z", "0999-01-01T00:00:00Z" };
+        for (int i = 0; i < strings.length; i++)
+        {
+            assertEquals(strings[i], parser.parse(strings[i]), data_helper.toDate(strings[i]));
+        }
+    }
 
+    public void testConcurrentConversions() throws Exception
+    {
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++)
+        {
+            final long base = 1000000000000L + t * 86400000L * 31;
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i < 2000; i++)
+                        {
+                            Date date = new Date(base + i * 3600007L);
+                            assertEquals(date, data_helper.toDate(data_helper.toDateTime(date)));
+                            Date day = data_helper.toDate(data_helper.toYearMonthDay(date));
+                            assertNotNull(day);
+                        }
+                    }
+                    catch (Throwable e)
+                    {
+                        failure[0] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++)
+        {
+            threads[t].join();
+        }
+        if (failure[0] != null)
+        {
+            fail("concurrent conversion failed: " + failure[0]);
+        }
+    }
+
+}
@@ -0,0 +1,165 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.PropertyHandle;
+import org.apache.tuscany.sdo.api.SDOUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+import commonj.sdo.helper.TypeHelper;
+
+/**
+ * Compares the memory footprint and the get/set throughput of dynamic DataObjects whose numeric properties
+ * have primitive types, which are stored in packed primitive slots, with the same DataObjects using the
+ * wrapper types, which are stored as boxed values, and with DataObjects of a compiled type, which are stored in fields.
+ */
+public class DynamicStoragePerformanceTestCase extends TestCase {
+
+    private static final String[] NAMES = new String[] { "quantity", "id", "price", "cost", "active", "rank", "weight", "yield" };
+    private static final String[] PRIMITIVE_TYPES = new String[] { "Int", "Long", "Double", "Double", "Boolean", "Int", "Double", "Double" };
+    private static final String[] WRAPPER_TYPES = new String[] { "IntObject", "LongObject", "DoubleObject", "DoubleObject", "BooleanObject", "IntObject", "DoubleObject", "DoubleObject" };
+
+    private static final int OBJECTS = 100000;
+    private static final int ITERATIONS = 2000000;
+
+    HelperContext hc;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+    }
+
+    protected Type defineType(String name, String uri, String[] typeNames) {
+        TypeHelper th = hc.getTypeHelper();
+        Type type = SDOUtil.createType(hc, "http://www.example.com/storage", name, false);
+        for (int i = 0; i < NAMES.length; i++) {
+            SDOUtil.createProperty(type, NAMES[i], th.getType(uri, typeNames[i]));
+        }
+        return type;
+    }
+
+    protected DataObject create(Type type, int seed) {
+        DataObject dataObject = hc.getDataFactory().create(type);
+        dataObject.setInt(NAMES[0], seed);
+        dataObject.setLong(NAMES[1], seed * 31L);
+        dataObject.setDouble(NAMES[2], seed * 0.5);
+        dataObject.setDouble(NAMES[3], seed * 0.25);
+        dataObject.setBoolean(NAMES[4], (seed & 1) == 0);
+        dataObject.setInt(NAMES[5], seed % 100);
+        dataObject.setDouble(NAMES[6], seed * 1.5);
+        dataObject.setDouble(NAMES[7], seed * 0.01);
+        return dataObject;
+    }
+
+    protected static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Returns the approximate number of bytes of heap retained by each DataObject of the type.
+     */
+    protected long bytesPerObject(Type type) {
+        DataObject[] dataObjects = new DataObject[OBJECTS];
+        long before = usedMemory();
+        for (int i = 0; i < OBJECTS; i++) {
+            dataObjects[i] = create(type, i);
+        }
+        long after = usedMemory();
+        assertEquals(OBJECTS - 1, dataObjects[OBJECTS - 1].getInt(NAMES[0]));
+        return (after - before) / OBJECTS;
+    }
+
+    /**
+     * Returns the throughput, in get/set pairs per second, of the primitive accessors.
+     */
+    protected long accessRate(Type type) {
+        DataObject dataObject = create(type, 1);
+        Property quantity = type.getProperty(NAMES[0]);
+        Property price = type.getProperty(NAMES[2]);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ITERATIONS; i++) {
+            dataObject.setInt(quantity, dataObject.getInt(quantity) + 1);
+            dataObject.setDouble(price, dataObject.getDouble(price) + 0.5);
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        assertEquals(ITERATIONS + 1, dataObject.getInt(quantity));
+        return 2L * ITERATIONS * 1000 / elapsed;
+    }
+
+    /**
+     * Returns the throughput, in get/set pairs per second, of the primitive accessors of PropertyHandles.
+     */
+    protected long handleAccessRate(Type type) {
+        DataObject dataObject = create(type, 1);
+        PropertyHandle quantity = SDOUtil.getPropertyHandle(type, type.getProperty(NAMES[0]));
+        PropertyHandle price = SDOUtil.getPropertyHandle(type, type.getProperty(NAMES[2]));
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ITERATIONS; i++) {
+            quantity.setInt(dataObject, quantity.getInt(dataObject) + 1);
+            price.setDouble(dataObject, price.getDouble(dataObject) + 0.5);
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        assertEquals(ITERATIONS + 1, quantity.getInt(dataObject));
+        return 2L * ITERATIONS * 1000 / elapsed;
+    }
+
+    public void testPrimitiveStorage() {
+        Type primitiveType = defineType("PrimitivePosition", "commonj.sdo", PRIMITIVE_TYPES);
+        Type wrapperType = defineType("WrapperPosition", "commonj.sdo/java", WRAPPER_TYPES);
+
+        // warm up
+        accessRate(primitiveType);
+        accessRate(wrapperType);
+
+        System.out.println("Dynamic DataObject with " + NAMES.length + " primitive properties: "
+            + bytesPerObject(primitiveType) + " bytes/object, " + accessRate(primitiveType) + " get/set pairs/second");
+        System.out.println("Dynamic DataObject with " + NAMES.length + " wrapper properties: "
+            + bytesPerObject(wrapperType) + " bytes/object, " + accessRate(wrapperType) + " get/set pairs/second");
+    }
+
+    public void testCompiledStorage() {
+        Type dynamicType = defineType("DynamicPosition", "commonj.sdo", PRIMITIVE_TYPES);
+        Type compiledType = defineType("CompiledPosition", "commonj.sdo", PRIMITIVE_TYPES);
+        if (!SDOUtil.compileType(compiledType)) {
+            System.out.println("Bytecode generation isn't available, skipping the compiled DataObject measurements");
+            return;
+        }
+
+        // warm up
+        handleAccessRate(dynamicType);
+        handleAccessRate(compiledType);
+
+        System.out.println("Dynamic DataObject with " + NAMES.length + " primitive properties: "
+            + bytesPerObject(dynamicType) + " bytes/object, " + accessRate(dynamicType) + " get/set pairs/second, "
+            + handleAccessRate(dynamicType) + " handle get/set pairs/second");
+        System.out.println("Compiled DataObject with " + NAMES.length + " primitive properties: "
+            + bytesPerObject(compiledType) + " bytes/object, " + accessRate(compiledType) + " get/set pairs/second, "
+            + handleAccessRate(compiledType) + " handle get/set pairs/second");
+    }
+}
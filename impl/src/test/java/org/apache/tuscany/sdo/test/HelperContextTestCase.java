@@ -19,10 +19,26 @@
  */
 package org.apache.tuscany.sdo.test;
 
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import junit.framework.TestCase;
 
+import org.apache.tuscany.sdo.api.SDOHelper;
+import org.apache.tuscany.sdo.helper.HelperContextImpl;
+import org.apache.tuscany.sdo.helper.SDOExtendedMetaDataImpl;
+import org.apache.tuscany.sdo.helper.XMLResourcePool;
 import org.apache.tuscany.sdo.util.SDOUtil;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 
+import commonj.sdo.DataObject;
+import commonj.sdo.Type;
 import commonj.sdo.helper.CopyHelper;
 import commonj.sdo.helper.DataFactory;
 import commonj.sdo.helper.DataHelper;
@@ -71,5 +87,137 @@ public class HelperContextTestCase extends TestCase {
     assertNotSame(hc.getXSDHelper(), XSDHelper.INSTANCE);
     // the other "stateless" helpers may be the same as the singletons
   }
+  
+  public void testSealedHelperContext() throws Exception {
+    HelperContext hc = SDOUtil.createHelperContext();
+    URL url = getClass().getResource("/simple.xsd");
+    InputStream inputStream = url.openStream();
+    hc.getXSDHelper().define(inputStream, url.toString());
+    inputStream.close();
+
+    HelperContextImpl helperContextImpl = (HelperContextImpl)hc;
+    assertFalse(helperContextImpl.isSealed());
+    helperContextImpl.seal();
+    assertTrue(helperContextImpl.isSealed());
+
+    Type quoteType = hc.getTypeHelper().getType("http://www.example.com/simple", "Quote");
+    assertNotNull(quoteType.getProperty("symbol"));
+    assertNull(quoteType.getProperty("unknown"));
+    assertSame(quoteType.getProperties(), quoteType.getProperties());
+    assertEquals(9, quoteType.getProperties().size());
+
+    DataObject quote = hc.getDataFactory().create(quoteType);
+    quote.setString("symbol", "fbnt");
+    quote.createDataObject("quotes").setString("symbol", "child");
+    String xml = hc.getXMLHelper().save(quote, "http://www.example.com/simple", "stockQuote");
+    DataObject loaded = hc.getXMLHelper().load(xml).getRootObject();
+    assertEquals("child", loaded.getString("quotes.0/symbol"));
+
+    try {
+      hc.getXSDHelper().define(getClass().getResourceAsStream("/simple.xsd"), url.toString());
+      fail("a sealed HelperContext should reject type definition");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      SDOUtil.createType(hc.getTypeHelper(), "http://www.example.com/sealed", "Other", false);
+      fail("a sealed HelperContext should reject type definition");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      SDOUtil.createProperty(quoteType, "extra", quoteType);
+      fail("a sealed Type should reject new properties");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    ExtendedMetaData extendedMetaData = helperContextImpl.getExtendedMetaData();
+    assertNotNull(extendedMetaData.demandFeature("http://www.example.com/simple", "stockQuote", true));
+    try {
+      extendedMetaData.demandFeature("http://www.example.com/simple", "unknown", true);
+      fail("a sealed package should reject demand created features");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    assertNull(extendedMetaData.getPackage("http://www.example.com/unsealed"));
+    try {
+      extendedMetaData.demandFeature("http://www.example.com/unsealed", "unknown", true);
+      fail("sealed metadata should reject demand created packages");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  public void testXMLResourcePool() throws Exception {
+    HelperContext hc = SDOUtil.createHelperContext();
+    URL url = getClass().getResource("/simple.xsd");
+    InputStream inputStream = url.openStream();
+    hc.getXSDHelper().define(inputStream, url.toString());
+    inputStream.close();
+
+    HelperContextImpl helperContextImpl = (HelperContextImpl)hc;
+    assertNotNull(helperContextImpl.getXMLResourcePool());
+    assertSame(helperContextImpl.getXMLResourcePool(), helperContextImpl.getXMLResourcePool());
+    assertNotSame(helperContextImpl.getXMLResourcePool(), ((HelperContextImpl)SDOUtil.createHelperContext()).getXMLResourcePool());
+
+    DataObject quote = hc.getDataFactory().create("http://www.example.com/simple", "Quote");
+    quote.setString("symbol", "fbnt");
+    quote.createDataObject("quotes").setString("symbol", "child");
+    for (int i = 0; i < 3; i++) {
+      String xml = hc.getXMLHelper().save(quote, "http://www.example.com/simple", "stockQuote");
+      DataObject loaded = hc.getXMLHelper().load(xml).getRootObject();
+      assertEquals("child", loaded.getString("quotes.0/symbol"));
+    }
+
+    // loads with the context's metadata share its schema cache, and loads with other metadata share one cache per metadata
+    XMLResourcePool pool = helperContextImpl.getXMLResourcePool();
+    assertSame(pool.getSchemaCache(), pool.getSchemaCache(helperContextImpl.getExtendedMetaData()));
+    ExtendedMetaData otherMetaData = new SDOExtendedMetaDataImpl();
+    assertNotNull(pool.getSchemaCache(otherMetaData));
+    assertNotSame(pool.getSchemaCache(), pool.getSchemaCache(otherMetaData));
+    assertSame(pool.getSchemaCache(otherMetaData), pool.getSchemaCache(otherMetaData));
+
+    Map options = new HashMap();
+    options.put(SDOHelper.XMLOptions.XML_POOL, Boolean.FALSE);
+    assertNull(((HelperContextImpl)org.apache.tuscany.sdo.api.SDOUtil.createHelperContext(options)).getXMLResourcePool());
+  }
+
+  /**
+   * A save only reuses the lookup table of a save with the same options.
+   */
+  public void testXMLResourcePoolLookupTables() {
+    XMLResourcePool pool = new XMLResourcePool();
+    Map saveOptions = pool.acquireSaveOptions(null);
+    Object lookupTable = saveOptions.get(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE);
+    pool.release(saveOptions);
+
+    Map options = new HashMap();
+    options.put(XMLResource.OPTION_DECLARE_XML, Boolean.FALSE);
+    Map otherSaveOptions = pool.acquireSaveOptions(options);
+    assertNotSame(lookupTable, otherSaveOptions.get(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE));
+    pool.release(otherSaveOptions);
+
+    assertSame(lookupTable, pool.acquireSaveOptions(new HashMap()).get(XMLResource.OPTION_USE_CACHED_LOOKUP_TABLE));
+  }
+
+  /**
+   * The pool keeps a direct buffer per processor and lets the others given back be collected.
+   */
+  public void testXMLResourcePoolBuffers() {
+    XMLResourcePool pool = new XMLResourcePool();
+    int maxBuffers = Runtime.getRuntime().availableProcessors();
+    ByteBuffer[] released = new ByteBuffer[maxBuffers + 1];
+    for (int i = 0; i < released.length; i++)
+      released[i] = pool.acquireBuffer();
+    for (int i = 0; i < released.length; i++)
+      pool.release(released[i]);
+
+    List kept = Arrays.asList(released).subList(0, maxBuffers);
+    for (int i = 0; i < maxBuffers; i++)
+      assertTrue(kept.contains(pool.acquireBuffer()));
+    ByteBuffer buffer = pool.acquireBuffer();
+    assertFalse(Arrays.asList(released).contains(buffer));
+    assertEquals(XMLResourcePool.BUFFER_SIZE, buffer.remaining());
+  }
 
 }
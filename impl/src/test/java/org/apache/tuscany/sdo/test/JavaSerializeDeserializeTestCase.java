@@ -21,14 +21,21 @@ package org.apache.tuscany.sdo.test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.apache.tuscany.sdo.lib.SDOObjectOutputStream;
 import org.apache.tuscany.sdo.util.SDOUtil;
 
 import commonj.sdo.DataGraph;
@@ -114,6 +121,211 @@ public class JavaSerializeDeserializeTestCase extends TestCase
     }
 	
         
+    static final String[] DATA_TYPES = { "Boolean", "BooleanObject", "Byte", "ByteObject", "Bytes", "Character", "CharacterObject",
+        "Date", "DateTime", "Day", "Decimal", "Double", "DoubleObject", "Duration", "Float", "FloatObject", "Int", "IntObject", "Integer",
+        "Long", "LongObject", "Month", "MonthDay", "Object", "Short", "ShortObject", "String", "Strings", "Time", "URI", "Year",
+        "YearMonth", "YearMonthDay" };
+
+    static final Object[] DATA_VALUES = { Boolean.TRUE, Boolean.FALSE, new Byte((byte)-7), new Byte(Byte.MAX_VALUE), new byte[] { 0, -1, 2 },
+        new Character('\u6771'), new Character('x'), new Date(1000000000000L), "2001-10-26T21:32:52", "---05",
+        new BigDecimal("-12345.678900"), new Double(-1.5e300), new Double(Double.MIN_VALUE), "P1Y2M", new Float(3.25f), new Float(-0.5f),
+        new Integer(Integer.MIN_VALUE), new Integer(-1), new BigInteger("-123456789012345678901234567890"), new Long(Long.MAX_VALUE),
+        new Long(-2), "--10", "--10-26", "object", new Short(Short.MIN_VALUE), new Short((short)300), "Fl\u00fcgel",
+        Arrays.asList(new String[] { "one", "two" }), "21:32:52", "http://www.example.com/api_test", "2001", "2001-10", "2001-10-26" };
+
+    /**
+     * Defines a Type with a property of each SDO DataType, a many-valued Int property, contained children and a reference.
+     */
+    Type defineBinaryType(HelperContext hc)
+    {
+        TypeHelper types = hc.getTypeHelper();
+        DataObject testType = hc.getDataFactory().create("commonj.sdo", "Type");
+        testType.set("uri", "http://www.example.com/binary_test");
+        testType.set("name", "BinaryTest");
+        for (int i = 0; i < DATA_TYPES.length; i++)
+        {
+            DataObject property = testType.createDataObject("property");
+            property.set("name", "value" + DATA_TYPES[i]);
+            property.set("type", types.getType("commonj.sdo", DATA_TYPES[i]));
+        }
+        DataObject ints = testType.createDataObject("property");
+        ints.set("name", "ints");
+        ints.set("type", types.getType("commonj.sdo", "Int"));
+        ints.setBoolean("many", true);
+        DataObject children = testType.createDataObject("property");
+        children.set("name", "children");
+        children.set("type", testType);
+        children.setBoolean("many", true);
+        children.setBoolean("containment", true);
+        DataObject partner = testType.createDataObject("property");
+        partner.set("name", "partner");
+        partner.set("type", testType);
+        return types.define(testType);
+    }
+
+    DataObject binaryRoundTrip(DataObject dataObject, HelperContext hc) throws IOException, ClassNotFoundException
+    {
+        return (DataObject)serializeBinary(dataObject, hc);
+    }
+
+    public void testBinaryDataTypes() throws Exception
+    {
+        HelperContext hc = SDOUtil.createHelperContext();
+        Type type = defineBinaryType(hc);
+        DataObject original = hc.getDataFactory().create(type);
+        for (int i = 0; i < DATA_TYPES.length; i++)
+            original.set("value" + DATA_TYPES[i], DATA_VALUES[i]);
+        original.getList("ints").addAll(Arrays.asList(new Integer[] { new Integer(0), new Integer(-64), new Integer(Integer.MAX_VALUE) }));
+
+        DataObject copy = binaryRoundTrip(original, hc);
+        assertNotSame(original, copy);
+        assertTrue(hc.getEqualityHelper().equal(original, copy));
+        assertTrue(Arrays.equals((byte[])DATA_VALUES[4], copy.getBytes("valueBytes")));
+
+        // unset and null values stay unset and null
+        DataObject empty = hc.getDataFactory().create(type);
+        empty.set("valueIntObject", null);
+        copy = binaryRoundTrip(empty, hc);
+        assertTrue(copy.isSet("valueIntObject"));
+        assertNull(copy.get("valueIntObject"));
+        assertFalse(copy.isSet("valueString"));
+        assertTrue(hc.getEqualityHelper().equal(empty, copy));
+    }
+
+    public void testBinaryReferences() throws Exception
+    {
+        HelperContext hc = SDOUtil.createHelperContext();
+        Type type = defineBinaryType(hc);
+        DataGraph dataGraph = SDOUtil.createDataGraph();
+        DataObject root = dataGraph.createRootObject(type);
+        DataObject first = root.createDataObject("children");
+        DataObject second = root.createDataObject("children");
+        DataObject grandChild = second.createDataObject("children");
+        root.set("partner", grandChild); // forward
+        grandChild.set("partner", first); // backward
+        second.set("partner", second); // self
+        first.setString("valueString", "first");
+
+        DataObject copy = binaryRoundTrip(root, hc);
+        assertTrue(hc.getEqualityHelper().equal(root, copy));
+        assertSame(copy.getDataObject("children[2]/children[1]"), copy.getDataObject("partner"));
+        assertSame(copy.getDataObject("children[1]"), copy.getDataObject("children[2]/children[1]/partner"));
+        assertSame(copy.getDataObject("children[2]"), copy.getDataObject("children[2]/partner"));
+
+        DataGraph graphCopy = (DataGraph)serializeBinary(dataGraph, hc);
+        assertTrue(hc.getEqualityHelper().equal(root, graphCopy.getRootObject()));
+        assertSame(graphCopy.getRootObject().getDataObject("children[1]"),
+            graphCopy.getRootObject().getDataObject("children[2]/children[1]/partner"));
+
+        // the DataGraph carries its change summary
+        dataGraph.getChangeSummary().beginLogging();
+        first.delete();
+        root.createDataObject("children").setString("valueString", "third");
+        graphCopy = (DataGraph)serializeBinary(dataGraph, hc);
+        assertTrue(graphCopy.getChangeSummary().isLogging());
+        assertEquals(dataGraph.getChangeSummary().getChangedDataObjects().size(), graphCopy.getChangeSummary().getChangedDataObjects().size());
+        graphCopy.getChangeSummary().undoChanges();
+        dataGraph.getChangeSummary().undoChanges();
+        assertTrue(hc.getEqualityHelper().equal(root, graphCopy.getRootObject()));
+        assertEquals("first", graphCopy.getRootObject().getString("children[1]/valueString"));
+    }
+
+    public void testSubtree() throws Exception
+    {
+        HelperContext hc = SDOUtil.createHelperContext();
+        Type type = defineBinaryType(hc);
+        DataObject root = hc.getDataFactory().create(type);
+        for (int i = 0; i < 100; i++)
+            root.createDataObject("children").setInt("valueInt", i);
+        DataObject item = root.getDataObject("children[50]");
+        DataObject detail = item.createDataObject("children");
+        detail.set("partner", item); // inside the subtree
+        item.set("partner", root.getDataObject("children[1]")); // outside the subtree
+
+        ByteArrayOutputStream whole = new ByteArrayOutputStream();
+        ObjectOutputStream out = SDOUtil.createObjectOutputStream(whole, hc);
+        out.writeObject(item);
+        out.close();
+        ByteArrayOutputStream subtree = new ByteArrayOutputStream();
+        SDOObjectOutputStream subtreeOut = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(subtree, hc);
+        subtreeOut.setSubtree(true);
+        try {
+            subtreeOut.writeObject(item);
+            fail("the reference outside the subtree should fail the write");
+        } catch (NotSerializableException e) {
+            // expected
+        }
+
+        subtree = new ByteArrayOutputStream();
+        subtreeOut = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(subtree, hc);
+        subtreeOut.setSubtree(true);
+        subtreeOut.setOutsideReferencesDropped(true);
+        subtreeOut.writeObject(item);
+        subtreeOut.close();
+        assertTrue(subtree.size() < whole.size());
+
+        DataObject copy = deserialize(subtree, hc);
+        assertNull(copy.getContainer());
+        assertEquals(49, copy.getInt("valueInt"));
+        assertSame(copy, copy.getDataObject("children[1]/partner"));
+        assertNull(copy.get("partner"));
+        assertSame(item, root.getDataObject("children[50]"));
+
+        ByteArrayOutputStream direct = new ByteArrayOutputStream();
+        try {
+            org.apache.tuscany.sdo.api.SDOUtil.writeDataObject(item, new DataOutputStream(direct));
+            fail("the reference outside the written DataObject should fail the write");
+        } catch (NotSerializableException e) {
+            // expected
+        }
+    }
+
+    public void testSharedDictionary() throws Exception
+    {
+        HelperContext hc = SDOUtil.createHelperContext();
+        Type type = defineBinaryType(hc);
+        DataObject[] dataObjects = new DataObject[20];
+        for (int i = 0; i < dataObjects.length; i++)
+        {
+            dataObjects[i] = hc.getDataFactory().create(type);
+            dataObjects[i].setInt("valueInt", i);
+            dataObjects[i].createDataObject("children").setString("valueString", "child " + i);
+        }
+
+        ByteArrayOutputStream separate = new ByteArrayOutputStream();
+        SDOObjectOutputStream out = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(separate, hc);
+        out.setBinary(true);
+        for (int i = 0; i < dataObjects.length; i++)
+            out.writeObject(dataObjects[i]);
+        out.close();
+        ByteArrayOutputStream shared = new ByteArrayOutputStream();
+        out = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(shared, hc);
+        out.setDictionaryShared(true);
+        assertTrue(out.isBinary());
+        for (int i = 0; i < dataObjects.length; i++)
+            out.writeObject(dataObjects[i]);
+        out.close();
+        assertTrue(shared.size() < separate.size());
+
+        ObjectInputStream input = SDOUtil.createObjectInputStream(new ByteArrayInputStream(shared.toByteArray()), hc);
+        for (int i = 0; i < dataObjects.length; i++)
+            assertTrue(hc.getEqualityHelper().equal(dataObjects[i], (DataObject)input.readObject()));
+        input.close();
+    }
+
+    Object serializeBinary(Object object, HelperContext hc) throws IOException, ClassNotFoundException
+    {
+        ByteArrayOutputStream byteArrayOutput = new ByteArrayOutputStream();
+        SDOObjectOutputStream out = (SDOObjectOutputStream)SDOUtil.createObjectOutputStream(byteArrayOutput, hc);
+        out.setBinary(true);
+        out.writeObject(object);
+        out.close();
+        ObjectInputStream input = SDOUtil.createObjectInputStream(new ByteArrayInputStream(byteArrayOutput.toByteArray()), hc);
+        Object result = input.readObject();
+        input.close();
+        return result;
+    }
+
     /**
      * Serialize the DataObject then Deserialize the output. 
      * to testDO.
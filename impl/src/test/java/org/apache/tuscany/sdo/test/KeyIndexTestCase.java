@@ -0,0 +1,195 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.util.KeyIndex;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.impl.ENotificationImpl;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.helper.HelperContext;
+
+public class KeyIndexTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/xpath.xsd";
+    private final String XPATH_XML = "/xpath.xml";
+
+    HelperContext hc;
+    DataObject drive;
+    Property folderProperty;
+    Property folderNameProperty;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+
+        drive = hc.getXMLHelper().load(getClass().getResourceAsStream(XPATH_XML)).getRootObject();
+        folderProperty = drive.getInstanceProperty("Folder");
+        folderNameProperty = folderProperty.getType().getProperty("FolderName");
+        SDOUtil.createKeyIndex(drive, folderProperty, folderNameProperty);
+    }
+
+    public void testLookup() {
+        assertEquals("Kapil", drive.getString("Folder[FolderName=Folder00000000011]/creator"));
+        assertSame(drive.getList("Folder").get(0), drive.get("Folder[FolderName=Folder00000000000]"));
+        assertNull(drive.get("Folder[FolderName=foo]"));
+        assertNull(drive.get("Folder[FolderName=foo]/creator"));
+    }
+
+    public void testListChanges() {
+        List folders = drive.getList("Folder");
+        DataObject first = (DataObject)folders.get(0);
+
+        DataObject added = drive.createDataObject("Folder");
+        added.setString("FolderName", "Added");
+        added.setString("creator", "Frank");
+        assertEquals("Frank", drive.getString("Folder[FolderName=Added]/creator"));
+
+        first.delete();
+        assertNull(drive.get("Folder[FolderName=Folder00000000000]"));
+
+        DataObject replacement = hc.getDataFactory().create(folderProperty.getType());
+        replacement.setString("FolderName", "Replacement");
+        folders.set(0, replacement);
+        assertSame(replacement, drive.get("Folder[FolderName=Replacement]"));
+        assertNull(drive.get("Folder[FolderName=Folder00000000011]"));
+
+        folders.clear();
+        assertNull(drive.get("Folder[FolderName=Replacement]"));
+        assertNull(drive.get("Folder[FolderName=Added]"));
+    }
+
+    public void testKeyChanges() {
+        DataObject folder = drive.getDataObject("Folder.1");
+        folder.setString("FolderName", "Renamed");
+        assertNull(drive.get("Folder[FolderName=Folder00000000011]"));
+        assertSame(folder, drive.get("Folder[FolderName=Renamed]"));
+
+        folder.unset("FolderName");
+        assertNull(drive.get("Folder[FolderName=Renamed]"));
+    }
+
+    public void testDuplicateKeys() {
+        DataObject folder0 = drive.getDataObject("Folder.0");
+        DataObject folder1 = drive.getDataObject("Folder.1");
+        folder1.setString("FolderName", "Folder00000000000");
+        assertEquals("Hasan", drive.getString("Folder[FolderName=Folder00000000000]/creator"));
+
+        drive.getList("Folder").move(0, 1);
+        assertEquals("Kapil", drive.getString("Folder[FolderName=Folder00000000000]/creator"));
+
+        folder1.setString("FolderName", "Other");
+        assertSame(folder0, drive.get("Folder[FolderName=Folder00000000000]"));
+    }
+
+    public void testDuplicateKeyChanges() {
+        DataObject folder0 = drive.getDataObject("Folder.0");
+        DataObject folder1 = drive.getDataObject("Folder.1");
+        folder0.setString("FolderName", "Folder00000000011");
+        assertSame(folder0, drive.get("Folder[FolderName=Folder00000000011]"));
+
+        DataObject added = drive.createDataObject("Folder");
+        added.setString("FolderName", "Folder00000000011");
+        assertSame(folder0, drive.get("Folder[FolderName=Folder00000000011]"));
+
+        folder0.setString("FolderName", "Other");
+        assertSame(folder1, drive.get("Folder[FolderName=Folder00000000011]"));
+    }
+
+    /**
+     * An unexpected change of the list rebuilds the index, after detaching it from the elements reported as gone.
+     */
+    public void testRebuildDetaches() {
+        KeyIndex keyIndex = KeyIndex.get((EObject)drive, (EStructuralFeature)folderProperty, "FolderName");
+        EObject stray = (EObject)hc.getDataFactory().create(folderProperty.getType());
+        stray.eAdapters().add(keyIndex);
+        keyIndex.notifyChanged(new ENotificationImpl((InternalEObject)drive, Notification.UNSET, (EStructuralFeature)folderProperty,
+            Collections.singletonList(stray), null));
+        assertFalse(stray.eAdapters().contains(keyIndex));
+        assertSame(drive.getList("Folder").get(0), drive.get("Folder[FolderName=Folder00000000000]"));
+    }
+
+    public void testSetThroughPredicate() {
+        DataObject replacement = hc.getDataFactory().create(folderProperty.getType());
+        replacement.setString("FolderName", "Replacement");
+        drive.set("Folder[FolderName=Folder00000000011]", replacement);
+        assertSame(replacement, drive.get("Folder.1"));
+        assertSame(replacement, drive.get("Folder[FolderName=Replacement]"));
+    }
+
+    /**
+     * A lookup through an index mustn't scan the list for the position of the match, which only a set needs.
+     */
+    public void testNoScan() {
+        SDOUtil.removeKeyIndex(drive, folderProperty, folderNameProperty);
+        ScanCountingKeyIndex keyIndex = new ScanCountingKeyIndex((EObject)drive, (EStructuralFeature)folderProperty, (EStructuralFeature)folderNameProperty);
+
+        DataObject folder = drive.getDataObject("Folder.1");
+        assertSame(folder, drive.get("Folder[FolderName=Folder00000000011]"));
+        assertEquals("Kapil", drive.getString("Folder[FolderName=Folder00000000011]/creator"));
+        assertTrue(drive.isSet("Folder[FolderName=Folder00000000011]"));
+        assertEquals(0, keyIndex.scans);
+
+        DataObject replacement = hc.getDataFactory().create(folderProperty.getType());
+        replacement.setString("FolderName", "Replacement");
+        drive.set("Folder[FolderName=Folder00000000011]", replacement);
+        assertEquals(1, keyIndex.scans);
+        assertSame(replacement, drive.get("Folder.1"));
+    }
+
+    static class ScanCountingKeyIndex extends KeyIndex {
+        int scans;
+
+        ScanCountingKeyIndex(EObject owner, EStructuralFeature feature, EStructuralFeature keyFeature) {
+            super(owner, feature, keyFeature);
+            owner.eAdapters().add(this);
+            rebuild();
+        }
+
+        public int indexOf(EObject element) {
+            ++scans;
+            return super.indexOf(element);
+        }
+    }
+
+    public void testRemoveKeyIndex() {
+        SDOUtil.removeKeyIndex(drive, folderProperty, folderNameProperty);
+        DataObject folder = drive.getDataObject("Folder.1");
+        folder.setString("FolderName", "Renamed");
+        assertSame(folder, drive.get("Folder[FolderName=Renamed]"));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.helper.TypeHelperImpl;
+import org.apache.tuscany.sdo.impl.ClassImpl;
+import org.apache.tuscany.sdo.util.resource.LoadPlan;
+import org.apache.tuscany.sdo.util.resource.SavePlan;
+import org.eclipse.emf.ecore.util.BasicExtendedMetaData;
+import org.eclipse.emf.ecore.util.ExtendedMetaData;
+
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+public class LoadPlanTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/XMLStreamHelper.xsd";
+    private final String TEST_NAMESPACE = "http://www.example.com/simple";
+
+    HelperContext hc;
+    ExtendedMetaData extendedMetaData;
+    Type quoteType;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+
+        extendedMetaData = ((TypeHelperImpl) hc.getTypeHelper()).getExtendedMetaData();
+        quoteType = hc.getTypeHelper().getType(TEST_NAMESPACE, "Quote");
+    }
+
+    public void testEntries() {
+        LoadPlan loadPlan = ((ClassImpl) quoteType).getLoadPlan(extendedMetaData);
+
+        LoadPlan.Entry entry = loadPlan.getEntry(TEST_NAMESPACE, "price");
+        assertNotNull(entry);
+        assertSame(quoteType.getProperty("price"), entry.property);
+        assertSame(quoteType.getProperty("price"), entry.containing);
+        assertSame(quoteType.getProperty("quotes"), loadPlan.getEntry(TEST_NAMESPACE, "quotes").property);
+
+        assertNull(loadPlan.getEntry("", "price"));
+        assertNull(loadPlan.getEntry(TEST_NAMESPACE, "undefined"));
+    }
+
+    public void testPlanIsRebuiltWhenPropertiesChange() {
+        ClassImpl type = (ClassImpl) quoteType;
+        LoadPlan loadPlan = type.getLoadPlan(extendedMetaData);
+        assertSame(loadPlan, type.getLoadPlan(extendedMetaData));
+
+        SDOUtil.createProperty(quoteType, "extra", hc.getTypeHelper().getType("commonj.sdo", "String"));
+        LoadPlan newPlan = type.getLoadPlan(extendedMetaData);
+        assertNotSame(loadPlan, newPlan);
+        assertSame(quoteType.getProperty("price"), newPlan.getEntry(TEST_NAMESPACE, "price").property);
+    }
+
+    public void testPlanIsBuiltForOtherMetaData() {
+        ClassImpl type = (ClassImpl) quoteType;
+        LoadPlan loadPlan = type.getLoadPlan(extendedMetaData);
+
+        ExtendedMetaData otherMetaData = new BasicExtendedMetaData();
+        LoadPlan otherPlan = type.getLoadPlan(otherMetaData);
+        assertNotSame(loadPlan, otherPlan);
+        assertTrue(otherPlan.isFor(quoteType.getProperties(), otherMetaData));
+        assertSame(quoteType.getProperty("price"), otherPlan.getEntry(TEST_NAMESPACE, "price").property);
+        assertSame(loadPlan, type.getLoadPlan(extendedMetaData));
+    }
+
+    public void testSavePlanIsBuiltForOtherMetaData() {
+        ClassImpl type = (ClassImpl) quoteType;
+        SavePlan savePlan = type.getSavePlan(extendedMetaData);
+        assertSame(savePlan, type.getSavePlan(extendedMetaData));
+
+        ExtendedMetaData otherMetaData = new BasicExtendedMetaData();
+        SavePlan otherPlan = type.getSavePlan(otherMetaData);
+        assertNotSame(savePlan, otherPlan);
+        assertTrue(otherPlan.isFor(quoteType.getProperties(), otherMetaData));
+        assertSame(savePlan, type.getSavePlan(extendedMetaData));
+    }
+}
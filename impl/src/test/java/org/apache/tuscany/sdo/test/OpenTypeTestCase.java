@@ -27,8 +27,10 @@ import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.tuscany.sdo.api.SDOUtil;
+import org.eclipse.emf.ecore.EObject;
 
 import commonj.sdo.DataObject;
 import commonj.sdo.Property;
@@ -93,6 +95,76 @@ public class OpenTypeTestCase extends TestCase {
       
     }
 
+    /**
+     * Open content property lookups by name must follow additions and removals of open content.
+     */
+    public void testOpenPropertyLookup() {
+        Type quoteType = th.getType(TEST_NAMESPACE, "OpenQuote");
+        DataObject quote = df.create(quoteType);
+        quote.setString("symbol", "s1");
+        assertNull(quote.getInstanceProperty("company"));
+        assertFalse(((EObject)quote).eNotificationRequired());
+
+        Property companyProperty = xsdh.getGlobalProperty(TEST_NAMESPACE, "company", true);
+        DataObject company = quote.createDataObject(companyProperty);
+        company.setString("name", "FlyByNightTechnology");
+        assertSame(companyProperty, quote.getInstanceProperty("company"));
+        assertTrue(((EObject)quote).eNotificationRequired());
+        assertEquals("FlyByNightTechnology", quote.getString("company.0/name"));
+
+        Property priceProperty = xsdh.getGlobalProperty(TEST_NAMESPACE, "price", true);
+        quote.getList(priceProperty).add(new BigDecimal("1000.0"));
+        assertSame(priceProperty, quote.getInstanceProperty("price"));
+        assertSame(companyProperty, quote.getInstanceProperty("company"));
+
+        quote.unset(companyProperty);
+        assertNull(quote.getInstanceProperty("company"));
+        assertNull(quote.get("company"));
+        assertSame(priceProperty, quote.getInstanceProperty("price"));
+
+        quote.set("extra", "value");
+        assertNotNull(quote.getInstanceProperty("extra"));
+        assertEquals("value", quote.getString("extra"));
+    }
+
+    /**
+     * Instance properties are the shared properties of the type until open content is added.
+     */
+    public void testInstancePropertiesCache() {
+        Type quoteType = th.getType(TEST_NAMESPACE, "OpenQuote");
+        DataObject quote = df.create(quoteType);
+        quote.setString("symbol", "s1");
+
+        List properties = quote.getInstanceProperties();
+        assertSame(properties, quote.getInstanceProperties());
+        assertEquals(quoteType.getProperties(), properties);
+        try {
+            properties.clear();
+            fail("instance properties should be unmodifiable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+
+        Property priceProperty = xsdh.getGlobalProperty(TEST_NAMESPACE, "price", true);
+        quote.getList(priceProperty).add(new BigDecimal("1000.0"));
+        List openProperties = quote.getInstanceProperties();
+        assertNotSame(properties, openProperties);
+        assertTrue(openProperties.contains(priceProperty));
+        assertSame(openProperties, quote.getInstanceProperties());
+
+        Property companyProperty = xsdh.getGlobalProperty(TEST_NAMESPACE, "company", true);
+        DataObject company = quote.createDataObject(companyProperty);
+        openProperties = quote.getInstanceProperties();
+        assertTrue(openProperties.contains(companyProperty));
+        assertSame(openProperties, quote.getInstanceProperties());
+
+        quote.unset(priceProperty);
+        assertFalse(quote.getInstanceProperties().contains(priceProperty));
+
+        assertFalse(company.getType().isOpen());
+        assertSame(company.getInstanceProperties(), df.create(company.getType()).getInstanceProperties());
+    }
+
     /**
      * Although this behavior is not mandated by the SDO 2.1 specification it should be possible
      * to demand-create DataObject properties by calling createDataObject(String name).
@@ -0,0 +1,131 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * Measures the throughput of path based get and set, from one thread up to one thread per processor.
+ * Each thread works on its own DataObjects, so any loss of scaling comes from state shared by the path evaluation.
+ */
+public class PathAccessPerformanceTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/simple.xsd";
+    private final String TEST_NAMESPACE = "http://www.example.com/simple";
+
+    private static final int CHILDREN = 10;
+    private static final int ITERATIONS = 20000;
+
+    HelperContext hc;
+    Type quoteType;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+
+        quoteType = hc.getTypeHelper().getType(TEST_NAMESPACE, "Quote");
+    }
+
+    protected DataObject createQuote() {
+        DataObject quote = hc.getDataFactory().create(quoteType);
+        quote.setString("symbol", "fbnt");
+        for (int i = 0; i < CHILDREN; i++) {
+            DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setString("companyName", "Company" + i);
+            child.setBigDecimal("price", new BigDecimal(i));
+        }
+        return quote;
+    }
+
+    protected void access(DataObject quote, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            quote.setDouble("quotes.3/volume", i);
+            assertEquals(i, quote.getDouble("quotes[4]/volume"), 0);
+            assertEquals(new BigDecimal(5), quote.get("quotes[6]/price"));
+            assertEquals("Company7", quote.getString("quotes[symbol=\"S7\"]/companyName"));
+        }
+    }
+
+    /**
+     * Runs the access loop on the specified number of threads and returns the overall throughput in operations per second.
+     */
+    protected long run(int threadCount) throws Exception {
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final DataObject quote = createQuote();
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        access(quote, ITERATIONS);
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        if (failure[0] != null) {
+            fail("path access failed on " + threadCount + " threads: " + failure[0]);
+        }
+        return 4L * ITERATIONS * threadCount * 1000 / elapsed;
+    }
+
+    public void testConcurrentPathAccess() throws Exception {
+        // warm up
+        access(createQuote(), ITERATIONS);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threadCount = 1; ; threadCount *= 2) {
+            if (threadCount > processors) {
+                threadCount = processors;
+            }
+            System.out.println("Path access, " + threadCount + " thread(s): " + run(threadCount) + " operations/second");
+            if (threadCount == processors) {
+                break;
+            }
+        }
+    }
+}
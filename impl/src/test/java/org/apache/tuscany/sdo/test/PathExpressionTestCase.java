@@ -0,0 +1,143 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.PathExpression;
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.util.DataObjectUtil;
+import org.apache.tuscany.sdo.util.PathExpressionImpl;
+import org.eclipse.emf.ecore.EObject;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+public class PathExpressionTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/xpath.xsd";
+    private final String XPATH_XML = "/xpath.xml";
+
+    HelperContext hc;
+    DataObject drive;
+    Type driveType;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+
+        drive = hc.getXMLHelper().load(getClass().getResourceAsStream(XPATH_XML)).getRootObject();
+        driveType = drive.getType();
+    }
+
+    public void testCompiledPathMatchesStringPath() {
+        String[] paths = new String[] {
+            "id",
+            "Folder[1]/FolderName",
+            "Folder.1/@creation_date",
+            "Folder[FolderName=Folder00000000011]/SecurityObject/Allows/Allow.1/User",
+            "Folder.0/SecurityObject/Denies/Deny[2]/User",
+            "Folder.1/..",
+        };
+        for (int i = 0; i < paths.length; i++) {
+            PathExpression pathExpression = SDOUtil.compilePath(driveType, paths[i]);
+            assertEquals(paths[i], DataObjectUtil.Accessor.create((EObject)drive, paths[i]).getAndRecyle(), pathExpression.get(drive));
+            assertEquals(paths[i], DataObjectUtil.Accessor.create((EObject)drive, paths[i]).isSetAndRecyle(), pathExpression.isSet(drive));
+            assertEquals(paths[i], pathExpression.get(drive), drive.get(paths[i]));
+        }
+
+        assertEquals("Robbie", SDOUtil.compilePath(driveType, "Folder[FolderName=Folder00000000011]/SecurityObject/Allows/Allow.1/User").get(drive));
+        assertSame(drive, SDOUtil.compilePath(driveType, "Folder.1/..").get(drive));
+    }
+
+    public void testRootPath() {
+        DataObject allow = drive.getDataObject("Folder.0/SecurityObject/Allows/Allow.0");
+        PathExpression pathExpression = SDOUtil.compilePath(allow.getType(), "/Folder.1/FolderName");
+        assertEquals("Folder00000000011", pathExpression.get(allow));
+    }
+
+    public void testUnresolvedPaths() {
+        String[] paths = new String[] {
+            "Folder[3]",
+            "Folder[0]",
+            "Folder.2",
+            "Folder.-1",
+            "Folder[FolderName=foo]",
+            "Folder[FolderName=foo]/FolderName",
+        };
+        for (int i = 0; i < paths.length; i++) {
+            PathExpression pathExpression = SDOUtil.compilePath(driveType, paths[i]);
+            assertNull(paths[i], pathExpression.get(drive));
+            assertFalse(paths[i], pathExpression.isSet(drive));
+        }
+
+        try {
+            SDOUtil.compilePath(driveType, "Folder[3]").set(drive, null);
+            fail("set on an out of range index should throw an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testSetAndUnset() {
+        PathExpression user = SDOUtil.compilePath(driveType, "Folder.1/SecurityObject/Denies/Deny.0/User");
+        user.set(drive, "Frank");
+        assertEquals("Frank", drive.getString("Folder.1/SecurityObject/Denies/Deny.0/User"));
+
+        PathExpression creator = SDOUtil.compilePath(driveType, "Folder[2]/creator");
+        assertTrue(creator.isSet(drive));
+        creator.unset(drive);
+        assertFalse(creator.isSet(drive));
+        assertFalse(drive.isSet("Folder.1/creator"));
+    }
+
+    public void testTypedPathSetters() {
+        drive.setString("Folder[FolderName=Folder00000000011]/SecurityObject/Denies/Deny.0/User", "Frank");
+        assertEquals("Frank", drive.get("Folder.1/SecurityObject/Denies/Deny.0/User"));
+
+        PathExpressionImpl.Target target = DataObjectUtil.getPathExpression(driveType, "Folder.1/FolderName").resolve(drive);
+        assertSame(drive.getDataObject("Folder.1").getType().getProperty("FolderName"), target.getProperty());
+        target.set("Renamed");
+        assertEquals("Renamed", drive.getString("Folder[2]/FolderName"));
+
+        try {
+            drive.setString("Folder[3]/FolderName", "foo");
+            fail("set on an out of range index should throw an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    public void testCompiledPathIsShared() {
+        PathExpression pathExpression = SDOUtil.compilePath(driveType, "Folder[1]/FolderName");
+        assertSame(pathExpression, SDOUtil.compilePath(driveType, "Folder[1]/FolderName"));
+        assertSame(driveType, pathExpression.getType());
+        assertEquals("Folder[1]/FolderName", pathExpression.getPath());
+    }
+}
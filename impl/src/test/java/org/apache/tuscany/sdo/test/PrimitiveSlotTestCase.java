@@ -0,0 +1,124 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+
+import commonj.sdo.ChangeSummary;
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+import commonj.sdo.helper.TypeHelper;
+
+/**
+ * Tests dynamic DataObjects whose primitive properties are stored in packed primitive slots.
+ */
+public class PrimitiveSlotTestCase extends TestCase {
+
+    HelperContext hc;
+    Type positionType;
+    Property quantityProperty;
+    Property priceProperty;
+    Property activeProperty;
+    Property codeProperty;
+    Property nameProperty;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+        TypeHelper th = hc.getTypeHelper();
+
+        positionType = SDOUtil.createType(hc, "http://www.example.com/slots", "Position", false);
+        quantityProperty = SDOUtil.createProperty(positionType, "quantity", th.getType("commonj.sdo", "Int"));
+        priceProperty = SDOUtil.createProperty(positionType, "price", th.getType("commonj.sdo", "Double"));
+        activeProperty = SDOUtil.createProperty(positionType, "active", th.getType("commonj.sdo", "Boolean"));
+        codeProperty = SDOUtil.createProperty(positionType, "code", th.getType("commonj.sdo", "Character"));
+        nameProperty = SDOUtil.createProperty(positionType, "name", th.getType("commonj.sdo", "String"));
+        SDOUtil.createProperty(positionType, "changeSummary", th.getType("commonj.sdo", "ChangeSummaryType"));
+    }
+
+    public void testGetSet() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        assertEquals(0, position.getInt(quantityProperty));
+        assertEquals(0.0, position.getDouble(priceProperty), 0);
+        assertFalse(position.getBoolean(activeProperty));
+
+        position.setInt(quantityProperty, -5);
+        position.setDouble(priceProperty, 12.5);
+        position.setBoolean(activeProperty, true);
+        position.setChar(codeProperty, 'x');
+        position.setString(nameProperty, "fbnt");
+
+        assertEquals(-5, position.getInt(quantityProperty));
+        assertEquals(new Integer(-5), position.get(quantityProperty));
+        assertEquals(12.5, position.getDouble(priceProperty), 0);
+        assertEquals(Boolean.TRUE, position.get(activeProperty));
+        assertEquals('x', position.getChar(codeProperty));
+        assertEquals("fbnt", position.getString(nameProperty));
+        assertEquals("12.5", position.getString(priceProperty));
+    }
+
+    public void testIsSetAndUnset() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        assertFalse(position.isSet(quantityProperty));
+        position.setInt(quantityProperty, 3);
+        assertTrue(position.isSet(quantityProperty));
+        position.unset(quantityProperty);
+        assertFalse(position.isSet(quantityProperty));
+        assertEquals(0, position.getInt(quantityProperty));
+    }
+
+    public void testChangeSummary() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        position.setInt(quantityProperty, 1);
+        position.setDouble(priceProperty, 2.0);
+
+        ChangeSummary changeSummary = position.getChangeSummary();
+        changeSummary.beginLogging();
+        position.setInt(quantityProperty, 10);
+        position.setDouble(priceProperty, 20.0);
+        position.unset(activeProperty);
+        position.setBoolean(activeProperty, true);
+
+        ChangeSummary.Setting oldQuantity = changeSummary.getOldValue(position, quantityProperty);
+        assertEquals(new Integer(1), oldQuantity.getValue());
+        assertTrue(oldQuantity.isSet());
+        assertFalse(changeSummary.getOldValue(position, activeProperty).isSet());
+
+        changeSummary.undoChanges();
+        assertEquals(1, position.getInt(quantityProperty));
+        assertEquals(2.0, position.getDouble(priceProperty), 0);
+        assertFalse(position.getBoolean(activeProperty));
+        assertFalse(position.isSet(activeProperty));
+    }
+
+    public void testCopy() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        position.setInt(quantityProperty, 7);
+        position.setString(nameProperty, "copy");
+        DataObject copy = hc.getCopyHelper().copy(position);
+        assertEquals(7, copy.getInt(quantityProperty));
+        assertEquals("copy", copy.getString(nameProperty));
+        assertTrue(hc.getEqualityHelper().equal(position, copy));
+    }
+}
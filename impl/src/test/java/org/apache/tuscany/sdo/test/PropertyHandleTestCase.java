@@ -0,0 +1,136 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.PropertyHandle;
+import org.apache.tuscany.sdo.api.SDOUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+public class PropertyHandleTestCase extends TestCase {
+
+    private final String TEST_NAMESPACE = "http://www.example.com/handles";
+
+    HelperContext hc;
+    Type positionType;
+    Type subPositionType;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        DataObject typeDef = hc.getDataFactory().create("commonj.sdo", "Type");
+        typeDef.set("uri", TEST_NAMESPACE);
+        typeDef.set("name", "Position");
+        addProperty(typeDef, "name", "String");
+        addProperty(typeDef, "quantity", "Int");
+        addProperty(typeDef, "id", "Long");
+        addProperty(typeDef, "price", "Double");
+        addProperty(typeDef, "active", "Boolean");
+        positionType = hc.getTypeHelper().define(typeDef);
+
+        DataObject subTypeDef = hc.getDataFactory().create("commonj.sdo", "Type");
+        subTypeDef.set("uri", TEST_NAMESPACE);
+        subTypeDef.set("name", "SubPosition");
+        ((List)subTypeDef.get("baseType")).add(positionType);
+        addProperty(subTypeDef, "note", "String");
+        subPositionType = hc.getTypeHelper().define(subTypeDef);
+    }
+
+    protected void addProperty(DataObject typeDef, String name, String typeName) {
+        DataObject property = typeDef.createDataObject("property");
+        property.set("name", name);
+        property.set("type", hc.getTypeHelper().getType("commonj.sdo", typeName));
+    }
+
+    protected PropertyHandle handle(String name) {
+        return SDOUtil.getPropertyHandle(positionType, positionType.getProperty(name));
+    }
+
+    public void testPrimitiveAccess() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        PropertyHandle quantity = handle("quantity");
+        PropertyHandle id = handle("id");
+        PropertyHandle price = handle("price");
+        PropertyHandle active = handle("active");
+
+        assertSame(positionType, quantity.getType());
+        assertSame(positionType.getProperty("quantity"), quantity.getProperty());
+
+        quantity.setInt(position, 42);
+        id.setLong(position, 1234567890123L);
+        price.setDouble(position, 9.5);
+        active.setBoolean(position, true);
+
+        assertEquals(42, position.getInt("quantity"));
+        assertEquals(1234567890123L, position.getLong("id"));
+        assertEquals(9.5, position.getDouble("price"), 0);
+        assertTrue(position.getBoolean("active"));
+
+        assertEquals(42, quantity.getInt(position));
+        assertEquals(1234567890123L, id.getLong(position));
+        assertEquals(9.5, price.getDouble(position), 0);
+        assertTrue(active.getBoolean(position));
+        assertEquals(new Integer(42), quantity.get(position));
+    }
+
+    public void testConversions() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        PropertyHandle quantity = handle("quantity");
+        PropertyHandle price = handle("price");
+
+        quantity.setDouble(position, 7.0);
+        assertEquals(7, position.getInt("quantity"));
+        assertEquals(7L, quantity.getLong(position));
+        assertEquals(position.getString("quantity"), quantity.getString(position));
+
+        price.setString(position, "12.25");
+        assertEquals(12.25, position.getDouble("price"), 0);
+        assertEquals(12, price.getInt(position));
+        assertEquals(position.getFloat("price"), price.getFloat(position), 0);
+    }
+
+    public void testIsSetAndUnset() {
+        DataObject position = hc.getDataFactory().create(positionType);
+        PropertyHandle name = handle("name");
+        assertFalse(name.isSet(position));
+        name.setString(position, "fbnt");
+        assertTrue(name.isSet(position));
+        assertEquals("fbnt", name.get(position));
+        name.unset(position);
+        assertFalse(name.isSet(position));
+        assertFalse(position.isSet("name"));
+    }
+
+    public void testSubtypeInstance() {
+        DataObject position = hc.getDataFactory().create(subPositionType);
+        PropertyHandle quantity = handle("quantity");
+        quantity.setInt(position, 3);
+        assertEquals(3, position.getInt("quantity"));
+        assertEquals(3, quantity.getInt(position));
+    }
+}
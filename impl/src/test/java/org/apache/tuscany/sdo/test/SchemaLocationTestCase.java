@@ -20,9 +20,12 @@
 package org.apache.tuscany.sdo.test;
 
 import java.io.IOException;
+import java.net.URL;
 import java.util.*;
 
 import org.apache.tuscany.sdo.SDOPackage;
+import org.apache.tuscany.sdo.api.SDOHelper;
+import org.apache.tuscany.sdo.helper.HelperContextImpl;
 import org.apache.tuscany.sdo.util.SDOUtil;
 
 import junit.framework.TestCase;
@@ -45,4 +48,38 @@ public class SchemaLocationTestCase extends TestCase {
         XMLDocument doc = XMLHelper.INSTANCE.load(getClass().getResourceAsStream(TEST_XML_DOCUMENT), "whatever", options);
         assertNotSame(doc.getRootObject().getType(), SDOPackage.eINSTANCE.getAnyTypeDataObject());
     }
-}
\ No newline at end of file
+
+    /**
+     * A HelperContext defines the schemas of a location once: loading the document again reuses the types.
+     */
+    public void testSchemaLocationCache() throws IOException {
+        Map options = new HashMap();
+        options.put(SDOHelper.XMLOptions.XML_LOAD_SCHEMA, Boolean.TRUE);
+        HelperContext hc = org.apache.tuscany.sdo.api.SDOUtil.createHelperContext();
+        XMLDocument doc = hc.getXMLHelper().load(getClass().getResourceAsStream(TEST_XML_DOCUMENT), "whatever", options);
+        assertNotSame(doc.getRootObject().getType(), SDOPackage.eINSTANCE.getAnyTypeDataObject());
+
+        ((HelperContextImpl) hc).seal();
+        XMLDocument again = hc.getXMLHelper().load(getClass().getResourceAsStream(TEST_XML_DOCUMENT), "whatever", options);
+        assertSame(doc.getRootObject().getType(), again.getRootObject().getType());
+
+    }
+
+    /**
+     * A sealed HelperContext loads documents whose schemas define namespaces it already has.
+     */
+    public void testSchemaLocationSealed() throws IOException {
+        HelperContext hc = org.apache.tuscany.sdo.api.SDOUtil.createHelperContext();
+        String[] schemas = { "/XMLDocumentSchemaLocation.xsd", "/open.xsd", "/XMLDocumentNoNamespaceSchemaLocation.xsd" };
+        for (int i = 0; i < schemas.length; ++i) {
+            URL url = getClass().getResource(schemas[i]);
+            hc.getXSDHelper().define(url.openStream(), url.toString());
+        }
+        ((HelperContextImpl) hc).seal();
+
+        Map options = new HashMap();
+        options.put(SDOHelper.XMLOptions.XML_LOAD_SCHEMA, Boolean.TRUE);
+        XMLDocument doc = hc.getXMLHelper().load(getClass().getResourceAsStream(TEST_XML_DOCUMENT), "whatever", options);
+        assertNotSame(doc.getRootObject().getType(), SDOPackage.eINSTANCE.getAnyTypeDataObject());
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.helper.HelperContextImpl;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * Compares the throughput of concurrent metadata reads, by any number of threads, on the types of a sealed
+ * HelperContext with the same reads on the types of an unsealed one.
+ */
+public class SealedHelperContextPerformanceTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/simple.xsd";
+    private final String TEST_NAMESPACE = "http://www.example.com/simple";
+
+    private static final String[] NAMES = new String[] { "symbol", "companyName", "price", "volume", "quotes", "unknown" };
+    private static final int ITERATIONS = 200000;
+
+    protected HelperContext createHelperContext(boolean sealed) throws Exception {
+        HelperContext hc = SDOUtil.createHelperContext();
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+        if (sealed) {
+            ((HelperContextImpl)hc).seal();
+        }
+        return hc;
+    }
+
+    protected void read(Type type, DataObject quote, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            String name = NAMES[i % NAMES.length];
+            type.getProperty(name);
+            type.getProperties();
+            if (i % NAMES.length != NAMES.length - 1) {
+                quote.isSet(name);
+            }
+        }
+    }
+
+    /**
+     * Runs the read loop on the specified number of threads, all on the same types, and returns the overall throughput in operations per second.
+     */
+    protected long run(HelperContext hc, int threadCount) throws Exception {
+        final Type type = hc.getTypeHelper().getType(TEST_NAMESPACE, "Quote");
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final DataObject quote = hc.getDataFactory().create(type);
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        read(type, quote, ITERATIONS);
+                    } catch (Throwable e) {
+                        failure[0] = e;
+                    }
+                }
+            };
+        }
+
+        long start = System.currentTimeMillis();
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].start();
+        }
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+
+        if (failure[0] != null) {
+            fail("metadata reads failed on " + threadCount + " threads: " + failure[0]);
+        }
+        return 3L * ITERATIONS * threadCount * 1000 / elapsed;
+    }
+
+    public void testConcurrentMetadataReads() throws Exception {
+        HelperContext unsealed = createHelperContext(false);
+        HelperContext sealed = createHelperContext(true);
+
+        // warm up
+        run(unsealed, 1);
+        run(sealed, 1);
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for (int threadCount = 1; ; threadCount *= 2) {
+            if (threadCount > processors) {
+                threadCount = processors;
+            }
+            System.out.println("Metadata reads, " + threadCount + " thread(s): unsealed " + run(unsealed, threadCount)
+                + ", sealed " + run(sealed, threadCount) + " operations/second");
+            if (threadCount == processors) {
+                break;
+            }
+        }
+    }
+}
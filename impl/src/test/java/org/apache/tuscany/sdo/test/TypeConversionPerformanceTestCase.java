@@ -0,0 +1,159 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.test;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URL;
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.apache.tuscany.sdo.api.SDOUtil;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+import commonj.sdo.helper.HelperContext;
+
+/**
+ * Measures the throughput of the typed accessors for each conversion exercised by TypeConversionTestCase.
+ * Each operation resets the property to its initial value, then gets it as the target type and sets it back.
+ */
+public class TypeConversionPerformanceTestCase extends TestCase {
+
+    private final String TEST_MODEL = "/api_test.xsd";
+    private final String TEST_NAMESPACE = "http://www.example.com/api_test";
+
+    private static final int ITERATIONS = 20000;
+
+    private static final int BOOLEAN = 0;
+    private static final int BYTE = 1;
+    private static final int CHAR = 2;
+    private static final int DOUBLE = 3;
+    private static final int FLOAT = 4;
+    private static final int INT = 5;
+    private static final int LONG = 6;
+    private static final int SHORT = 7;
+    private static final int BYTES = 8;
+    private static final int BIGDECIMAL = 9;
+    private static final int BIGINTEGER = 10;
+    private static final int DATE = 11;
+    private static final int STRING = 12;
+
+    private static final String[] NAMES = {
+        "Boolean", "Byte", "Char", "Double", "Float", "Int", "Long", "Short", "Bytes", "BigDecimal", "BigInteger", "Date", "String"
+    };
+
+    private static final int[] NUMBER_TARGETS = { BYTE, DOUBLE, FLOAT, INT, LONG, SHORT, BIGDECIMAL, BIGINTEGER, STRING };
+
+    /**
+     * The conversion matrix: property name, initial value and target types.
+     */
+    private static final Object[][] MATRIX = {
+        { "booleanVal", Boolean.TRUE, new int[] { BOOLEAN, STRING } },
+        { "byteVal", new Byte((byte)-127), new int[] { BYTE, DOUBLE, FLOAT, INT, LONG, SHORT, STRING } },
+        { "charVal", new Character('?'), new int[] { CHAR, STRING } },
+        { "doubleVal", new Double(Double.MAX_VALUE), NUMBER_TARGETS },
+        { "floatVal", new Float(Float.MIN_VALUE), NUMBER_TARGETS },
+        { "intVal", new Integer(5), NUMBER_TARGETS },
+        { "longVal", new Long(7000L), new int[] { BYTE, DOUBLE, FLOAT, INT, LONG, SHORT, BIGDECIMAL, BIGINTEGER, DATE, STRING } },
+        { "shortVal", new Short((short)-8000), new int[] { BYTE, DOUBLE, FLOAT, INT, LONG, SHORT, STRING } },
+        { "stringVal", "5", new int[] { BOOLEAN, BYTE, CHAR, DOUBLE, FLOAT, INT, LONG, SHORT, BIGDECIMAL, BIGINTEGER, STRING } },
+        { "stringVal", "1999-07-25T8:50:14.33Z", new int[] { DATE } },
+        { "stringVal", "0A64", new int[] { BYTES } },
+        { "bytesVal", new byte[] { 10, 100 }, new int[] { BYTES, BIGINTEGER, STRING } },
+        { "decimalVal", new BigDecimal("-3"), new int[] { DOUBLE, FLOAT, INT, LONG, BIGDECIMAL, BIGINTEGER, STRING } },
+        { "integerVal", new BigInteger("31500"), new int[] { DOUBLE, FLOAT, INT, LONG, SHORT, BYTES, BIGDECIMAL, BIGINTEGER, STRING } },
+        { "dateVal", new Date(1000000000000L), new int[] { LONG, DATE, STRING } },
+    };
+
+    HelperContext hc;
+    DataObject dataObject;
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        hc = SDOUtil.createHelperContext();
+
+        URL url = getClass().getResource(TEST_MODEL);
+        InputStream inputStream = url.openStream();
+        hc.getXSDHelper().define(inputStream, url.toString());
+        inputStream.close();
+
+        Type type = hc.getTypeHelper().getType(TEST_NAMESPACE, "APITest");
+        dataObject = hc.getDataFactory().create(type);
+    }
+
+    protected void convert(Property property, int target) {
+        switch (target) {
+            case BOOLEAN: dataObject.setBoolean(property, dataObject.getBoolean(property)); break;
+            case BYTE: dataObject.setByte(property, dataObject.getByte(property)); break;
+            case CHAR: dataObject.setChar(property, dataObject.getChar(property)); break;
+            case DOUBLE: dataObject.setDouble(property, dataObject.getDouble(property)); break;
+            case FLOAT: dataObject.setFloat(property, dataObject.getFloat(property)); break;
+            case INT: dataObject.setInt(property, dataObject.getInt(property)); break;
+            case LONG: dataObject.setLong(property, dataObject.getLong(property)); break;
+            case SHORT: dataObject.setShort(property, dataObject.getShort(property)); break;
+            case BYTES: dataObject.setBytes(property, dataObject.getBytes(property)); break;
+            case BIGDECIMAL: dataObject.setBigDecimal(property, dataObject.getBigDecimal(property)); break;
+            case BIGINTEGER: dataObject.setBigInteger(property, dataObject.getBigInteger(property)); break;
+            case DATE: dataObject.setDate(property, dataObject.getDate(property)); break;
+            case STRING: dataObject.setString(property, dataObject.getString(property)); break;
+        }
+    }
+
+    /**
+     * Runs the specified conversion and returns its throughput in operations per second.
+     */
+    protected long run(Property property, Object initialValue, int target, int iterations) {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            dataObject.set(property, initialValue);
+            convert(property, target);
+        }
+        return iterations * 1000L / Math.max(1, System.currentTimeMillis() - start);
+    }
+
+    public void testConversionMatrix() throws Exception {
+        // warm up
+        for (int row = 0; row < MATRIX.length; row++) {
+            Property property = dataObject.getInstanceProperty((String)MATRIX[row][0]);
+            int[] targets = (int[])MATRIX[row][2];
+            for (int i = 0; i < targets.length; i++) {
+                run(property, MATRIX[row][1], targets[i], ITERATIONS);
+            }
+        }
+
+        int conversions = 0;
+        long start = System.currentTimeMillis();
+        for (int row = 0; row < MATRIX.length; row++) {
+            Property property = dataObject.getInstanceProperty((String)MATRIX[row][0]);
+            int[] targets = (int[])MATRIX[row][2];
+            for (int i = 0; i < targets.length; i++) {
+                long rate = run(property, MATRIX[row][1], targets[i], ITERATIONS);
+                System.out.println(property.getName() + " as " + NAMES[targets[i]] + ": " + rate + " operations/second");
+                ++conversions;
+            }
+        }
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        System.out.println("All conversions: " + (long)conversions * ITERATIONS * 1000 / elapsed + " operations/second");
+    }
+}
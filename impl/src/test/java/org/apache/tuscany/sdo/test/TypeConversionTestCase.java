@@ -1004,4 +1004,17 @@ public class TypeConversionTestCase extends TestCase
         assertEquals(DataObjectUtil.getBigDecimal(new Long(Long.MAX_VALUE)).longValue(), Long.MAX_VALUE);
       }
     }
+
+    public void testValueConverterIsCached()
+    {
+        Property stringVal = API_TEST_TYPE.getProperty("stringVal");
+        Property intVal = API_TEST_TYPE.getProperty("intVal");
+        assertSame(DataObjectUtil.getValueConverter(stringVal), DataObjectUtil.getValueConverter(stringVal));
+        assertNotSame(DataObjectUtil.getValueConverter(stringVal), DataObjectUtil.getValueConverter(intVal));
+
+        assertEquals(new Integer(5), DataObjectUtil.getSetValue(intVal, "5"));
+        assertEquals(new Integer(5), DataObjectUtil.getSetValue(intVal, 5L));
+        assertEquals("5", DataObjectUtil.getSetValue(stringVal, 5));
+        assertEquals(new Character('x'), DataObjectUtil.getSetValue(intVal, 'x'));
+    }
 }
@@ -21,9 +21,18 @@ package org.apache.tuscany.sdo.test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -311,4 +320,133 @@ MARGIN+  "</cs:openQuote>");
           fail("Encoding ('" + xmlDoc.getEncoding() +"' is not correct.  UTF-8 is the expected encoding.");
       }
    }
+
+  /**
+   * Holds the tasks of a batch without running them, so that the calling thread loads or saves every document in order.
+   */
+  static class DeferringExecutor
+  {
+      final List tasks = new ArrayList();
+
+      public void execute(Runnable task) {
+          tasks.add(task);
+      }
+  }
+
+  public void testLoadDocuments() throws IOException
+  {
+      DeferringExecutor executor = new DeferringExecutor();
+      Map options = new HashMap();
+      options.put(SDOHelper.XMLOptions.XML_EXECUTOR, executor);
+      List inputs = new ArrayList();
+      for (int i = 0; i < 20; i++) {
+          // the envelope elements are demand created by the first ten documents
+          String prefix = "env" + i % 10;
+          inputs.add("<" + prefix + ":Envelope xmlns:" + prefix + "=\"http://www.example.com/envelope" + i % 10 + "\"><" + prefix + ":Body>"
+              + "<simple:stockQuote xmlns:simple=\"http://www.example.com/simple\"><symbol>S" + i + "</symbol><price>" + i + ".5</price></simple:stockQuote>"
+              + "</" + prefix + ":Body></" + prefix + ":Envelope>");
+      }
+      List documents = SDOUtil.loadDocuments(xmlh, inputs, options);
+      assertEquals(inputs.size(), documents.size());
+      List quotes = new ArrayList();
+      List outputs = new ArrayList();
+      for (int i = 0; i < documents.size(); i++) {
+          DataObject envelope = ((XMLDocument)documents.get(i)).getRootObject();
+          assertSame(((XMLDocument)documents.get(i % 10)).getRootObject().getInstanceProperty("Body"), envelope.getInstanceProperty("Body"));
+          DataObject body = (DataObject)envelope.getList("Body").get(0);
+          DataObject quote = (DataObject)body.getList("stockQuote").get(0);
+          assertEquals("S" + i, quote.getString("symbol"));
+          assertEquals(i + 0.5, quote.getDouble("price"), 0);
+          quotes.add(xmlh.createDocument(quote, "http://www.example.com/simple", "stockQuote"));
+          outputs.add(new StringWriter());
+      }
+
+      SDOUtil.saveDocuments(xmlh, quotes, outputs, options);
+      for (int i = 0; i < executor.tasks.size(); i++) {
+          // the batches are complete, so the late tasks find no document left
+          ((Runnable)executor.tasks.get(i)).run();
+      }
+      for (int i = 0; i < outputs.size(); i++) {
+          XMLDocument document = xmlh.load(outputs.get(i).toString());
+          assertEquals("S" + i, document.getRootObject().getString("symbol"));
+      }
+  }
+
+  public void testLoadDocumentsOnCallingThread() throws IOException
+  {
+      final List readers = new ArrayList();
+      List inputs = new ArrayList();
+      for (int i = 0; i < 4; i++) {
+          inputs.add(new StringReader("<simple:stockQuote xmlns:simple=\"http://www.example.com/simple\"><symbol>S" + i + "</symbol></simple:stockQuote>") {
+              public int read(char[] buffer, int offset, int length) throws IOException {
+                  readers.add(Thread.currentThread());
+                  return super.read(buffer, offset, length);
+              }
+          });
+      }
+      List documents = SDOUtil.loadDocuments(xmlh, inputs, null);
+      for (int i = 0; i < documents.size(); i++) {
+          assertEquals("S" + i, ((XMLDocument)documents.get(i)).getRootObject().getString("symbol"));
+      }
+      assertFalse(readers.isEmpty());
+      for (int i = 0; i < readers.size(); i++) {
+          // without an executor no thread is started
+          assertSame(Thread.currentThread(), readers.get(i));
+      }
+  }
+
+  public void testLoadDocumentsFailure() throws IOException
+  {
+      List inputs = new ArrayList();
+      inputs.add("<simple:stockQuote xmlns:simple=\"http://www.example.com/simple\"><symbol>S</symbol></simple:stockQuote>");
+      inputs.add("<simple:stockQuote xmlns:simple=\"http://www.example.com/simple\"><symbol>");
+      try {
+          SDOUtil.loadDocuments(xmlh, inputs, null);
+          fail();
+      } catch (IOException e) {
+          // the second document is not well formed
+      }
+  }
+
+  public void testChannels() throws IOException
+  {
+      DataObject quote = hc.getDataFactory().create("http://www.example.com/simple", "Quote");
+      quote.setString("symbol", "fbnt");
+      // more than a save buffer
+      StringBuffer name = new StringBuffer();
+      for (int i = 0; i < 100000; i++) {
+          name.append((char)('a' + i % 26));
+      }
+      quote.setString("companyName", name.toString());
+      XMLDocument document = xmlh.createDocument(quote, "http://www.example.com/simple", "stockQuote");
+
+      File file = File.createTempFile("quote", ".xml");
+      try {
+          FileOutputStream outputStream = new FileOutputStream(file);
+          try {
+              SDOUtil.saveDocument(xmlh, document, outputStream.getChannel(), null);
+          } finally {
+              outputStream.close();
+          }
+          ByteArrayOutputStream expected = new ByteArrayOutputStream();
+          xmlh.save(document, expected, null);
+          assertEquals(expected.size(), file.length());
+
+          RandomAccessFile input = new RandomAccessFile(file, "r");
+          try {
+              FileChannel channel = input.getChannel();
+              DataObject loaded = SDOUtil.loadDocument(xmlh, channel, null, null).getRootObject();
+              assertEquals(name.toString(), loaded.getString("companyName"));
+
+              ByteBuffer buffer = ByteBuffer.wrap(expected.toByteArray());
+              loaded = SDOUtil.loadDocument(xmlh, buffer, null, null).getRootObject();
+              assertEquals("fbnt", loaded.getString("symbol"));
+              assertEquals(0, buffer.position());
+          } finally {
+              input.close();
+          }
+      } finally {
+          file.delete();
+      }
+  }
 }
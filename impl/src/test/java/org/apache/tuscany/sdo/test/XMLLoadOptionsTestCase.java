@@ -21,6 +21,8 @@ package org.apache.tuscany.sdo.test;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,6 +37,9 @@ import org.apache.tuscany.sdo.SDOPackage;
 import org.apache.tuscany.sdo.api.SDOHelper;
 import org.apache.tuscany.sdo.api.SDOUtil;
 import org.apache.tuscany.sdo.api.XMLStreamHelper;
+import org.apache.tuscany.sdo.impl.DynamicDataObjectImpl;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.resource.Resource;
 
 import commonj.sdo.DataObject;
@@ -189,4 +194,59 @@ public class XMLLoadOptionsTestCase extends TestCase {
          */
        assertNotNull(dataObject);        
     }     
+
+    public void testXMLOptionsLazyValues() throws IOException{
+        final HelperContext hc = SDOUtil.createHelperContext();
+        hc.getXSDHelper().define(
+                "<schema xmlns=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"testNS\">"+
+                "<element name=\"root\">"+
+                "<complexType>"+
+                  "<sequence>"+
+                    "<element name=\"amount\" type=\"decimal\"/>"+
+                    "<element name=\"count\" type=\"integer\"/>"+
+                    "<element name=\"data\" type=\"base64Binary\"/>"+
+                    "<element name=\"name\" type=\"string\"/>"+
+                  "</sequence>"+
+                  "<attribute name=\"rate\" type=\"decimal\"/>"+
+                "</complexType>"+
+                "</element>"+
+                "</schema>");
+        final String xml="<p:root xmlns:p=\"testNS\" rate=\"0.25\">"+
+        "<amount>12.50</amount>"+
+        "<count>12345678901234567890</count>"+
+        "<data>AQID</data>"+
+        "<name>n</name>"+
+      "</p:root>";
+
+        options = new HashMap();
+        options.put(SDOHelper.XMLOptions.XML_LOAD_LAZY_VALUES, Boolean.TRUE);
+        final DataObject lazy = hc.getXMLHelper().load(new StringReader(xml), null, options).getRootObject();
+        // only immutable values are kept lexically; a byte array is converted as it is loaded
+        final DynamicDataObjectImpl unread = (DynamicDataObjectImpl) lazy;
+        final EClass eClass = unread.eClass();
+        assertFalse(unread.dynamicGet(eClass.getFeatureID((EStructuralFeature) lazy.getType().getProperty("amount"))) instanceof BigDecimal);
+        assertTrue(unread.dynamicGet(eClass.getFeatureID((EStructuralFeature) lazy.getType().getProperty("data"))) instanceof byte[]);
+        final DataObject eager = hc.getXMLHelper().load(new StringReader(xml), null, null).getRootObject();
+        assertTrue(hc.getEqualityHelper().equal(eager, lazy));
+
+        assertEquals(new BigDecimal("12.50"), lazy.getBigDecimal("amount"));
+        assertSame(lazy.get("amount"), lazy.get("amount"));
+        assertEquals(new BigInteger("12345678901234567890"), lazy.getBigInteger("count"));
+        assertEquals(3, lazy.getBytes("data").length);
+        assertEquals(0.25, lazy.getDouble("rate"), 0);
+        assertTrue(lazy.isSet("rate"));
+        assertEquals("n", lazy.getString("name"));
+
+        assertEquals(hc.getXMLHelper().save(eager, "testNS", "root"), hc.getXMLHelper().save(lazy, "testNS", "root"));
+
+        // a value that is not valid for its type fails when it is read
+        final DataObject invalid = hc.getXMLHelper().load(new StringReader(xml.replaceFirst("12.50", "twelve")), null, options).getRootObject();
+        assertEquals(new BigInteger("12345678901234567890"), invalid.getBigInteger("count"));
+        try {
+            invalid.getBigDecimal("amount");
+            fail();
+        } catch (final RuntimeException e) {
+            assertTrue(true);
+        }
+    }
 }
@@ -144,4 +144,34 @@ public class XMLSaveOptionsTestCase extends TestCase {
 	        streamWriter.flush();
 	        assertEquals(formatted2, writer.toString());	
 	  }      
+
+	  //save to a Writer and with a bounded buffer
+	  public void testSaveXMLDocumentWriter() throws IOException {
+		    final HashMap options = new HashMap();
+		    options.put(org.apache.tuscany.sdo.api.SDOHelper.XMLOptions.XML_SAVE_INDENT, INDENT);
+		    options.put(org.apache.tuscany.sdo.api.SDOHelper.XMLOptions.XML_SAVE_MARGIN, MARGIN);
+		    options.put(org.apache.tuscany.sdo.api.SDOHelper.XMLOptions.XML_SAVE_LINE_BREAK, LINE_BREAK);
+		    hc = SDOUtil.createHelperContext(false,options);
+		    xsdHelper = hc.getXSDHelper();
+		    xmlh = hc.getXMLHelper();
+		    define("/simpleWithChangeSummary.xsd");
+		    final XMLDocument doc = xmlh.load(getClass().getResource("/simpleWithChangeSummary.xml").openStream());
+		    final XMLDocument document = xmlh.createDocument(doc.getRootObject(), doc.getRootElementURI(), doc.getRootElementName());
+
+		    final StringWriter writer = new StringWriter();
+		    xmlh.save(document, writer, null);
+		    assertEquals(formatted1, writer.toString());
+
+		    final HashMap saveOptions = new HashMap();
+		    saveOptions.put(SDOHelper.XMLOptions.XML_SAVE_BUFFER, new Integer(16));
+		    final StringWriter buffered = new StringWriter();
+		    xmlh.save(document, buffered, saveOptions);
+		    assertEquals(formatted1, buffered.toString());
+
+		    // characters beyond ASCII don't depend on the platform charset
+		    doc.getRootObject().setString("companyName", "Fl\u00fcgel \u6771\u4eac");
+		    final StringWriter unicode = new StringWriter();
+		    xmlh.save(document, unicode, null);
+		    assertEquals("Fl\u00fcgel \u6771\u4eac", xmlh.load(unicode.toString()).getRootObject().getString("companyName"));
+	  }
 }
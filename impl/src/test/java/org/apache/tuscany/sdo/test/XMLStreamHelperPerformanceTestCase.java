@@ -28,6 +28,8 @@ import javax.xml.stream.*;
 
 import org.apache.tuscany.sdo.api.XMLStreamHelper;
 import org.apache.tuscany.sdo.api.SDOUtil;
+import org.apache.tuscany.sdo.util.resource.XMLDocumentStreamReader;
+import org.apache.tuscany.sdo.util.resource.XMLStreamSerializer;
 
 import junit.framework.TestCase;
 
@@ -42,40 +44,99 @@ public class XMLStreamHelperPerformanceTestCase extends TestCase {
     HelperContext hc;
     
     /**
-     * Simple Dynamic SDO 2 test.
+     * Compares loading an object from a reader positioned at its element with the baseline of wrapping the reader in an
+     * XMLDocumentStreamReader, as loadObject used to, and with loading the same document through the SAX parser.
      */
-    public void testDynamic() throws Exception {
-        final TypeHelper typeHelper = hc.getTypeHelper();
-        final Type quoteType = typeHelper.getType(TEST_NAMESPACE, "Quote");
-        final DataObject quote = hc.getDataFactory().create(quoteType);
+    public void testLoad() throws Exception {
+        final DataObject quote = hc.getDataFactory().create(TEST_NAMESPACE, "Quote");
+        quote.setString("symbol", "fbnt");
+        quote.setString("companyName", "FlyByNightTechnology");
+        quote.setBigDecimal("price", new BigDecimal("1000.0"));
+        quote.setDouble("volume", 1000);
+        for (int i = 0; i < 20; i++) {
+            final DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setBigDecimal("price", new BigDecimal(i));
+        }
+        final String xml = hc.getXMLHelper().save(quote, TEST_NAMESPACE, "stockQuote");
 
+        final XMLStreamHelper streamHelper = SDOUtil.createXMLStreamHelper(hc);
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        final int iterations = 2000;
+        long objectTime = Long.MAX_VALUE, wrappedTime = Long.MAX_VALUE, saxTime = Long.MAX_VALUE;
+        for (int pass = 0; pass < 5; pass++) { // the best of the passes, so that the first warms up
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                final XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+                reader.nextTag();
+                assertEquals(20, streamHelper.loadObject(reader).getList("quotes").size());
+            }
+            objectTime = Math.min(objectTime, System.currentTimeMillis() - start);
+
+            start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                final XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+                reader.nextTag();
+                assertEquals(20, streamHelper.load(new XMLDocumentStreamReader(reader)).getRootObject().getList("quotes").size());
+            }
+            wrappedTime = Math.min(wrappedTime, System.currentTimeMillis() - start);
+
+            start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                assertEquals(20, hc.getXMLHelper().load(xml).getRootObject().getList("quotes").size());
+            }
+            saxTime = Math.min(saxTime, System.currentTimeMillis() - start);
+        }
+        assertTrue("loadObject took " + objectTime + "ms, the wrapped reader " + wrappedTime + "ms", objectTime <= wrappedTime * 11 / 10 + 20);
+        assertTrue("loadObject took " + objectTime + "ms, the SAX load " + saxTime + "ms", objectTime <= saxTime * 3 / 2 + 20);
+    }
+
+    /**
+     * Compares saving an object straight to a writer with the baseline of serializing the events of a reader over it.
+     */
+    public void testSave() throws Exception {
+        final DataObject quote = hc.getDataFactory().create(TEST_NAMESPACE, "Quote");
         quote.setString("symbol", "fbnt");
         quote.setString("companyName", "FlyByNightTechnology");
         quote.setBigDecimal("price", new BigDecimal("1000.0"));
-        quote.setBigDecimal("open1", new BigDecimal("1000.0"));
-        quote.setBigDecimal("high", new BigDecimal("1000.0"));
-        quote.setBigDecimal("low", new BigDecimal("1000.0"));
         quote.setDouble("volume", 1000);
-        quote.setDouble("change1", 1000);
-
-        final DataObject child = quote.createDataObject("quotes");
-        child.setBigDecimal("price", new BigDecimal("2000.0"));
-        
-        final DataObject quote3 = quote.createDataObject("quotes3");
-        quote3.setString("symbol3", "IBM");
-        quote3.setString("company3", "IBM Corp.");
-        
+        for (int i = 0; i < 20; i++) {
+            final DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setBigDecimal("price", new BigDecimal(i));
+            final DataObject quote3 = child.createDataObject("quotes3");
+            quote3.setString("symbol3", "IBM");
+        }
+
         final XMLStreamHelper streamHelper = SDOUtil.createXMLStreamHelper(hc);
         final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-        final StringWriter writer = new StringWriter();
-        final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
-        
-        final XMLDocument doc = hc.getXMLHelper().createDocument(quote, TEST_NAMESPACE, "stockQuote");
-        streamHelper.save(doc, streamWriter);
-        streamWriter.flush();
-        assertEquals("<p0:stockQuote xmlns:p0=\"http://www.example.com/simple\" xmlns:p1=\"http://www.example.com/simple3\"><p0:symbol>fbnt</p0:symbol><p0:companyName>FlyByNightTechnology</p0:companyName><p0:price>1000.0</p0:price><p0:open1>1000.0</p0:open1><p0:high>1000.0</p0:high><p0:low>1000.0</p0:low><p0:volume>1000.0</p0:volume><p0:change1>1000.0</p0:change1><p0:quotes><p0:price>2000.0</p0:price></p0:quotes><p0:quotes3><p1:symbol3>IBM</p1:symbol3><p1:company3>IBM Corp.</p1:company3></p0:quotes3></p0:stockQuote>",writer.toString());
+        final StringWriter writer = new StringWriter(8192);
+        final int iterations = 2000;
+        long pushTime = Long.MAX_VALUE, pullTime = Long.MAX_VALUE;
+        for (int pass = 0; pass < 5; pass++) { // the best of the passes, so that the first warms up
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                writer.getBuffer().setLength(0);
+                final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+                streamHelper.saveObject(quote, streamWriter);
+                streamWriter.flush();
+            }
+            pushTime = Math.min(pushTime, System.currentTimeMillis() - start);
+            final String pushed = writer.toString();
+
+            start = System.currentTimeMillis();
+            for (int i = 0; i < iterations; i++) {
+                writer.getBuffer().setLength(0);
+                final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+                new XMLStreamSerializer().serialize(new XMLDocumentStreamReader(streamHelper.createXMLStreamReader(quote)), streamWriter);
+                streamWriter.flush();
+            }
+            pullTime = Math.min(pullTime, System.currentTimeMillis() - start);
+            assertEquals(writer.toString(), pushed);
+        }
+        assertTrue("saveObject took " + pushTime + "ms, the serialized reader " + pullTime + "ms", pushTime <= pullTime * 11 / 10 + 20);
     }
-    
+
     protected void setUp() throws Exception {
         super.setUp();
         hc = SDOUtil.createHelperContext();
@@ -25,6 +25,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -41,8 +42,11 @@ import junit.framework.TestCase;
 
 import org.apache.tuscany.sdo.api.SDOUtil;
 import org.apache.tuscany.sdo.api.XMLStreamHelper;
+import org.apache.tuscany.sdo.util.resource.XMLDocumentStreamReader;
+import org.apache.tuscany.sdo.util.resource.XMLStreamSerializer;
 
 import commonj.sdo.DataObject;
+import commonj.sdo.Type;
 import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.XMLDocument;
 
@@ -143,6 +147,41 @@ public class XMLStreamHelperTestCase extends TestCase {
         Assert.assertTrue(xmlStr.indexOf("myAttr=\"helloworld.HelloWorldImpl\"")!=-1);
     }
 
+    /**
+     * Simple Dynamic SDO 2 test, moved from XMLStreamHelperPerformanceTestCase so that it still runs by default.
+     */
+    public void testSaveDynamic() throws Exception {
+        final URL url = getClass().getResource("/XMLStreamHelper.xsd");
+        hc.getXSDHelper().define(url.openStream(), url.toString());
+        final String namespace = "http://www.example.com/simple";
+        final Type quoteType = hc.getTypeHelper().getType(namespace, "Quote");
+        final DataObject quote = hc.getDataFactory().create(quoteType);
+
+        quote.setString("symbol", "fbnt");
+        quote.setString("companyName", "FlyByNightTechnology");
+        quote.setBigDecimal("price", new java.math.BigDecimal("1000.0"));
+        quote.setBigDecimal("open1", new java.math.BigDecimal("1000.0"));
+        quote.setBigDecimal("high", new java.math.BigDecimal("1000.0"));
+        quote.setBigDecimal("low", new java.math.BigDecimal("1000.0"));
+        quote.setDouble("volume", 1000);
+        quote.setDouble("change1", 1000);
+
+        final DataObject child = quote.createDataObject("quotes");
+        child.setBigDecimal("price", new java.math.BigDecimal("2000.0"));
+        
+        final DataObject quote3 = quote.createDataObject("quotes3");
+        quote3.setString("symbol3", "IBM");
+        quote3.setString("company3", "IBM Corp.");
+        
+        final StringWriter writer = new StringWriter();
+        final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+        
+        final XMLDocument doc = hc.getXMLHelper().createDocument(quote, namespace, "stockQuote");
+        streamHelper.save(doc, streamWriter);
+        streamWriter.flush();
+        assertEquals("<p0:stockQuote xmlns:p0=\"http://www.example.com/simple\" xmlns:p1=\"http://www.example.com/simple3\"><p0:symbol>fbnt</p0:symbol><p0:companyName>FlyByNightTechnology</p0:companyName><p0:price>1000.0</p0:price><p0:open1>1000.0</p0:open1><p0:high>1000.0</p0:high><p0:low>1000.0</p0:low><p0:volume>1000.0</p0:volume><p0:change1>1000.0</p0:change1><p0:quotes><p0:price>2000.0</p0:price></p0:quotes><p0:quotes3><p1:symbol3>IBM</p1:symbol3><p1:company3>IBM Corp.</p1:company3></p0:quotes3></p0:stockQuote>",writer.toString());
+    }
+    
     public void testSaveObject() throws XMLStreamException {
         final XMLDocument document = hc.getXMLHelper().load(xml);
         final DataObject moduleObject = document.getRootObject();
@@ -188,6 +227,162 @@ public class XMLStreamHelperTestCase extends TestCase {
         assertTrue(xml.indexOf("xsi:type") != -1);
     }
 
+    /**
+     * Returns what the serializer writes for the events of the reader over the object.
+     */
+    private String saveThroughReader(DataObject dataObject, Map options) throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+        final XMLStreamReader reader = new XMLDocumentStreamReader(streamHelper.createXMLStreamReader(dataObject));
+        if (options == null)
+            new XMLStreamSerializer().serialize(reader, streamWriter);
+        else
+            new XMLStreamSerializer().serialize(reader, streamWriter, options);
+        streamWriter.flush();
+        return writer.toString();
+    }
+
+    private void assertSavedAsReader(DataObject dataObject, Map options) throws XMLStreamException {
+        final StringWriter writer = new StringWriter();
+        final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+        if (options == null)
+            streamHelper.saveObject(dataObject, streamWriter);
+        else
+            streamHelper.saveObject(dataObject, streamWriter, options);
+        streamWriter.flush();
+        Assert.assertEquals(saveThroughReader(dataObject, options), writer.toString());
+    }
+
+    public void testSaveObjectAsReader() throws Exception {
+        final DataObject moduleObject = hc.getXMLHelper().load(xml).getRootObject();
+        assertSavedAsReader(moduleObject, null);
+        assertSavedAsReader((DataObject) moduleObject.getList("component").get(0), null);
+
+        final DataObject mixed = hc.getDataFactory().create("http://www.example.com/mixed", "MixedQuote");
+        mixed.setString("symbol", "fbnt");
+        mixed.getSequence().addText(0, "testing");
+        mixed.getSequence().addText("more testing");
+        assertSavedAsReader(mixed, null);
+
+        URL url = getClass().getResource("/ipo.xsd");
+        hc.getXSDHelper().define(url.openStream(), url.toString());
+        final DataObject order = hc.getDataFactory().create("http://www.example.com/IPO", "PurchaseOrderType");
+        final DataObject billTo = hc.getDataFactory().create("http://www.example.com/IPO", "USAddress");
+        billTo.setString("city", "San Jose");
+        billTo.setString("state", "CA");
+        order.setDataObject("billTo", billTo);
+        order.setString("orderDate", "1999-12-01");
+        assertSavedAsReader(order, null);
+        assertSavedAsReader(billTo, null);
+
+        url = getClass().getResource("/simple.xsd");
+        hc.getXSDHelper().define(url.openStream(), url.toExternalForm());
+        final DataObject quote = hc.getDataFactory().create("http://www.example.com/simple", "Quote");
+        quote.setString("symbol", "fbnt");
+        quote.setDouble("volume", 1000);
+        for (int i = 0; i < 3; i++) {
+            final DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setBigDecimal("price", new java.math.BigDecimal(i));
+        }
+        final Map options = new HashMap();
+        options.put(org.apache.tuscany.sdo.api.SDOHelper.XMLOptions.XML_SAVE_INDENT, " ");
+        options.put(org.apache.tuscany.sdo.api.SDOHelper.XMLOptions.XML_SAVE_LINE_BREAK, "\n");
+        assertSavedAsReader(quote, null);
+        assertSavedAsReader(quote, options);
+
+        final XMLDocument document = hc.getXMLHelper().createDocument(quote, "http://www.example.com/simple", "stockQuote");
+        final StringWriter writer = new StringWriter();
+        final XMLStreamWriter streamWriter = outputFactory.createXMLStreamWriter(writer);
+        streamHelper.save(document, streamWriter);
+        streamWriter.flush();
+        final StringWriter readerWriter = new StringWriter();
+        final XMLStreamWriter readerStreamWriter = outputFactory.createXMLStreamWriter(readerWriter);
+        new XMLStreamSerializer().serialize(streamHelper.createXMLStreamReader(document), readerStreamWriter);
+        readerStreamWriter.flush();
+        Assert.assertEquals(readerWriter.toString(), writer.toString());
+    }
+
+    public void testLoadObjectLeavesReaderOnEndElement() throws Exception {
+        final XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        int event = reader.getEventType();
+        while (!((event == XMLStreamConstants.START_ELEMENT) && reader.getName().equals(name)) && reader.hasNext()) {
+            event = reader.next();
+        }
+        final DataObject dataObject = streamHelper.loadObject(reader);
+        Assert.assertEquals("helloworld.HelloWorldImpl", dataObject.getString("myAttr"));
+        Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+        Assert.assertEquals(name, reader.getName());
+
+        // the rest of the stream can still be read
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    public void testLoadObjects() throws Exception {
+        URL url = getClass().getResource("/simple.xsd");
+        hc.getXSDHelper().define(url.openStream(), url.toExternalForm());
+        DataObject quote = hc.getDataFactory().create("http://www.example.com/simple", "Quote");
+        quote.setString("symbol", "fbnt");
+        for (int i = 0; i < 5; i++) {
+            DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setDouble("volume", i);
+        }
+        String xml = hc.getXMLHelper().save(quote, "http://www.example.com/simple", "stockQuote");
+
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        Iterator quotes = streamHelper.loadObjects(reader, "stockQuote/quotes", null);
+        int count = 0;
+        while (quotes.hasNext()) {
+            DataObject child = (DataObject) quotes.next();
+            Assert.assertSame(quote.getType(), child.getType());
+            Assert.assertEquals("S" + count, child.getString("symbol"));
+            Assert.assertEquals(count, child.getDouble("volume"), 0);
+            Assert.assertNull(child.getContainer());
+            ++count;
+        }
+        Assert.assertEquals(5, count);
+        Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.getEventType());
+        Assert.assertEquals("stockQuote", reader.getLocalName());
+
+        reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        Assert.assertFalse(streamHelper.loadObjects(reader, "{http://www.example.com/simple}stockQuote/symbol/*", null).hasNext());
+    }
+
+    /**
+     * Loading an object from a reader positioned at its element gives the same object as wrapping the reader in an
+     * XMLDocumentStreamReader, as loadObject used to, and as loading the document through the SAX parser.
+     */
+    public void testLoadObjectMatchesDocumentLoad() throws Exception {
+        URL url = getClass().getResource("/XMLStreamHelper.xsd");
+        hc.getXSDHelper().define(url.openStream(), url.toString());
+        DataObject quote = hc.getDataFactory().create("http://www.example.com/simple", "Quote");
+        quote.setString("symbol", "fbnt");
+        quote.setString("companyName", "FlyByNightTechnology");
+        quote.setBigDecimal("price", new java.math.BigDecimal("1000.0"));
+        quote.setDouble("volume", 1000);
+        for (int i = 0; i < 3; i++) {
+            DataObject child = quote.createDataObject("quotes");
+            child.setString("symbol", "S" + i);
+            child.setBigDecimal("price", new java.math.BigDecimal(i));
+        }
+        String xml = hc.getXMLHelper().save(quote, "http://www.example.com/simple", "stockQuote");
+
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        reader.nextTag();
+        DataObject loaded = streamHelper.loadObject(reader);
+        Assert.assertTrue(hc.getEqualityHelper().equal(quote, loaded));
+
+        reader = inputFactory.createXMLStreamReader(new StringReader(xml));
+        reader.nextTag();
+        DataObject wrapped = streamHelper.load(new XMLDocumentStreamReader(reader)).getRootObject();
+        Assert.assertTrue(hc.getEqualityHelper().equal(wrapped, loaded));
+
+        Assert.assertTrue(hc.getEqualityHelper().equal(hc.getXMLHelper().load(xml).getRootObject(), loaded));
+    }
+
     protected void tearDown() throws Exception {
         super.tearDown();
     }
@@ -0,0 +1,67 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.api;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Type;
+
+/**
+ * A path, in the syntax accepted by {@link DataObject#get(String)}, compiled once for repeated evaluation
+ * against instances of a Type. A PathExpression holds no per-evaluation state and may be shared between threads.
+ * @see SDOHelper#compilePath(Type, String)
+ */
+public interface PathExpression
+{
+  /**
+   * Returns the Type this path was compiled against.
+   * @return the Type.
+   */
+  public Type getType();
+
+  /**
+   * Returns the source text of this path.
+   * @return the path.
+   */
+  public String getPath();
+
+  /**
+   * Returns the value at this path, relative to the specified DataObject.
+   * @see DataObject#get(String)
+   */
+  public Object get(DataObject dataObject);
+
+  /**
+   * Sets the value at this path, relative to the specified DataObject.
+   * @see DataObject#set(String, Object)
+   */
+  public void set(DataObject dataObject, Object value);
+
+  /**
+   * Returns whether the value at this path, relative to the specified DataObject, is set.
+   * @see DataObject#isSet(String)
+   */
+  public boolean isSet(DataObject dataObject);
+
+  /**
+   * Unsets the value at this path, relative to the specified DataObject.
+   * @see DataObject#unset(String)
+   */
+  public void unset(DataObject dataObject);
+}
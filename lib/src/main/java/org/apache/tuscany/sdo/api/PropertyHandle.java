@@ -0,0 +1,157 @@
+/**
+ *
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.tuscany.sdo.api;
+
+import commonj.sdo.DataObject;
+import commonj.sdo.Property;
+import commonj.sdo.Type;
+
+/**
+ * A Property of a Type resolved once for repeated access to its value in instances of the Type.
+ * Unlike the <code>DataObject</code> accessors, a handle doesn't look up the property on each access
+ * and its primitive accessors don't box the value when the implementation of the DataObject can avoid it.
+ * Values are converted exactly as by the corresponding <code>DataObject</code> accessors.
+ * A PropertyHandle holds no per-access state and may be shared between threads.
+ * @see SDOHelper#getPropertyHandle(Type, Property)
+ */
+public interface PropertyHandle
+{
+  /**
+   * Returns the Type this handle was resolved against.
+   * @return the Type.
+   */
+  public Type getType();
+
+  /**
+   * Returns the Property this handle accesses.
+   * @return the Property.
+   */
+  public Property getProperty();
+
+  /**
+   * @see DataObject#get(Property)
+   */
+  public Object get(DataObject dataObject);
+
+  /**
+   * @see DataObject#set(Property, Object)
+   */
+  public void set(DataObject dataObject, Object value);
+
+  /**
+   * @see DataObject#isSet(Property)
+   */
+  public boolean isSet(DataObject dataObject);
+
+  /**
+   * @see DataObject#unset(Property)
+   */
+  public void unset(DataObject dataObject);
+
+  /**
+   * @see DataObject#getBoolean(Property)
+   */
+  public boolean getBoolean(DataObject dataObject);
+
+  /**
+   * @see DataObject#setBoolean(Property, boolean)
+   */
+  public void setBoolean(DataObject dataObject, boolean value);
+
+  /**
+   * @see DataObject#getByte(Property)
+   */
+  public byte getByte(DataObject dataObject);
+
+  /**
+   * @see DataObject#setByte(Property, byte)
+   */
+  public void setByte(DataObject dataObject, byte value);
+
+  /**
+   * @see DataObject#getChar(Property)
+   */
+  public char getChar(DataObject dataObject);
+
+  /**
+   * @see DataObject#setChar(Property, char)
+   */
+  public void setChar(DataObject dataObject, char value);
+
+  /**
+   * @see DataObject#getShort(Property)
+   */
+  public short getShort(DataObject dataObject);
+
+  /**
+   * @see DataObject#setShort(Property, short)
+   */
+  public void setShort(DataObject dataObject, short value);
+
+  /**
+   * @see DataObject#getInt(Property)
+   */
+  public int getInt(DataObject dataObject);
+
+  /**
+   * @see DataObject#setInt(Property, int)
+   */
+  public void setInt(DataObject dataObject, int value);
+
+  /**
+   * @see DataObject#getLong(Property)
+   */
+  public long getLong(DataObject dataObject);
+
+  /**
+   * @see DataObject#setLong(Property, long)
+   */
+  public void setLong(DataObject dataObject, long value);
+
+  /**
+   * @see DataObject#getFloat(Property)
+   */
+  public float getFloat(DataObject dataObject);
+
+  /**
+   * @see DataObject#setFloat(Property, float)
+   */
+  public void setFloat(DataObject dataObject, float value);
+
+  /**
+   * @see DataObject#getDouble(Property)
+   */
+  public double getDouble(DataObject dataObject);
+
+  /**
+   * @see DataObject#setDouble(Property, double)
+   */
+  public void setDouble(DataObject dataObject, double value);
+
+  /**
+   * @see DataObject#getString(Property)
+   */
+  public String getString(DataObject dataObject);
+
+  /**
+   * @see DataObject#setString(Property, String)
+   */
+  public void setString(DataObject dataObject, String value);
+}
@@ -19,11 +19,16 @@
  */
 package org.apache.tuscany.sdo.api;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -37,6 +42,8 @@ import commonj.sdo.Type;
 import commonj.sdo.helper.CopyHelper;
 import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.TypeHelper;
+import commonj.sdo.helper.XMLDocument;
+import commonj.sdo.helper.XMLHelper;
 
 /**
  * This interface provides helper functions which are not included in the SDO specification itself.
@@ -209,6 +216,39 @@ public interface SDOHelper
    */
   public void saveDataGraph(DataGraph dataGraph, OutputStream outputStream, Map options) throws IOException;
 
+  /**
+   * Load a serialized data graph from the remaining bytes of the specified buffer, such as a MappedByteBuffer, without
+   * changing its position.
+   * @param buffer the buffer holding the data graph.
+   * @param options loader control options, or null.
+   * @param hc the HelperContext in which to register deserialized Types and to find Types when
+   *              creating DataObject instances, or null for default HelperContext.
+   * @return the de-serialized data graph.
+   * @throws IOException
+   */
+  public DataGraph loadDataGraph(ByteBuffer buffer, Map options, HelperContext hc) throws IOException;
+
+  /**
+   * Load a serialized data graph from the file of the specified channel, from the position of the channel on. The file is
+   * mapped into memory and parsed from there, without stream copies.
+   * @param channel the channel of the file holding the data graph.
+   * @param options loader control options, or null.
+   * @param hc the HelperContext in which to register deserialized Types and to find Types when
+   *              creating DataObject instances, or null for default HelperContext.
+   * @return the de-serialized data graph.
+   * @throws IOException
+   */
+  public DataGraph loadDataGraph(FileChannel channel, Map options, HelperContext hc) throws IOException;
+
+  /**
+   * Serialize the specified data graph to the specified channel, through a reusable direct buffer.
+   * @param dataGraph the data graph to save.
+   * @param channel the channel for the data graph, which is left open.
+   * @param options serializer control options, or null.
+   * @throws IOException
+   */
+  public void saveDataGraph(DataGraph dataGraph, WritableByteChannel channel, Map options) throws IOException;
+
   /**
    * Registers the specified {@link Type type}(s) to be serialized along with
    * the {@link DataObject data object}(s) in the graph. For example, the list of types returned from 
@@ -280,6 +320,143 @@ public interface SDOHelper
    */
   public String getXPath(DataObject dataObject);
   
+  /**
+   * Compile a path, in the syntax accepted by {@link DataObject#get(String)}, for repeated evaluation against
+   * instances of the specified type.
+   * @param type the Type of the DataObjects against which the path will be evaluated.
+   * @param path the path to compile.
+   * @return the compiled PathExpression.
+   */
+  public PathExpression compilePath(Type type, String path);
+  
+  /**
+   * Resolve a Property of a Type into a handle for repeated access to the property's value in instances of the Type.
+   * @param type the Type of the DataObjects that will be accessed.
+   * @param property a Property of the Type.
+   * @return the PropertyHandle.
+   */
+  public PropertyHandle getPropertyHandle(Type type, Property property);
+  
+  /**
+   * Generate, at runtime, a DataObject implementation class with a field for each property of a dynamic Type,
+   * to be used for the Type's subsequently created instances. A Type can also be compiled once it has had a number of
+   * instances, specified by the system property <code>DataObject.compile.threshold</code>, created.
+   * @param type the dynamic Type to compile.
+   * @return true if the Type has been compiled, or false if it isn't a concrete dynamic Type or if bytecode generation
+   * (which requires ASM) isn't available.
+   */
+  public boolean compileType(Type type);
+  
+  /**
+   * Index the DataObjects of a many-valued property by the value of one of their DataType properties, so that
+   * a path predicate of the form <code>property[keyProperty=value]</code> evaluated against the specified DataObject
+   * finds its match without scanning the list. The index is kept up to date as the list and the key values change.
+   * @param dataObject the DataObject owning the list.
+   * @param property a many-valued property of the DataObject whose values are DataObjects.
+   * @param keyProperty a single-valued DataType property of the DataObjects in the list.
+   * @throws IllegalArgumentException if either property isn't of the required kind.
+   */
+  public void createKeyIndex(DataObject dataObject, Property property, Property keyProperty);
+  
+  /**
+   * Remove an index created by {@link #createKeyIndex(DataObject, Property, Property)}.
+   * @param dataObject the DataObject owning the list.
+   * @param property the indexed many-valued property.
+   * @param keyProperty the key property of the index.
+   */
+  public void removeKeyIndex(DataObject dataObject, Property property, Property keyProperty);
+  
+  /**
+   * Load a batch of XML documents in parallel. The XMLHelper of a HelperContext can load and save documents from any
+   * number of threads at once, including documents with elements and attributes not defined by its types, for which
+   * the metadata is demand created once and shared; this method spreads the documents over the executor specified by
+   * the {@link XMLOptions#XML_EXECUTOR} option, or loads them in turn on the calling thread if there is none.
+   * @param xmlHelper the XMLHelper of the HelperContext to load the documents with.
+   * @param inputs the documents, each an InputStream, a Reader or a String containing the XML.
+   * @param options the load options for every document.
+   * @return the List of loaded XMLDocuments, in the order of the inputs.
+   * @throws IOException the exception of the first input, in order, that failed to load.
+   */
+  public List loadDocuments(XMLHelper xmlHelper, List inputs, Object options) throws IOException;
+  
+  /**
+   * Save a batch of XML documents in parallel, as {@link #loadDocuments(XMLHelper, List, Object)} loads them.
+   * @param xmlHelper the XMLHelper of the HelperContext to save the documents with.
+   * @param documents the XMLDocuments to save.
+   * @param outputs an OutputStream or a Writer for each document, in the order of the documents.
+   * @param options the save options for every document.
+   * @throws IOException the exception of the first document, in order, that failed to save.
+   */
+  public void saveDocuments(XMLHelper xmlHelper, List documents, List outputs, Object options) throws IOException;
+  
+  /**
+   * Load an XML document from the remaining bytes of a buffer, such as a MappedByteBuffer, without changing its position.
+   * @param xmlHelper the XMLHelper of the HelperContext to load the document with.
+   * @param buffer the buffer holding the XML.
+   * @param locationURI URI of the document, or null.
+   * @param options the load options, or null.
+   * @return the loaded XMLDocument.
+   * @throws IOException
+   */
+  public XMLDocument loadDocument(XMLHelper xmlHelper, ByteBuffer buffer, String locationURI, Object options) throws IOException;
+  
+  /**
+   * Load an XML document from the file of a channel, from the position of the channel on. The file is mapped into memory
+   * and parsed from there, without stream copies.
+   * @param xmlHelper the XMLHelper of the HelperContext to load the document with.
+   * @param channel the channel of the file holding the XML.
+   * @param locationURI URI of the document, or null.
+   * @param options the load options, or null.
+   * @return the loaded XMLDocument.
+   * @throws IOException
+   */
+  public XMLDocument loadDocument(XMLHelper xmlHelper, FileChannel channel, String locationURI, Object options) throws IOException;
+  
+  /**
+   * Save an XML document to a channel, through a direct buffer reused across the saves of the HelperContext.
+   * @param xmlHelper the XMLHelper of the HelperContext to save the document with.
+   * @param document the XMLDocument to save.
+   * @param channel the channel for the XML, which is left open.
+   * @param options the save options, or null.
+   * @throws IOException
+   */
+  public void saveDocument(XMLHelper xmlHelper, XMLDocument document, WritableByteChannel channel, Object options) throws IOException;
+  
+  /**
+   * Write a DataObject, its contained DataObjects and its change summary in a compact binary format, which refers to
+   * Types and Properties by number and to DataObjects by their position in the output.
+   * @param dataObject the DataObject to write, or null; the DataObjects it references must be contained by it.
+   * @param output the output to write to.
+   * @throws IOException
+   */
+  public void writeDataObject(DataObject dataObject, DataOutput output) throws IOException;
+  
+  /**
+   * Read a DataObject written by {@link #writeDataObject(DataObject, DataOutput)}.
+   * @param input the input to read from.
+   * @param scope the HelperContext defining the Types of the DataObjects.
+   * @return the DataObject read, or null.
+   * @throws IOException
+   */
+  public DataObject readDataObject(DataInput input, HelperContext scope) throws IOException;
+  
+  /**
+   * Write a DataGraph, its DataObjects and its change summary in the binary format of {@link #writeDataObject(DataObject, DataOutput)}.
+   * @param dataGraph the DataGraph to write.
+   * @param output the output to write to.
+   * @throws IOException
+   */
+  public void writeDataGraph(DataGraph dataGraph, DataOutput output) throws IOException;
+  
+  /**
+   * Read a DataGraph written by {@link #writeDataGraph(DataGraph, DataOutput)}.
+   * @param input the input to read from.
+   * @param scope the HelperContext defining the Types of the DataObjects.
+   * @return the DataGraph read.
+   * @throws IOException
+   */
+  public DataGraph readDataGraph(DataInput input, HelperContext scope) throws IOException;
+  
   /**
    * Gets a MetaDataBuilder which can be used to programatically create SDO Types and Properties.
    * @return a MetaDataBuilder instance
@@ -432,6 +609,12 @@ public interface SDOHelper
      */
     final String XML_SAVE_DOCTYPE = "SAVE_DOCTYPE";
 
+    /**
+     * Integer number of characters of a document to hold in memory while saving, past which the document is buffered in a temporary
+     * file until the save completes, so that the memory a save takes doesn't grow with the document. Absence/null is the whole document in memory
+     */
+    final String XML_SAVE_BUFFER = "save buffer";
+
     /**
      * Boolean to process the schemaLocation/noNamespaceSchemaLocation attributes occurring in the instance document to {@link XSDHelper#define convert XSD(s) to Types} 
      */
@@ -447,6 +630,31 @@ public interface SDOHelper
      * The default is Boolean.FALSE unless set to Boolean.TRUE explicitly. 
      */
     final String XML_LOAD_UNKNOWN_PROPERTIES = "load unknown properties";
+
+    /**
+     * Boolean.TRUE to keep the lexical form of single-valued simple values of immutable types, such as decimals, integers and booleans, when loading
+     * and convert each value the first time it is read; a value that is not valid for its type fails then rather than the load.
+     * The first read converts the value under the lock of its DataObject, so threads may share such a DataObject for reading as they would any other.
+     * Values of mutable types, such as dates and base64 binaries, are converted as they are loaded. The default is Boolean.FALSE
+     */
+    final String XML_LOAD_LAZY_VALUES = "load lazy values";
+
+    /**
+     * javax.xml.stream.XMLOutputFactory to create the writers used in saving, e.g. of ChangeSummaries. Absence/null is a factory shared by the HelperContext
+     */
+    final String XML_OUTPUT_FACTORY = "XMLOutputFactory";
+
+    /**
+     * Boolean.FALSE, as a default option of a HelperContext, not to share parsers and load/save caches across the documents it loads and saves. Absence/null is Boolean.TRUE
+     */
+    final String XML_POOL = "pool";
+
+    /**
+     * Object with a public execute(Runnable) method, such as a java.util.concurrent.Executor, to run the loads and saves of a batch of documents on,
+     * alongside the calling thread; a batch hands it at most one task less than the number of processors and completes even if the tasks never run.
+     * The caller owns the executor and its threads. Absence/null is the calling thread alone, which loads or saves the documents in order
+     */
+    final String XML_EXECUTOR = "executor";
   }
 
 }
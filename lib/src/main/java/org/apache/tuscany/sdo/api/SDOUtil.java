@@ -19,11 +19,16 @@
  */
 package org.apache.tuscany.sdo.api;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +43,8 @@ import commonj.sdo.Type;
 import commonj.sdo.helper.CopyHelper;
 import commonj.sdo.helper.HelperContext;
 import commonj.sdo.helper.TypeHelper;
+import commonj.sdo.helper.XMLDocument;
+import commonj.sdo.helper.XMLHelper;
 import commonj.sdo.impl.HelperProvider;
 
 /**
@@ -174,6 +181,30 @@ public final class SDOUtil
   {
     defaultSDOHelper.saveDataGraph(dataGraph, outputStream, options);
   }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#loadDataGraph(ByteBuffer, Map, HelperContext)}.
+   */
+  public static DataGraph loadDataGraph(ByteBuffer buffer, Map options, HelperContext hc) throws IOException
+  {
+    return defaultSDOHelper.loadDataGraph(buffer, options, hc);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#loadDataGraph(FileChannel, Map, HelperContext)}.
+   */
+  public static DataGraph loadDataGraph(FileChannel channel, Map options, HelperContext hc) throws IOException
+  {
+    return defaultSDOHelper.loadDataGraph(channel, options, hc);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#saveDataGraph(DataGraph, WritableByteChannel, Map)}.
+   */
+  public static void saveDataGraph(DataGraph dataGraph, WritableByteChannel channel, Map options) throws IOException
+  {
+    defaultSDOHelper.saveDataGraph(dataGraph, channel, options);
+  }
   
   /**
    * @see {@link org.apache.tuscany.sdo.api.SDOHelper#registerDataGraphTypes(DataGraph, List)}.
@@ -278,7 +309,119 @@ public final class SDOUtil
   {
     return defaultSDOHelper.getXPath(dataObject);
   }
-  
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#compilePath(Type, String)}.
+   */
+  public static PathExpression compilePath(Type type, String path)
+  {
+    return defaultSDOHelper.compilePath(type, path);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#getPropertyHandle(Type, Property)}.
+   */
+  public static PropertyHandle getPropertyHandle(Type type, Property property)
+  {
+    return defaultSDOHelper.getPropertyHandle(type, property);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#compileType(Type)}.
+   */
+  public static boolean compileType(Type type)
+  {
+    return defaultSDOHelper.compileType(type);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#createKeyIndex(DataObject, Property, Property)}.
+   */
+  public static void createKeyIndex(DataObject dataObject, Property property, Property keyProperty)
+  {
+    defaultSDOHelper.createKeyIndex(dataObject, property, keyProperty);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#removeKeyIndex(DataObject, Property, Property)}.
+   */
+  public static void removeKeyIndex(DataObject dataObject, Property property, Property keyProperty)
+  {
+    defaultSDOHelper.removeKeyIndex(dataObject, property, keyProperty);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#loadDocuments(XMLHelper, List, Object)}.
+   */
+  public static List loadDocuments(XMLHelper xmlHelper, List inputs, Object options) throws IOException
+  {
+    return defaultSDOHelper.loadDocuments(xmlHelper, inputs, options);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#saveDocuments(XMLHelper, List, List, Object)}.
+   */
+  public static void saveDocuments(XMLHelper xmlHelper, List documents, List outputs, Object options) throws IOException
+  {
+    defaultSDOHelper.saveDocuments(xmlHelper, documents, outputs, options);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#loadDocument(XMLHelper, ByteBuffer, String, Object)}.
+   */
+  public static XMLDocument loadDocument(XMLHelper xmlHelper, ByteBuffer buffer, String locationURI, Object options) throws IOException
+  {
+    return defaultSDOHelper.loadDocument(xmlHelper, buffer, locationURI, options);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#loadDocument(XMLHelper, FileChannel, String, Object)}.
+   */
+  public static XMLDocument loadDocument(XMLHelper xmlHelper, FileChannel channel, String locationURI, Object options) throws IOException
+  {
+    return defaultSDOHelper.loadDocument(xmlHelper, channel, locationURI, options);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#saveDocument(XMLHelper, XMLDocument, WritableByteChannel, Object)}.
+   */
+  public static void saveDocument(XMLHelper xmlHelper, XMLDocument document, WritableByteChannel channel, Object options) throws IOException
+  {
+    defaultSDOHelper.saveDocument(xmlHelper, document, channel, options);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#writeDataObject(DataObject, DataOutput)}.
+   */
+  public static void writeDataObject(DataObject dataObject, DataOutput output) throws IOException
+  {
+    defaultSDOHelper.writeDataObject(dataObject, output);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#readDataObject(DataInput, HelperContext)}.
+   */
+  public static DataObject readDataObject(DataInput input, HelperContext scope) throws IOException
+  {
+    return defaultSDOHelper.readDataObject(input, scope);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#writeDataGraph(DataGraph, DataOutput)}.
+   */
+  public static void writeDataGraph(DataGraph dataGraph, DataOutput output) throws IOException
+  {
+    defaultSDOHelper.writeDataGraph(dataGraph, output);
+  }
+
+  /**
+   * @see {@link org.apache.tuscany.sdo.api.SDOHelper#readDataGraph(DataInput, HelperContext)}.
+   */
+  public static DataGraph readDataGraph(DataInput input, HelperContext scope) throws IOException
+  {
+    return defaultSDOHelper.readDataGraph(input, scope);
+  }
+
   /**
    * @see {@link org.apache.tuscany.sdo.api.SDOHelper.MetaDataBuilder#createType(HelperContext, String, String, boolean)}.
    */
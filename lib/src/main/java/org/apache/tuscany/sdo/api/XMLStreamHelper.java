@@ -19,6 +19,7 @@
  */
 package org.apache.tuscany.sdo.api;
 
+import java.util.Iterator;
 import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -100,6 +101,38 @@ public interface XMLStreamHelper {
      */
     DataObject loadObject(XMLStreamReader reader, Map options) throws XMLStreamException, IllegalStateException;
 
+    /**
+     * Create DataObjects, one at a time, from the repeated elements at a path
+     * of an XML stream. Each call to next() on the returned Iterator reads the
+     * stream up to the next element at the path and returns a DataObject
+     * created from it; the stream isn't read ahead, and nothing of previous
+     * elements is retained, so a document of any size can be processed in
+     * memory proportional to its largest element.
+     * <p>
+     * The path is a '/' separated list of element names, the first of which
+     * names the element the reader is positioned on, or the root element if
+     * it's positioned on a START_DOCUMENT event. A name is either a local
+     * name, matching elements in any namespace, "{namespace}localName", or
+     * "*", matching any element. Unless {@link #OPTION_DEFAULT_ROOT_TYPE} is
+     * specified, the Type of the DataObjects is that of the property the
+     * elements represent, when it can be determined from their ancestors.
+     * <p>
+     * The Iterator throws a RuntimeException wrapping the XMLStreamException
+     * if there is a problem reading the stream. The reader must not be used
+     * by the caller while the Iterator is in use; once it's exhausted the
+     * reader is positioned on the END_ELEMENT event of the element it was
+     * positioned on, or of the root element.
+     * 
+     * @param reader the stream to read, positioned on a START_DOCUMENT or
+     *            START_ELEMENT event
+     * @param path the path of the elements to create DataObjects from
+     * @param options {@link #OPTION_DEFAULT_ROOT_TYPE}; can be null or empty
+     * @return an Iterator over the DataObjects created from the elements
+     * @throws IllegalStateException if the reader is not positioned on a
+     *             START_DOCUMENT or START_ELEMENT event
+     */
+    Iterator loadObjects(XMLStreamReader reader, String path, Map options) throws IllegalStateException;
+
     /**
      * Save a DataObject to an XML stream.
      * 
@@ -27,12 +27,14 @@ import commonj.sdo.helper.HelperContext;
 
 /**
  * This subclass of ObjectInputStream provides a place to store the scope in which
- * it was created.
+ * it was created, and the dictionary of the Types and Properties read from it so far.
  */
 public class SDOObjectInputStream extends ObjectInputStream {
     
     private HelperContext helperContext;
     
+    private Object dictionary;
+    
     public SDOObjectInputStream(InputStream in, HelperContext helperContext) throws IOException{
         super(in);
         this.helperContext = helperContext;
@@ -45,5 +47,17 @@ public class SDOObjectInputStream extends ObjectInputStream {
     public void setHelperContext(HelperContext helperContext) {
         this.helperContext = helperContext;
     }
+
+    /**
+     * Returns the dictionary the SDO implementation keeps for the stream, or null if
+     * no DataObject read so far used one.
+     */
+    public Object getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(Object dictionary) {
+        this.dictionary = dictionary;
+    }
     
 }
@@ -27,12 +27,24 @@ import commonj.sdo.helper.HelperContext;
 
 /**
  * This subclass of ObjectOutputStream provides a place to store the scope in which
- * it was created.
+ * it was created, and whether DataObjects are written to it in the compact binary
+ * format of {@link org.apache.tuscany.sdo.api.SDOHelper#writeDataObject} instead of as XML,
+ * and the dictionary of the Types and Properties written to it so far.
  */
 public class SDOObjectOutputStream extends ObjectOutputStream {
     
     private HelperContext helperContext;
     
+    private boolean binary;
+    
+    private boolean subtree;
+    
+    private boolean outsideReferencesDropped;
+    
+    private boolean shared;
+    
+    private Object dictionary;
+    
     public SDOObjectOutputStream(OutputStream os, HelperContext helperContext) throws IOException{
         super(os);
         this.helperContext = helperContext;
@@ -45,5 +57,78 @@ public class SDOObjectOutputStream extends ObjectOutputStream {
     public void setHelperContext(HelperContext helperContext) {
         this.helperContext = helperContext;
     }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    /**
+     * Selects the binary format, which the Types of the HelperContext reading the stream
+     * must describe, for the DataObjects and DataGraphs written from now on.
+     * Deselecting it also stops sharing the dictionary.
+     */
+    public void setBinary(boolean binary) {
+        this.binary = binary;
+        if (!binary)
+            shared = false;
+    }
+
+    public boolean isSubtree() {
+        return subtree;
+    }
+
+    /**
+     * Selects whether a contained DataObject is written as the standalone root of its own
+     * tree, in the binary format, instead of as a path into its whole containing tree or DataGraph.
+     * Only the subtree is written: the objects it references in the rest of its containing
+     * tree are not carried with it, neither as copies nor as proxies that could be resolved
+     * later. Writing a subtree that references the rest of its containing tree therefore fails
+     * with a NotSerializableException, unless such references are dropped.
+     */
+    public void setSubtree(boolean subtree) {
+        this.subtree = subtree;
+    }
+
+    public boolean isOutsideReferencesDropped() {
+        return outsideReferencesDropped;
+    }
+
+    /**
+     * Selects whether the references from a subtree to the rest of its containing tree are
+     * written as null, and so read back as null, instead of failing the write. The referenced
+     * objects are lost to the reader; a subtree which needs them should be written as part of
+     * its whole tree instead.
+     */
+    public void setOutsideReferencesDropped(boolean outsideReferencesDropped) {
+        this.outsideReferencesDropped = outsideReferencesDropped;
+    }
+
+    public boolean isDictionaryShared() {
+        return shared;
+    }
+
+    /**
+     * Selects whether the DataObjects and DataGraphs written in the binary format from now
+     * on share one dictionary, so that a Type, a Property or a namespace is written by name
+     * once per stream, and by number afterwards. The stream must then be read with an
+     * SDOObjectInputStream. Sharing the dictionary selects the binary format.
+     */
+    public void setDictionaryShared(boolean shared) {
+        this.shared = shared;
+        if (shared)
+            binary = true;
+    }
+
+    /**
+     * Returns the dictionary the SDO implementation keeps for the stream, or null if
+     * no DataObject written so far shared one.
+     */
+    public Object getDictionary() {
+        return dictionary;
+    }
+
+    public void setDictionary(Object dictionary) {
+        this.dictionary = dictionary;
+    }
     
 }
@@ -169,7 +169,14 @@ public abstract class HelperProviderBase extends HelperProvider
     protected void writeDataObject(DataObject dataObject, ObjectOutput objectOutput) throws IOException
     {
       DataGraph dataGraph = dataObject.getDataGraph();
-      if (dataGraph != null)
+      if (objectOutput instanceof SDOObjectOutputStream && ((SDOObjectOutputStream)objectOutput).isSubtree()
+          && (dataGraph != null || dataObject.getContainer() != null))
+      {
+        // Contained object, or root of a DataGraph: [binary] of its own tree
+        objectOutput.writeByte(2);
+        sdoHelper.writeDataObject(dataObject, objectOutput);
+      }
+      else if (dataGraph != null)
       {
         objectOutput.writeByte(0);
         objectOutput.writeUTF(SDOUtil.getXPath(dataObject));
@@ -181,6 +188,12 @@ public abstract class HelperProviderBase extends HelperProvider
         objectOutput.writeUTF(SDOUtil.getXPath(dataObject));
         objectOutput.writeObject(dataObject.getRootObject());
       }
+      else if (objectOutput instanceof SDOObjectOutputStream && ((SDOObjectOutputStream)objectOutput).isBinary())
+      {
+        // Root object: [binary]
+        objectOutput.writeByte(2);
+        sdoHelper.writeDataObject(dataObject, objectOutput);
+      }
       else
       {
         // Root object
@@ -204,8 +217,18 @@ public abstract class HelperProviderBase extends HelperProvider
 
     protected DataObject readDataObject(ObjectInput objectInput) throws IOException, ClassNotFoundException
     {
-      boolean isRoot = objectInput.readByte() == 1;
-      if (isRoot)
+      byte kind = objectInput.readByte();
+      if (kind == 2)
+      {
+        // Root object: [binary]
+        HelperContext scope = defaultContext;
+        if (objectInput instanceof SDOObjectInputStream)
+        {
+            scope = ((SDOObjectInputStream)objectInput).getHelperContext();
+        }
+        return sdoHelper.readDataObject(objectInput, scope);
+      }
+      if (kind == 1)
       {
         // Root object: [rootXML] = length + XML contents
         int length = objectInput.readInt();
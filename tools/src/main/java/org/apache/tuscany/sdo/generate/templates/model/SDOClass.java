@@ -1283,6 +1283,22 @@ public class SDOClass
   protected final String TEXT_1263 = ")container.get(eContainmentFeature());" + NL + "\t}";
   protected final String TEXT_1264 = NL + "} //";
   protected final String TEXT_1265 = NL;
+  protected final String TEXT_1266 = NL + "\t/**" + NL + "\t * <!-- begin-user-doc -->" + NL + "\t * <!-- end-user-doc -->" + NL + "\t * @generated" + NL + "\t */" + NL + "\tpublic ";
+  protected final String TEXT_1267 = " eGet";
+  protected final String TEXT_1268 = "(int featureID)" + NL + "\t{" + NL + "\t\tswitch (internalConvertIndex(featureID))" + NL + "\t\t{";
+  protected final String TEXT_1269 = NL + "\t\t\tcase ";
+  protected final String TEXT_1270 = ":" + NL + "\t\t\t\treturn ";
+  protected final String TEXT_1271 = "();";
+  protected final String TEXT_1272 = NL + "\t\t}" + NL + "\t\treturn super.eGet";
+  protected final String TEXT_1273 = "(featureID);" + NL + "\t}" + NL;
+  protected final String TEXT_1274 = NL + "\t/**" + NL + "\t * <!-- begin-user-doc -->" + NL + "\t * <!-- end-user-doc -->" + NL + "\t * @generated" + NL + "\t */" + NL + "\tpublic void eSet";
+  protected final String TEXT_1275 = "(int featureID, ";
+  protected final String TEXT_1276 = " value)" + NL + "\t{" + NL + "\t\tswitch (internalConvertIndex(featureID))" + NL + "\t\t{";
+  protected final String TEXT_1277 = NL + "\t\t\tcase ";
+  protected final String TEXT_1278 = ":" + NL + "\t\t\t\tset";
+  protected final String TEXT_1279 = "(value);" + NL + "\t\t\t\treturn;";
+  protected final String TEXT_1280 = NL + "\t\t}" + NL + "\t\tsuper.eSet";
+  protected final String TEXT_1281 = "(featureID, value);" + NL + "\t}" + NL;
 
   public String generate(Object argument)
   {
@@ -4067,6 +4083,46 @@ public class SDOClass
     stringBuffer.append(TEXT_1173);
     //Class/eIsSet.override.javajetinc
     }
+    if (isImplementation && !genModel.isReflectiveDelegation() && !genClass.getImplementedGenFeatures().isEmpty()) {
+    for (int p = 0; p < SDOGenUtil.PRIMITIVE_TYPES.length; ++p) { String primitiveType = SDOGenUtil.PRIMITIVE_TYPES[p]; String primitiveName = CodeGenUtil.capName(primitiveType);
+    List primitiveGenFeatures = SDOGenUtil.getPrimitiveGenFeatures(genClass, genClass.getAllGenFeatures(), primitiveType);
+    if (!primitiveGenFeatures.isEmpty()) {
+    stringBuffer.append(TEXT_1266);
+    stringBuffer.append(primitiveType);
+    stringBuffer.append(TEXT_1267);
+    stringBuffer.append(primitiveName);
+    stringBuffer.append(TEXT_1268);
+    for (Iterator i=primitiveGenFeatures.iterator(); i.hasNext();) { GenFeature genFeature = (GenFeature)i.next();
+    stringBuffer.append(TEXT_1269);
+    stringBuffer.append(genFeature.getUpperName());
+    stringBuffer.append(TEXT_1270);
+    stringBuffer.append(genFeature.getGetAccessor());
+    stringBuffer.append(TEXT_1271);
+    }
+    stringBuffer.append(TEXT_1272);
+    stringBuffer.append(primitiveName);
+    stringBuffer.append(TEXT_1273);
+    }
+    primitiveGenFeatures = SDOGenUtil.getPrimitiveGenFeatures(genClass, genClass.getESetGenFeatures(), primitiveType);
+    if (!primitiveGenFeatures.isEmpty()) {
+    stringBuffer.append(TEXT_1274);
+    stringBuffer.append(primitiveName);
+    stringBuffer.append(TEXT_1275);
+    stringBuffer.append(primitiveType);
+    stringBuffer.append(TEXT_1276);
+    for (Iterator i=primitiveGenFeatures.iterator(); i.hasNext();) { GenFeature genFeature = (GenFeature)i.next();
+    stringBuffer.append(TEXT_1277);
+    stringBuffer.append(genFeature.getUpperName());
+    stringBuffer.append(TEXT_1278);
+    stringBuffer.append(genFeature.getAccessorName());
+    stringBuffer.append(TEXT_1279);
+    }
+    stringBuffer.append(TEXT_1280);
+    stringBuffer.append(primitiveName);
+    stringBuffer.append(TEXT_1281);
+    }
+    }
+    }
     if (isImplementation && !genClass.getMixinGenFeatures().isEmpty()) {
     stringBuffer.append(TEXT_1174);
     for (Iterator m=genClass.getMixinGenClasses().iterator(); m.hasNext();) { GenClass mixinGenClass = (GenClass)m.next(); 
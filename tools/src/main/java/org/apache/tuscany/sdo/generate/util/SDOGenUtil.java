@@ -19,7 +19,9 @@
  */
 package org.apache.tuscany.sdo.generate.util;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.tuscany.sdo.model.ModelFactory;
 import org.apache.tuscany.sdo.model.impl.ModelFactoryImpl;
@@ -252,6 +254,30 @@ public class SDOGenUtil {
     	return result.toString();
     }
     
+    /**
+     * The primitive types that generated classes access by feature ID without boxing.
+     */
+    public static final String[] PRIMITIVE_TYPES = { "boolean", "byte", "char", "short", "int", "long", "float", "double" };
+
+    /**
+     * Returns the features, of the specified ones, with the specified primitive type that the class implements.
+     */
+    public static List getPrimitiveGenFeatures(GenClass genClass, List genFeatures, String primitiveType)
+    {
+      List result = new ArrayList();
+      GenModel genModel = genClass.getGenModel();
+      for (Iterator i = genFeatures.iterator(); i.hasNext(); )
+      {
+        GenFeature genFeature = (GenFeature)i.next();
+        if (genFeature.isPrimitiveType() && !genFeature.isListType() && primitiveType.equals(genFeature.getImportedType())
+            && (!genModel.isMinimalReflectiveMethods() || genClass.getImplementedGenFeatures().contains(genFeature)))
+        {
+          result.add(genFeature);
+        }
+      }
+      return result;
+    }
+
     /*
      * EMF doesn't do what we want in all cases,  so filter the cases we need to handle
      * and drop through to EMF for all others.